@@ -0,0 +1,85 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Interceptor: DataVersionEtagInterceptor — conditional GET
+ *  Guarantees:
+ *    - Matching If-None-Match -> 304 before the controller runs
+ *      (the handler's queries are never executed)
+ *    - ETag + "private, no-cache" on every tagged response so clients
+ *      always revalidate and shared caches never store user data
+ * ================================================================
+ */
+package com.alpha.alphavault.config;
+
+import com.alpha.alphavault.service.DataVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+@RequiredArgsConstructor
+@Component
+public class DataVersionEtagInterceptor implements HandlerInterceptor {
+
+    private final DataVersionService versions;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return true;
+        if (!(handler instanceof HandlerMethod hm)) return true;
+        // Admin include-deleted views are a different representation: never tagged
+        if (SoftDeleteFilters.includeDeletedRequested()) return true;
+
+        DataVersioned spec = hm.getMethodAnnotation(DataVersioned.class);
+        if (spec == null) spec = hm.getBeanType().getAnnotation(DataVersioned.class);
+        if (spec == null || spec.value().length == 0) return true;
+
+        Long userId = userId(request);
+        if (userId == null) return true;
+
+        String tag = versions.etag(userId, spec.value(), spec.fx(), LeanResponseAdvice.variant(request));
+        response.setHeader(HttpHeaders.ETAG, tag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), tag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return false;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long userId(HttpServletRequest request) {
+        Object vars = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(vars instanceof Map<?, ?> m)) return null;
+        Object raw = ((Map<String, String>) m).get("userId");
+        if (raw == null) return null;
+        try {
+            return Long.valueOf(raw.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** If-None-Match may hold a list and weak tags; "*" matches anything. */
+    private static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(tag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Annotation: DataVersioned — opt a controller/handler into ETag/304
+ *  Notes:
+ *    - Applies to GET/HEAD handlers with a {userId} path variable
+ *    - Method-level annotation overrides the class-level one;
+ *      an empty domain list opts the method out
+ * ================================================================
+ */
+package com.alpha.alphavault.config;
+
+import com.alpha.alphavault.enums.DataDomain;
+
+import java.lang.annotation.*;
+
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DataVersioned {
+
+    /** Domains whose changes can alter the response. */
+    DataDomain[] value();
+
+    /** Whether amounts are FX-converted (tag then follows the rate table). */
+    boolean fx() default true;
+}
@@ -0,0 +1,79 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Advice: LeanResponseAdvice - opt-in compact response profile
+ *  Notes:
+ *    - Lean when the client sends "X-Response-Profile: lean" or
+ *      negotiates a binary format (Smile/CBOR clients are new clients)
+ *    - ApiResponse keeps success/status/data; message, path and
+ *      timestamp are dropped; Page becomes ApiResponse.PageEnvelope
+ *    - Default JSON responses are untouched (existing frontend)
+ * ================================================================
+ */
+package com.alpha.alphavault.config;
+
+import com.alpha.alphavault.dto.common.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+
+@RestControllerAdvice
+public class LeanResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String PROFILE_HEADER = "X-Response-Profile";
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+                            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  @NonNull MethodParameter returnType,
+                                  @NonNull MediaType contentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> converterType,
+                                  @NonNull ServerHttpRequest request,
+                                  @NonNull ServerHttpResponse response) {
+        response.getHeaders().addAll(HttpHeaders.VARY, List.of(HttpHeaders.ACCEPT, PROFILE_HEADER));
+        boolean binary = SMILE.includes(contentType) || MediaType.APPLICATION_CBOR.includes(contentType);
+        boolean lean = binary || (request instanceof ServletServerHttpRequest r && isLean(r.getServletRequest()));
+        return lean ? compact(body) : body;
+    }
+
+    private static Object compact(Object body) {
+        if (body instanceof ApiResponse<?> r) {
+            return new ApiResponse<>(r.success(), null, compact(r.data()), r.status(), null, null);
+        }
+        if (body instanceof Page<?> page) {
+            return ApiResponse.PageEnvelope.of(page);
+        }
+        return body;
+    }
+
+    public static boolean isLean(HttpServletRequest request) {
+        return "lean".equalsIgnoreCase(request.getHeader(PROFILE_HEADER));
+    }
+
+    /** Representation token for ETags: tags must differ between variants of the same URL. */
+    public static String variant(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        if (accept != null) {
+            if (accept.contains("smile")) return "smile";
+            if (accept.contains("cbor")) return "cbor";
+        }
+        return isLean(request) ? "lean" : "json";
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Configuration: SchedulingConfig - enables @Scheduled jobs
+ *  Notes:
+ *    - Jobs run on Boot's ThreadPoolTaskScheduler, sized by
+ *      spring.task.scheduling.pool.size (default 1 thread, set to 4 in
+ *      application.properties so one slow job cannot starve the others)
+ * ================================================================
+ */
+package com.alpha.alphavault.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
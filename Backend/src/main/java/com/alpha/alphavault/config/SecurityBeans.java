@@ -1,27 +1,78 @@
 /**
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
- *  Config: SecurityBeans (PasswordEncoder + JWT Filter)
+ *  Config: SecurityBeans (PasswordEncoder + JWT Filter + Rate Limit Filter)
  * ================================================================
  */
 package com.alpha.alphavault.config;
 
+import com.alpha.alphavault.security.JdbcRateLimiter;
 import com.alpha.alphavault.security.JwtAuthenticationFilter;
+import com.alpha.alphavault.security.LocalRateLimiter;
+import com.alpha.alphavault.security.PasswordCostCalibrator;
+import com.alpha.alphavault.security.RateLimitFilter;
+import com.alpha.alphavault.security.TokenRevocationCache;
 import com.alpha.alphavault.utils.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.*;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
 
 @Configuration
 public class SecurityBeans {
+    /**
+     * New hashes use security.password.algorithm ({id}-prefixed); any listed
+     * algorithm still verifies, and older algorithms/costs are re-hashed on
+     * login. Hashes stored before the prefix existed are bare BCrypt.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(); // strength=10 is solid
+    public PasswordEncoder passwordEncoder(@Value("${security.password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${security.password.bcrypt-strength:0}") int bcryptStrength,
+                                           @Value("${security.password.target-ms:250}") long targetMs,
+                                           @Value("${security.password.min-strength:10}") int minStrength,
+                                           @Value("${security.password.max-strength:14}") int maxStrength) {
+        int strength = bcryptStrength > 0 ? bcryptStrength
+                : PasswordCostCalibrator.bcryptStrength(Duration.ofMillis(targetMs), minStrength, maxStrength);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8(),
+                "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unknown security.password.algorithm: " + algorithm);
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
     
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService) {
-        return new JwtAuthenticationFilter(jwtUtils, userDetailsService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtils jwtUtils, TokenRevocationCache revocations) {
+        return new JwtAuthenticationFilter(jwtUtils, revocations);
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(LocalRateLimiter local,
+                                           ObjectProvider<JdbcRateLimiter> shared,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meters,
+                                           @Value("${ratelimit.api.capacity:300}") double apiCapacity,
+                                           @Value("${ratelimit.api.refill-per-minute:300}") double apiRefill,
+                                           @Value("${ratelimit.auth.capacity:20}") double authCapacity,
+                                           @Value("${ratelimit.auth.refill-per-minute:10}") double authRefill,
+                                           @Value("${ratelimit.email.capacity:5}") double emailCapacity,
+                                           @Value("${ratelimit.email.refill-per-minute:0.5}") double emailRefill) {
+        return new RateLimitFilter(local, shared, objectMapper, meters,
+                apiCapacity, apiRefill, authCapacity, authRefill, emailCapacity, emailRefill);
     }
 }
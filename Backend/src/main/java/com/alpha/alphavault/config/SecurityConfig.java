@@ -1,6 +1,7 @@
 package com.alpha.alphavault.config;
 
 import com.alpha.alphavault.security.JwtAuthenticationFilter;
+import com.alpha.alphavault.security.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,13 +24,16 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final Environment environment;
 
     @Value("${ALLOWED_ORIGINS:http://localhost:*,https://*.vercel.app}")
     private String allowedOrigins;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, Environment environment) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, RateLimitFilter rateLimitFilter,
+                          Environment environment) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.environment = environment;
     }
 
@@ -44,6 +48,12 @@ public class SecurityConfig {
                 authz.requestMatchers("/api/auth/**", "/login", "/register").permitAll();
                 authz.requestMatchers("/api/files/**").permitAll();
                 authz.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
+                // accountType drives the granted role (ROLE_ADMIN included): only admins may change it
+                authz.requestMatchers(HttpMethod.PATCH, "/api/users/*/account-type").hasRole("ADMIN");
+                // Global month-end rollover (restart=true rewinds it for every user)
+                authz.requestMatchers(HttpMethod.POST, "/api/budgets/rollover/**").hasRole("ADMIN");
+                // Analytics of arbitrary user ids (reports)
+                authz.requestMatchers("/api/investments/analytics/batch").hasRole("ADMIN");
                 
                 // Test endpoints only allowed in non-production
                 if (!isProduction) {
@@ -57,6 +67,8 @@ public class SecurityConfig {
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
+            // Rate limits first (after CORS, so 429s stay readable by the SPA), then JWT
+            .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
@@ -79,6 +91,8 @@ public class SecurityConfig {
         
         configuration.addAllowedMethod("*");
         configuration.addAllowedHeader("*");
+        configuration.addExposedHeader("ETag"); // lets SPA clients send If-None-Match themselves
+        configuration.addExposedHeader("Retry-After"); // 429 from RateLimitFilter
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -0,0 +1,86 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Configuration: SoftDeleteFilters - one place for soft-delete visibility
+ *  Guarantees:
+ *    - The *DeletedFilter definitions are auto-enabled: every Hibernate
+ *      session (web request, scheduler, batch) hides soft-deleted rows in
+ *      HQL/criteria queries, derived finders and aggregates
+ *    - Admin "include deleted" mode: an ADMIN sending X-Include-Deleted: true
+ *      gets sessions with the filters disabled for that request only
+ *  Notes:
+ *    - Hooked on EntityManager creation (OSIV and transaction-managed),
+ *      so no service has to remember to enable anything
+ *    - Filters never apply to find-by-id, native SQL or bulk UPDATE/DELETE:
+ *      restore(), *IncludingDeleted() and the JDBC paths keep working
+ * ================================================================
+ */
+package com.alpha.alphavault.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.Session;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.lang.NonNull;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+@Component
+public class SoftDeleteFilters implements BeanPostProcessor {
+
+    /** Every @FilterDef(... deleted_at IS NULL, autoEnabled = true) in the model. */
+    public static final List<String> FILTERS = List.of(
+            "expenseDeletedFilter",
+            "incomeDeletedFilter",
+            "budgetDeletedFilter",
+            "debtDeletedFilter",
+            "savingGoalDeletedFilter"
+    );
+
+    public static final String INCLUDE_DELETED_HEADER = "X-Include-Deleted";
+    private static final String ADMIN_ROLE = "ROLE_ADMIN";
+
+    @Override
+    public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) throws BeansException {
+        if (bean instanceof AbstractEntityManagerFactoryBean emf) {
+            emf.setEntityManagerInitializer(SoftDeleteFilters::apply);
+        }
+        return bean;
+    }
+
+    // ============================================================
+    // == Per-session toggles
+    // ============================================================
+
+    private static void apply(EntityManager em) {
+        if (includeDeletedRequested()) disable(em);
+    }
+
+    /** Shows soft-deleted rows for the rest of this session (admin tooling). */
+    public static void disable(EntityManager em) {
+        Session session = em.unwrap(Session.class);
+        FILTERS.forEach(session::disableFilter);
+    }
+
+    /** Back to the default view (soft-deleted rows hidden). */
+    public static void enable(EntityManager em) {
+        Session session = em.unwrap(Session.class);
+        FILTERS.forEach(session::enableFilter);
+    }
+
+    /** True when the current request is an ADMIN asking for deleted rows. */
+    public static boolean includeDeletedRequested() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs)) return false;
+        HttpServletRequest request = attrs.getRequest();
+        if (!"true".equalsIgnoreCase(request.getHeader(INCLUDE_DELETED_HEADER))) return false;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getAuthorities().stream().anyMatch(a -> ADMIN_ROLE.equals(a.getAuthority()));
+    }
+}
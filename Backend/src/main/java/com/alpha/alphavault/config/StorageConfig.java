@@ -0,0 +1,77 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Configuration: StorageConfig - picks the BlobStore backend
+ *  Notes:
+ *    - storage.type=local (default): files under file.upload-dir
+ *    - storage.type=s3: any S3-compatible endpoint; credentials from
+ *      storage.s3.access-key/secret-key, else the default AWS chain
+ *    - storage.type=memory: heap only, for tests/demos
+ * ================================================================
+ */
+package com.alpha.alphavault.config;
+
+import com.alpha.alphavault.storage.BlobStore;
+import com.alpha.alphavault.storage.InMemoryBlobStore;
+import com.alpha.alphavault.storage.LocalBlobStore;
+import com.alpha.alphavault.storage.S3BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+    public BlobStore localBlobStore(@Value("${file.upload-dir:uploads}") String uploadDir) {
+        return new LocalBlobStore(Paths.get(uploadDir));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "memory")
+    public BlobStore inMemoryBlobStore() {
+        return new InMemoryBlobStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+    public BlobStore s3BlobStore(@Value("${storage.s3.bucket}") String bucket,
+                                 @Value("${storage.s3.region:us-east-1}") String region,
+                                 @Value("${storage.s3.endpoint:}") String endpoint,
+                                 @Value("${storage.s3.path-style:false}") boolean pathStyle,
+                                 @Value("${storage.s3.access-key:}") String accessKey,
+                                 @Value("${storage.s3.secret-key:}") String secretKey,
+                                 @Value("${storage.s3.part-size:8388608}") long partSize,
+                                 @Value("${storage.s3.public-base-url:}") String publicBaseUrl,
+                                 @Value("${storage.s3.presign-ttl-seconds:0}") long presignTtlSeconds) {
+        AwsCredentialsProvider credentials = accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        S3Configuration s3Config = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+
+        var client = S3Client.builder().region(Region.of(region)).credentialsProvider(credentials)
+                .serviceConfiguration(s3Config);
+        var presigner = S3Presigner.builder().region(Region.of(region)).credentialsProvider(credentials)
+                .serviceConfiguration(s3Config);
+        if (!endpoint.isBlank()) {
+            client.endpointOverride(URI.create(endpoint));
+            presigner.endpointOverride(URI.create(endpoint));
+        }
+        return new S3BlobStore(client.build(), presigner.build(), bucket, partSize,
+                publicBaseUrl, Duration.ofSeconds(presignTtlSeconds));
+    }
+}
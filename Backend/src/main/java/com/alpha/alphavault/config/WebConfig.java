@@ -1,28 +1,34 @@
 /**
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
- *  Configuration: WebConfig - static file serving
+ *  Configuration: WebConfig - static file serving + ETag interceptor
  * ================================================================
  */
 package com.alpha.alphavault.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.nio.file.Paths;
 
+@RequiredArgsConstructor
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final DataVersionEtagInterceptor dataVersionEtagInterceptor;
+
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
     @Override
     public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
-        // Serve uploaded files from the uploads directory
+        // Legacy uploads (per-upload file names); content-addressed avatars are
+        // served by ProfileImageController, which takes precedence over this handler
         String uploadPath = Paths.get(uploadDir).toAbsolutePath().toString();
         
         registry.addResourceHandler("/api/files/**")
@@ -31,5 +37,10 @@ public class WebConfig implements WebMvcConfigurer {
         // Enable caching for better performance (optional)
         // .setCachePeriod(3600) // Cache for 1 hour
     }
-}
 
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // Conditional GET for @DataVersioned handlers (304 before any query)
+        registry.addInterceptor(dataVersionEtagInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -10,24 +10,28 @@ import com.alpha.alphavault.dto.auth.ChangePasswordRequestDTO;
 import com.alpha.alphavault.dto.auth.ForgotPasswordRequestDTO;
 import com.alpha.alphavault.dto.auth.LoginRequestDTO;
 import com.alpha.alphavault.dto.auth.LoginResponseDTO;
+import com.alpha.alphavault.dto.auth.RefreshTokenRequestDTO;
 import com.alpha.alphavault.dto.auth.ResetPasswordRequestDTO;
+import com.alpha.alphavault.dto.auth.TokenResponseDTO;
 import com.alpha.alphavault.dto.common.ApiResponse;
 import com.alpha.alphavault.dto.user.UserRequestDTO;
 import com.alpha.alphavault.dto.user.UserResponseDTO;
+import com.alpha.alphavault.service.AuthTokenService;
 import com.alpha.alphavault.service.UserService;
-import com.alpha.alphavault.utils.JwtUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final UserService userService;
-    private final JwtUtils jwtUtils;
+    private final AuthTokenService authTokens;
 
     // ============================================================
     // == Registration & Login
@@ -40,17 +44,34 @@ public class AuthController {
             .body(ApiResponse.created("User registered successfully", data, "/api/auth/register"));
     }
 
+    /** Async: the request thread is released while the password is checked (PasswordHashingService). */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<LoginResponseDTO>> login(@Valid @RequestBody LoginRequestDTO dto) {
-        var userData = userService.authenticate(dto.email(), dto.password()); // wrong pwd/lockout handled
-        
-        // Generate JWT token
-        String token = jwtUtils.generateToken(dto.email());
-        
-        // Create login response with user data and token
-        LoginResponseDTO loginResponse = new LoginResponseDTO(userData, token);
-        
-        return ResponseEntity.ok(ApiResponse.ok("Login successful", loginResponse, "/api/auth/login"));
+    public CompletableFuture<ResponseEntity<ApiResponse<LoginResponseDTO>>> login(@Valid @RequestBody LoginRequestDTO dto) {
+        return userService.authenticateAsync(dto.email(), dto.password()) // wrong pwd/lockout handled
+                .thenApply(userData -> {
+                    // Short-lived access token + refresh token (new session)
+                    LoginResponseDTO loginResponse = authTokens.login(userData);
+
+                    return ResponseEntity.ok(ApiResponse.ok("Login successful", loginResponse, "/api/auth/login"));
+                });
+    }
+
+    // ============================================================
+    // == Session (refresh tokens)
+    // ============================================================
+
+    /** Spends the refresh token for a new token pair (rotation). */
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<TokenResponseDTO>> refresh(@Valid @RequestBody RefreshTokenRequestDTO dto) {
+        var tokens = authTokens.refresh(dto.refreshToken());
+        return ResponseEntity.ok(ApiResponse.ok("Token refreshed", tokens, "/api/auth/refresh"));
+    }
+
+    /** Ends this session; the access token in hand expires on its own shortly. */
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@Valid @RequestBody RefreshTokenRequestDTO dto) {
+        authTokens.logout(dto.refreshToken());
+        return ResponseEntity.ok(ApiResponse.ok("Logged out", null, "/api/auth/logout"));
     }
 
     // ============================================================
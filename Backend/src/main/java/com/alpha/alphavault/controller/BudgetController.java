@@ -6,10 +6,14 @@
  */
 package com.alpha.alphavault.controller;
 
+import com.alpha.alphavault.config.DataVersioned;
 import com.alpha.alphavault.dto.budget.BudgetRequestDTO;
 import com.alpha.alphavault.dto.budget.BudgetResponseDTO;
+import com.alpha.alphavault.dto.budget.BudgetRolloverDTO;
 import com.alpha.alphavault.dto.common.ApiResponse;
+import com.alpha.alphavault.enums.DataDomain;
 import com.alpha.alphavault.enums.ExpenseCategory;
+import com.alpha.alphavault.service.BudgetRolloverService;
 import com.alpha.alphavault.service.BudgetService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,15 +24,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 
 @RequiredArgsConstructor
+@DataVersioned({DataDomain.BUDGETS, DataDomain.EXPENSES})
 @RestController
 @RequestMapping("/api/budgets")
 public class BudgetController {
 
     private final BudgetService service;
+    private final BudgetRolloverService rollover;
 
     // ========================== CRUD ==========================
 
@@ -85,6 +92,16 @@ public class BudgetController {
         return ResponseEntity.ok(ApiResponse.ok("Budget totals synced", null, "/api/budgets/" + id + "/sync"));
     }
 
+    /** Month-end rollover of a closed month (same as the monthly job); restart=true runs it again. Admins only. */
+    @PostMapping("/rollover/{year}/{month}")
+    public ResponseEntity<ApiResponse<BudgetRolloverDTO>> rollover(@PathVariable int year,
+                                                                   @PathVariable int month,
+                                                                   @RequestParam(defaultValue = "false") boolean restart) {
+        if (month < 1 || month > 12) throw new IllegalArgumentException("Month must be between 1 and 12");
+        var data = rollover.rollover(YearMonth.of(year, month), restart);
+        return ResponseEntity.ok(ApiResponse.ok("Budget rollover processed", data, "/api/budgets/rollover/" + year + "/" + month));
+    }
+
     // ========================== Category (compat) ==========================
 
     @PostMapping("/user/{userId}/{year}/{month}/category")
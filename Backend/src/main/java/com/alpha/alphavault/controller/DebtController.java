@@ -1,32 +1,41 @@
 /**
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
- *  Controller: DebtController — CRUD, payments, windows, totals
+ *  Controller: DebtController — CRUD, payments, windows, totals, projections
  * ================================================================
  */
 package com.alpha.alphavault.controller;
 
+import com.alpha.alphavault.config.DataVersioned;
 import com.alpha.alphavault.dto.common.ApiResponse;
+import com.alpha.alphavault.dto.common.BatchResultDTO;
 import com.alpha.alphavault.dto.debt.*;
+import com.alpha.alphavault.enums.DataDomain;
 import com.alpha.alphavault.enums.DebtStatus;
+import com.alpha.alphavault.enums.PayoffStrategy;
+import com.alpha.alphavault.service.DebtProjectionService;
 import com.alpha.alphavault.service.DebtService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
 @RequiredArgsConstructor
+@DataVersioned(DataDomain.DEBTS)
 @RestController
 @RequestMapping("/api/debts")
 public class DebtController {
 
     private final DebtService service;
+    private final DebtProjectionService projectionService;
 
     // ===================== CRUD (DTO) =====================
 
@@ -80,6 +89,15 @@ public class DebtController {
         return ResponseEntity.ok(ApiResponse.ok("Payment recorded", data, "/api/debts/" + id + "/payments"));
     }
 
+    /** All-or-nothing: 200 when committed, 400 with per-item errors when rolled back. */
+    @PostMapping("/payments/batch")
+    public ResponseEntity<ApiResponse<BatchResultDTO>> addPayments(@Valid @RequestBody DebtPaymentBatchRequestDTO dto) {
+        BatchResultDTO data = service.addPayments(dto);
+        return data.committed()
+                ? ResponseEntity.ok(ApiResponse.ok("Payments recorded", data, "/api/debts/payments/batch"))
+                : ResponseEntity.badRequest().body(ApiResponse.badRequest("Batch rejected; nothing was applied", data, "/api/debts/payments/batch"));
+    }
+
     @GetMapping("/{id}/payments")
     public ResponseEntity<ApiResponse<List<DebtPaymentResponseDTO>>> listPayments(@PathVariable Long id) {
         var data = service.listPayments(id);
@@ -127,4 +145,37 @@ public class DebtController {
         var data = service.top5Largest(userId);
         return ResponseEntity.ok(ApiResponse.ok("Top 5 largest debts", data, "/api/debts/user/" + userId + "/top5"));
     }
+
+    @GetMapping("/user/{userId}/top/{k}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> top(@PathVariable Long userId, @PathVariable int k) {
+        var data = service.topLargest(userId, k);
+        return ResponseEntity.ok(ApiResponse.ok("Top " + k + " largest debts", data, "/api/debts/user/" + userId + "/top/" + k));
+    }
+
+    // ===================== Projections =====================
+
+    @GetMapping("/user/{userId}/projection")
+    public ResponseEntity<ApiResponse<DebtProjectionResponseDTO>> projection(@PathVariable Long userId,
+                                                                             @RequestParam(value = "extra", required = false) BigDecimal extra,
+                                                                             @RequestParam(value = "schedule", defaultValue = "false") boolean schedule) {
+        var data = projectionService.project(userId, extra, schedule);
+        return ResponseEntity.ok(ApiResponse.ok("Debt payoff projection", data, "/api/debts/user/" + userId + "/projection"));
+    }
+
+    @GetMapping(value = "/user/{userId}/projection/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> projectionStream(@PathVariable Long userId,
+                                                                  @RequestParam(value = "strategy", defaultValue = "avalanche") String strategy,
+                                                                  @RequestParam(value = "extra", required = false) BigDecimal extra) {
+        PayoffStrategy s = PayoffStrategy.fromJson(strategy);
+        var snapshot = projectionService.snapshot(userId);
+        StreamingResponseBody body = out -> projectionService.writeNdjson(snapshot, s, extra, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    @GetMapping("/{id}/amortization")
+    public ResponseEntity<ApiResponse<DebtAmortizationDTO>> amortization(@PathVariable Long id,
+                                                                         @RequestParam(value = "extra", required = false) BigDecimal extra) {
+        var data = projectionService.amortization(id, extra);
+        return ResponseEntity.ok(ApiResponse.ok("Debt amortization schedule", data, "/api/debts/" + id + "/amortization"));
+    }
 }
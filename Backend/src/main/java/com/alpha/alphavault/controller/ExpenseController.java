@@ -6,9 +6,11 @@
  */
 package com.alpha.alphavault.controller;
 
+import com.alpha.alphavault.config.DataVersioned;
 import com.alpha.alphavault.dto.common.ApiResponse;
 import com.alpha.alphavault.dto.expense.ExpenseRequestDTO;
 import com.alpha.alphavault.dto.expense.ExpenseResponseDTO;
+import com.alpha.alphavault.enums.DataDomain;
 import com.alpha.alphavault.service.ExpenseService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 
 @RequiredArgsConstructor
+@DataVersioned(DataDomain.EXPENSES)
 @RestController
 @RequestMapping("/api/expenses") // keep plural for consistency
 public class ExpenseController {
@@ -170,6 +173,14 @@ public class ExpenseController {
                 "/api/expenses/top5/" + userId));
     }
 
+    /** k up to metrics.top.max-k; rows carry id, amount, currency and date. */
+    @GetMapping("/top/{k}/{userId}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> top(@PathVariable int k, @PathVariable Long userId) {
+        var data = expenseService.getTopExpensesThisMonth(userId, k);
+        return ResponseEntity.ok(ApiResponse.ok("Top " + k + " expenses (this month)", data,
+                "/api/expenses/top/" + k + "/" + userId));
+    }
+
     @GetMapping("/weeks/{userId}")
     public ResponseEntity<ApiResponse<List<Double>>> weeklyExpenses(@PathVariable Long userId) {
         var data = expenseService.getExpenseForWeeksOfCurrentMonth(userId);
@@ -190,28 +201,34 @@ public class ExpenseController {
 
     @GetMapping("/evolution/week/{userId}")
     public ResponseEntity<ApiResponse<Double>> weeklyEvolution(@PathVariable Long userId) {
-        double current = expenseService.getExpenseForCurrentWeek(userId);
-        double previous = expenseService.getExpenseForPreviousWeek(userId);
-        double pct = (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+        double pct = evolution(expenseService.getExpenseForCurrentWeek(userId),
+                expenseService.getExpenseForPreviousWeek(userId));
         return ResponseEntity.ok(ApiResponse.ok("Weekly expense evolution (%)", pct,
                 "/api/expenses/evolution/week/" + userId));
     }
 
     @GetMapping("/evolution/month/{userId}")
     public ResponseEntity<ApiResponse<Double>> monthlyEvolution(@PathVariable Long userId) {
-        double current = expenseService.getExpenseForCurrentMonth(userId);
-        double previous = expenseService.getExpenseForPreviousMonth(userId);
-        double pct = (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+        double pct = evolution(expenseService.getExpenseForCurrentMonth(userId),
+                expenseService.getExpenseForPreviousMonth(userId));
         return ResponseEntity.ok(ApiResponse.ok("Monthly expense evolution (%)", pct,
                 "/api/expenses/evolution/month/" + userId));
     }
 
     @GetMapping("/evolution/year/{userId}")
     public ResponseEntity<ApiResponse<Double>> yearlyEvolution(@PathVariable Long userId) {
-        double current = expenseService.getExpenseForCurrentYear(userId);
-        double previous = expenseService.getExpenseForPreviousYear(userId);
-        double pct = (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+        double pct = evolution(expenseService.getExpenseForCurrentYear(userId),
+                expenseService.getExpenseForPreviousYear(userId));
         return ResponseEntity.ok(ApiResponse.ok("Yearly expense evolution (%)", pct,
                 "/api/expenses/evolution/year/" + userId));
     }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    /** % change from previous to current; 100 when starting from zero. */
+    private static double evolution(double current, double previous) {
+        return (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+    }
 }
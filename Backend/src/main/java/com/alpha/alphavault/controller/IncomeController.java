@@ -6,11 +6,13 @@
  */
 package com.alpha.alphavault.controller;
 
+import com.alpha.alphavault.config.DataVersioned;
 import com.alpha.alphavault.dto.common.ApiResponse;
 import com.alpha.alphavault.dto.income.IncomeRequestDTO;
 import com.alpha.alphavault.dto.income.IncomeResponseDTO;
 import com.alpha.alphavault.dto.income.PaymentMethodSummary;
 import com.alpha.alphavault.dto.income.SourceSummary;
+import com.alpha.alphavault.enums.DataDomain;
 import com.alpha.alphavault.exception.IncomeException;
 import com.alpha.alphavault.exception.IncomeNotFoundException;
 import com.alpha.alphavault.model.Income;
@@ -31,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 
 @RequiredArgsConstructor
+@DataVersioned(DataDomain.INCOMES)
 @RestController
 @RequestMapping("/api/incomes") // change to "/api/income" if you need to keep old path
 public class IncomeController {
@@ -51,7 +54,7 @@ public class IncomeController {
     public ResponseEntity<Map<String, Object>> testDelete(@PathVariable Long id) {
         Map<String, Object> result = new HashMap<>();
         try {
-            Income income = incomeRepository.findByIdWithDeletedStatus(id);
+            Income income = incomeRepository.findByIdIncludingDeleted(id);
             result.put("found", income != null);
             if (income != null) {
                 result.put("id", income.getId());
@@ -300,6 +303,14 @@ public class IncomeController {
                 "/api/incomes/top5/" + userId));
     }
 
+    /** k up to metrics.top.max-k; rows carry id, amount, currency and date. */
+    @GetMapping("/top/{k}/{userId}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> top(@PathVariable int k, @PathVariable Long userId) {
+        var data = incomeService.getTopIncomesThisMonth(userId, k);
+        return ResponseEntity.ok(ApiResponse.ok("Top " + k + " incomes (this month)", data,
+                "/api/incomes/top/" + k + "/" + userId));
+    }
+
     @GetMapping("/weeks/{userId}")
     public ResponseEntity<ApiResponse<List<Double>>> weeklyIncomes(@PathVariable Long userId) {
         var data = incomeService.getIncomeForWeeksOfCurrentMonth(userId);
@@ -320,27 +331,24 @@ public class IncomeController {
 
     @GetMapping("/evolution/week/{userId}")
     public ResponseEntity<ApiResponse<Double>> weeklyEvolution(@PathVariable Long userId) {
-        double current = incomeService.getIncomeForCurrentWeek(userId);
-        double previous = incomeService.getIncomeForPreviousWeek(userId);
-        double pct = (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+        double pct = evolution(incomeService.getIncomeForCurrentWeek(userId),
+                incomeService.getIncomeForPreviousWeek(userId));
         return ResponseEntity.ok(ApiResponse.ok("Weekly income evolution (%)", pct,
                 "/api/incomes/evolution/week/" + userId));
     }
 
     @GetMapping("/evolution/month/{userId}")
     public ResponseEntity<ApiResponse<Double>> monthlyEvolution(@PathVariable Long userId) {
-        double current = incomeService.getIncomeForCurrentMonth(userId);
-        double previous = incomeService.getIncomeForPreviousMonth(userId);
-        double pct = (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+        double pct = evolution(incomeService.getIncomeForCurrentMonth(userId),
+                incomeService.getIncomeForPreviousMonth(userId));
         return ResponseEntity.ok(ApiResponse.ok("Monthly income evolution (%)", pct,
                 "/api/incomes/evolution/month/" + userId));
     }
 
     @GetMapping("/evolution/year/{userId}")
     public ResponseEntity<ApiResponse<Double>> yearlyEvolution(@PathVariable Long userId) {
-        double current = incomeService.getIncomeForCurrentYear(userId);
-        double previous = incomeService.getIncomeForPreviousYear(userId);
-        double pct = (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+        double pct = evolution(incomeService.getIncomeForCurrentYear(userId),
+                incomeService.getIncomeForPreviousYear(userId));
         return ResponseEntity.ok(ApiResponse.ok("Yearly income evolution (%)", pct,
                 "/api/incomes/evolution/year/" + userId));
     }
@@ -355,4 +363,13 @@ public class IncomeController {
         return ResponseEntity.ok(ApiResponse.ok("Distinct income sources", data,
                 "/api/incomes/source/" + userId));
     }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    /** % change from previous to current; 100 when starting from zero. */
+    private static double evolution(double current, double previous) {
+        return (previous == 0) ? (current == 0 ? 0.0 : 100.0) : ((current - previous) / previous) * 100.0;
+    }
 }
@@ -1,34 +1,41 @@
 /**
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
- *  Controller: InvestmentController — CRUD, MTM, close/reopen
+ *  Controller: InvestmentController — CRUD, MTM, close/reopen, analytics
  * ================================================================
  */
 package com.alpha.alphavault.controller;
 
+import com.alpha.alphavault.config.DataVersioned;
 import com.alpha.alphavault.dto.common.ApiResponse;
 import com.alpha.alphavault.dto.investment.InvestmentCloseRequestDTO;
 import com.alpha.alphavault.dto.investment.InvestmentPriceUpdateDTO;
 import com.alpha.alphavault.dto.investment.InvestmentRequestDTO;
 import com.alpha.alphavault.dto.investment.InvestmentResponseDTO;
+import com.alpha.alphavault.dto.investment.PortfolioAnalyticsDTO;
+import com.alpha.alphavault.enums.DataDomain;
 import com.alpha.alphavault.enums.InvestmentType;
 import com.alpha.alphavault.mapper.InvestmentMapper;
 import com.alpha.alphavault.model.Investment;
 import com.alpha.alphavault.service.InvestmentService;
+import com.alpha.alphavault.service.PortfolioAnalyticsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RequiredArgsConstructor
+@DataVersioned(DataDomain.INVESTMENTS)
 @RestController
 @RequestMapping("/api/investments")
 public class InvestmentController {
 
     private final InvestmentService service;
     private final InvestmentMapper mapper;
+    private final PortfolioAnalyticsService analytics;
 
     // -------------------- Create / Update / Delete --------------------
 
@@ -135,4 +142,21 @@ public class InvestmentController {
         return ResponseEntity.ok(ApiResponse.ok("Position reopened", mapper.toResponse(reopened),
                 "/api/investments/" + id + "/reopen"));
     }
+
+    // -------------------- Analytics --------------------
+
+    /** Allocation, P&L, TWR/MWR, volatility and drawdown for all positions of a user. */
+    @GetMapping("/user/{userId}/analytics")
+    public ResponseEntity<ApiResponse<PortfolioAnalyticsDTO>> analytics(@PathVariable Long userId) {
+        var data = analytics.analyze(userId);
+        return ResponseEntity.ok(ApiResponse.ok("Portfolio analytics", data,
+                "/api/investments/user/" + userId + "/analytics"));
+    }
+
+    /** Batch variant for reports (users computed in parallel). Admins only, at most MAX_BATCH_USERS ids. */
+    @GetMapping("/analytics/batch")
+    public ResponseEntity<ApiResponse<Map<Long, PortfolioAnalyticsDTO>>> analyticsBatch(@RequestParam("userIds") List<Long> userIds) {
+        var data = analytics.analyzeAll(userIds);
+        return ResponseEntity.ok(ApiResponse.ok("Portfolio analytics (batch)", data, "/api/investments/analytics/batch"));
+    }
 }
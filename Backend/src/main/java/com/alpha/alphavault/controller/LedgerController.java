@@ -0,0 +1,77 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Controller: LedgerController — money ledger history, replay, rebuild
+ * ================================================================
+ */
+package com.alpha.alphavault.controller;
+
+import com.alpha.alphavault.dto.common.ApiResponse;
+import com.alpha.alphavault.dto.ledger.LedgerEntryDTO;
+import com.alpha.alphavault.dto.ledger.LedgerReplayDTO;
+import com.alpha.alphavault.enums.LedgerAccount;
+import com.alpha.alphavault.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/ledger")
+public class LedgerController {
+
+    private final LedgerService service;
+
+    // =============== History ===============
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<ApiResponse<List<LedgerEntryDTO>>> byUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate to) {
+        List<LedgerEntryDTO> data = service.entriesByUser(userId, from, to);
+        return ResponseEntity.ok(ApiResponse.ok("Ledger entries fetched", data, "/api/ledger/user/" + userId));
+    }
+
+    @GetMapping("/{account}/{accountId}")
+    public ResponseEntity<ApiResponse<List<LedgerEntryDTO>>> byAccount(
+            @PathVariable LedgerAccount account,
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate to) {
+        List<LedgerEntryDTO> data = service.entries(account, accountId, from, to);
+        return ResponseEntity.ok(ApiResponse.ok("Ledger entries fetched", data, "/api/ledger/" + account + "/" + accountId));
+    }
+
+    // =============== Replay / rebuild ===============
+
+    /** Balance recomputed from the ledger at {@code at} (ISO date-time, default now; now also reports drift). */
+    @GetMapping("/{account}/{accountId}/replay")
+    public ResponseEntity<ApiResponse<LedgerReplayDTO>> replay(
+            @PathVariable LedgerAccount account,
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        LedgerReplayDTO data = service.replay(account, accountId, at);
+        return ResponseEntity.ok(ApiResponse.ok("Ledger replayed", data, "/api/ledger/" + account + "/" + accountId + "/replay"));
+    }
+
+    /** Resets the projected balance to the ledger balance (admin repair). */
+    @PostMapping("/{account}/{accountId}/rebuild")
+    public ResponseEntity<ApiResponse<LedgerReplayDTO>> rebuild(@PathVariable LedgerAccount account,
+                                                               @PathVariable Long accountId) {
+        LedgerReplayDTO data = service.rebuild(account, accountId);
+        return ResponseEntity.ok(ApiResponse.ok("Projection rebuilt", data, "/api/ledger/" + account + "/" + accountId + "/rebuild"));
+    }
+
+    /** Takes account snapshots now (same as the nightly job). */
+    @PostMapping("/snapshots")
+    public ResponseEntity<ApiResponse<Integer>> snapshot() {
+        int data = service.snapshot();
+        return ResponseEntity.ok(ApiResponse.ok("Ledger snapshots written", data, "/api/ledger/snapshots"));
+    }
+}
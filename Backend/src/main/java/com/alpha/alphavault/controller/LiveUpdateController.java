@@ -0,0 +1,27 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Controller: LiveUpdateController — per-user SSE stream
+ * ================================================================
+ */
+package com.alpha.alphavault.controller;
+
+import com.alpha.alphavault.service.LiveUpdateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/live")
+public class LiveUpdateController {
+
+    private final LiveUpdateService service;
+
+    /** Event names: hello, expense, income, budget, goal, debt, investment, recurring, resync. */
+    @GetMapping(value = "/user/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable Long userId) {
+        return service.subscribe(userId);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Controller: ProfileImageController — serves avatar variants
+ *  Notes:
+ *    - URLs are content hashes, so a response never changes: one-year
+ *      immutable caching, ETag = hash + size (304 without touching disk)
+ *    - Backends that can serve blobs themselves (S3 public/presigned URL)
+ *      get a redirect; otherwise the bytes go out through Tomcat sendfile
+ *      (own disk, when the connector offers it) or FileChannel.transferTo
+ *      from the BlobCache handle; never through a heap buffer
+ *    - Legacy (per-upload named) files are still served by the static
+ *      /api/files/** handler in WebConfig
+ * ================================================================
+ */
+package com.alpha.alphavault.controller;
+
+import com.alpha.alphavault.exception.ResourceNotFoundException;
+import com.alpha.alphavault.service.ImagePipelineService;
+import com.alpha.alphavault.storage.BlobCache;
+import com.alpha.alphavault.storage.BlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/files/profile-images")
+public class ProfileImageController {
+
+    // Tomcat request attributes (org.apache.coyote.Constants / Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private final ImagePipelineService pipeline;
+    private final BlobStore blobStore;
+    private final BlobCache blobCache;
+
+    @Value("${images.serve.wait-ms:5000}")
+    private long waitMs;
+
+    /** {@code size} is rounded up to a generated variant (images.avatar.sizes). */
+    @GetMapping("/{hash:[0-9a-f]{64}}")
+    public void serve(@PathVariable String hash,
+                      @RequestParam(required = false) Integer size,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        int variant = pipeline.resolveSize(size);
+        String etag = "\"" + hash + "-" + variant + "\"";
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (!pipeline.isProcessed(hash)) awaitPipeline(hash, response);
+        if (!pipeline.isProcessed(hash)) throw new ResourceNotFoundException("Profile image not found: " + hash);
+
+        String key = pipeline.variantKey(hash, variant);
+        Optional<BlobStore.BlobLink> link = blobStore.link(key);
+        if (link.isPresent()) {
+            Duration validFor = link.get().validFor();
+            // A presigned target expires: the redirect may only be reused for part of its lifetime
+            response.setHeader(HttpHeaders.CACHE_CONTROL, validFor == null ? IMMUTABLE
+                    : "private, max-age=" + validFor.dividedBy(2).toSeconds());
+            response.setHeader(HttpHeaders.LOCATION, link.get().uri().toString());
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            return;
+        }
+
+        try (BlobCache.Handle blob = blobCache.open(key)
+                .orElseThrow(() -> new ResourceNotFoundException("Profile image not found: " + hash))) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+            response.setHeader(HttpHeaders.ETAG, etag);
+
+            long length = blob.size();
+            response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+            response.setContentLengthLong(length);
+            if ("HEAD".equals(request.getMethod())) return;
+
+            // Kernel copy file -> socket after the servlet returns: only for the store's own
+            // file, a cache copy may be evicted before the container opens it by name
+            if (blob.storeFile() != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                request.setAttribute(SENDFILE_FILENAME, blob.storeFile().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, length);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = 0;
+            while (pos < length) {
+                long n = blob.channel().transferTo(pos, length - pos, out);
+                if (n <= 0) break;
+                pos += n;
+            }
+        }
+    }
+
+    /** Just uploaded: the variants are being generated, wait briefly instead of failing. */
+    private void awaitPipeline(String hash, HttpServletResponse response) throws IOException {
+        if (!blobStore.exists(pipeline.sourceKey(hash))) return;
+        try {
+            pipeline.submit(hash).get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            throw new ResourceNotFoundException("Profile image is still being processed: " + hash);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Undecodable source: reported as not found below
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Controller: RecurringTransactionController — templates + manual run
+ * ================================================================
+ */
+package com.alpha.alphavault.controller;
+
+import com.alpha.alphavault.config.DataVersioned;
+import com.alpha.alphavault.dto.common.ApiResponse;
+import com.alpha.alphavault.dto.recurring.RecurringRunResultDTO;
+import com.alpha.alphavault.dto.recurring.RecurringTransactionRequestDTO;
+import com.alpha.alphavault.dto.recurring.RecurringTransactionResponseDTO;
+import com.alpha.alphavault.enums.DataDomain;
+import com.alpha.alphavault.service.RecurringTransactionScheduler;
+import com.alpha.alphavault.service.RecurringTransactionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RequiredArgsConstructor
+@DataVersioned(value = DataDomain.RECURRING, fx = false)
+@RestController
+@RequestMapping("/api/recurring-transactions")
+public class RecurringTransactionController {
+
+    private final RecurringTransactionService service;
+    private final RecurringTransactionScheduler scheduler;
+
+    // =============== CRUD ===============
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<RecurringTransactionResponseDTO>> create(@Valid @RequestBody RecurringTransactionRequestDTO dto) {
+        RecurringTransactionResponseDTO data = service.create(dto);
+        return ResponseEntity.status(201).body(ApiResponse.created("Recurring transaction created", data, "/api/recurring-transactions"));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<RecurringTransactionResponseDTO>> update(@PathVariable Long id,
+                                                                              @Valid @RequestBody RecurringTransactionRequestDTO dto) {
+        RecurringTransactionResponseDTO data = service.update(id, dto);
+        return ResponseEntity.ok(ApiResponse.ok("Recurring transaction updated", data, "/api/recurring-transactions/" + id));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<RecurringTransactionResponseDTO>> get(@PathVariable Long id) {
+        RecurringTransactionResponseDTO data = service.get(id);
+        return ResponseEntity.ok(ApiResponse.ok("Recurring transaction fetched", data, "/api/recurring-transactions/" + id));
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<ApiResponse<List<RecurringTransactionResponseDTO>>> list(@PathVariable Long userId) {
+        List<RecurringTransactionResponseDTO> data = service.listByUser(userId);
+        return ResponseEntity.ok(ApiResponse.ok("Recurring transactions fetched", data, "/api/recurring-transactions/user/" + userId));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> delete(@PathVariable Long id) {
+        service.delete(id);
+        return ResponseEntity.ok(ApiResponse.ok("Recurring transaction deleted", null, "/api/recurring-transactions/" + id));
+    }
+
+    // =============== Lifecycle ===============
+
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<ApiResponse<RecurringTransactionResponseDTO>> pause(@PathVariable Long id) {
+        RecurringTransactionResponseDTO data = service.pause(id);
+        return ResponseEntity.ok(ApiResponse.ok("Recurring transaction paused", data, "/api/recurring-transactions/" + id + "/pause"));
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ApiResponse<RecurringTransactionResponseDTO>> resume(@PathVariable Long id) {
+        RecurringTransactionResponseDTO data = service.resume(id);
+        return ResponseEntity.ok(ApiResponse.ok("Recurring transaction resumed", data, "/api/recurring-transactions/" + id + "/resume"));
+    }
+
+    // =============== Materialization ===============
+
+    /** Runs the materializer now (same as the nightly job); asOf defaults to today and cannot be in the future. */
+    @PostMapping("/run")
+    public ResponseEntity<ApiResponse<RecurringRunResultDTO>> run(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate asOf) {
+        LocalDate day = asOf != null ? asOf : LocalDate.now();
+        if (day.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("asOf cannot be in the future");
+        }
+        RecurringRunResultDTO data = scheduler.run(day);
+        return ResponseEntity.ok(ApiResponse.ok("Recurring transactions materialized", data, "/api/recurring-transactions/run"));
+    }
+}
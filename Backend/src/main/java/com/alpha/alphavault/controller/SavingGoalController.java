@@ -1,17 +1,23 @@
 /**
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
- *  Controller: SavingGoalController — CRUD + money ops + filters
+ *  Controller: SavingGoalController — CRUD + money ops + filters + feasibility
  * ================================================================
  */
 package com.alpha.alphavault.controller;
 
+import com.alpha.alphavault.config.DataVersioned;
 import com.alpha.alphavault.dto.common.ApiResponse;
+import com.alpha.alphavault.dto.common.BatchResultDTO;
+import com.alpha.alphavault.dto.savinggoal.SavingGoalBatchRequestDTO;
+import com.alpha.alphavault.dto.savinggoal.SavingGoalFeasibilityResponseDTO;
 import com.alpha.alphavault.dto.savinggoal.SavingGoalRequestDTO;
 import com.alpha.alphavault.dto.savinggoal.SavingGoalResponseDTO;
+import com.alpha.alphavault.enums.DataDomain;
 import com.alpha.alphavault.enums.SavingGoalPriority;
 import com.alpha.alphavault.enums.SavingGoalCategory;
 import com.alpha.alphavault.enums.SavingGoalStatus;
+import com.alpha.alphavault.service.SavingGoalFeasibilityService;
 import com.alpha.alphavault.service.SavingGoalService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -26,11 +32,13 @@ import java.util.List;
 import java.util.Map;
 
 @RequiredArgsConstructor
+@DataVersioned(DataDomain.SAVING_GOALS)
 @RestController
 @RequestMapping("/api/saving-goals")
 public class SavingGoalController {
 
     private final SavingGoalService service;
+    private final SavingGoalFeasibilityService feasibilityService;
 
     // =============== CRUD ===============
 
@@ -97,6 +105,15 @@ public class SavingGoalController {
         return ResponseEntity.ok(ApiResponse.ok("Withdrawal applied", data, "/api/saving-goals/" + id + "/withdraw"));
     }
 
+    /** All-or-nothing: 200 when committed, 400 with per-item errors when rolled back. */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchResultDTO>> batch(@Valid @RequestBody SavingGoalBatchRequestDTO dto) {
+        BatchResultDTO data = service.applyBatch(dto);
+        return data.committed()
+                ? ResponseEntity.ok(ApiResponse.ok("Movements applied", data, "/api/saving-goals/batch"))
+                : ResponseEntity.badRequest().body(ApiResponse.badRequest("Batch rejected; nothing was applied", data, "/api/saving-goals/batch"));
+    }
+
     // =============== Status / Attributes ===============
 
     @PatchMapping("/{id}/status")
@@ -163,4 +180,12 @@ public class SavingGoalController {
         var data = service.totals(userId);
         return ResponseEntity.ok(ApiResponse.ok("Saving goals totals", data, "/api/saving-goals/user/" + userId + "/totals"));
     }
+
+    @DataVersioned({DataDomain.SAVING_GOALS, DataDomain.INCOMES, DataDomain.EXPENSES})
+    @GetMapping("/user/{userId}/feasibility")
+    public ResponseEntity<ApiResponse<SavingGoalFeasibilityResponseDTO>> feasibility(@PathVariable Long userId,
+                                                                                     @RequestParam(value = "paths", required = false) Integer paths) {
+        var data = feasibilityService.simulate(userId, paths);
+        return ResponseEntity.ok(ApiResponse.ok("Saving goals feasibility", data, "/api/saving-goals/user/" + userId + "/feasibility"));
+    }
 }
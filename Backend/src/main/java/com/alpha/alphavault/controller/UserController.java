@@ -110,7 +110,8 @@ public class UserController {
 
     /**
      * Accepts lowercase/uppercase strings safely; we convert manually so
-     * type=premium or type=PREMIUM both work.
+     * type=premium or type=PREMIUM both work. ADMIN only (SecurityConfig):
+     * the account type is the caller's role.
      */
     @PatchMapping("/{id}/account-type")
     public ResponseEntity<ApiResponse<Void>> setType(@PathVariable Long id,
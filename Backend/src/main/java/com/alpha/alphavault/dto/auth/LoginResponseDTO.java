@@ -2,6 +2,8 @@
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
  *  DTO: LoginResponseDTO - contains user data and JWT token
+ *  Notes: token is short-lived (expiresIn seconds); refreshToken renews
+ *         it through /api/auth/refresh
  * ================================================================
  */
 package com.alpha.alphavault.dto.auth;
@@ -10,5 +12,7 @@ import com.alpha.alphavault.dto.user.UserResponseDTO;
 
 public record LoginResponseDTO(
     UserResponseDTO user,
-    String token
+    String token,
+    String refreshToken,
+    long expiresIn
 ) {}
@@ -0,0 +1,16 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: RefreshTokenRequestDTO - refresh & logout flows
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record RefreshTokenRequestDTO(
+    @NotBlank(message = "Refresh token is required")
+    @Size(max = 128, message = "Invalid refresh token")
+    String refreshToken
+) {}
@@ -0,0 +1,14 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: TokenResponseDTO - new token pair after a refresh
+ *  Notes: expiresIn = access-token lifetime in seconds
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.auth;
+
+public record TokenResponseDTO(
+    String token,
+    String refreshToken,
+    long expiresIn
+) {}
@@ -0,0 +1,26 @@
+/**
+ * ================================================================
+ *  DTO: BudgetAlertDTO - one threshold crossing of a budget or line
+ *  Notes:
+ *    - scope is "TOTAL" for the whole budget, else the category name
+ *    - limit includes the rolled-over amount for the TOTAL scope
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.budget;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record BudgetAlertDTO(
+    Long id,
+    Long budgetId,
+    Long userId,
+    int year,
+    int month,
+    String currency,
+    String scope,
+    int threshold,
+    BigDecimal spent,
+    BigDecimal limit,
+    LocalDateTime crossedAt
+) {}
@@ -0,0 +1,20 @@
+/**
+ * ================================================================
+ *  DTO: BudgetRolloverDTO - month-end rollover progress / result
+ *  Notes:
+ *    - year/month is the closed month rolled into the next one
+ *    - ran=false: another node holds the run, it already completed, or
+ *      it was deferred because expense events were still pending
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.budget;
+
+public record BudgetRolloverDTO(
+    int year,
+    int month,
+    boolean ran,
+    boolean completed,
+    int scanned,
+    int created,
+    int carried
+) {}
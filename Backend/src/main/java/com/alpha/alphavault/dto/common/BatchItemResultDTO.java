@@ -0,0 +1,30 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: BatchItemResultDTO — outcome of one item of a batch write
+ *  Notes:
+ *    - index is the item's position in the request
+ *    - balanceAfter is the running balance right after this item
+ *    - recordId is the created row (e.g. payment id), when any
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResultDTO(
+        int index,
+        Long targetId,
+        boolean ok,
+        String error,
+        BigDecimal balanceAfter,
+        String status,
+        Long recordId
+) {
+    public static BatchItemResultDTO failed(int index, Long targetId, String error) {
+        return new BatchItemResultDTO(index, targetId, false, error, null, null, null);
+    }
+}
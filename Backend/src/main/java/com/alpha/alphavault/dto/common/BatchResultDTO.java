@@ -0,0 +1,19 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: BatchResultDTO — all-or-nothing batch write outcome
+ *  Notes:
+ *    - committed=false means nothing was applied; failing items carry
+ *      an error code, the others show what would have happened
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.common;
+
+import java.util.List;
+
+public record BatchResultDTO(
+        boolean committed,
+        int total,
+        int failed,
+        List<BatchItemResultDTO> items
+) {}
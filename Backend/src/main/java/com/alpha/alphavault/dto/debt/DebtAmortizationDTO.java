@@ -0,0 +1,28 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: DebtAmortizationDTO — full schedule of a single debt
+ *  Notes:
+ *    - Periods follow the debt's own billing cycle
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.debt;
+
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DebtAmortizationDTO(
+        Long debtId,
+        String creditorName,
+        RecurrenceType billingCycle,
+        BigDecimal paymentPerPeriod,
+        int periods,
+        boolean paysOff,
+        @JsonFormat(pattern = "MM/dd/yyyy") LocalDate payoffDate,
+        BigDecimal totalInterest,
+        BigDecimal totalPaid,
+        DebtScheduleDTO schedule
+) {}
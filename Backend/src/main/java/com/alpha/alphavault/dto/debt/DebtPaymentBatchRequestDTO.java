@@ -0,0 +1,26 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: DebtPaymentBatchRequestDTO — many debt payments at once
+ *  Notes:
+ *    - Items may target the same debt; they apply in request order
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.debt;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record DebtPaymentBatchRequestDTO(
+
+        @NotNull(message = "User ID is required")
+        Long userId,
+
+        @NotEmpty(message = "At least one payment is required")
+        @Size(max = 500, message = "At most 500 payments per batch")
+        List<@Valid DebtPaymentRequestDTO> payments
+) {}
@@ -0,0 +1,20 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: DebtPayoffDTO — when a single debt is cleared within a plan
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.debt;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DebtPayoffDTO(
+        Long debtId,
+        String creditorName,
+        Integer payoffMonth,
+        @JsonFormat(pattern = "MM/dd/yyyy") LocalDate payoffDate,
+        BigDecimal interestPaid
+) {}
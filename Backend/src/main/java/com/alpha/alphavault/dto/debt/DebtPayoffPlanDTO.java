@@ -0,0 +1,29 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: DebtPayoffPlanDTO — outcome of one payoff strategy
+ *  Notes:
+ *    - paysOff=false when the budget never clears the balance
+ *    - schedule is null unless explicitly requested
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.debt;
+
+import com.alpha.alphavault.enums.PayoffStrategy;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public record DebtPayoffPlanDTO(
+        PayoffStrategy strategy,
+        BigDecimal monthlyBudget,
+        int months,
+        boolean paysOff,
+        @JsonFormat(pattern = "MM/dd/yyyy") LocalDate debtFreeDate,
+        BigDecimal totalInterest,
+        BigDecimal totalPaid,
+        List<DebtPayoffDTO> payoffOrder,
+        DebtScheduleDTO schedule
+) {}
@@ -0,0 +1,23 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: DebtProjectionResponseDTO — avalanche vs snowball vs minimum
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.debt;
+
+import com.alpha.alphavault.enums.PayoffStrategy;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record DebtProjectionResponseDTO(
+        Long userId,
+        int debtCount,
+        BigDecimal totalBalance,
+        BigDecimal extraMonthly,
+        PayoffStrategy recommended,
+        BigDecimal interestSavedVsMinimum,
+        int monthsSavedVsMinimum,
+        List<DebtPayoffPlanDTO> plans
+) {}
@@ -0,0 +1,23 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: DebtScheduleDTO — compact, columnar payment schedule
+ *  Notes:
+ *    - Amounts are minor units (cents), one entry per period
+ *    - Period i (0-based) falls on cycle.advance(start, i)
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.debt;
+
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+public record DebtScheduleDTO(
+        @JsonFormat(pattern = "MM/dd/yyyy") LocalDate start,
+        RecurrenceType cycle,
+        long[] paymentCents,
+        long[] interestCents,
+        long[] balanceCents
+) {}
@@ -0,0 +1,14 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: AllocationSliceDTO — value and share of one allocation bucket
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.investment;
+
+import java.math.BigDecimal;
+
+public record AllocationSliceDTO(
+        BigDecimal value,
+        BigDecimal percent
+) {}
@@ -0,0 +1,42 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: PortfolioAnalyticsDTO — allocation, P&L and risk of a user
+ *  Notes:
+ *    - Money fields are in `currency` (user's preferredCurrency)
+ *    - Allocation covers OPEN positions at current value
+ *    - Return/risk figures are percents; null when history is too short
+ *    - moneyWeightedReturnPercent is annualized (XIRR)
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.investment;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public record PortfolioAnalyticsDTO(
+        Long userId,
+        String currency,
+        int positions,
+        int openPositions,
+        BigDecimal totalInvested,
+        BigDecimal currentValue,
+        BigDecimal unrealizedPnl,
+        BigDecimal realizedPnl,
+        BigDecimal roiPercent,
+        Map<String, AllocationSliceDTO> byType,
+        Map<String, AllocationSliceDTO> byRisk,
+        Map<String, AllocationSliceDTO> byCurrency,
+        BigDecimal timeWeightedReturnPercent,
+        BigDecimal moneyWeightedReturnPercent,
+        BigDecimal annualizedVolatilityPercent,
+        BigDecimal maxDrawdownPercent,
+        int seriesPoints,
+        @JsonFormat(pattern = "MM/dd/yyyy") LocalDate seriesStart,
+        @JsonFormat(pattern = "MM/dd/yyyy") LocalDate seriesEnd,
+        LocalDateTime computedAt
+) {}
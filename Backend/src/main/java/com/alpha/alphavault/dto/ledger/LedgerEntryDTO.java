@@ -0,0 +1,31 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: LedgerEntryDTO — one immutable balance movement
+ *  Notes:
+ *    - amount is the signed delta; balanceAfter is the projection value
+ *    - source is the row that caused it (expense, goal, debt, ...)
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.ledger;
+
+import com.alpha.alphavault.enums.LedgerAccount;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record LedgerEntryDTO(
+    Long id,
+    LedgerAccount accountType,
+    Long accountId,
+    String entryType,
+    BigDecimal amount,
+    BigDecimal balanceAfter,
+    String currency,
+    String sourceTable,
+    Long sourceId,
+    @JsonFormat(pattern = "MM/dd/yyyy") LocalDate occurredOn,
+    LocalDateTime recordedAt
+) {}
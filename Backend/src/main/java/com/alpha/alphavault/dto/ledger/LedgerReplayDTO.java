@@ -0,0 +1,26 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: LedgerReplayDTO — an account balance recomputed from the ledger
+ *  Notes:
+ *    - balance = snapshot (if any) + entries recorded up to "at"
+ *    - projection/drift are only filled when replaying up to now
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.ledger;
+
+import com.alpha.alphavault.enums.LedgerAccount;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record LedgerReplayDTO(
+    LedgerAccount accountType,
+    Long accountId,
+    LocalDateTime at,
+    BigDecimal balance,
+    LocalDateTime snapshotAsOf,
+    long entriesReplayed,
+    BigDecimal projection,
+    BigDecimal drift
+) {}
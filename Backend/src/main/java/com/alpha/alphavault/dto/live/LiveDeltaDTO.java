@@ -0,0 +1,27 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: LiveDeltaDTO — one compact change pushed to a user's stream
+ *  Notes:
+ *    - type: expense | income | budget | goal | debt | investment | recurring | resync
+ *    - action: created | updated | deleted | synced | ...
+ *    - data holds only the fields a dashboard tile needs
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.live;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LiveDeltaDTO(
+        @JsonIgnore Long userId,
+        String type,
+        String action,
+        Long id,
+        Map<String, Object> data,
+        LocalDateTime at
+) {}
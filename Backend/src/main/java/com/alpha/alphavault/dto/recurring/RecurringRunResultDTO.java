@@ -0,0 +1,22 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: RecurringRunResultDTO - summary of one materializer run
+ *  Notes:
+ *    - inserted < generated when occurrences already existed (replays)
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.recurring;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+public record RecurringRunResultDTO(
+    @JsonFormat(pattern = "MM/dd/yyyy") LocalDate asOf,
+    long templates,
+    long generated,
+    long inserted,
+    int budgetsSynced,
+    long elapsedMs
+) {}
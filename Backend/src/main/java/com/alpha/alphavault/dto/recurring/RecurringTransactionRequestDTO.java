@@ -0,0 +1,58 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: RecurringTransactionRequestDTO - create/update template
+ *  Notes:
+ *    - category is required for kind=expense, source for kind=income
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.recurring;
+
+import com.alpha.alphavault.enums.ExpenseCategory;
+import com.alpha.alphavault.enums.PaymentMethod;
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.alpha.alphavault.enums.TransactionKind;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record RecurringTransactionRequestDTO(
+
+    @NotNull(message = "User ID is required")
+    Long userId,
+
+    @NotNull(message = "Kind is required")
+    TransactionKind kind,
+
+    @NotNull(message = "Recurrence is required")
+    RecurrenceType recurrence,
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.00", inclusive = false, message = "Amount must be greater than zero")
+    @Digits(integer = 15, fraction = 4, message = "Amount supports up to 4 decimals")
+    BigDecimal amount,
+
+    @Size(min = 3, max = 3, message = "Currency must be a 3-letter ISO code")
+    String currency,
+
+    ExpenseCategory category,
+
+    @Size(max = 255, message = "Source must be <= 255 characters")
+    String source,
+
+    @NotNull(message = "Payment method is required")
+    PaymentMethod paymentMethod,
+
+    @Size(max = 500, message = "Description must be <= 500 characters")
+    String description,
+
+    @NotNull(message = "Start date is required")
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate startDate,
+
+    /** Optional, inclusive. */
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate endDate
+) {}
@@ -0,0 +1,48 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: RecurringTransactionResponseDTO - Outgoing template payload
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.recurring;
+
+import com.alpha.alphavault.enums.ExpenseCategory;
+import com.alpha.alphavault.enums.PaymentMethod;
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.alpha.alphavault.enums.TransactionKind;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record RecurringTransactionResponseDTO(
+    Long id,
+    Long userId,
+    TransactionKind kind,
+    RecurrenceType recurrence,
+    BigDecimal amount,
+    String currency,
+    ExpenseCategory category,
+    String source,
+    PaymentMethod paymentMethod,
+    String description,
+
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate startDate,
+
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate endDate,
+
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate nextRunDate,
+
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate lastRunDate,
+
+    int occurrences,
+    boolean active,
+
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt
+) {}
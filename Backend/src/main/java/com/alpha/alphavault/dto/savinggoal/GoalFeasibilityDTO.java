@@ -0,0 +1,26 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: GoalFeasibilityDTO — simulated odds of meeting one goal
+ *  Notes:
+ *    - successProbability in [0, 1]
+ *    - expectedShortfall is the mean gap at deadline over all paths
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.savinggoal;
+
+import com.alpha.alphavault.enums.SavingGoalPriority;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record GoalFeasibilityDTO(
+        Long goalId,
+        String name,
+        SavingGoalPriority priority,
+        @JsonFormat(pattern = "MM/dd/yyyy") LocalDate deadline,
+        BigDecimal remainingAmount,
+        double successProbability,
+        BigDecimal expectedShortfall
+) {}
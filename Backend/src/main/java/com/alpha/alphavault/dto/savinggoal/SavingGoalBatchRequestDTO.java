@@ -0,0 +1,40 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: SavingGoalBatchRequestDTO — many contributions/withdrawals at once
+ *  Notes:
+ *    - Items may target the same goal; they apply in request order, and
+ *      a withdrawal may not overdraw the balance reached at its position
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.savinggoal;
+
+import com.alpha.alphavault.enums.GoalMovementType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record SavingGoalBatchRequestDTO(
+
+        @NotNull(message = "User ID is required")
+        Long userId,
+
+        @NotEmpty(message = "At least one movement is required")
+        @Size(max = 500, message = "At most 500 movements per batch")
+        List<@Valid Movement> movements
+) {
+    public record Movement(
+            @NotNull(message = "Goal ID is required")
+            Long goalId,
+
+            @NotNull(message = "Movement type is required")
+            GoalMovementType type,
+
+            @NotNull(message = "Amount is required")
+            @DecimalMin(value = "0.00", inclusive = false, message = "Amount must be greater than zero")
+            @Digits(integer = 15, fraction = 4, message = "Amount supports up to 4 decimals")
+            BigDecimal amount
+    ) {}
+}
@@ -0,0 +1,25 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  DTO: SavingGoalFeasibilityResponseDTO — Monte Carlo summary
+ *  Notes:
+ *    - Goals are listed in funding order (priority, then deadline)
+ *    - Monthly net = incomes - expenses over the history window
+ * ================================================================
+ */
+package com.alpha.alphavault.dto.savinggoal;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record SavingGoalFeasibilityResponseDTO(
+        Long userId,
+        int paths,
+        int historyMonths,
+        int horizonMonths,
+        BigDecimal meanMonthlyNet,
+        BigDecimal stdDevMonthlyNet,
+        LocalDateTime computedAt,
+        List<GoalFeasibilityDTO> goals
+) {}
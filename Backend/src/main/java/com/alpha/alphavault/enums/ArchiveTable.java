@@ -0,0 +1,50 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Enum: ArchiveTable — soft-deletable tables served by the cold tier
+ *  Notes:
+ *    - table() names are stored in archive.archived_rows.table_name (V8)
+ *    - Child rows (FK to the parent) are archived inside the parent payload
+ * ================================================================
+ */
+package com.alpha.alphavault.enums;
+
+public enum ArchiveTable {
+    EXPENSES,
+    INCOMES,
+    BUDGETS,
+    DEBTS,
+    SAVING_GOALS;
+
+    // ============================================================
+    // == Table helpers
+    // ============================================================
+
+    public String table() {
+        return switch (this) {
+            case EXPENSES -> "expenses";
+            case INCOMES -> "incomes";
+            case BUDGETS -> "budgets";
+            case DEBTS -> "debts";
+            case SAVING_GOALS -> "saving_goals";
+        };
+    }
+
+    /** Table whose rows reference this one, or null. */
+    public String childTable() {
+        return switch (this) {
+            case BUDGETS -> "budget_categories";
+            case DEBTS -> "debt_history";
+            default -> null;
+        };
+    }
+
+    /** FK column of {@link #childTable()}. */
+    public String childKey() {
+        return switch (this) {
+            case BUDGETS -> "budget_id";
+            case DEBTS -> "debt_id";
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Enum: DataDomain — unit of per-user data versioning (ETags)
+ *  Notes:
+ *    - Names are stored in user_data_versions.domain (see V5 triggers)
+ *    - PROFILE (the users row, e.g. preferredCurrency) is part of every tag;
+ *      login bookkeeping columns do not bump it (V15)
+ * ================================================================
+ */
+package com.alpha.alphavault.enums;
+
+public enum DataDomain {
+    PROFILE,
+    EXPENSES,
+    INCOMES,
+    BUDGETS,
+    SAVING_GOALS,
+    DEBTS,
+    INVESTMENTS,
+    RECURRING
+}
@@ -0,0 +1,29 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Enum: GoalMovementType — direction of a saving-goal money movement
+ * ================================================================
+ */
+package com.alpha.alphavault.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum GoalMovementType {
+    CONTRIBUTION,
+    WITHDRAWAL;
+
+    // ============================================================
+    // == JSON Serialization / Deserialization
+    // ============================================================
+
+    @JsonValue
+    public String toJson() {
+        return name().toLowerCase();
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static GoalMovementType fromJson(String value) {
+        return GoalMovementType.valueOf(value.toUpperCase());
+    }
+}
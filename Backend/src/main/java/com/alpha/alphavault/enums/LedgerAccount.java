@@ -0,0 +1,44 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Enum: LedgerAccount — ledger account types and their projections
+ *  Notes:
+ *    - Names are stored in ledger_entries.account_type (see V6)
+ *    - Each type is projected into one balance column of one table
+ * ================================================================
+ */
+package com.alpha.alphavault.enums;
+
+public enum LedgerAccount {
+    SAVING_GOAL,
+    DEBT,
+    INVESTMENT,
+    BUDGET,
+    BUDGET_CATEGORY;
+
+    // ============================================================
+    // == Projection helpers
+    // ============================================================
+
+    /** Table holding the projected balance. */
+    public String table() {
+        return switch (this) {
+            case SAVING_GOAL -> "saving_goals";
+            case DEBT -> "debts";
+            case INVESTMENT -> "investments";
+            case BUDGET -> "budgets";
+            case BUDGET_CATEGORY -> "budget_categories";
+        };
+    }
+
+    /** Balance column maintained from this account's entries. */
+    public String balanceColumn() {
+        return switch (this) {
+            case SAVING_GOAL -> "current_amount";
+            case DEBT -> "remaining_amount";
+            case INVESTMENT -> "current_value";
+            case BUDGET -> "total_spent";
+            case BUDGET_CATEGORY -> "spent_amount";
+        };
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Enum: PayoffStrategy — ordering used by debt payoff projections
+ * ================================================================
+ */
+package com.alpha.alphavault.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum PayoffStrategy {
+    /** Highest APR first (minimizes total interest). */
+    AVALANCHE,
+    /** Smallest balance first (fastest first win). */
+    SNOWBALL,
+    /** Minimum payments only, no extra and no roll-over (baseline). */
+    MINIMUM;
+
+    // ============================================================
+    // == JSON Serialization / Deserialization
+    // ============================================================
+
+    @JsonValue
+    public String toJson() {
+        return name().toLowerCase();
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static PayoffStrategy fromJson(String value) {
+        return PayoffStrategy.valueOf(value.trim().toUpperCase());
+    }
+}
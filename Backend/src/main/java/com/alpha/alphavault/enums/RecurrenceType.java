@@ -9,12 +9,38 @@ package com.alpha.alphavault.enums;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
+import java.time.LocalDate;
+
 public enum RecurrenceType {
     DAILY,
     WEEKLY,
     MONTHLY,
     YEARLY;
 
+    // ============================================================
+    // == Cycle helpers
+    // ============================================================
+
+    /** Number of billing periods in one year (used to derive periodic rates). */
+    public int periodsPerYear() {
+        return switch (this) {
+            case DAILY -> 365;
+            case WEEKLY -> 52;
+            case MONTHLY -> 12;
+            case YEARLY -> 1;
+        };
+    }
+
+    /** Date of the n-th occurrence after {@code from} (n = 0 returns {@code from}). */
+    public LocalDate advance(LocalDate from, long n) {
+        return switch (this) {
+            case DAILY -> from.plusDays(n);
+            case WEEKLY -> from.plusWeeks(n);
+            case MONTHLY -> from.plusMonths(n);
+            case YEARLY -> from.plusYears(n);
+        };
+    }
+
     // ============================================================
     // == JSON Serialization / Deserialization
     // ============================================================
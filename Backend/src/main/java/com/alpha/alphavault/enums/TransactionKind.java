@@ -0,0 +1,29 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Enum: TransactionKind — what a recurring template materializes into
+ * ================================================================
+ */
+package com.alpha.alphavault.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum TransactionKind {
+    INCOME,
+    EXPENSE;
+
+    // ============================================================
+    // == JSON Serialization / Deserialization
+    // ============================================================
+
+    @JsonValue
+    public String toJson() {
+        return name().toLowerCase();
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static TransactionKind fromJson(String value) {
+        return TransactionKind.valueOf(value.toUpperCase());
+    }
+}
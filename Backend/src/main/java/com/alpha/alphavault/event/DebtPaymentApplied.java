@@ -0,0 +1,20 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: DebtPaymentApplied — a payment reduced a debt's balance
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DebtPaymentApplied(
+    Long userId,
+    Long debtId,
+    BigDecimal amount,
+    BigDecimal remainingAfter,
+    @JsonFormat(pattern = "MM/dd/yyyy") LocalDate paymentDate
+) implements DomainEvent {}
@@ -0,0 +1,29 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: DomainEvent — facts recorded through the domain event outbox
+ *  Notes:
+ *    - Stored as JSON in domain_events.payload; the "type" property
+ *      names the record, so renaming one needs a payload migration
+ *    - userId is the ordering key: one user's events are handled in
+ *      the order they were recorded
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ExpenseRecorded.class, name = "ExpenseRecorded"),
+        @JsonSubTypes.Type(value = IncomeRecorded.class, name = "IncomeRecorded"),
+        @JsonSubTypes.Type(value = DebtPaymentApplied.class, name = "DebtPaymentApplied"),
+        @JsonSubTypes.Type(value = GoalContributed.class, name = "GoalContributed"),
+        @JsonSubTypes.Type(value = InvestmentRevalued.class, name = "InvestmentRevalued")
+})
+public sealed interface DomainEvent
+        permits ExpenseRecorded, IncomeRecorded, DebtPaymentApplied, GoalContributed, InvestmentRevalued {
+
+    Long userId();
+}
@@ -0,0 +1,19 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: DomainEventBus — where the relay runs event handling
+ *  Notes:
+ *    - Contract: tasks with the same partition key run one at a time in
+ *      submission order; different keys may run in parallel
+ *    - Default is PartitionedEventBus (in-process); another transport
+ *      can be plugged in as a @Primary bean
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface DomainEventBus {
+
+    CompletableFuture<Void> submit(long partitionKey, Runnable task);
+}
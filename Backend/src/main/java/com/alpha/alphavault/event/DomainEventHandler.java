@@ -0,0 +1,20 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: DomainEventHandler — asynchronous consumer of one event type
+ *  Notes:
+ *    - Runs after the recording transaction committed, inside the
+ *      relay's transaction for that event: its writes and the "done"
+ *      mark commit together, a failure rolls both back and retries
+ *    - Delivery is at-least-once: handlers must be idempotent
+ *    - A type without any handler is not recorded at all (DomainEventPublisher)
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+public interface DomainEventHandler<E extends DomainEvent> {
+
+    Class<E> eventType();
+
+    void handle(E event);
+}
@@ -0,0 +1,33 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: ExpenseBudgetHandler — books expense changes onto budgets
+ *  Notes:
+ *    - Ledger booking only writes differences, so a redelivered event
+ *      is a no-op; totals, live pushes and alerts follow from it
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import com.alpha.alphavault.service.BudgetService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@Component
+public class ExpenseBudgetHandler implements DomainEventHandler<ExpenseRecorded> {
+
+    private final BudgetService budgetService;
+
+    @Override
+    public Class<ExpenseRecorded> eventType() {
+        return ExpenseRecorded.class;
+    }
+
+    @Override
+    public void handle(ExpenseRecorded event) {
+        budgetService.bookExpenses(List.of(event.expenseId()));
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: ExpenseRecorded — an expense was created/updated/deleted/restored
+ *  Notes:
+ *    - Carries ids only: consumers read the current row (or its absence)
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+public record ExpenseRecorded(
+    Long userId,
+    Long expenseId,
+    String action
+) implements DomainEvent {}
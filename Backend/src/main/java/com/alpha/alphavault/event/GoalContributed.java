@@ -0,0 +1,18 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: GoalContributed — money moved into (or out of) a saving goal
+ *  Notes:
+ *    - delta is signed: withdrawals are negative
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import java.math.BigDecimal;
+
+public record GoalContributed(
+    Long userId,
+    Long goalId,
+    BigDecimal delta,
+    BigDecimal currentAfter
+) implements DomainEvent {}
@@ -0,0 +1,15 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: IncomeRecorded — an income was created/updated/deleted/restored
+ *  Notes:
+ *    - Carries ids only: consumers read the current row (or its absence)
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+public record IncomeRecorded(
+    Long userId,
+    Long incomeId,
+    String action
+) implements DomainEvent {}
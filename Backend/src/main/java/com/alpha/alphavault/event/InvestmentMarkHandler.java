@@ -0,0 +1,30 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: InvestmentMarkHandler — writes revaluations to price history
+ *  Notes:
+ *    - Upsert per (investment, day): redelivery rewrites the same mark
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import com.alpha.alphavault.repository.InvestmentPriceHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@RequiredArgsConstructor
+@Component
+public class InvestmentMarkHandler implements DomainEventHandler<InvestmentRevalued> {
+
+    private final InvestmentPriceHistoryRepository priceHistory;
+
+    @Override
+    public Class<InvestmentRevalued> eventType() {
+        return InvestmentRevalued.class;
+    }
+
+    @Override
+    public void handle(InvestmentRevalued event) {
+        priceHistory.upsert(event.investmentId(), event.userId(), event.priceDate(), event.price(), event.marketValue());
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: InvestmentRevalued — a new price/value mark for an open position
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record InvestmentRevalued(
+    Long userId,
+    Long investmentId,
+    @JsonFormat(pattern = "MM/dd/yyyy") LocalDate priceDate,
+    BigDecimal price,
+    BigDecimal marketValue
+) implements DomainEvent {}
@@ -0,0 +1,46 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Event: PartitionedEventBus — in-process bus, one lane per partition
+ *  Guarantees:
+ *    - key -> lane is stable (floorMod), each lane is a single thread:
+ *      per-key FIFO, lanes run in parallel
+ * ================================================================
+ */
+package com.alpha.alphavault.event;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+public class PartitionedEventBus implements DomainEventBus {
+
+    private final ExecutorService[] lanes;
+
+    public PartitionedEventBus(@Value("${events.bus.partitions:4}") int partitions) {
+        this.lanes = new ExecutorService[Math.max(1, partitions)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "events-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ExecutorService lane : lanes) lane.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<Void> submit(long partitionKey, Runnable task) {
+        return CompletableFuture.runAsync(task, lanes[(int) Math.floorMod(partitionKey, (long) lanes.length)]);
+    }
+}
@@ -137,8 +137,9 @@ public class GlobalExceptionHandler {
             ExpenseNotFoundException.class,
             BudgetNotFoundException.class,
             SavingGoalNotFoundException.class,
-            InvestmentNotFoundException.class
-
+            InvestmentNotFoundException.class,
+            RecurringTransactionNotFoundException.class,
+            ResourceNotFoundException.class
     })
     public ResponseEntity<ApiError> handleNotFound(RuntimeException ex, HttpServletRequest req) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -294,6 +295,16 @@ public class GlobalExceptionHandler {
                 .body(ApiError.of("Database access error", 500, req.getRequestURI(), details));
     }
 
+    // ============================================================
+    // == 503 Service Unavailable (bounded pools full)
+    // ============================================================
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiError> handleBusy(ServiceBusyException ex, HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(ApiError.of(ex.getMessage(), 503, req.getRequestURI()));
+    }
+
     // ============================================================
     // == 500 Internal Errors (domain + fallback)
     // ============================================================
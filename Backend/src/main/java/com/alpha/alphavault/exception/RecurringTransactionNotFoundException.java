@@ -0,0 +1,11 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Exception: RecurringTransactionNotFoundException
+ * ================================================================
+ */
+package com.alpha.alphavault.exception;
+
+public class RecurringTransactionNotFoundException extends RuntimeException {
+    public RecurringTransactionNotFoundException(String message) { super(message); }
+}
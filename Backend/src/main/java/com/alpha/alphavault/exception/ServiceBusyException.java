@@ -0,0 +1,15 @@
+package com.alpha.alphavault.exception;
+
+/** A bounded worker pool is full: the client should retry shortly (503 + Retry-After). */
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
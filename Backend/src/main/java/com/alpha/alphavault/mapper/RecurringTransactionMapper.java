@@ -0,0 +1,84 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Mapper: RecurringTransaction <-> DTOs
+ * ================================================================
+ */
+package com.alpha.alphavault.mapper;
+
+import com.alpha.alphavault.dto.recurring.RecurringTransactionRequestDTO;
+import com.alpha.alphavault.dto.recurring.RecurringTransactionResponseDTO;
+import com.alpha.alphavault.model.RecurringTransaction;
+import com.alpha.alphavault.model.User;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RecurringTransactionMapper {
+
+    // ========== DTO -> Entity (Create) ==========
+    public RecurringTransaction toEntity(RecurringTransactionRequestDTO dto) {
+        if (dto == null) return null;
+
+        RecurringTransaction rt = new RecurringTransaction();
+        rt.setUser(new User(dto.userId()));
+        rt.setKind(dto.kind());
+        rt.setRecurrence(dto.recurrence());
+        rt.setAmount(dto.amount());
+        rt.setCurrency(upper(dto.currency()));
+        rt.setCategory(dto.category());
+        rt.setSource(trim(dto.source()));
+        rt.setPaymentMethod(dto.paymentMethod());
+        rt.setDescription(trim(dto.description()));
+        rt.setStartDate(dto.startDate());
+        rt.setEndDate(dto.endDate());
+        rt.setActive(true);
+        return rt;
+    }
+
+    // ========== DTO -> Entity (Update mutable fields; schedule fields handled by service) ==========
+    public void updateEntity(RecurringTransaction target, RecurringTransactionRequestDTO dto) {
+        if (target == null || dto == null) return;
+
+        if (dto.amount() != null)          target.setAmount(dto.amount());
+        if (dto.currency() != null)        target.setCurrency(upper(dto.currency()));
+        if (dto.category() != null)        target.setCategory(dto.category());
+        if (dto.source() != null)          target.setSource(trim(dto.source()));
+        if (dto.paymentMethod() != null)   target.setPaymentMethod(dto.paymentMethod());
+        if (dto.description() != null)     target.setDescription(trim(dto.description()));
+        if (dto.endDate() != null)         target.setEndDate(dto.endDate());
+    }
+
+    // ========== Entity -> DTO ==========
+    public RecurringTransactionResponseDTO toResponse(RecurringTransaction rt) {
+        if (rt == null) return null;
+
+        return new RecurringTransactionResponseDTO(
+            rt.getId(),
+            rt.getUser() != null ? rt.getUser().getId() : null,
+            rt.getKind(),
+            rt.getRecurrence(),
+            rt.getAmount(),
+            rt.getCurrency(),
+            rt.getCategory(),
+            rt.getSource(),
+            rt.getPaymentMethod(),
+            rt.getDescription(),
+            rt.getStartDate(),
+            rt.getEndDate(),
+            rt.getNextRunDate(),
+            rt.getLastRunDate(),
+            rt.getOccurrences(),
+            rt.isActive(),
+            rt.getCreatedAt(),
+            rt.getUpdatedAt()
+        );
+    }
+
+    // ========== helpers ==========
+    private String trim(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+    private String upper(String s) { return s == null ? null : s.trim().toUpperCase(); }
+}
@@ -31,7 +31,7 @@ import java.util.List;
 )
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 @SQLDelete(sql = "UPDATE budgets SET deleted_at = NOW() WHERE id = ?")
-@FilterDef(name = "budgetDeletedFilter", defaultCondition = "deleted_at IS NULL")
+@FilterDef(name = "budgetDeletedFilter", defaultCondition = "deleted_at IS NULL", autoEnabled = true)
 @Filter(name = "budgetDeletedFilter")
 public class Budget {
 
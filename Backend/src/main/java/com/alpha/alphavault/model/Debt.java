@@ -5,7 +5,7 @@
  *  Guarantees:
  *    - BigDecimal for all money
  *    - Optimistic locking (@Version)
- *    - Soft delete (@SQLDelete + @Where)
+ *    - Soft delete (@SQLDelete + auto-enabled @Filter)
  *    - Status + due-date semantics, indexes for speed
  * ================================================================
  */
@@ -40,7 +40,7 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @SQLDelete(sql = "UPDATE debts SET deleted_at = NOW() WHERE id = ?")
-@FilterDef(name = "debtDeletedFilter", defaultCondition = "deleted_at IS NULL")
+@FilterDef(name = "debtDeletedFilter", defaultCondition = "deleted_at IS NULL", autoEnabled = true)
 @Filter(name = "debtDeletedFilter")
 public class Debt {
 
@@ -22,8 +22,11 @@ import org.hibernate.annotations.FilterDef;
 @Entity
 @Table(
     name = "expenses",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_expense_recurrence_key", columnNames = {"recurrence_key", "expense_date"})
+    },
     indexes = {
-        @Index(name = "idx_expense_user", columnList = "user_id"),
+        @Index(name = "idx_expense_user", columnList = "user_id, expense_date"),
         @Index(name = "idx_expense_date", columnList = "expense_date"),
         @Index(name = "idx_expense_category", columnList = "category"),
         @Index(name = "idx_expense_payment_method", columnList = "paymentMethod"),
@@ -36,7 +39,7 @@ import org.hibernate.annotations.FilterDef;
 @AllArgsConstructor
 @Builder
 @SQLDelete(sql = "UPDATE expenses SET deleted_at = NOW() WHERE id = ?")
-@FilterDef(name = "expenseDeletedFilter", defaultCondition = "deleted_at IS NULL")
+@FilterDef(name = "expenseDeletedFilter", defaultCondition = "deleted_at IS NULL", autoEnabled = true)
 @Filter(name = "expenseDeletedFilter")
 public class Expense {
 
@@ -78,6 +81,10 @@ public class Expense {
     @Column(length = 500)
     private String description;
 
+    /** Set when materialized from a recurring template ("rt:<id>:<date>"); unique. */
+    @Column(name = "recurrence_key", length = 64, updatable = false)
+    private String recurrenceKey;
+
     // ================= Audit ==============================
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
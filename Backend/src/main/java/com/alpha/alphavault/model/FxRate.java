@@ -0,0 +1,40 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Entity: FxRate — units of currency per 1 USD
+ *  Notes:
+ *    - Joined by aggregate queries to convert into preferredCurrency
+ *    - Refreshed by FxRateService; seeded by migration fixture
+ * ================================================================
+ */
+package com.alpha.alphavault.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "fx_rates")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FxRate {
+
+    /** ISO 4217, upper case. */
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "rate_per_usd", nullable = false, precision = 24, scale = 10)
+    private BigDecimal ratePerUsd;
+
+    @Column(nullable = false, length = 32)
+    private String source;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -21,8 +21,11 @@ import org.hibernate.annotations.FilterDef;
 @Entity
 @Table(
     name = "incomes",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_income_recurrence_key", columnNames = {"recurrence_key", "income_date"})
+    },
     indexes = {
-        @Index(name = "idx_income_user", columnList = "user_id"),
+        @Index(name = "idx_income_user", columnList = "user_id, income_date"),
         @Index(name = "idx_income_date", columnList = "income_date"),
         @Index(name = "idx_income_payment_method", columnList = "paymentMethod"),
         @Index(name = "idx_income_deleted", columnList = "deleted_at")
@@ -34,7 +37,7 @@ import org.hibernate.annotations.FilterDef;
 @AllArgsConstructor
 @Builder
 @SQLDelete(sql = "UPDATE incomes SET deleted_at = NOW() WHERE id = ?")
-@FilterDef(name = "incomeDeletedFilter", defaultCondition = "deleted_at IS NULL")
+@FilterDef(name = "incomeDeletedFilter", defaultCondition = "deleted_at IS NULL", autoEnabled = true)
 @Filter(name = "incomeDeletedFilter")
 public class Income {
 
@@ -75,6 +78,10 @@ public class Income {
     @Column(length = 500)
     private String description;
 
+    /** Set when materialized from a recurring template ("rt:<id>:<date>"); unique. */
+    @Column(name = "recurrence_key", length = 64, updatable = false)
+    private String recurrenceKey;
+
     // ================= Audit ===============================
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
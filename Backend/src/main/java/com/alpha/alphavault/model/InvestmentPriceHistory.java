@@ -0,0 +1,63 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Entity: InvestmentPriceHistory — daily mark-to-market points
+ *  Notes:
+ *    - One row per (investment, day); written via upsert in repository
+ *    - Rows cascade away with their investment (hard delete)
+ * ================================================================
+ */
+package com.alpha.alphavault.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+    name = "investment_price_history",
+    uniqueConstraints = @UniqueConstraint(name = "uk_invprice_investment_date", columnNames = {"investment_id", "price_date"}),
+    indexes = {
+        @Index(name = "idx_invprice_user_date", columnList = "user_id, price_date")
+    }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InvestmentPriceHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "investment_id", nullable = false)
+    private Investment investment;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "price_date", nullable = false)
+    private LocalDate priceDate;
+
+    @Column(precision = 19, scale = 8)
+    private BigDecimal price;
+
+    /** Position value at that mark (price * quantity, or snapshot value). */
+    @Column(name = "market_value", nullable = false, precision = 19, scale = 4)
+    private BigDecimal marketValue;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (recordedAt == null) recordedAt = LocalDateTime.now();
+    }
+}
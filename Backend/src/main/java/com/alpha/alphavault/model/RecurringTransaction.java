@@ -0,0 +1,118 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Entity: RecurringTransaction — income/expense template
+ *  Notes:
+ *    - Occurrence n falls on recurrence.advance(startDate, n) (no drift
+ *      for month-end dates); `occurrences` is the next n to materialize
+ *    - nextRunDate is the date of that occurrence (scheduler scan key)
+ * ================================================================
+ */
+package com.alpha.alphavault.model;
+
+import com.alpha.alphavault.enums.ExpenseCategory;
+import com.alpha.alphavault.enums.PaymentMethod;
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.alpha.alphavault.enums.TransactionKind;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+    name = "recurring_transactions",
+    indexes = {
+        @Index(name = "idx_recurring_user", columnList = "user_id")
+    }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecurringTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Version
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private TransactionKind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RecurrenceType recurrence;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(length = 3)
+    private String currency;
+
+    /** EXPENSE templates only. */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 50)
+    private ExpenseCategory category;
+
+    /** INCOME templates only. */
+    @Column(length = 255)
+    private String source;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private PaymentMethod paymentMethod;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    /** Inclusive; null = open-ended. */
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(name = "next_run_date", nullable = false)
+    private LocalDate nextRunDate;
+
+    @Column(name = "last_run_date")
+    private LocalDate lastRunDate;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int occurrences = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean active = true;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        createdAt = now;
+        updatedAt = now;
+        if (nextRunDate == null) nextRunDate = recurrence.advance(startDate, occurrences);
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
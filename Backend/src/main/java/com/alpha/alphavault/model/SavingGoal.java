@@ -43,7 +43,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @SQLDelete(sql = "UPDATE saving_goals SET deleted_at = NOW() WHERE id = ?")
-@FilterDef(name = "savingGoalDeletedFilter", defaultCondition = "deleted_at IS NULL")
+@FilterDef(name = "savingGoalDeletedFilter", defaultCondition = "deleted_at IS NULL", autoEnabled = true)
 @Filter(name = "savingGoalDeletedFilter")
 public class SavingGoal {
 
@@ -33,11 +33,19 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findByUserId(Long userId);
     List<Budget> findByUserIdAndYearOrderByMonthAsc(Long userId, int year);
 
-    // Aggregates
-    @Query("SELECT COALESCE(SUM(b.totalBudget), 0) FROM Budget b WHERE b.user.id = :userId AND b.year = :year")
+    // Aggregates (converted into the user's preferredCurrency via fx_rates; missing rate -> 1:1)
+    @Query("SELECT COALESCE(SUM(b.totalBudget * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0) " +
+           "FROM Budget b JOIN b.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(b.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
+           "WHERE b.user.id = :userId AND b.year = :year")
     BigDecimal sumTotalBudgetByUserAndYear(@Param("userId") Long userId, @Param("year") int year);
 
-    @Query("SELECT b.month, COALESCE(SUM(b.totalBudget), 0) FROM Budget b WHERE b.user.id = :userId AND b.year = :year GROUP BY b.month ORDER BY b.month ASC")
+    @Query("SELECT b.month, COALESCE(SUM(b.totalBudget * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0) " +
+           "FROM Budget b JOIN b.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(b.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
+           "WHERE b.user.id = :userId AND b.year = :year GROUP BY b.month ORDER BY b.month ASC")
     List<Object[]> monthlyBudgetAggregate(@Param("userId") Long userId, @Param("year") int year);
 
     // Soft delete / restore
@@ -43,9 +43,39 @@ public interface DebtRepository extends JpaRepository<Debt, Long> {
                              @Param("start") LocalDate start,
                              @Param("end") LocalDate end);
 
-    @Query("SELECT COALESCE(SUM(d.remainingAmount), 0) FROM Debt d WHERE d.user.id = :userId")
+    // Sums are converted into the user's preferredCurrency via fx_rates (missing rate -> 1:1)
+    @Query("""
+        SELECT COALESCE(SUM(d.remainingAmount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0)
+        FROM Debt d JOIN d.user u
+        LEFT JOIN FxRate fr ON fr.currency = UPPER(d.currency)
+        LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency)
+        WHERE d.user.id = :userId
+    """)
     BigDecimal sumRemainingByUser(@Param("userId") Long userId);
 
+    /** Single row: [sumRemaining, sumMinPayment, count]. */
+    @Query("""
+        SELECT COALESCE(SUM(d.remainingAmount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0),
+               COALESCE(SUM(d.minPayment * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0),
+               COUNT(d)
+        FROM Debt d JOIN d.user u
+        LEFT JOIN FxRate fr ON fr.currency = UPPER(d.currency)
+        LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency)
+        WHERE d.user.id = :userId
+    """)
+    List<Object[]> totalsByUser(@Param("userId") Long userId);
+
+    @Query("""
+        SELECT COALESCE(NULLIF(TRIM(d.creditorName), ''), 'UNKNOWN'),
+               SUM(COALESCE(d.remainingAmount, 0) * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1))
+        FROM Debt d JOIN d.user u
+        LEFT JOIN FxRate fr ON fr.currency = UPPER(d.currency)
+        LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency)
+        WHERE d.user.id = :userId
+        GROUP BY COALESCE(NULLIF(TRIM(d.creditorName), ''), 'UNKNOWN')
+    """)
+    List<Object[]> sumRemainingByCreditor(@Param("userId") Long userId);
+
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE Debt d SET d.deletedAt = NULL WHERE d.id = :id")
     int restore(@Param("id") Long id);
@@ -20,7 +20,7 @@ import java.util.List;
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 
-    // ---------- Simple finders (respect @Where -> ignore soft-deleted) ----------
+    // ---------- Simple finders (deleted filter is auto-enabled -> ignore soft-deleted) ----------
     List<Expense> findByUserId(Long userId);
 
     // OLD name used "date" -> entity uses "expenseDate"
@@ -33,32 +33,81 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     List<Expense> findTop5ByUserIdAndExpenseDateBetweenOrderByAmountDesc(Long userId, LocalDate start, LocalDate end);
 
     // ---------- Aggregations (DB-side, fast) ----------
-    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e " +
+    // Amounts are converted into the user's preferredCurrency by joining fx_rates
+    // (rates per USD); a missing rate on either side falls back to 1:1.
+    @Query("SELECT COALESCE(SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0) " +
+           "FROM Expense e JOIN e.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE e.user.id = :userId AND e.expenseDate >= :start AND e.expenseDate < :end")
     BigDecimal sumAmountForPeriod(@Param("userId") Long userId,
                                   @Param("start") LocalDate start,
                                   @Param("end") LocalDate end); // end is exclusive
 
-    @Query("SELECT e.paymentMethod, SUM(e.amount) FROM Expense e " +
+    @Query("SELECT e.paymentMethod, SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Expense e JOIN e.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE e.user.id = :userId GROUP BY e.paymentMethod")
     List<Object[]> sumByPaymentMethod(@Param("userId") Long userId);
 
-    @Query("SELECT e.category, SUM(e.amount) FROM Expense e " +
+    @Query("SELECT e.category, SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Expense e JOIN e.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE e.user.id = :userId GROUP BY e.category")
     List<Object[]> sumByCategory(@Param("userId") Long userId);
 
-    @Query("SELECT e.paymentMethod, SUM(e.amount) FROM Expense e " +
+    @Query("SELECT e.paymentMethod, SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Expense e JOIN e.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE e.user.id = :userId AND e.expenseDate >= :start AND e.expenseDate < :end GROUP BY e.paymentMethod")
     List<Object[]> sumByPaymentMethodForPeriod(@Param("userId") Long userId,
                                               @Param("start") LocalDate start,
                                               @Param("end") LocalDate end);
 
-    @Query("SELECT e.category, SUM(e.amount) FROM Expense e " +
+    @Query("SELECT e.category, SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Expense e JOIN e.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE e.user.id = :userId AND e.expenseDate >= :start AND e.expenseDate < :end GROUP BY e.category")
     List<Object[]> sumByCategoryForPeriod(@Param("userId") Long userId,
                                          @Param("start") LocalDate start,
                                          @Param("end") LocalDate end);
 
+    // Same sums converted into an explicit currency (e.g. a budget's own currency)
+    @Query("SELECT COALESCE(SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0) " +
+           "FROM Expense e " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(:currency) " +
+           "WHERE e.user.id = :userId AND e.deletedAt IS NULL AND e.expenseDate >= :start AND e.expenseDate < :end")
+    BigDecimal sumAmountForPeriodIn(@Param("userId") Long userId,
+                                    @Param("start") LocalDate start,
+                                    @Param("end") LocalDate end,
+                                    @Param("currency") String currency);
+
+    @Query("SELECT e.category, SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Expense e " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(:currency) " +
+           "WHERE e.user.id = :userId AND e.deletedAt IS NULL AND e.expenseDate >= :start AND e.expenseDate < :end " +
+           "GROUP BY e.category")
+    List<Object[]> sumByCategoryForPeriodIn(@Param("userId") Long userId,
+                                            @Param("start") LocalDate start,
+                                            @Param("end") LocalDate end,
+                                            @Param("currency") String currency);
+
+    @Query("SELECT YEAR(e.expenseDate), MONTH(e.expenseDate), SUM(e.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Expense e JOIN e.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(e.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
+           "WHERE e.user.id = :userId AND e.deletedAt IS NULL AND e.expenseDate >= :start AND e.expenseDate < :end " +
+           "GROUP BY YEAR(e.expenseDate), MONTH(e.expenseDate)")
+    List<Object[]> sumByMonth(@Param("userId") Long userId,
+                              @Param("start") LocalDate start,
+                              @Param("end") LocalDate end); // rows: [year, month, sum]
+
     // ---------- Soft delete helpers ----------
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE Expense e SET e.deletedAt = CURRENT_TIMESTAMP, e.deletedBy = :deletedBy WHERE e.id = :id")
@@ -0,0 +1,31 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Repository: FxRateRepository
+ * ================================================================
+ */
+package com.alpha.alphavault.repository;
+
+import com.alpha.alphavault.model.FxRate;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, String> {
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO fx_rates (currency, rate_per_usd, source, updated_at)
+        VALUES (:currency, :rate, :source, CURRENT_TIMESTAMP)
+        ON CONFLICT (currency)
+        DO UPDATE SET rate_per_usd = EXCLUDED.rate_per_usd,
+                      source = EXCLUDED.source,
+                      updated_at = EXCLUDED.updated_at
+    """, nativeQuery = true)
+    int upsert(@Param("currency") String currency,
+               @Param("rate") BigDecimal ratePerUsd,
+               @Param("source") String source);
+}
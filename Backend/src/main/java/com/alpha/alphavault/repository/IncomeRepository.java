@@ -20,7 +20,7 @@ import java.util.List;
 @Repository
 public interface IncomeRepository extends JpaRepository<Income, Long> {
 
-    // ---------- Simple finders (respect @Where -> ignore soft-deleted) ----------
+    // ---------- Simple finders (deleted filter is auto-enabled -> ignore soft-deleted) ----------
     List<Income> findByUserId(Long userId);
 
     // Old name used "date" -> your entity uses "incomeDate"
@@ -36,32 +36,59 @@ public interface IncomeRepository extends JpaRepository<Income, Long> {
     List<String> findDistinctSourcesByUserId(@Param("userId") Long userId);
 
     // ---------- Aggregations (DB-side, fast) ----------
-    @Query("SELECT COALESCE(SUM(i.amount), 0) FROM Income i " +
+    // Amounts are converted into the user's preferredCurrency by joining fx_rates
+    // (rates per USD); a missing rate on either side falls back to 1:1.
+    @Query("SELECT COALESCE(SUM(i.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0) " +
+           "FROM Income i JOIN i.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(i.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE i.user.id = :userId AND i.incomeDate >= :start AND i.incomeDate < :end")
     BigDecimal sumAmountForPeriod(@Param("userId") Long userId,
                                   @Param("start") LocalDate start,
                                   @Param("end") LocalDate end);
 
-    @Query("SELECT i.paymentMethod, SUM(i.amount) FROM Income i " +
+    @Query("SELECT i.paymentMethod, SUM(i.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Income i JOIN i.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(i.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE i.user.id = :userId GROUP BY i.paymentMethod")
     List<Object[]> sumByPaymentMethod(@Param("userId") Long userId);
 
-    @Query("SELECT i.source, SUM(i.amount) FROM Income i " +
+    @Query("SELECT i.source, SUM(i.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Income i JOIN i.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(i.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE i.user.id = :userId GROUP BY i.source")
     List<Object[]> sumBySource(@Param("userId") Long userId);
 
-    @Query("SELECT i.paymentMethod, SUM(i.amount) FROM Income i " +
+    @Query("SELECT i.paymentMethod, SUM(i.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Income i JOIN i.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(i.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE i.user.id = :userId AND i.incomeDate >= :start AND i.incomeDate < :end GROUP BY i.paymentMethod")
     List<Object[]> sumByPaymentMethodForPeriod(@Param("userId") Long userId,
                                                @Param("start") LocalDate start,
                                                @Param("end") LocalDate end);
 
-    @Query("SELECT i.source, SUM(i.amount) FROM Income i " +
+    @Query("SELECT i.source, SUM(i.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Income i JOIN i.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(i.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
            "WHERE i.user.id = :userId AND i.incomeDate >= :start AND i.incomeDate < :end GROUP BY i.source")
     List<Object[]> sumBySourceForPeriod(@Param("userId") Long userId,
                                         @Param("start") LocalDate start,
                                         @Param("end") LocalDate end);
 
+    @Query("SELECT YEAR(i.incomeDate), MONTH(i.incomeDate), SUM(i.amount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)) " +
+           "FROM Income i JOIN i.user u " +
+           "LEFT JOIN FxRate fr ON fr.currency = UPPER(i.currency) " +
+           "LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency) " +
+           "WHERE i.user.id = :userId AND i.deletedAt IS NULL AND i.incomeDate >= :start AND i.incomeDate < :end " +
+           "GROUP BY YEAR(i.incomeDate), MONTH(i.incomeDate)")
+    List<Object[]> sumByMonth(@Param("userId") Long userId,
+                              @Param("start") LocalDate start,
+                              @Param("end") LocalDate end); // rows: [year, month, sum]
+
     // ---------- Soft delete helpers (set deletedAt/deletedBy without select) ----------
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE Income i SET i.deletedAt = CURRENT_TIMESTAMP, i.deletedBy = :deletedBy WHERE i.id = :id")
@@ -75,10 +102,6 @@ public interface IncomeRepository extends JpaRepository<Income, Long> {
     @Query(value = "SELECT * FROM incomes WHERE id = :id", nativeQuery = true)
     Income findByIdIncludingDeleted(@Param("id") Long id);
     
-    // Alternative method using JPQL with explicit condition
-    @Query("SELECT i FROM Income i WHERE i.id = :id AND (i.deletedAt IS NULL OR i.deletedAt IS NOT NULL)")
-    Income findByIdWithDeletedStatus(@Param("id") Long id);
-    
     // Native SQL delete to bypass any constraints
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query(value = "DELETE FROM incomes WHERE id = :id", nativeQuery = true)
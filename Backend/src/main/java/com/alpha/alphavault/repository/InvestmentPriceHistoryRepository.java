@@ -0,0 +1,44 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Repository: InvestmentPriceHistoryRepository
+ * ================================================================
+ */
+package com.alpha.alphavault.repository;
+
+import com.alpha.alphavault.model.InvestmentPriceHistory;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface InvestmentPriceHistoryRepository extends JpaRepository<InvestmentPriceHistory, Long> {
+
+    /** Records (or overwrites) today's mark for an investment. */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO investment_price_history (investment_id, user_id, price_date, price, market_value, recorded_at)
+        VALUES (:investmentId, :userId, :priceDate, :price, :marketValue, CURRENT_TIMESTAMP)
+        ON CONFLICT (investment_id, price_date)
+        DO UPDATE SET price = EXCLUDED.price,
+                      market_value = EXCLUDED.market_value,
+                      recorded_at = EXCLUDED.recorded_at
+    """, nativeQuery = true)
+    int upsert(@Param("investmentId") Long investmentId,
+               @Param("userId") Long userId,
+               @Param("priceDate") LocalDate priceDate,
+               @Param("price") BigDecimal price,
+               @Param("marketValue") BigDecimal marketValue);
+
+    /** Rows: [investmentId, priceDate, marketValue], ordered for a single forward pass. */
+    @Query("""
+        SELECT p.investment.id, p.priceDate, p.marketValue FROM InvestmentPriceHistory p
+        WHERE p.user.id = :userId
+        ORDER BY p.investment.id ASC, p.priceDate ASC
+    """)
+    List<Object[]> findSeriesByUser(@Param("userId") Long userId);
+}
@@ -10,6 +10,8 @@ import com.alpha.alphavault.enums.InvestmentStatus;
 import com.alpha.alphavault.enums.InvestmentType;
 import com.alpha.alphavault.model.Investment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,4 +24,14 @@ public interface InvestmentRepository extends JpaRepository<Investment, Long> {
     List<Investment> findByUserIdAndInvestmentType(Long userId, InvestmentType type);
 
     List<Investment> findByUserIdAndStatus(Long userId, InvestmentStatus status);
+
+    /** Changes whenever a position or one of its price marks is written/removed. */
+    @Query(value = """
+        SELECT CONCAT_WS('|',
+               (SELECT COUNT(*) || ':' || COALESCE(CAST(MAX(updated_at) AS text), '')
+                  FROM investments WHERE user_id = :userId),
+               (SELECT COUNT(*) || ':' || COALESCE(CAST(MAX(recorded_at) AS text), '')
+                  FROM investment_price_history WHERE user_id = :userId))
+    """, nativeQuery = true)
+    String analyticsFingerprint(@Param("userId") Long userId);
 }
@@ -0,0 +1,27 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Repository: RecurringTransactionRepository
+ *  Notes:
+ *    - The materializer scans/advances templates through JDBC batches
+ *      (see RecurringTransactionScheduler); this is the CRUD side only
+ * ================================================================
+ */
+package com.alpha.alphavault.repository;
+
+import com.alpha.alphavault.model.RecurringTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RecurringTransactionRepository extends JpaRepository<RecurringTransaction, Long> {
+
+    List<RecurringTransaction> findByUserIdOrderByNextRunDateAsc(Long userId);
+
+    @Query("SELECT COUNT(r) FROM RecurringTransaction r WHERE r.user.id = :userId AND r.active = true")
+    long countActiveByUser(@Param("userId") Long userId);
+}
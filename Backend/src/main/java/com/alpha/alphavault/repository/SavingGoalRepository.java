@@ -3,7 +3,7 @@
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
  *  Repository: SavingGoalRepository (soft delete aware)
  *  Notes:
- *    - Entity uses @SQLDelete + @Where, so deletes are soft by default.
+ *    - Entity uses @SQLDelete + an auto-enabled @Filter: deletes are soft, queries skip them.
  *    - Provide restore() to undo soft delete.
  * ================================================================
  */
@@ -64,6 +64,31 @@ public interface SavingGoalRepository extends JpaRepository<SavingGoal, Long> {
                                    @Param("from") LocalDate from,
                                    @Param("to") LocalDate to);
 
+    // ---- totals in the user's preferredCurrency (fx_rates join; missing rate -> 1:1) ----
+    /** Single row: [sumTarget, sumCurrent, count]. */
+    @Query("""
+           SELECT COALESCE(SUM(g.targetAmount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0),
+                  COALESCE(SUM(g.currentAmount * COALESCE(tr.ratePerUsd / fr.ratePerUsd, 1)), 0),
+                  COUNT(g)
+             FROM SavingGoal g JOIN g.user u
+             LEFT JOIN FxRate fr ON fr.currency = UPPER(g.currency)
+             LEFT JOIN FxRate tr ON tr.currency = UPPER(u.preferredCurrency)
+            WHERE g.user.id = :userId
+           """)
+    List<Object[]> totalsByUser(@Param("userId") Long userId);
+
+    // ---- change fingerprint of everything the feasibility simulation reads ----
+    @Query(value = """
+           SELECT CONCAT_WS('|',
+                  (SELECT COUNT(*) || ':' || COUNT(deleted_at) || ':' || COALESCE(CAST(MAX(updated_at) AS text), '') || ':' || COALESCE(CAST(MAX(deleted_at) AS text), '')
+                     FROM incomes WHERE user_id = :userId),
+                  (SELECT COUNT(*) || ':' || COUNT(deleted_at) || ':' || COALESCE(CAST(MAX(updated_at) AS text), '') || ':' || COALESCE(CAST(MAX(deleted_at) AS text), '')
+                     FROM expenses WHERE user_id = :userId),
+                  (SELECT COUNT(*) || ':' || COUNT(deleted_at) || ':' || COALESCE(CAST(MAX(updated_at) AS text), '') || ':' || COALESCE(CAST(MAX(deleted_at) AS text), '')
+                     FROM saving_goals WHERE user_id = :userId))
+           """, nativeQuery = true)
+    String feasibilityFingerprint(@Param("userId") Long userId);
+
     // ---- restore soft-deleted ----
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE SavingGoal g SET g.deletedAt = NULL WHERE g.id = :id")
@@ -15,4 +15,5 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     Optional<User> findByEmail(String email);
     Optional<User> findByPasswordResetToken(String resetToken);
+    boolean existsByProfileImageUrlContaining(String hash);
 }
@@ -24,6 +24,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User
                 .withUsername(u.getEmail())
                 .password(u.getPassword())
+                .roles(u.getAccountType() != null ? u.getAccountType().name() : "BASIC")
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
@@ -0,0 +1,58 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Security: JdbcRateLimiter — token buckets shared by all nodes
+ *  Guarantees:
+ *    - One statement per check (rate_limit_take, row-locked upsert) on
+ *      an UNLOGGED table: no WAL, no transaction held
+ *    - Only consulted after the local limiter let the request through,
+ *      so floods never reach the database
+ *  Notes:
+ *    - Enabled with ratelimit.shared=jdbc; fails open (logged) if the
+ *      database is unavailable, the local limiter still applies
+ * ================================================================
+ */
+package com.alpha.alphavault.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "ratelimit.shared", havingValue = "jdbc")
+public class JdbcRateLimiter implements RateLimiter {
+
+    private static final String TAKE = "SELECT allowed, tokens FROM rate_limit_take(?, ?, ?, ?)";
+
+    /** Idle long enough to be full again for any configured limit. */
+    private static final String PURGE = """
+        DELETE FROM rate_limit_buckets WHERE updated_at < CURRENT_TIMESTAMP - INTERVAL '1 day'
+        """;
+
+    private final JdbcTemplate jdbc;
+
+    @Override
+    public Decision take(String key, Limit limit, double cost) {
+        try {
+            return jdbc.queryForObject(TAKE, (rs, i) -> {
+                boolean allowed = rs.getBoolean("allowed");
+                double tokens = rs.getDouble("tokens");
+                return new Decision(allowed, tokens, allowed ? 0 : limit.secondsUntil(tokens, Math.max(cost, 1)));
+            }, key, limit.capacity(), limit.refillPerSecond(), cost);
+        } catch (DataAccessException e) {
+            log.warn("Shared rate limiter unavailable, local limits only: {}", e.getMessage());
+            return new Decision(true, limit.capacity(), 0);
+        }
+    }
+
+    @Scheduled(cron = "${ratelimit.shared-purge-cron:0 20 * * * *}")
+    public void purge() {
+        jdbc.update(PURGE);
+    }
+}
@@ -1,5 +1,6 @@
 package com.alpha.alphavault.security;
 import com.alpha.alphavault.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,24 +8,38 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
 
+/**
+ * Authenticates from the access token's claims alone (user id, roles): no
+ * DB call per request. Revoked users are caught by TokenRevocationCache;
+ * tokens without a user id claim (issued before refresh tokens) are ignored.
+ */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /** The authenticated caller, as carried by the access token. */
+    public record TokenPrincipal(Long userId, String email) implements Principal {
+        @Override
+        public String getName() {
+            return email;
+        }
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
-    
+
     private final JwtUtils jwtUtils;
-    private final UserDetailsService userDetailsService;
+    private final TokenRevocationCache revocations;
 
     public JwtAuthenticationFilter(JwtUtils jwtUtils,
-                                   UserDetailsService userDetailsService) {
+                                   TokenRevocationCache revocations) {
         this.jwtUtils = jwtUtils;
-        this.userDetailsService = userDetailsService;
+        this.revocations = revocations;
     }
 
     @Override
@@ -34,18 +49,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         String authHeader = req.getHeader("Authorization");
         logger.debug("Processing request to: {} with Authorization header: {}", req.getRequestURI(), authHeader != null ? "present" : "missing");
-        
+
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                if (jwtUtils.validateToken(token)) {
-                    String username = jwtUtils.getUsernameFromToken(token);
-                    logger.debug("Valid JWT token for user: {}", username);
-                    UserDetails user = userDetailsService.loadUserByUsername(username);
-                    UsernamePasswordAuthenticationToken auth =
-                            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+                Claims claims = jwtUtils.parseClaims(token);
+                Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+                if (userId == null) {
+                    logger.debug("JWT without user id claim ignored");
+                } else if (revocations.isRevoked(userId, claims.getIssuedAt())) {
+                    logger.debug("Revoked JWT for user id: {}", userId);
+                } else {
+                    List<SimpleGrantedAuthority> authorities = roles(claims).stream()
+                            .map(SimpleGrantedAuthority::new)
+                            .toList();
+                    UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                            new TokenPrincipal(userId, claims.getSubject()), null, authorities);
                     SecurityContextHolder.getContext().setAuthentication(auth);
-                    logger.debug("Authentication set for user: {}", username);
+                    logger.debug("Authentication set for user: {}", claims.getSubject());
                 }
             } catch (Exception e) {
                 logger.warn("JWT validation failed: {}", e.getMessage());
@@ -55,5 +76,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         chain.doFilter(req, res);
     }
-}
 
+    private static List<String> roles(Claims claims) {
+        Object raw = claims.get(JwtUtils.CLAIM_ROLES);
+        if (!(raw instanceof List<?> list)) return List.of();
+        return list.stream().map(String::valueOf).toList();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Security: LocalRateLimiter — in-memory token buckets (this node)
+ *  Guarantees:
+ *    - No I/O: a flood is rejected with a map lookup and a few flops
+ *    - Bounded: full (idle) buckets are swept every minute, and past
+ *      ratelimit.local.max-keys the least recently used key is dropped;
+ *      every live key keeps its own bucket, so a key-spraying client
+ *      cannot exhaust a shared bucket for everyone else
+ *  Notes:
+ *    - A dropped key starts over with a full bucket; the shared
+ *      (JdbcRateLimiter) buckets and the users-row lockout still apply
+ * ================================================================
+ */
+package com.alpha.alphavault.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class LocalRateLimiter implements RateLimiter {
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedNanos;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.updatedNanos = now;
+        }
+
+        synchronized Decision take(Limit limit, double cost, long now) {
+            refill(limit, now);
+            boolean allowed = tokens >= Math.max(cost, 1);
+            if (allowed) tokens -= cost;
+            return new Decision(allowed, tokens, allowed ? 0 : limit.secondsUntil(tokens, Math.max(cost, 1)));
+        }
+
+        synchronized boolean isFull(Limit limit, long now) {
+            refill(limit, now);
+            return tokens >= limit.capacity();
+        }
+
+        private void refill(Limit limit, long now) {
+            double elapsed = (now - updatedNanos) / 1e9;
+            tokens = Math.min(limit.capacity(), tokens + elapsed * limit.refillPerSecond());
+            updatedNanos = now;
+        }
+    }
+
+    private record Entry(Bucket bucket, Limit limit) {}
+
+    @Value("${ratelimit.local.max-keys:100000}")
+    private int maxKeys;
+
+    /** Access-ordered: past max-keys the least recently used key goes first. Guarded by itself. */
+    private final LinkedHashMap<String, Entry> buckets = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxKeys;
+        }
+    };
+
+    @Override
+    public Decision take(String key, Limit limit, double cost) {
+        long now = System.nanoTime();
+        Entry e;
+        synchronized (buckets) {
+            e = buckets.get(key);
+            if (e == null) {
+                e = new Entry(new Bucket(limit.capacity(), now), limit);
+                buckets.put(key, e);
+            }
+        }
+        return e.bucket().take(limit, cost, now);
+    }
+
+    @Scheduled(fixedDelayString = "${ratelimit.local.sweep-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        synchronized (buckets) {
+            buckets.values().removeIf(en -> en.bucket().isFull(en.limit(), now));
+        }
+    }
+
+    int size() {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+}
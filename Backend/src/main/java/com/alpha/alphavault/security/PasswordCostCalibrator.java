@@ -0,0 +1,52 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Security: PasswordCostCalibrator — BCrypt strength for this machine
+ *  Guarantees:
+ *    - Picks the highest strength in [min, max] whose hash time stays
+ *      under the target (each +1 doubles the work)
+ *    - Never below min: hashes are not weakened on a slower host
+ *  Notes:
+ *    - Measured once at startup: best of a few runs at min strength after
+ *      a warm-up, so JIT and scheduling noise do not inflate the estimate
+ *    - Stored hashes below the chosen strength are upgraded on next login
+ *      (PasswordHashingService)
+ * ================================================================
+ */
+package com.alpha.alphavault.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+@Slf4j
+public final class PasswordCostCalibrator {
+
+    private static final int RUNS = 3;
+
+    private PasswordCostCalibrator() {
+    }
+
+    public static int bcryptStrength(Duration target, int min, int max) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(min);
+        probe.encode("calibration-warmup");
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long t0 = System.nanoTime();
+            probe.encode("calibration-" + i);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+
+        int strength = min;
+        long estimate = best;
+        while (strength < max && estimate * 2 <= target.toNanos()) {
+            strength++;
+            estimate *= 2;
+        }
+        log.info("BCrypt strength {} (~{} ms per hash, target {} ms)",
+                strength, Duration.ofNanos(estimate).toMillis(), target.toMillis());
+        return strength;
+    }
+}
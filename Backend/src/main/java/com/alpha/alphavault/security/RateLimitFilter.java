@@ -0,0 +1,253 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Security: RateLimitFilter — token-bucket limits before any real work
+ *  Guarantees:
+ *    - Runs ahead of JWT authentication: a rejected request costs no
+ *      DB lookup, no BCrypt and no pool connection
+ *    - Buckets (ratelimit.<scope>.capacity / refill-per-minute):
+ *        api    every /api/** request, per client IP
+ *        auth   /api/auth/** (login, reset, register), per client IP
+ *        email  per target email: login FAILURES and reset requests, so a
+ *               user's own successful logins never lock them out
+ *    - Rejections: 429 + Retry-After, counted in
+ *      alphavault.ratelimit.rejected{scope}
+ *  Notes:
+ *    - Local buckets always apply; shared (JdbcRateLimiter) buckets only
+ *      for what the local ones let through
+ *    - Client IP is request.getRemoteAddr(): behind a proxy, set
+ *      server.forward-headers-strategy so it is the real client
+ *    - The users-row lockout in UserService stays as the last line
+ * ================================================================
+ */
+package com.alpha.alphavault.security;
+
+import com.alpha.alphavault.exception.ApiError;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final RateLimiter local;
+    private final RateLimiter shared;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meters;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    private final RateLimiter.Limit apiLimit;
+    private final RateLimiter.Limit authLimit;
+    private final RateLimiter.Limit emailLimit;
+
+    public RateLimitFilter(LocalRateLimiter local,
+                           ObjectProvider<JdbcRateLimiter> shared,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meters,
+                           double apiCapacity,
+                           double apiRefill,
+                           double authCapacity,
+                           double authRefill,
+                           double emailCapacity,
+                           double emailRefill) {
+        this.local = local;
+        this.shared = shared.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.meters = meters;
+        this.apiLimit = RateLimiter.Limit.perMinute(apiCapacity, apiRefill);
+        this.authLimit = RateLimiter.Limit.perMinute(authCapacity, authRefill);
+        this.emailLimit = RateLimiter.Limit.perMinute(emailCapacity, emailRefill);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws ServletException, IOException {
+        String ip = req.getRemoteAddr();
+        String uri = req.getRequestURI();
+
+        if (reject("api", "api:" + ip, apiLimit, 1, req, res)) return;
+        if (!uri.startsWith("/api/auth/")) {
+            chain.doFilter(req, res);
+            return;
+        }
+        if (reject("auth", "auth:" + ip, authLimit, 1, req, res)) return;
+
+        boolean login = uri.equals("/api/auth/login");
+        boolean reset = uri.equals("/api/auth/forgot-password");
+        if (!(login || reset) || !"POST".equals(req.getMethod())) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        // Declared or actual size over the limit: refused, never passed on unthrottled
+        if (req.getContentLengthLong() > MAX_BODY_BYTES) {
+            tooLarge(req, res);
+            return;
+        }
+        BodyCachingRequest body = BodyCachingRequest.of(req);
+        if (body.body.length > MAX_BODY_BYTES) {
+            tooLarge(req, res);
+            return;
+        }
+        String email = email(body.body);
+        if (email == null) {
+            chain.doFilter(body, res);
+            return;
+        }
+        String key = "email:" + email;
+        // Login: only check here, failures are charged below; reset: every request costs
+        if (reject("email", key, emailLimit, login ? 0 : 1, req, res)) return;
+
+        chain.doFilter(body, res);
+
+        if (!login) return;
+        if (body.isAsyncStarted()) {
+            // Login completes on the hashing pool: the status is only known at the end
+            body.getAsyncContext().addListener(new AsyncListener() {
+                @Override public void onComplete(AsyncEvent event) { chargeFailedLogin(key, res); }
+                @Override public void onTimeout(AsyncEvent event) { }
+                @Override public void onError(AsyncEvent event) { }
+                @Override public void onStartAsync(AsyncEvent event) { }
+            });
+        } else {
+            chargeFailedLogin(key, res);
+        }
+    }
+
+    private void tooLarge(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        res.setStatus(413);
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(res.getOutputStream(),
+                ApiError.of("Request body too large", 413, req.getRequestURI()));
+    }
+
+    private void chargeFailedLogin(String key, HttpServletResponse res) {
+        if (res.getStatus() == 400 || res.getStatus() == 401) {
+            take(key, emailLimit, 1);
+        }
+    }
+
+    // ============================================================
+    // == Buckets
+    // ============================================================
+
+    private boolean reject(String scope, String key, RateLimiter.Limit limit, double cost,
+                           HttpServletRequest req, HttpServletResponse res) throws IOException {
+        RateLimiter.Decision d = take(key, limit, cost);
+        if (d.allowed()) return false;
+
+        rejected.computeIfAbsent(scope, s -> Counter.builder("alphavault.ratelimit.rejected")
+                .description("Requests rejected by RateLimitFilter")
+                .tag("scope", s)
+                .register(meters)).increment();
+
+        res.setStatus(429);
+        res.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, d.retryAfterSeconds())));
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(res.getOutputStream(),
+                ApiError.of("Too many requests. Try again later.", 429, req.getRequestURI()));
+        return true;
+    }
+
+    private RateLimiter.Decision take(String key, RateLimiter.Limit limit, double cost) {
+        RateLimiter.Decision d = local.take(key, limit, cost);
+        if (!d.allowed() || shared == null) return d;
+        return shared.take(key, limit, cost);
+    }
+
+    private String email(byte[] body) {
+        try {
+            JsonNode n = objectMapper.readTree(body);
+            JsonNode e = n == null ? null : n.get("email");
+            if (e == null || !e.isTextual() || e.asText().isBlank()) return null;
+            // Same normalization as UserService.normalizeEmail
+            return e.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException ex) {
+            return null; // malformed body: the controller answers 400, the IP buckets still apply
+        }
+    }
+
+    // ============================================================
+    // == Body replay (the email is read before the controller)
+    // ============================================================
+
+    private static final class BodyCachingRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private BodyCachingRequest(HttpServletRequest req, byte[] body) {
+            super(req);
+            this.body = body;
+        }
+
+        /**
+         * Reads at most MAX_BODY_BYTES + 1 bytes (a longer body is not a login
+         * request and is refused by the caller, like a declared length above
+         * the limit).
+         */
+        static BodyCachingRequest of(HttpServletRequest req) throws IOException {
+            return new BodyCachingRequest(req, req.getInputStream().readNBytes(MAX_BODY_BYTES + 1));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override public int read() { return in.read(); }
+                @Override public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+                @Override public boolean isFinished() { return in.available() == 0; }
+                @Override public boolean isReady() { return true; }
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // Everything is already in memory: ready now, and done once consumed
+                    try {
+                        listener.onDataAvailable();
+                        if (in.available() == 0) listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
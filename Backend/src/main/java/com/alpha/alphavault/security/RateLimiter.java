@@ -0,0 +1,34 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Security: RateLimiter — token buckets keyed by an arbitrary string
+ *  Notes:
+ *    - take(key, limit, 0) only checks (at least one token left) without
+ *      consuming: used to charge failures after the fact
+ *    - Implementations: LocalRateLimiter (per node, always on) and
+ *      JdbcRateLimiter (shared across nodes, ratelimit.shared=jdbc)
+ * ================================================================
+ */
+package com.alpha.alphavault.security;
+
+public interface RateLimiter {
+
+    /** Bucket shape: up to {@code capacity} tokens, refilled continuously. */
+    record Limit(double capacity, double refillPerSecond) {
+
+        public static Limit perMinute(double capacity, double refillPerMinute) {
+            return new Limit(capacity, refillPerMinute / 60.0);
+        }
+
+        /** Seconds until {@code needed} tokens are back, from {@code tokens}. */
+        long secondsUntil(double tokens, double needed) {
+            if (tokens >= needed || refillPerSecond <= 0) return tokens >= needed ? 0 : 3600;
+            return (long) Math.ceil((needed - tokens) / refillPerSecond);
+        }
+    }
+
+    record Decision(boolean allowed, double tokens, long retryAfterSeconds) {}
+
+    /** Takes {@code cost} tokens when at least max(cost, 1) are available. */
+    Decision take(String key, Limit limit, double cost);
+}
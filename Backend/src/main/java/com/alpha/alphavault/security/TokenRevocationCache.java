@@ -0,0 +1,97 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Security: TokenRevocationCache — "not before" per user, in memory
+ *  Guarantees:
+ *    - isRevoked() is a map lookup: JwtAuthenticationFilter never touches
+ *      the DB, yet disabling a user, a password or role change, or a
+ *      detected refresh-token theft ends their access tokens
+ *    - On this node at once; on other nodes within jwt.revocation-poll-ms
+ *      (token_revocations is re-read on that schedule)
+ *  Notes:
+ *    - A row only matters for one access-token lifetime (jwt.expirationMs);
+ *      older rows are dropped from memory and purged from the table
+ *    - Second granularity (JWT iat): a token issued in the same second as
+ *      the revocation is treated as issued after it
+ * ================================================================
+ */
+package com.alpha.alphavault.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class TokenRevocationCache {
+
+    private static final String UPSERT = """
+        INSERT INTO token_revocations (user_id, not_before) VALUES (?, ?)
+        ON CONFLICT (user_id) DO UPDATE SET not_before = GREATEST(token_revocations.not_before, EXCLUDED.not_before)
+        """;
+
+    private static final String LOAD = "SELECT user_id, not_before FROM token_revocations WHERE not_before > ?";
+
+    private static final String PURGE = "DELETE FROM token_revocations WHERE not_before <= ?";
+
+    private final JdbcTemplate jdbc;
+    private final long accessTtlMs;
+    /** userId -> epoch second; access tokens issued before it are rejected. */
+    private final Map<Long, Long> notBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocationCache(JdbcTemplate jdbc, @Value("${jwt.expirationMs}") long accessTtlMs) {
+        this.jdbc = jdbc;
+        this.accessTtlMs = accessTtlMs;
+    }
+
+    public boolean isRevoked(long userId, Date issuedAt) {
+        Long cutoff = notBefore.get(userId);
+        return cutoff != null && (issuedAt == null || issuedAt.toInstant().getEpochSecond() < cutoff);
+    }
+
+    /** Ends every access token issued to the user so far. Joins the caller's transaction. */
+    public void revokeUser(long userId) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        jdbc.update(UPSERT, userId, Timestamp.from(now));
+        notBefore.merge(userId, now.getEpochSecond(), Math::max);
+    }
+
+    // ============================================================
+    // == Sync with other nodes
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation-poll-ms:10000}", initialDelayString = "${jwt.revocation-poll-ms:10000}")
+    public void reload() {
+        Instant horizon = Instant.now().minusMillis(accessTtlMs);
+        long horizonSec = horizon.getEpochSecond();
+        try {
+            jdbc.query(LOAD, rs -> {
+                notBefore.merge(rs.getLong("user_id"),
+                        rs.getTimestamp("not_before").toInstant().getEpochSecond(), Math::max);
+            }, Timestamp.from(horizon));
+        } catch (DataAccessException e) {
+            // Keep what is in memory: revocations are never forgotten early
+            log.warn("Token revocations could not be reloaded: {}", e.getMessage());
+            return;
+        }
+        notBefore.values().removeIf(sec -> sec <= horizonSec);
+    }
+
+    @Scheduled(cron = "${jwt.revocation-purge-cron:0 40 * * * *}")
+    public void purge() {
+        jdbc.update(PURGE, Timestamp.from(Instant.now().minusMillis(accessTtlMs)));
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: ArchivalService — cold tier for soft-deleted rows (V8)
+ *  Guarantees:
+ *    - Rows soft-deleted more than archival.grace-days ago leave the hot
+ *      table (and its indexes) for one compressed JSONB row in
+ *      archive.archived_rows; children travel inside the parent payload
+ *    - Move = one DELETE ... RETURNING feeding one INSERT, so a row is in
+ *      exactly one place at any time
+ *    - Throttled: small batches, one transaction each, a pause between
+ *      batches and a cap per run; rows are claimed FOR UPDATE SKIP LOCKED
+ *    - restore() in the services rehydrates from here when the row is gone
+ *  Notes:
+ *    - Aged (not deleted) expenses/incomes/payments are handled by the
+ *      partition archive (PartitionMaintenanceService), not here
+ *    - Archiving is not a money movement: ledger capture is off for it
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.enums.ArchiveTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ArchivalService {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    @Value("${archival.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archival.grace-days:30}")
+    private int graceDays;
+
+    @Value("${archival.batch-size:200}")
+    private int batchSize;
+
+    @Value("${archival.pause-ms:250}")
+    private long pauseMs;
+
+    @Value("${archival.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // ============================================================
+    // == SQL (table names come from ArchiveTable, never from input)
+    // ============================================================
+
+    private static final String ARCHIVE = """
+        WITH victims AS (
+            SELECT id FROM %1$s
+            WHERE deleted_at < ?
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        ),
+        moved AS (
+            DELETE FROM %1$s t USING victims v WHERE t.id = v.id
+            RETURNING t.*
+        )
+        INSERT INTO archive.archived_rows (table_name, row_id, user_id, deleted_at, payload)
+        SELECT '%1$s', m.id, m.user_id, m.deleted_at, to_jsonb(m)
+        FROM moved m
+        """;
+
+    /** FK checks run at end of statement, after both deletes. */
+    private static final String ARCHIVE_WITH_CHILDREN = """
+        WITH victims AS (
+            SELECT id FROM %1$s
+            WHERE deleted_at < ?
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        ),
+        kids AS (
+            DELETE FROM %2$s c USING victims v WHERE c.%3$s = v.id
+            RETURNING c.*
+        ),
+        moved AS (
+            DELETE FROM %1$s t USING victims v WHERE t.id = v.id
+            RETURNING t.*
+        )
+        INSERT INTO archive.archived_rows (table_name, row_id, user_id, deleted_at, payload)
+        SELECT '%1$s', m.id, m.user_id, m.deleted_at,
+               to_jsonb(m) || jsonb_build_object('_children',
+                   COALESCE((SELECT jsonb_agg(to_jsonb(k) ORDER BY k.id) FROM kids k WHERE k.%3$s = m.id), '[]'::jsonb))
+        FROM moved m
+        """;
+
+    private static final String REHYDRATE = """
+        WITH a AS (
+            DELETE FROM archive.archived_rows WHERE table_name = '%1$s' AND row_id = ?
+            RETURNING payload
+        ),
+        p AS (
+            INSERT INTO %1$s
+            SELECT r.* FROM a, jsonb_populate_record(NULL::%1$s, a.payload) r
+            RETURNING id
+        )
+        SELECT COUNT(*) FROM p
+        """;
+
+    private static final String REHYDRATE_WITH_CHILDREN = """
+        WITH a AS (
+            DELETE FROM archive.archived_rows WHERE table_name = '%1$s' AND row_id = ?
+            RETURNING payload
+        ),
+        p AS (
+            INSERT INTO %1$s
+            SELECT r.* FROM a, jsonb_populate_record(NULL::%1$s, a.payload) r
+            RETURNING id
+        ),
+        k AS (
+            INSERT INTO %2$s
+            SELECT r.* FROM a, jsonb_array_elements(a.payload -> '_children') c,
+                            jsonb_populate_record(NULL::%2$s, c.value) r
+            RETURNING 1
+        )
+        SELECT COUNT(*) FROM p
+        """;
+
+    // ============================================================
+    // == Background job
+    // ============================================================
+
+    @Scheduled(initialDelayString = "${archival.initial-delay-ms:300000}",
+               fixedDelayString = "${archival.interval-ms:3600000}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            run();
+        } catch (Exception e) {
+            log.warn("Archival run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /** Archives eligible rows of every table, batch by batch. Returns rows moved per table. */
+    public Map<ArchiveTable, Integer> run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("an archival run is already in progress");
+        }
+        try {
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(graceDays));
+            Map<ArchiveTable, Integer> moved = new EnumMap<>(ArchiveTable.class);
+            int batches = 0;
+            for (ArchiveTable t : ArchiveTable.values()) {
+                int total = 0;
+                while (batches < maxBatchesPerRun) {
+                    Integer n = tx.execute(status -> archiveBatch(t, cutoff));
+                    batches++;
+                    total += n != null ? n : 0;
+                    if (n == null || n < batchSize) break;
+                    pause();
+                }
+                moved.put(t, total);
+            }
+            int sum = moved.values().stream().mapToInt(Integer::intValue).sum();
+            if (sum > 0) log.info("Archival: moved {} soft-deleted rows {}", sum, moved);
+            return moved;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archiveBatch(ArchiveTable t, Timestamp cutoff) {
+        captureOff();
+        String sql = t.childTable() == null
+                ? ARCHIVE.formatted(t.table())
+                : ARCHIVE_WITH_CHILDREN.formatted(t.table(), t.childTable(), t.childKey());
+        return jdbc.update(sql, cutoff, batchSize);
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) return;
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============================================================
+    // == Rehydration (called by the services' restore)
+    // ============================================================
+
+    /** Moves an archived row (and its children) back into the hot table. False when not archived. */
+    @Transactional
+    public boolean rehydrate(ArchiveTable t, Long id) {
+        captureOff();
+        String sql = t.childTable() == null
+                ? REHYDRATE.formatted(t.table())
+                : REHYDRATE_WITH_CHILDREN.formatted(t.table(), t.childTable());
+        Long n = jdbc.queryForObject(sql, Long.class, id);
+        boolean back = n != null && n > 0;
+        if (back) log.info("Archival: rehydrated {} {}", t.table(), id);
+        return back;
+    }
+
+    /** Ledger triggers (V6) would book an archive move as CLOSING/OPENING entries. */
+    private void captureOff() {
+        jdbc.queryForObject("SELECT set_config('alphavault.ledger_capture', 'off', true)", String.class);
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -24,12 +25,14 @@ import java.util.stream.Collectors;
 public class AssetCatalogService {
 
     private final RestTemplate rest;
+    private final FxRateService fx;
 
     @Value("${fmp.api.key:}")
     private String fmpKey;
 
-    public AssetCatalogService(RestTemplate rest) {
+    public AssetCatalogService(RestTemplate rest, FxRateService fx) {
         this.rest = rest;
+        this.fx = fx;
     }
 
     public List<AssetDTO> listAssets(InvestmentType type, String q) {
@@ -133,16 +136,8 @@ public class AssetCatalogService {
 
     /** Single USD→{symbol} FX rate; returns <0 on error. */
     public double getForexRate(String targetCurrency) {
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> resp = rest.getForObject("https://api.exchangerate-api.com/v4/latest/USD", Map.class);
-            if (resp == null || !resp.containsKey("rates")) return -1;
-            @SuppressWarnings("unchecked")
-            Map<String, Object> rates = (Map<String, Object>) resp.get("rates");
-            Object raw = rates.get(targetCurrency == null ? "" : targetCurrency.toUpperCase());
-            return (raw instanceof Number) ? ((Number) raw).doubleValue() : -1;
-        } catch (Exception ex) {
-            return -1;
-        }
+        // served from the cached FX table (refreshed on schedule), no upstream call per request
+        BigDecimal rate = fx.ratePerUsd(targetCurrency);
+        return rate != null ? rate.doubleValue() : -1;
     }
 }
@@ -0,0 +1,202 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: AuthTokenService — access/refresh token pairs
+ *  Guarantees:
+ *    - Access tokens are short-lived JWTs carrying user id and roles:
+ *      authenticated requests need no DB lookup
+ *    - Refresh tokens are random, stored as SHA-256 only, single use:
+ *      each refresh spends the token and issues the next one of the
+ *      same family (one family per login)
+ *    - A rotated token presented again (stolen copy or stolen original)
+ *      revokes its family and the user's access tokens
+ *    - Refreshing re-reads the user: a disabled account gets no new token
+ *  Notes:
+ *    - Spent/revoked rows are kept until they expire (reuse detection),
+ *      then purged (jwt.refresh-purge-cron)
+ *    - A token spent less than jwt.refresh-reuse-grace-ms ago is only
+ *      refused: two tabs refreshing at once must not end the session
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.auth.LoginResponseDTO;
+import com.alpha.alphavault.dto.auth.TokenResponseDTO;
+import com.alpha.alphavault.dto.user.UserResponseDTO;
+import com.alpha.alphavault.enums.AccountType;
+import com.alpha.alphavault.exception.InvalidCredentialsException;
+import com.alpha.alphavault.model.User;
+import com.alpha.alphavault.repository.UserRepository;
+import com.alpha.alphavault.security.TokenRevocationCache;
+import com.alpha.alphavault.utils.JwtUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class AuthTokenService {
+
+    private record Spent(long userId, UUID familyId, Timestamp revokedAt, boolean rotated) {}
+
+    private static final String INSERT = """
+        INSERT INTO refresh_tokens (user_id, family_id, token_hash, expires_at) VALUES (?, ?, ?, ?)
+        """;
+
+    /** Spends a live token; no row = unknown, expired or already spent. */
+    private static final String SPEND = """
+        UPDATE refresh_tokens SET revoked_at = CURRENT_TIMESTAMP, rotated = true
+        WHERE token_hash = ? AND revoked_at IS NULL AND expires_at > CURRENT_TIMESTAMP
+        RETURNING user_id, family_id, revoked_at, rotated
+        """;
+
+    private static final String FIND = "SELECT user_id, family_id, revoked_at, rotated FROM refresh_tokens WHERE token_hash = ?";
+
+    private static final String REVOKE_FAMILY = """
+        UPDATE refresh_tokens SET revoked_at = CURRENT_TIMESTAMP WHERE family_id = ? AND revoked_at IS NULL
+        """;
+
+    private static final String REVOKE_USER = """
+        UPDATE refresh_tokens SET revoked_at = CURRENT_TIMESTAMP WHERE user_id = ? AND revoked_at IS NULL
+        """;
+
+    private static final String PURGE = "DELETE FROM refresh_tokens WHERE expires_at < CURRENT_TIMESTAMP";
+
+    private static final String INVALID = "Invalid or expired refresh token";
+
+    private final SecureRandom random = new SecureRandom();
+    private final JdbcTemplate jdbc;
+    private final UserRepository users;
+    private final JwtUtils jwtUtils;
+    private final TokenRevocationCache revocations;
+    private final long refreshTtlMs;
+    private final long reuseGraceMs;
+
+    public AuthTokenService(JdbcTemplate jdbc,
+                            UserRepository users,
+                            JwtUtils jwtUtils,
+                            TokenRevocationCache revocations,
+                            @Value("${jwt.refresh-expiration-ms:1209600000}") long refreshTtlMs,
+                            @Value("${jwt.refresh-reuse-grace-ms:10000}") long reuseGraceMs) {
+        this.jdbc = jdbc;
+        this.users = users;
+        this.jwtUtils = jwtUtils;
+        this.revocations = revocations;
+        this.refreshTtlMs = refreshTtlMs;
+        this.reuseGraceMs = reuseGraceMs;
+    }
+
+    // ============================================================
+    // == Issue / Refresh / Logout
+    // ============================================================
+
+    /** Token pair for a user who just proved their password; starts a new family. */
+    @Transactional
+    public LoginResponseDTO login(UserResponseDTO user) {
+        String refresh = insert(user.id(), UUID.randomUUID());
+        return new LoginResponseDTO(user, accessToken(user.id(), user.email(), user.accountType()),
+                refresh, expiresInSeconds());
+    }
+
+    @Transactional(noRollbackFor = InvalidCredentialsException.class)
+    public TokenResponseDTO refresh(String rawToken) {
+        String hash = hash(rawToken);
+        Spent spent = jdbc.query(SPEND, rs -> rs.next() ? spent(rs) : null, hash);
+        if (spent == null) {
+            onUnusable(hash);
+            throw new InvalidCredentialsException(INVALID);
+        }
+
+        User u = users.findById(spent.userId()).orElse(null);
+        if (u == null || !u.isActive()) {
+            jdbc.update(REVOKE_FAMILY, spent.familyId());
+            throw new InvalidCredentialsException(INVALID);
+        }
+        String next = insert(u.getId(), spent.familyId());
+        return new TokenResponseDTO(accessToken(u.getId(), u.getEmail(), u.getAccountType()),
+                next, expiresInSeconds());
+    }
+
+    /** Ends the session the token belongs to; unknown tokens are ignored. */
+    @Transactional
+    public void logout(String rawToken) {
+        Spent row = jdbc.query(FIND, rs -> rs.next() ? spent(rs) : null, hash(rawToken));
+        if (row != null) jdbc.update(REVOKE_FAMILY, row.familyId());
+    }
+
+    /** Ends every session of the user: refresh tokens and live access tokens. */
+    @Transactional
+    public void revokeAll(Long userId) {
+        jdbc.update(REVOKE_USER, userId);
+        revocations.revokeUser(userId);
+    }
+
+    @Scheduled(cron = "${jwt.refresh-purge-cron:0 50 * * * *}")
+    public void purge() {
+        int n = jdbc.update(PURGE);
+        if (n > 0) log.debug("Purged {} expired refresh tokens", n);
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    private void onUnusable(String hash) {
+        Spent row = jdbc.query(FIND, rs -> rs.next() ? spent(rs) : null, hash);
+        // Unknown, expired, or ended by logout/revocation: refused, nothing more
+        if (row == null || !row.rotated()) return;
+        if (row.revokedAt().toInstant().isAfter(Instant.now().minusMillis(reuseGraceMs))) return;
+        log.warn("Refresh token reuse for user {}: family {} revoked", row.userId(), row.familyId());
+        jdbc.update(REVOKE_FAMILY, row.familyId());
+        revocations.revokeUser(row.userId());
+    }
+
+    private String insert(Long userId, UUID familyId) {
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        jdbc.update(INSERT, userId, familyId, hash(raw),
+                Timestamp.from(Instant.now().plusMillis(refreshTtlMs)));
+        return raw;
+    }
+
+    private String accessToken(Long userId, String email, AccountType type) {
+        // Same authority as CustomUserDetailsService
+        String role = "ROLE_" + (type != null ? type.name() : AccountType.BASIC.name());
+        return jwtUtils.generateAccessToken(userId, email, List.of(role));
+    }
+
+    private long expiresInSeconds() {
+        return jwtUtils.getExpirationMs() / 1000;
+    }
+
+    private static Spent spent(ResultSet rs) throws SQLException {
+        return new Spent(rs.getLong("user_id"), rs.getObject("family_id", UUID.class), rs.getTimestamp("revoked_at"),
+                rs.getBoolean("rotated"));
+    }
+
+    private static String hash(String raw) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
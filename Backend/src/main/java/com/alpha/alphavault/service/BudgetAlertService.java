@@ -0,0 +1,239 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: BudgetAlertService — threshold alerts for budgets and lines
+ *  Guarantees:
+ *    - Incremental: only the budgets whose totals just moved are
+ *      evaluated (BudgetService calls in after every booking/sync)
+ *    - One alert per threshold crossing: the (budget, scope, threshold)
+ *      key dedups; dropping back below clears it so a re-crossing alerts
+ *    - Emails are batched: pending alerts are claimed in chunks and sent
+ *      as one digest per user (SKIP LOCKED, safe on several instances)
+ *  Notes:
+ *    - Thresholds are the budget's alertThresholdPercent and 100 (over
+ *      budget); the TOTAL limit includes the rolled-over amount
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.budget.BudgetAlertDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class BudgetAlertService {
+
+    public static final String TOTAL_SCOPE = "TOTAL";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final EmailService emailService;
+    private final LiveUpdateService live;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${budget.alerts.enabled:true}")
+    private boolean enabled;
+
+    @Value("${budget.alerts.dispatch-batch-size:500}")
+    private int dispatchBatchSize;
+
+    // ============================================================
+    // == SQL
+    // ============================================================
+
+    /** Clears what is no longer crossed, inserts what newly is; returns the new alerts. */
+    private static final String EVALUATE = """
+        WITH b AS (
+            SELECT b.id, b.user_id, b.year, b.month, b.alert_threshold_percent AS pct,
+                   COALESCE(b.currency, u.preferred_currency) AS currency,
+                   b.total_spent AS spent, b.total_budget + COALESCE(b.carry_over_amount, 0) AS lim
+            FROM budgets b
+            JOIN users u ON u.id = b.user_id
+            WHERE b.id = ANY(CAST(? AS bigint[])) AND b.deleted_at IS NULL
+        ),
+        scopes AS (
+            SELECT id AS budget_id, CAST('%1$s' AS varchar) AS scope, spent, lim FROM b
+            UNION ALL
+            SELECT bc.budget_id, bc.category, bc.spent_amount, bc.allocated
+            FROM budget_categories bc
+            JOIN b ON b.id = bc.budget_id
+            WHERE bc.deleted_at IS NULL
+        ),
+        crossed AS (
+            SELECT DISTINCT s.budget_id, s.scope, t.threshold, s.spent, s.lim
+            FROM scopes s
+            JOIN b ON b.id = s.budget_id
+            CROSS JOIN LATERAL (VALUES (b.pct), (100)) AS t(threshold)
+            WHERE s.lim > 0 AND t.threshold > 0 AND s.spent * 100 >= s.lim * t.threshold
+        ),
+        cleared AS (
+            DELETE FROM budget_alerts a
+            USING b
+            WHERE a.budget_id = b.id
+              AND NOT EXISTS (SELECT 1 FROM crossed c
+                              WHERE c.budget_id = a.budget_id AND c.scope = a.scope AND c.threshold = a.threshold)
+            RETURNING a.id
+        ),
+        raised AS (
+            INSERT INTO budget_alerts (budget_id, user_id, scope, threshold, spent, limit_amount)
+            SELECT c.budget_id, b.user_id, c.scope, c.threshold, c.spent, c.lim
+            FROM crossed c
+            JOIN b ON b.id = c.budget_id
+            ON CONFLICT (budget_id, scope, threshold) DO NOTHING
+            RETURNING id, budget_id, user_id, scope, threshold, spent, limit_amount, crossed_at
+        )
+        SELECT r.id, r.budget_id, r.user_id, b.year, b.month, b.currency,
+               r.scope, r.threshold, r.spent, r.limit_amount, r.crossed_at
+        FROM raised r
+        JOIN b ON b.id = r.budget_id
+        ORDER BY r.id
+        """.formatted(TOTAL_SCOPE);
+
+    private static final String CLAIM_PENDING = """
+        SELECT a.id, a.budget_id, a.user_id, b.year, b.month, COALESCE(b.currency, u.preferred_currency) AS currency,
+               a.scope, a.threshold, a.spent, a.limit_amount, a.crossed_at,
+               u.email, u.first_name, (b.deleted_at IS NOT NULL) AS stale
+        FROM budget_alerts a
+        JOIN budgets b ON b.id = a.budget_id
+        JOIN users u ON u.id = a.user_id
+        WHERE a.notified_at IS NULL
+        ORDER BY a.id
+        LIMIT ?
+        FOR UPDATE OF a SKIP LOCKED
+        """;
+
+    private static final String MARK_NOTIFIED = """
+        UPDATE budget_alerts SET notified_at = CURRENT_TIMESTAMP
+        WHERE id = ANY(CAST(? AS bigint[]))
+        """;
+
+    // ============================================================
+    // == Evaluation (incremental)
+    // ============================================================
+
+    /** Re-evaluates these budgets and their lines; returns the alerts raised now. */
+    @Transactional
+    public List<BudgetAlertDTO> evaluate(Collection<Long> budgetIds) {
+        if (!enabled || budgetIds.isEmpty()) return List.of();
+        // Pending JPA changes (threshold, allocations) must be visible to the SQL below
+        entityManager.flush();
+        List<BudgetAlertDTO> raised = jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(EVALUATE);
+            ps.setArray(1, con.createArrayOf("bigint", budgetIds.toArray()));
+            return ps;
+        }, (rs, i) -> toAlert(rs));
+        for (BudgetAlertDTO a : raised) {
+            live.publish(a.userId(), "budget", "alert", a.budgetId(), LiveUpdateService.fields(
+                    "year", a.year(),
+                    "month", a.month(),
+                    "scope", a.scope(),
+                    "threshold", a.threshold(),
+                    "spent", a.spent(),
+                    "limit", a.limit(),
+                    "currency", a.currency()));
+        }
+        return raised;
+    }
+
+    // ============================================================
+    // == Batched notifications
+    // ============================================================
+
+    private record Pending(BudgetAlertDTO alert, String email, String firstName, boolean stale) {}
+
+    @Scheduled(initialDelayString = "${budget.alerts.dispatch-initial-delay-ms:60000}",
+               fixedDelayString = "${budget.alerts.dispatch-interval-ms:60000}")
+    public void scheduledDispatch() {
+        if (!enabled) return;
+        try {
+            int sent = dispatch();
+            if (sent > 0) log.info("Budget alerts: {} alerts notified", sent);
+        } catch (Exception e) {
+            log.warn("Budget alert dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /** Drains the pending queue in batches; one digest per user per batch. */
+    public int dispatch() {
+        int total = 0;
+        while (true) {
+            Integer n = tx.execute(status -> dispatchBatch());
+            if (n == null || n == 0) return total;
+            total += n;
+        }
+    }
+
+    /** Returns the number of alerts settled (sent, or dropped because the budget is gone). */
+    private int dispatchBatch() {
+        List<Pending> batch = jdbc.query(CLAIM_PENDING, (rs, i) -> new Pending(
+                toAlert(rs), rs.getString("email"), rs.getString("first_name"), rs.getBoolean("stale")),
+                dispatchBatchSize);
+        if (batch.isEmpty()) return 0;
+
+        Map<Long, List<Pending>> byUser = new LinkedHashMap<>();
+        List<Long> settled = new ArrayList<>();
+        for (Pending p : batch) {
+            if (p.stale()) {
+                settled.add(p.alert().id());
+            } else {
+                byUser.computeIfAbsent(p.alert().userId(), k -> new ArrayList<>()).add(p);
+            }
+        }
+        for (List<Pending> mine : byUser.values()) {
+            Pending first = mine.get(0);
+            try {
+                emailService.sendBudgetAlertDigest(first.email(), first.firstName(),
+                        mine.stream().map(Pending::alert).toList());
+                mine.forEach(p -> settled.add(p.alert().id()));
+            } catch (Exception e) {
+                // Left pending: retried on the next run
+                log.warn("Budget alert email failed for user {}: {}", first.alert().userId(), e.getMessage());
+            }
+        }
+        if (!settled.isEmpty()) {
+            jdbc.update(con -> {
+                PreparedStatement ps = con.prepareStatement(MARK_NOTIFIED);
+                ps.setArray(1, con.createArrayOf("bigint", settled.toArray()));
+                return ps;
+            });
+        }
+        // A batch where every send failed must not spin the drain loop
+        return settled.isEmpty() ? 0 : settled.size();
+    }
+
+    private static BudgetAlertDTO toAlert(ResultSet rs) throws SQLException {
+        return new BudgetAlertDTO(
+                rs.getLong("id"),
+                rs.getLong("budget_id"),
+                rs.getLong("user_id"),
+                rs.getInt("year"),
+                rs.getInt("month"),
+                rs.getString("currency"),
+                rs.getString("scope"),
+                rs.getInt("threshold"),
+                rs.getBigDecimal("spent"),
+                rs.getBigDecimal("limit_amount"),
+                rs.getTimestamp("crossed_at").toLocalDateTime());
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: BudgetRolloverService — month-end rollover, set-based
+ *  Guarantees:
+ *    - Every rolloverEnabled budget of the closed month carries its unused
+ *      amount (budget + carry - spent, never negative) into the next month;
+ *      the next budget (with its lines) is created when missing
+ *    - Set-based: one statement per keyset chunk of budgets, each chunk in
+ *      its own short transaction (no per-budget round trips)
+ *    - Idempotent and resumable: carry is assigned, not added; the cursor
+ *      and a lease live in budget_rollovers, so one node runs a month and
+ *      a crash resumes after the last committed chunk
+ *    - Reads settled totals: a run starts only once the expense events
+ *      queued before it were handled by the relay (total_spent is booked
+ *      there); otherwise the relay is woken and the run returns deferred,
+ *      the next scheduled attempt (every 10 minutes on the 1st) retries
+ *    - Never blocks the scheduler: a completed month costs one lookup, a
+ *      lagging relay costs one count
+ *  Notes:
+ *    - Expenses already recorded in the new month are booked onto the
+ *      budgets this job creates (same ledger path as everywhere else)
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.budget.BudgetRolloverDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class BudgetRolloverService {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final LedgerService ledger;
+    private final BudgetAlertService alerts;
+    private final DomainEventRelay relay;
+
+    @Value("${budget.rollover.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${budget.rollover.lease-minutes:10}")
+    private int leaseMinutes;
+
+    // ============================================================
+    // == SQL
+    // ============================================================
+
+    /** Takes (or resumes) the run for a closed month; no row back = someone else holds it or it is done. */
+    private static final String CLAIM = """
+        INSERT INTO budget_rollovers AS r (year, month, started_at) VALUES (?, ?, CURRENT_TIMESTAMP)
+        ON CONFLICT (year, month) DO UPDATE SET started_at = CURRENT_TIMESTAMP
+        WHERE r.completed_at IS NULL AND r.started_at < CURRENT_TIMESTAMP - make_interval(mins => ?)
+        RETURNING r.last_id
+        """;
+
+    /** Rewinds a finished or abandoned run; a run whose lease is still live is left alone. */
+    private static final String RESET = """
+        UPDATE budget_rollovers
+        SET last_id = 0, scanned = 0, created = 0, carried = 0, completed_at = NULL,
+            started_at = CURRENT_TIMESTAMP - make_interval(mins => ?)
+        WHERE year = ? AND month = ?
+          AND (completed_at IS NOT NULL OR started_at < CURRENT_TIMESTAMP - make_interval(mins => ?))
+        """;
+
+    private static final String COMPLETED = """
+        SELECT COUNT(*) FROM budget_rollovers WHERE year = ? AND month = ? AND completed_at IS NOT NULL
+        """;
+
+    /** Expense events queued up to now and not handled yet: the budgets' total_spent is behind. */
+    private static final String RELAY_LAG = """
+        SELECT COUNT(*) FROM domain_events
+        WHERE status = 'PENDING' AND event_type = 'ExpenseRecorded'
+        """;
+
+    /**
+     * One chunk: closed-month budgets after the cursor -> create missing next
+     * budgets (with lines) / assign the carry on existing ones.
+     */
+    private static final String ROLL_CHUNK = """
+        WITH src AS (
+            SELECT b.id, b.user_id, b.total_budget, b.currency, b.alert_threshold_percent,
+                   GREATEST(b.total_budget + COALESCE(b.carry_over_amount, 0) - b.total_spent, 0) AS carry
+            FROM budgets b
+            WHERE b.year = ? AND b.month = ? AND b.rollover_enabled AND b.deleted_at IS NULL AND b.id > ?
+            ORDER BY b.id
+            LIMIT ?
+        ),
+        created AS (
+            INSERT INTO budgets (user_id, year, month, total_budget, total_spent, currency, rollover_enabled,
+                                 carry_over_amount, alert_threshold_percent, version, created_at, updated_at)
+            SELECT s.user_id, ?, ?, s.total_budget, 0, s.currency, true,
+                   s.carry, s.alert_threshold_percent, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+            FROM src s
+            ON CONFLICT (user_id, year, month) DO NOTHING
+            RETURNING id, user_id
+        ),
+        lines AS (
+            INSERT INTO budget_categories (budget_id, category, allocated, spent_amount, created_at, updated_at)
+            SELECT c.id, bc.category, bc.allocated, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+            FROM created c
+            JOIN src s ON s.user_id = c.user_id
+            JOIN budget_categories bc ON bc.budget_id = s.id AND bc.deleted_at IS NULL
+        ),
+        carried AS (
+            UPDATE budgets n
+            SET carry_over_amount = s.carry,
+                version = COALESCE(n.version, 0) + 1,
+                updated_at = CURRENT_TIMESTAMP
+            FROM src s
+            WHERE n.user_id = s.user_id AND n.year = ? AND n.month = ? AND n.deleted_at IS NULL
+              AND n.carry_over_amount IS DISTINCT FROM s.carry
+            RETURNING n.id
+        )
+        SELECT (SELECT MAX(id) FROM src) AS last_id,
+               (SELECT COUNT(*) FROM src) AS scanned,
+               (SELECT array_agg(id) FROM created) AS created_ids,
+               (SELECT array_agg(id) FROM carried) AS carried_ids
+        """;
+
+    private static final String PROGRESS = """
+        UPDATE budget_rollovers
+        SET last_id = ?, scanned = scanned + ?, created = created + ?, carried = carried + ?,
+            started_at = CURRENT_TIMESTAMP
+        WHERE year = ? AND month = ?
+        """;
+
+    private static final String COMPLETE = """
+        UPDATE budget_rollovers SET completed_at = CURRENT_TIMESTAMP
+        WHERE year = ? AND month = ?
+        RETURNING scanned, created, carried
+        """;
+
+    /** Expenses of the new month that belong to budgets this chunk just created. */
+    private static final String NEW_MONTH_EXPENSES = """
+        SELECT e.id
+        FROM budgets b
+        JOIN expenses e ON e.user_id = b.user_id
+        WHERE b.id = ANY(CAST(? AS bigint[]))
+          AND e.expense_date >= ? AND e.expense_date < ? AND e.deleted_at IS NULL
+        """;
+
+    private record Chunk(long lastId, int scanned, List<Long> created, List<Long> carried) {}
+
+    // ============================================================
+    // == Triggers
+    // ============================================================
+
+    /** Catch-up: a node that was down at month start finishes (or resumes) the last rollover. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        scheduledRollover();
+    }
+
+    /** Every 10 minutes on the 1st: a run deferred by relay lag (or a failed one) is retried; a done month is a no-op. */
+    @Scheduled(cron = "${budget.rollover.cron:0 */10 * 1 * *}")
+    public void scheduledRollover() {
+        try {
+            BudgetRolloverDTO r = rollover(YearMonth.now().minusMonths(1), false);
+            if (r.ran()) log.info("Budget rollover {}/{}: {}", r.month(), r.year(), r);
+        } catch (Exception e) {
+            log.warn("Budget rollover failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // ============================================================
+    // == Rollover
+    // ============================================================
+
+    /** Rolls {@code closed} into the next month; {@code restart} runs it again from the first budget. */
+    public BudgetRolloverDTO rollover(YearMonth closed, boolean restart) {
+        YearMonth next = closed.plusMonths(1);
+        int y = closed.getYear(), m = closed.getMonthValue();
+
+        if (!restart && completed(y, m)) return new BudgetRolloverDTO(y, m, false, true, 0, 0, 0);
+        if (!relaySettled()) {
+            log.info("Budget rollover {}/{} deferred: expense events are still pending", m, y);
+            return new BudgetRolloverDTO(y, m, false, false, 0, 0, 0);
+        }
+
+        if (restart) jdbc.update(RESET, leaseMinutes + 1, y, m, leaseMinutes);
+        List<Long> claimed = jdbc.queryForList(CLAIM, Long.class, y, m, leaseMinutes);
+        if (claimed.isEmpty()) return new BudgetRolloverDTO(y, m, false, false, 0, 0, 0);
+
+        long cursor = claimed.get(0);
+        while (true) {
+            long from = cursor;
+            Chunk c = tx.execute(status -> rollChunk(closed, next, from));
+            if (c == null || c.scanned() == 0) break;
+            cursor = c.lastId();
+            if (c.scanned() < chunkSize) break;
+        }
+
+        return jdbc.queryForObject(COMPLETE, (rs, i) -> new BudgetRolloverDTO(
+                y, m, true, true, rs.getInt("scanned"), rs.getInt("created"), rs.getInt("carried")), y, m);
+    }
+
+    private boolean completed(int y, int m) {
+        Long done = jdbc.queryForObject(COMPLETED, Long.class, y, m);
+        return done != null && done > 0;
+    }
+
+    /** True when the expense events queued so far are handled; otherwise wakes the relay (no waiting). */
+    private boolean relaySettled() {
+        Long pending = jdbc.queryForObject(RELAY_LAG, Long.class);
+        if (pending == null || pending == 0) return true;
+        relay.wake();
+        return false;
+    }
+
+    private Chunk rollChunk(YearMonth closed, YearMonth next, long cursor) {
+        Chunk c = jdbc.queryForObject(ROLL_CHUNK, (rs, i) -> new Chunk(
+                        rs.getLong("last_id"), rs.getInt("scanned"), ids(rs, "created_ids"), ids(rs, "carried_ids")),
+                closed.getYear(), closed.getMonthValue(), cursor, chunkSize,
+                next.getYear(), next.getMonthValue(),
+                next.getYear(), next.getMonthValue());
+        if (c == null || c.scanned() == 0) return c;
+
+        if (!c.created().isEmpty()) {
+            List<Long> expenseIds = jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(NEW_MONTH_EXPENSES);
+                ps.setArray(1, con.createArrayOf("bigint", c.created().toArray()));
+                ps.setDate(2, Date.valueOf(next.atDay(1)));
+                ps.setDate(3, Date.valueOf(next.plusMonths(1).atDay(1)));
+                return ps;
+            }, (rs, i) -> rs.getLong(1));
+            ledger.bookExpenses(expenseIds);
+        }
+        // The carry moves the TOTAL limit: re-evaluate alerts of every next-month budget touched
+        Set<Long> touched = new LinkedHashSet<>(c.created());
+        touched.addAll(c.carried());
+        alerts.evaluate(touched);
+
+        jdbc.update(PROGRESS, c.lastId(), c.scanned(), c.created().size(), c.carried().size(),
+                closed.getYear(), closed.getMonthValue());
+        return c;
+    }
+
+    private static List<Long> ids(ResultSet rs, String column) throws SQLException {
+        Array a = rs.getArray(column);
+        if (a == null) return List.of();
+        return new ArrayList<>(Arrays.asList((Long[]) a.getArray()));
+    }
+}
@@ -6,7 +6,10 @@
  *    - We NEVER store "remaining". It's derived:
  *      Budget.totalRemaining = totalBudget - totalSpent
  *      Category.remaining    = allocated    - spentAmount
- *    - totalSpent / spentAmount are cached & recomputed on sync
+ *    - totalSpent / spentAmount are ledger projections: expense changes
+ *      book only their own delta (LedgerService); sync rebooks the month
+ *    - Every totals change ends in BudgetAlertService.evaluate() for the
+ *      budgets it touched (thresholds are never rescanned globally)
  *    - Includes compatibility methods from the old service
  * ================================================================
  */
@@ -14,6 +17,7 @@ package com.alpha.alphavault.service;
 
 import com.alpha.alphavault.dto.budget.BudgetRequestDTO;
 import com.alpha.alphavault.dto.budget.BudgetResponseDTO;
+import com.alpha.alphavault.enums.ArchiveTable;
 import com.alpha.alphavault.enums.ExpenseCategory;
 import com.alpha.alphavault.exception.BudgetException;
 import com.alpha.alphavault.exception.BudgetNotFoundException;
@@ -24,8 +28,9 @@ import com.alpha.alphavault.model.Expense;
 import com.alpha.alphavault.model.User;
 import com.alpha.alphavault.repository.BudgetRepository;
 import com.alpha.alphavault.repository.BudgetCategoryRepository;
-import com.alpha.alphavault.repository.ExpenseRepository;
 import com.alpha.alphavault.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
@@ -35,7 +40,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 
 @RequiredArgsConstructor
@@ -45,8 +49,14 @@ public class BudgetService {
     private final BudgetRepository repo;
     private final BudgetCategoryRepository categoryRepo;
     private final BudgetMapper mapper;
-    private final ExpenseRepository expenseRepo;
     private final UserRepository userRepo;
+    private final LiveUpdateService live;
+    private final LedgerService ledger;
+    private final ArchivalService archival;
+    private final BudgetAlertService alerts;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     // ========================== CRUD (DTO-based) ==========================
 
@@ -122,46 +132,37 @@ public class BudgetService {
     @Transactional
     public void restore(Long id) {
         int updated = repo.restore(id);
+        if (updated == 0 && archival.rehydrate(ArchiveTable.BUDGETS, id)) updated = repo.restore(id);
         if (updated == 0) throw new BudgetException("Failed to restore budget: " + id);
     }
 
     // ========================== Sync / Totals ==========================
 
-    /** Full recompute from expenses in that month (safe & simple). */
+    /**
+     * Explicit/structural sync (new line, currency change, /sync): rebooks the
+     * month's expenses through the ledger, which only writes the differences.
+     */
     @Transactional
     public void syncTotals(Long budgetId) {
         Budget b = repo.findById(budgetId).orElseThrow(() -> new BudgetNotFoundException("Budget not found: " + budgetId));
-        LocalDate start = LocalDate.of(b.getYear(), b.getMonth(), 1);
-        LocalDate endExclusive = start.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-
-        var expenses = expenseRepo.findByUserIdAndExpenseDateBetween(b.getUser().getId(), start, endExclusive);
-
-        // total spent
-        BigDecimal total = expenses.stream()
-                .map(Expense::getAmount)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        b.setTotalSpent(total);
-
-        // per-category
-        Map<ExpenseCategory, BigDecimal> byCat = new EnumMap<>(ExpenseCategory.class);
-        for (Expense e : expenses) {
-            if (e.getCategory() == null || e.getAmount() == null) continue;
-            byCat.merge(e.getCategory(), e.getAmount(), BigDecimal::add);
-        }
-        for (BudgetCategory bc : b.getCategories()) {
-            bc.setSpentAmount(byCat.getOrDefault(bc.getCategory(), BigDecimal.ZERO));
-        }
-        repo.save(b);
+        ledger.rebookBudget(budgetId);
+        entityManager.refresh(b);
+        publishTotals(b);
+        alerts.evaluate(List.of(budgetId));
     }
 
     /** Hook for ExpenseService: call after expense create/update/delete. */
     @Transactional
     public void syncAfterExpenseChange(Expense expense) {
-        Long userId = expense.getUser().getId();
-        LocalDate d = expense.getExpenseDate();
-        repo.findByUserIdAndYearAndMonth(userId, d.getYear(), d.getMonthValue())
-                .ifPresent(b -> syncTotals(b.getId()));
+        bookExpenses(List.of(expense.getId()));
+    }
+
+    /** Incremental: books only what these expenses changed; no month recompute. */
+    @Transactional
+    public Set<Long> bookExpenses(Collection<Long> expenseIds) {
+        Set<Long> touched = ledger.bookExpenses(expenseIds);
+        publishTotals(touched);
+        return touched;
     }
 
     /** Optional convenience: when a budget changes, resync its totals. */
@@ -170,6 +171,37 @@ public class BudgetService {
         syncTotals(budget.getId());
     }
 
+    // ========================== Live updates ==========================
+
+    /**
+     * One "budget" delta per budget, with the totals as they are now in this
+     * transaction; the same budgets are then re-evaluated for alerts.
+     */
+    @Transactional
+    public void publishTotals(Collection<Long> budgetIds) {
+        for (Long id : budgetIds) {
+            repo.findById(id).ifPresent(b -> {
+                entityManager.refresh(b); // totals were moved by SQL, not through the entity
+                publishTotals(b);
+            });
+        }
+        alerts.evaluate(budgetIds);
+    }
+
+    private void publishTotals(Budget b) {
+        String currency = b.getCurrency() != null ? b.getCurrency() : b.getUser().getPreferredCurrency();
+        Map<String, Object> spentByCategory = new LinkedHashMap<>();
+        for (BudgetCategory bc : b.getCategories()) {
+            spentByCategory.put(bc.getCategory().name(), bc.getSpentAmount());
+        }
+        live.publish(b.getUser().getId(), "budget", "synced", b.getId(), LiveUpdateService.fields(
+                "year", b.getYear(),
+                "month", b.getMonth(),
+                "currency", currency,
+                "totalSpent", b.getTotalSpent(),
+                "categories", spentByCategory));
+    }
+
     // ========================== Category Mgmt (compat) ==========================
 
     /**
@@ -0,0 +1,71 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: DataVersionService — per-user data versions -> strong ETags
+ *  Guarantees:
+ *    - Versions are bumped by DB triggers inside the writing transaction
+ *    - One primary-key lookup per tagged request (no domain query)
+ *    - A tag never claims newer data than the body it ships with
+ *  Notes:
+ *    - Tags also cover the FX table and the current date, since several
+ *      endpoints convert currencies or are relative to "today"
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.enums.DataDomain;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@Service
+public class DataVersionService {
+
+    private final JdbcTemplate jdbc;
+    private final FxRateService fx;
+
+    public Map<DataDomain, Long> versions(Long userId) {
+        Map<DataDomain, Long> out = new EnumMap<>(DataDomain.class);
+        jdbc.query("SELECT domain, version FROM user_data_versions WHERE user_id = ?",
+                rs -> {
+                    try {
+                        out.put(DataDomain.valueOf(rs.getString(1)), rs.getLong(2));
+                    } catch (IllegalArgumentException ignored) {
+                        // domain written by a newer schema; not tracked here
+                    }
+                }, userId);
+        return out;
+    }
+
+    /** Quoted strong ETag over the given domains' versions for this user and representation. */
+    public String etag(Long userId, DataDomain[] domains, boolean includeFx, String variant) {
+        Map<DataDomain, Long> v = versions(userId);
+        StringBuilder sb = new StringBuilder(64).append(userId);
+        sb.append("|p=").append(v.getOrDefault(DataDomain.PROFILE, 0L));
+        for (DataDomain d : domains) {
+            sb.append('|').append(d.ordinal()).append('=').append(v.getOrDefault(d, 0L));
+        }
+        if (includeFx) sb.append("|fx=").append(fx.fingerprint());
+        sb.append("|d=").append(LocalDate.now().toEpochDay());
+        sb.append("|r=").append(variant);
+        return '"' + digest(sb.toString()) + '"';
+    }
+
+    private static String digest(String s) {
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(h, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
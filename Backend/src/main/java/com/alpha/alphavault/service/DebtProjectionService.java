@@ -0,0 +1,424 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: DebtProjectionService — amortization & payoff plans
+ *  Guarantees:
+ *    - Simulation runs on primitive long cents (no BigDecimal per step)
+ *    - Strategies are simulated in parallel on an immutable snapshot
+ *    - Schedules are emitted period by period (streamable, no buffering)
+ *  Notes:
+ *    - Multi-debt plans are normalized to monthly periods; a single
+ *      debt amortization follows its own billing cycle
+ *    - Interest accrues on the nominal APR / periods per year
+ *    - A plan that cannot converge (no open debt went down in a period,
+ *      or a balance overflows) stops there with paysOff=false; otherwise
+ *      it runs to the MAX_YEARS horizon
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.debt.*;
+import com.alpha.alphavault.enums.DebtStatus;
+import com.alpha.alphavault.enums.PayoffStrategy;
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.alpha.alphavault.exception.DebtNotFoundException;
+import com.alpha.alphavault.model.Debt;
+import com.alpha.alphavault.repository.DebtRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+@Service
+public class DebtProjectionService {
+
+    /** Hard stop for plans that never converge (100 years). */
+    private static final int MAX_YEARS = 100;
+    private static final int MAX_MONTHS = MAX_YEARS * 12;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private final DebtRepository debtRepository;
+
+    // ============================================================
+    // == Snapshot (primitive, transaction-free)
+    // ============================================================
+
+    /** Receives one simulated period at a time; amounts are cents. */
+    @FunctionalInterface
+    public interface PeriodSink {
+        void accept(int period, long paymentCents, long interestCents, long balanceCents);
+    }
+
+    /** Immutable primitive view of a user's open debts, normalized to monthly terms. */
+    public record Snapshot(Long userId,
+                           LocalDate start,
+                           long[] ids,
+                           String[] names,
+                           long[] balanceCents,
+                           double[] monthlyRate,
+                           long[] monthlyMinCents) {
+
+        public int size() {
+            return ids.length;
+        }
+
+        public long totalBalanceCents() {
+            long t = 0;
+            for (long b : balanceCents) t += b;
+            return t;
+        }
+
+        public long totalMinimumCents() {
+            long t = 0;
+            for (long m : monthlyMinCents) t += m;
+            return t;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Snapshot snapshot(Long userId) {
+        LocalDate today = LocalDate.now();
+        List<Debt> open = debtRepository.findByUserId(userId).stream()
+                .filter(d -> d.getStatus() == DebtStatus.ACTIVE || d.getStatus() == DebtStatus.DELINQUENT)
+                .filter(d -> d.getRemainingAmount() != null && d.getRemainingAmount().signum() > 0)
+                .toList();
+
+        int n = open.size();
+        long[] ids = new long[n];
+        String[] names = new String[n];
+        long[] balance = new long[n];
+        double[] rate = new double[n];
+        long[] min = new long[n];
+        LocalDate start = null;
+
+        for (int i = 0; i < n; i++) {
+            Debt d = open.get(i);
+            RecurrenceType cycle = d.getBillingCycle() != null ? d.getBillingCycle() : RecurrenceType.MONTHLY;
+            ids[i] = d.getId();
+            names[i] = d.getCreditorName();
+            balance[i] = toCents(d.getRemainingAmount());
+            rate[i] = aprToPeriodicRate(d.getInterestRateApr(), 12);
+            // Minimum per cycle -> monthly equivalent
+            min[i] = Math.round(toCents(d.getMinPayment()) * (cycle.periodsPerYear() / 12.0));
+            LocalDate due = d.getDueDate() == null || d.getDueDate().isBefore(today) ? today : d.getDueDate();
+            if (start == null || due.isBefore(start)) start = due;
+        }
+        return new Snapshot(userId, start != null ? start : today, ids, names, balance, rate, min);
+    }
+
+    // ============================================================
+    // == Multi-debt projection (avalanche / snowball / minimum)
+    // ============================================================
+
+    @Transactional(readOnly = true)
+    public DebtProjectionResponseDTO project(Long userId, BigDecimal extraMonthly, boolean includeSchedule) {
+        long extra = requireNonNegativeCents(extraMonthly);
+        Snapshot snap = snapshot(userId);
+
+        List<DebtPayoffPlanDTO> plans = Stream.of(PayoffStrategy.values())
+                .parallel()
+                .map(s -> plan(snap, s, extra, includeSchedule))
+                .toList();
+
+        DebtPayoffPlanDTO baseline = plans.stream()
+                .filter(p -> p.strategy() == PayoffStrategy.MINIMUM).findFirst().orElseThrow();
+        DebtPayoffPlanDTO best = plans.stream()
+                .filter(p -> p.strategy() != PayoffStrategy.MINIMUM)
+                .min(Comparator.comparing(DebtPayoffPlanDTO::paysOff).reversed()
+                        .thenComparing(DebtPayoffPlanDTO::totalInterest)
+                        .thenComparingInt(DebtPayoffPlanDTO::months))
+                .orElseThrow();
+
+        BigDecimal interestSaved = baseline.paysOff() && best.paysOff()
+                ? baseline.totalInterest().subtract(best.totalInterest())
+                : null;
+        int monthsSaved = baseline.paysOff() && best.paysOff() ? baseline.months() - best.months() : 0;
+
+        return new DebtProjectionResponseDTO(
+                userId,
+                snap.size(),
+                fromCents(snap.totalBalanceCents()),
+                fromCents(extra),
+                best.strategy(),
+                interestSaved,
+                monthsSaved,
+                plans
+        );
+    }
+
+    /** Streams one plan as NDJSON (one line per month) without materializing the schedule. */
+    public void writeNdjson(Snapshot snap, PayoffStrategy strategy, BigDecimal extraMonthly, OutputStream out) throws IOException {
+        long extra = requireNonNegativeCents(extraMonthly);
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        try {
+            simulate(snap, strategy, extra, (period, pay, interest, bal) -> {
+                try {
+                    w.write("{\"period\":");
+                    w.write(Integer.toString(period));
+                    w.write(",\"date\":\"");
+                    w.write(DATE.format(snap.start().plusMonths(period - 1L)));
+                    w.write("\",\"paymentCents\":");
+                    w.write(Long.toString(pay));
+                    w.write(",\"interestCents\":");
+                    w.write(Long.toString(interest));
+                    w.write(",\"balanceCents\":");
+                    w.write(Long.toString(bal));
+                    w.write("}\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        w.flush();
+    }
+
+    private DebtPayoffPlanDTO plan(Snapshot snap, PayoffStrategy strategy, long extra, boolean includeSchedule) {
+        ScheduleCollector collector = includeSchedule ? new ScheduleCollector() : null;
+        Outcome o = simulate(snap, strategy, extra, collector);
+
+        List<DebtPayoffDTO> order = IntStream.range(0, snap.size())
+                .boxed()
+                .sorted(Comparator.comparingInt(i -> o.payoffMonth[i] == 0 ? Integer.MAX_VALUE : o.payoffMonth[i]))
+                .map(i -> new DebtPayoffDTO(
+                        snap.ids()[i],
+                        snap.names()[i],
+                        o.payoffMonth[i] == 0 ? null : o.payoffMonth[i],
+                        o.payoffMonth[i] == 0 ? null : snap.start().plusMonths(o.payoffMonth[i] - 1L),
+                        fromCents(o.interestByDebt[i])))
+                .toList();
+
+        long budget = strategy == PayoffStrategy.MINIMUM ? snap.totalMinimumCents() : snap.totalMinimumCents() + extra;
+        return new DebtPayoffPlanDTO(
+                strategy,
+                fromCents(budget),
+                o.months,
+                o.paysOff,
+                o.paysOff && o.months > 0 ? snap.start().plusMonths(o.months - 1L) : null,
+                fromCents(o.totalInterest),
+                fromCents(o.totalPaid),
+                order,
+                collector == null ? null : collector.toDto(snap.start(), RecurrenceType.MONTHLY)
+        );
+    }
+
+    private record Outcome(int months, boolean paysOff, long totalInterest, long totalPaid,
+                           long[] interestByDebt, int[] payoffMonth) {}
+
+    /**
+     * Month-by-month simulation. Each month: accrue interest, pay every minimum,
+     * then (except MINIMUM) push the rest of the fixed budget — extra plus any
+     * minimums freed by cleared debts — into debts in strategy order.
+     * Stops early when no open debt went down in a month: payments stay the same
+     * while interest can only grow, so no debt ever clears (minimum at or below
+     * the interest).
+     */
+    private static Outcome simulate(Snapshot s, PayoffStrategy strategy, long extra, PeriodSink sink) {
+        int n = s.size();
+        long[] bal = s.balanceCents().clone();
+        long[] opening = new long[n];
+        long[] min = s.monthlyMinCents();
+        double[] rate = s.monthlyRate();
+        long[] interestByDebt = new long[n];
+        int[] payoffMonth = new int[n];
+        int[] order = priority(s, strategy);
+
+        boolean rollover = strategy != PayoffStrategy.MINIMUM;
+        long budget = s.totalMinimumCents() + (rollover ? extra : 0);
+        long remaining = s.totalBalanceCents();
+        long totalInterest = 0;
+        long totalPaid = 0;
+        int month = 0;
+
+        while (remaining > 0 && month < MAX_MONTHS) {
+            System.arraycopy(bal, 0, opening, 0, n);
+            long monthInterest = 0;
+            long monthPaid = 0;
+
+            try {
+                for (int i = 0; i < n; i++) {
+                    if (bal[i] <= 0) continue;
+                    long interest = interest(bal[i], rate[i]);
+                    bal[i] = Math.addExact(bal[i], interest);
+                    interestByDebt[i] = Math.addExact(interestByDebt[i], interest);
+                    monthInterest = Math.addExact(monthInterest, interest);
+                }
+            } catch (ArithmeticException overflow) {
+                break; // balance past the long range: never pays off
+            }
+            month++;
+
+            long available = budget;
+            for (int i = 0; i < n; i++) {
+                if (bal[i] <= 0) continue;
+                long pay = Math.min(min[i], bal[i]);
+                bal[i] -= pay;
+                available -= pay;
+                monthPaid += pay;
+            }
+
+            if (rollover) {
+                for (int k = 0; k < n && available > 0; k++) {
+                    int i = order[k];
+                    if (bal[i] <= 0) continue;
+                    long pay = Math.min(available, bal[i]);
+                    bal[i] -= pay;
+                    available -= pay;
+                    monthPaid += pay;
+                }
+            }
+
+            remaining = 0;
+            boolean progress = false;
+            for (int i = 0; i < n; i++) {
+                if (opening[i] > 0 && bal[i] < opening[i]) progress = true;
+                if (bal[i] > 0) remaining = remaining > Long.MAX_VALUE - bal[i] ? Long.MAX_VALUE : remaining + bal[i];
+                else if (payoffMonth[i] == 0) payoffMonth[i] = month;
+            }
+            totalInterest += monthInterest;
+            totalPaid += monthPaid;
+            if (sink != null) sink.accept(month, monthPaid, monthInterest, remaining);
+            if (!progress) break;
+        }
+        return new Outcome(month, remaining == 0, totalInterest, totalPaid, interestByDebt, payoffMonth);
+    }
+
+    private static int[] priority(Snapshot s, PayoffStrategy strategy) {
+        Comparator<Integer> byRateDesc = Comparator.comparingDouble(i -> -s.monthlyRate()[i]);
+        Comparator<Integer> byBalanceAsc = Comparator.comparingLong(i -> s.balanceCents()[i]);
+        Comparator<Integer> cmp = strategy == PayoffStrategy.SNOWBALL
+                ? byBalanceAsc.thenComparing(byRateDesc)
+                : byRateDesc.thenComparing(byBalanceAsc);
+        return IntStream.range(0, s.size()).boxed().sorted(cmp).mapToInt(Integer::intValue).toArray();
+    }
+
+    // ============================================================
+    // == Single-debt amortization (native billing cycle)
+    // ============================================================
+
+    @Transactional(readOnly = true)
+    public DebtAmortizationDTO amortization(Long debtId, BigDecimal extraPerPeriod) {
+        long extra = requireNonNegativeCents(extraPerPeriod);
+        Debt d = debtRepository.findById(debtId)
+                .orElseThrow(() -> new DebtNotFoundException("Debt not found for id: " + debtId));
+
+        RecurrenceType cycle = d.getBillingCycle() != null ? d.getBillingCycle() : RecurrenceType.MONTHLY;
+        LocalDate today = LocalDate.now();
+        LocalDate start = d.getDueDate() == null || d.getDueDate().isBefore(today) ? today : d.getDueDate();
+        double rate = aprToPeriodicRate(d.getInterestRateApr(), cycle.periodsPerYear());
+        long payment = toCents(d.getMinPayment()) + extra;
+        int maxPeriods = MAX_YEARS * cycle.periodsPerYear();
+
+        ScheduleCollector collector = new ScheduleCollector();
+        long bal = toCents(d.getRemainingAmount());
+        long totalInterest = 0;
+        long totalPaid = 0;
+        int period = 0;
+
+        while (bal > 0 && period < maxPeriods) {
+            long opening = bal;
+            long interest;
+            long accrued;
+            try {
+                interest = interest(bal, rate);
+                accrued = Math.addExact(bal, interest);
+            } catch (ArithmeticException overflow) {
+                break; // balance past the long range: never pays off
+            }
+            period++;
+            long pay = Math.min(payment, accrued);
+            bal = accrued - pay;
+            totalInterest += interest;
+            totalPaid += pay;
+            collector.accept(period, pay, interest, bal);
+            // Payment at or below the interest: the balance never goes down
+            if (bal > 0 && bal >= opening) break;
+        }
+
+        boolean paysOff = bal <= 0;
+        return new DebtAmortizationDTO(
+                d.getId(),
+                d.getCreditorName(),
+                cycle,
+                fromCents(payment),
+                period,
+                paysOff,
+                paysOff && period > 0 ? cycle.advance(start, period - 1L) : null,
+                fromCents(totalInterest),
+                fromCents(totalPaid),
+                collector.toDto(start, cycle)
+        );
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    /** Growable primitive columns; avoids boxing one object per period. */
+    private static final class ScheduleCollector implements PeriodSink {
+        private long[] payment = new long[64];
+        private long[] interest = new long[64];
+        private long[] balance = new long[64];
+        private int size;
+
+        @Override
+        public void accept(int period, long paymentCents, long interestCents, long balanceCents) {
+            if (size == payment.length) {
+                int cap = size << 1;
+                payment = Arrays.copyOf(payment, cap);
+                interest = Arrays.copyOf(interest, cap);
+                balance = Arrays.copyOf(balance, cap);
+            }
+            payment[size] = paymentCents;
+            interest[size] = interestCents;
+            balance[size] = balanceCents;
+            size++;
+        }
+
+        DebtScheduleDTO toDto(LocalDate start, RecurrenceType cycle) {
+            return new DebtScheduleDTO(start, cycle,
+                    Arrays.copyOf(payment, size),
+                    Arrays.copyOf(interest, size),
+                    Arrays.copyOf(balance, size));
+        }
+    }
+
+    /** Interest of one period in cents; throws ArithmeticException past the long range. */
+    private static long interest(long balanceCents, double rate) {
+        double v = balanceCents * rate;
+        if (v >= Long.MAX_VALUE) throw new ArithmeticException("interest overflow");
+        return Math.round(v);
+    }
+
+    private static double aprToPeriodicRate(BigDecimal apr, int periodsPerYear) {
+        if (apr == null || apr.signum() <= 0) return 0d;
+        return apr.doubleValue() / 100d / periodsPerYear;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) return 0L;
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long requireNonNegativeCents(BigDecimal amount) {
+        if (amount != null && amount.signum() < 0) {
+            throw new IllegalArgumentException("Extra payment must be >= 0");
+        }
+        return toCents(amount);
+    }
+}
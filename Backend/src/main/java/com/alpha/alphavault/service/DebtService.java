@@ -4,15 +4,19 @@
  *  Service: DebtService — DTO-first CRUD, payments, filters, totals
  *  Guarantees:
  *    - BigDecimal-safe money math
- *    - Optimistic locking friendly
- *    - Soft delete aware (via @SQLDelete/@Where)
+ *    - Payments are atomic guarded updates (no lost updates, no @Version retries)
+ *    - Soft delete aware (via @SQLDelete + auto-enabled @Filter)
  *    - Clear exceptions -> GlobalExceptionHandler
  * ================================================================
  */
 package com.alpha.alphavault.service;
 
+import com.alpha.alphavault.dto.common.BatchItemResultDTO;
+import com.alpha.alphavault.dto.common.BatchResultDTO;
 import com.alpha.alphavault.dto.debt.*;
+import com.alpha.alphavault.enums.ArchiveTable;
 import com.alpha.alphavault.enums.DebtStatus;
+import com.alpha.alphavault.event.DebtPaymentApplied;
 import com.alpha.alphavault.exception.DebtException;
 import com.alpha.alphavault.exception.DebtNotFoundException;
 import com.alpha.alphavault.mapper.DebtMapper;
@@ -23,11 +27,17 @@ import com.alpha.alphavault.repository.DebtRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,6 +48,11 @@ public class DebtService {
     private final DebtRepository debtRepository;
     private final DebtHistoryRepository paymentRepository;
     private final DebtMapper mapper;
+    private final LiveUpdateService live;
+    private final JdbcTemplate jdbc;
+    private final ArchivalService archival;
+    private final DomainEventPublisher domainEvents;
+    private final PeriodMetricsService periodMetrics; // top debts, reloaded after every debt write
 
     // ============================================================
     // == DTO-first CRUD
@@ -48,6 +63,7 @@ public class DebtService {
         try {
             Debt debt = mapper.toEntity(dto);
             Debt saved = debtRepository.save(debt);
+            changed(saved);
             return mapper.toResponse(saved);
         } catch (Exception e) {
             throw new DebtException("Error creating debt: " + e.getMessage(), e);
@@ -58,8 +74,12 @@ public class DebtService {
     public DebtResponseDTO update(Long id, DebtRequestDTO dto) {
         Debt debt = debtRepository.findById(id)
                 .orElseThrow(() -> new DebtNotFoundException("Debt not found for id: " + id));
+        Long before = ownerOf(debt);
         mapper.updateEntity(debt, dto);
         Debt saved = debtRepository.save(debt);
+        Set<Long> owners = new HashSet<>(Arrays.asList(before, ownerOf(saved)));
+        owners.remove(null);
+        periodMetrics.debtsChanged(owners);
         return mapper.toResponse(saved);
     }
 
@@ -79,6 +99,7 @@ public class DebtService {
     public void delete(Long id) {
         // Hard delete: first delete related payment history, then delete the debt
         // Note: We skip the existsById check since hard delete will handle non-existent records
+        debtRepository.findById(id).ifPresent(this::changed);
         paymentRepository.deleteByDebtId(id);
         int deleted = debtRepository.hardDeleteById(id);
         if (deleted == 0) throw new DebtNotFoundException("Debt not found for id: " + id);
@@ -87,48 +108,195 @@ public class DebtService {
     @Transactional
     public void restore(Long id) {
         int updated = debtRepository.restore(id);
+        if (updated == 0 && archival.rehydrate(ArchiveTable.DEBTS, id)) updated = debtRepository.restore(id);
         if (updated == 0) throw new DebtException("Failed to restore debt id: " + id);
+        debtRepository.findById(id).ifPresent(this::changed);
     }
 
     // ============================================================
     // == Payments
     // ============================================================
 
+    /**
+     * Atomic: the balance and status change is one guarded UPDATE ... RETURNING
+     * (no read-modify-write), then the history row records the returned balance.
+     */
     @Transactional
     public DebtPaymentResponseDTO addPayment(DebtPaymentRequestDTO dto) {
-        Debt debt = debtRepository.findById(dto.debtId())
-                .orElseThrow(() -> new DebtNotFoundException("Debt not found for id: " + dto.debtId()));
-
         if (dto.paymentAmount() == null || dto.paymentAmount().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Payment amount must be > 0");
         }
 
-        BigDecimal remaining = debt.getRemainingAmount() != null ? debt.getRemainingAmount() : BigDecimal.ZERO;
-        BigDecimal after = remaining.subtract(dto.paymentAmount());
-        if (after.compareTo(BigDecimal.ZERO) < 0) after = BigDecimal.ZERO;
+        DebtMove d = applyPayments(null, Map.of(dto.debtId(), dto.paymentAmount())).get(dto.debtId());
+        if (d == null) {
+            String reason = explainDebtFailures(null, Set.of(dto.debtId()), Set.of()).get(dto.debtId());
+            if ("DEBT_NOT_PAYABLE".equals(reason)) {
+                throw new IllegalArgumentException("Debt is not payable in its current status");
+            }
+            throw new DebtNotFoundException("Debt not found for id: " + dto.debtId());
+        }
+        periodMetrics.debtsChanged(List.of(d.userId()));
 
         // Build and persist payment row
         DebtHistory pay = mapper.toPaymentEntity(dto);
-        pay.setDebt(debt);
-        pay.setRemainingAfterPayment(after);
-
-        // Update debt
-        debt.setRemainingAmount(after);
-        if (after.compareTo(BigDecimal.ZERO) == 0) {
-            debt.setStatus(DebtStatus.PAID_OFF);
-        } else if (debt.getDueDate() != null && debt.getDueDate().isBefore(LocalDate.now())) {
-            debt.setStatus(DebtStatus.DELINQUENT);
-        } else if (debt.getStatus() == DebtStatus.DELINQUENT) {
-            debt.setStatus(DebtStatus.ACTIVE); // recovered from delinquency
-        }
-
-        // Persist atomically
-        debtRepository.save(debt);
+        pay.setDebt(debtRepository.getReferenceById(dto.debtId()));
+        pay.setRemainingAfterPayment(d.after());
         DebtHistory saved = paymentRepository.save(pay);
 
+        domainEvents.publish(new DebtPaymentApplied(d.userId(), dto.debtId(), dto.paymentAmount(), d.after(),
+                dto.paymentDate() != null ? dto.paymentDate() : LocalDate.now()));
+        live.publish(d.userId(), "debt", "payment", dto.debtId(), LiveUpdateService.fields(
+                "remainingAmount", d.after(),
+                "status", d.status()));
         return mapper.toPaymentResponse(saved);
     }
 
+    /**
+     * Net payment per debt, applied by one set-based UPDATE ... RETURNING
+     * (rows locked in id order). Only ACTIVE/DELINQUENT debts of the owner
+     * (when given) are touched. PAID_OFF at zero, DELINQUENT past due,
+     * DELINQUENT -> ACTIVE once current again.
+     */
+    private static final String APPLY_DEBT_PAYMENTS = """
+        WITH p AS (
+            SELECT t.debt_id, SUM(t.amount) AS amount
+            FROM unnest(CAST(? AS bigint[]), CAST(? AS numeric[])) AS t(debt_id, amount)
+            GROUP BY t.debt_id
+        ),
+        cur AS (
+            SELECT d.id, d.remaining_amount AS before
+            FROM debts d
+            JOIN p ON p.debt_id = d.id
+            WHERE d.user_id = COALESCE(?, d.user_id) AND d.deleted_at IS NULL AND d.status IN ('ACTIVE', 'DELINQUENT')
+            ORDER BY d.id
+            FOR UPDATE OF d
+        )
+        UPDATE debts d
+        SET remaining_amount = GREATEST(cur.before - p.amount, 0),
+            status = CASE WHEN cur.before - p.amount <= 0 THEN 'PAID_OFF'
+                          WHEN d.due_date < CURRENT_DATE THEN 'DELINQUENT'
+                          ELSE 'ACTIVE' END,
+            version = COALESCE(d.version, 0) + 1,
+            updated_at = CURRENT_TIMESTAMP
+        FROM cur
+        JOIN p ON p.debt_id = cur.id
+        WHERE d.id = cur.id
+        RETURNING d.id, cur.before, d.remaining_amount, d.status, d.user_id
+        """;
+
+    private static final String INSERT_PAYMENTS = """
+        INSERT INTO debt_history (id, debt_id, payment_amount, payment_date, remaining_after_payment,
+                                  payment_method, note, version, created_at)
+        SELECT t.id, t.debt_id, t.amount, t.payment_date, t.remaining, t.method, t.note, 0, ?
+        FROM unnest(CAST(? AS bigint[]), CAST(? AS bigint[]), CAST(? AS numeric[]), CAST(? AS date[]),
+                    CAST(? AS numeric[]), CAST(? AS text[]), CAST(? AS text[]))
+             AS t(id, debt_id, amount, payment_date, remaining, method, note)
+        """;
+
+    private record DebtMove(BigDecimal before, BigDecimal after, String status, Long userId) {}
+
+    /** Applies all payments in one transaction; any failing debt rolls the whole batch back. */
+    @Transactional
+    public BatchResultDTO addPayments(DebtPaymentBatchRequestDTO dto) {
+        List<DebtPaymentRequestDTO> items = dto.payments();
+        Map<Long, BigDecimal> net = new LinkedHashMap<>();
+        for (DebtPaymentRequestDTO p : items) net.merge(p.debtId(), p.paymentAmount(), BigDecimal::add);
+
+        Map<Long, DebtMove> moved = applyPayments(dto.userId(), net);
+
+        Map<Long, String> errors = moved.size() == net.size() ? Map.of() : explainDebtFailures(dto.userId(), net.keySet(), moved.keySet());
+        boolean committed = errors.isEmpty();
+        if (!committed) TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+
+        // Running remaining per debt in request order -> one history row per item
+        int n = items.size();
+        List<Long> ids = committed
+                ? jdbc.queryForList("SELECT nextval(pg_get_serial_sequence('debt_history', 'id')) FROM generate_series(1, ?)", Long.class, n)
+                : null;
+        Long[] debtIds = new Long[n];
+        BigDecimal[] amounts = new BigDecimal[n];
+        String[] dates = new String[n];
+        BigDecimal[] remaining = new BigDecimal[n];
+        String[] methods = new String[n];
+        String[] notes = new String[n];
+        Map<Long, BigDecimal> running = new HashMap<>();
+        List<BatchItemResultDTO> results = new ArrayList<>(n);
+        List<DebtPaymentApplied> applied = new ArrayList<>(n);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < n; i++) {
+            DebtPaymentRequestDTO p = items.get(i);
+            DebtMove d = moved.get(p.debtId());
+            if (d == null) {
+                results.add(BatchItemResultDTO.failed(i, p.debtId(), errors.get(p.debtId())));
+                continue;
+            }
+            BigDecimal prev = running.getOrDefault(p.debtId(), d.before());
+            BigDecimal after = prev.subtract(p.paymentAmount()).max(BigDecimal.ZERO);
+            running.put(p.debtId(), after);
+
+            debtIds[i] = p.debtId();
+            amounts[i] = p.paymentAmount();
+            dates[i] = (p.paymentDate() != null ? p.paymentDate() : today).toString();
+            remaining[i] = after;
+            methods[i] = p.paymentMethod().name();
+            notes[i] = p.note() != null && !p.note().isBlank() ? p.note().trim() : null;
+            applied.add(new DebtPaymentApplied(d.userId(), p.debtId(), p.paymentAmount(), after,
+                    p.paymentDate() != null ? p.paymentDate() : today));
+            results.add(new BatchItemResultDTO(i, p.debtId(), true, null, after, d.status(), committed ? ids.get(i) : null));
+        }
+        if (!committed) return new BatchResultDTO(false, n, (int) results.stream().filter(r -> !r.ok()).count(), results);
+        periodMetrics.debtsChanged(moved.values().stream().map(DebtMove::userId).collect(Collectors.toSet()));
+
+        jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_PAYMENTS);
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setArray(2, con.createArrayOf("bigint", ids.toArray()));
+            ps.setArray(3, con.createArrayOf("bigint", debtIds));
+            ps.setArray(4, con.createArrayOf("numeric", amounts));
+            ps.setArray(5, con.createArrayOf("text", dates));
+            ps.setArray(6, con.createArrayOf("numeric", remaining));
+            ps.setArray(7, con.createArrayOf("text", methods));
+            ps.setArray(8, con.createArrayOf("text", notes));
+            return ps;
+        });
+
+        applied.forEach(domainEvents::publish);
+        moved.forEach((id, d) -> live.publish(dto.userId(), "debt", "payment", id, LiveUpdateService.fields(
+                "remainingAmount", d.after(),
+                "status", d.status())));
+        return new BatchResultDTO(true, n, 0, results);
+    }
+
+    /** Runs APPLY_DEBT_PAYMENTS; debts missing from the result failed a guard. */
+    private Map<Long, DebtMove> applyPayments(Long userId, Map<Long, BigDecimal> net) {
+        Map<Long, DebtMove> moved = new HashMap<>();
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(APPLY_DEBT_PAYMENTS);
+            ps.setArray(1, con.createArrayOf("bigint", net.keySet().toArray()));
+            ps.setArray(2, con.createArrayOf("numeric", net.values().toArray()));
+            ps.setObject(3, userId, Types.BIGINT);
+            return ps;
+        }, rs -> {
+            moved.put(rs.getLong(1), new DebtMove(rs.getBigDecimal(2), rs.getBigDecimal(3),
+                    rs.getString(4), rs.getLong(5)));
+        });
+        return moved;
+    }
+
+    private Map<Long, String> explainDebtFailures(Long userId, Set<Long> requested, Set<Long> applied) {
+        Map<Long, String> out = new HashMap<>();
+        for (Long id : requested) if (!applied.contains(id)) out.put(id, "NOT_FOUND");
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id, user_id, status, deleted_at FROM debts WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", out.keySet().toArray()));
+            return ps;
+        }, rs -> {
+            if ((userId != null && rs.getLong(2) != userId) || rs.getTimestamp(4) != null) return;
+            out.put(rs.getLong(1), "DEBT_NOT_PAYABLE");
+        });
+        return out;
+    }
+
     @Transactional(readOnly = true)
     public List<DebtPaymentResponseDTO> listPayments(Long debtId) {
         if (!debtRepository.existsById(debtId)) throw new DebtNotFoundException("Debt not found for id: " + debtId);
@@ -145,6 +313,7 @@ public class DebtService {
         Debt d = debtRepository.findById(id).orElseThrow(() -> new DebtNotFoundException("Debt not found for id: " + id));
         d.setStatus(status);
         debtRepository.save(d);
+        changed(d);
     }
 
     @Transactional(readOnly = true)
@@ -169,49 +338,33 @@ public class DebtService {
 
     @Transactional(readOnly = true)
     public Map<String, Object> totals(Long userId) {
-        var debts = debtRepository.findByUserId(userId);
-        BigDecimal sumRemaining = debts.stream()
-                .map(Debt::getRemainingAmount).filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal sumMinPayments = debts.stream()
-                .map(Debt::getMinPayment).filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // DB-side, converted into the user's preferredCurrency
+        Object[] row = debtRepository.totalsByUser(userId).get(0);
 
         Map<String, Object> out = new LinkedHashMap<>();
-        out.put("totalRemaining", sumRemaining);
-        out.put("totalMinPayments", sumMinPayments);
-        out.put("debtsCount", debts.size());
+        out.put("totalRemaining", row[0]);
+        out.put("totalMinPayments", row[1]);
+        out.put("debtsCount", ((Number) row[2]).intValue());
         return out;
     }
 
     @Transactional(readOnly = true)
     public Map<String, BigDecimal> creditorSummary(Long userId) {
-        var debts = debtRepository.findByUserId(userId);
         Map<String, BigDecimal> map = new HashMap<>();
-        for (Debt d : debts) {
-            String k = d.getCreditorName();
-            if (k == null || k.isBlank()) k = "UNKNOWN";
-            map.merge(k, d.getRemainingAmount() == null ? BigDecimal.ZERO : d.getRemainingAmount(), BigDecimal::add);
+        for (Object[] r : debtRepository.sumRemainingByCreditor(userId)) {
+            map.put((String) r[0], (BigDecimal) r[1]);
         }
         return map;
     }
 
-    @Transactional(readOnly = true)
+    /** Served from PeriodMetricsService (no load of every debt per call). */
     public List<Map<String, Object>> top5Largest(Long userId) {
-        var debts = debtRepository.findByUserId(userId);
-        return debts.stream()
-                .sorted(Comparator.comparing(Debt::getRemainingAmount, Comparator.nullsLast(BigDecimal::compareTo)).reversed())
-                .limit(5)
-                .map(d -> {
-                    Map<String, Object> row = new LinkedHashMap<>();
-                    row.put("id", d.getId());
-                    row.put("creditor", d.getCreditorName());
-                    row.put("remainingAmount", d.getRemainingAmount());
-                    row.put("dueDate", d.getDueDate());
-                    row.put("status", d.getStatus());
-                    return row;
-                }).collect(Collectors.toList());
+        return topLargest(userId, PeriodMetricsService.DEFAULT_TOP);
+    }
+
+    /** The k debts with the largest remaining amount (k up to metrics.top.max-k). */
+    public List<Map<String, Object>> topLargest(Long userId, int k) {
+        return periodMetrics.topDebts(userId, k);
     }
 
     // ============================================================
@@ -221,7 +374,9 @@ public class DebtService {
     @Transactional
     public Debt saveDebt(Debt debt) {
         try {
-            return debtRepository.save(debt);
+            Debt saved = debtRepository.save(debt);
+            changed(saved);
+            return saved;
         } catch (Exception e) {
             throw new DebtException("Error saving debt: " + e.getMessage(), e);
         }
@@ -229,8 +384,9 @@ public class DebtService {
 
     @Transactional
     public void deleteDebt(Long id) {
-        if (!debtRepository.existsById(id)) throw new DebtNotFoundException("Debt not found for id: " + id);
-        debtRepository.deleteById(id);
+        Debt d = debtRepository.findById(id).orElseThrow(() -> new DebtNotFoundException("Debt not found for id: " + id));
+        debtRepository.delete(d);
+        changed(d);
     }
 
     @Transactional(readOnly = true)
@@ -286,10 +442,7 @@ public class DebtService {
 
     @Transactional(readOnly = true)
     public BigDecimal getTotalMinPayments(Long userId) {
-        var debts = debtRepository.findByUserId(userId);
-        return debts.stream()
-                .map(Debt::getMinPayment).filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return (BigDecimal) debtRepository.totalsByUser(userId).get(0)[1];
     }
 
     @Transactional(readOnly = true)
@@ -301,4 +454,18 @@ public class DebtService {
     public List<Map<String, Object>> getTop5LargestDebts(Long userId) {
         return top5Largest(userId);
     }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    /** The owner's cached top debts are reloaded once this transaction commits. */
+    private void changed(Debt d) {
+        Long owner = ownerOf(d);
+        if (owner != null) periodMetrics.debtsChanged(List.of(owner));
+    }
+
+    private static Long ownerOf(Debt d) {
+        return d != null && d.getUser() != null ? d.getUser().getId() : null;
+    }
 }
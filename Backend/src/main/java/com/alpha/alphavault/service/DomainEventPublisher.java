@@ -0,0 +1,73 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: DomainEventPublisher — records domain events in the outbox
+ *  Guarantees:
+ *    - publish() is one INSERT in the caller's transaction: the event
+ *      exists if and only if the fact it describes was committed
+ *    - The relay is woken after commit; nothing is handled inline
+ *  Notes:
+ *    - Only types some DomainEventHandler consumes are recorded: the others
+ *      (IncomeRecorded, DebtPaymentApplied, GoalContributed today) would be
+ *      an INSERT and a relay round trip for nothing. Adding a handler turns
+ *      its type on; events published before that are not replayed
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.event.DomainEvent;
+import com.alpha.alphavault.event.DomainEventHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class DomainEventPublisher {
+
+    /** Published by publish(); handled after commit to wake the relay. */
+    public record DomainEventRecorded(long id) {}
+
+    private static final String INSERT = """
+        INSERT INTO domain_events (user_id, event_type, payload) VALUES (?, ?, CAST(? AS jsonb))
+        RETURNING id
+        """;
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final Set<Class<?>> handled;
+
+    public DomainEventPublisher(JdbcTemplate jdbc,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher events,
+                                List<DomainEventHandler<?>> handlers) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.handled = handlers.stream().map(DomainEventHandler::eventType).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /** The outbox id of the recorded event; empty when no handler consumes its type (nothing recorded). */
+    public OptionalLong publish(DomainEvent event) {
+        Objects.requireNonNull(event.userId(), "event userId");
+        if (!handled.contains(event.getClass())) return OptionalLong.empty();
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+        Long id = jdbc.queryForObject(INSERT, Long.class, event.userId(), event.getClass().getSimpleName(), payload);
+        long eventId = Objects.requireNonNull(id);
+        events.publishEvent(new DomainEventRecorded(eventId));
+        return OptionalLong.of(eventId);
+    }
+}
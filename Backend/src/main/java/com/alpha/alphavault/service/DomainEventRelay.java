@@ -0,0 +1,271 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: DomainEventRelay — drains domain_events onto the event bus
+ *  Guarantees:
+ *    - Per-user order: events of one user go to the same bus partition in
+ *      id order, and are never claimed past an earlier event of that user
+ *      that is leased elsewhere or backing off
+ *    - Users run in parallel (one bus partition each, by user id)
+ *    - Each event is handled in its own transaction together with its
+ *      "done" mark: handler writes and the mark commit or roll back together
+ *    - Failures retry with exponential backoff + jitter; after
+ *      events.max-attempts (or an unreadable payload) the row is DEAD and
+ *      the user's later events continue
+ *    - Claims are leases: rows of a crashed node come back after the lease
+ *  Notes:
+ *    - Delivery is at-least-once; handlers are idempotent
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.event.DomainEvent;
+import com.alpha.alphavault.event.DomainEventBus;
+import com.alpha.alphavault.event.DomainEventHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Service
+public class DomainEventRelay {
+
+    private record Row(long id, long userId, String type, String payload, int attempts) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final DomainEventBus bus;
+    private final Map<Class<?>, List<DomainEventHandler<?>>> handlers = new HashMap<>();
+    private final ExecutorService coordinator;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @Value("${events.batch-size:500}")
+    private int batchSize;
+
+    @Value("${events.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${events.backoff-base-seconds:5}")
+    private long backoffBaseSeconds;
+
+    @Value("${events.backoff-max-seconds:1800}")
+    private long backoffMaxSeconds;
+
+    @Value("${events.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${events.retention-days:3}")
+    private int retentionDays;
+
+    public DomainEventRelay(JdbcTemplate jdbc,
+                            TransactionTemplate tx,
+                            ObjectMapper objectMapper,
+                            DomainEventBus bus,
+                            List<DomainEventHandler<?>> handlerBeans) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.objectMapper = objectMapper;
+        this.bus = bus;
+        for (DomainEventHandler<?> h : handlerBeans) {
+            handlers.computeIfAbsent(h.eventType(), k -> new ArrayList<>()).add(h);
+        }
+        this.coordinator = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "events-relay");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    // ============================================================
+    // == SQL
+    // ============================================================
+
+    /** Serializes claimers across nodes so two batches never split one user's run. */
+    private static final String CLAIM_LOCK = "SELECT pg_advisory_xact_lock(hashtext('domain_events.claim'))";
+
+    /**
+     * Due rows, leased and counted now; a row is skipped while an earlier
+     * pending event of the same user is not due (leased or backing off).
+     */
+    private static final String CLAIM = """
+        WITH c AS (
+            SELECT e.id FROM domain_events e
+            WHERE e.status = 'PENDING' AND e.next_attempt_at <= CURRENT_TIMESTAMP
+              AND NOT EXISTS (
+                  SELECT 1 FROM domain_events p
+                  WHERE p.user_id = e.user_id AND p.status = 'PENDING' AND p.id < e.id
+                    AND p.next_attempt_at > CURRENT_TIMESTAMP)
+            ORDER BY e.id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        )
+        UPDATE domain_events d
+        SET attempts = d.attempts + 1,
+            next_attempt_at = CURRENT_TIMESTAMP + make_interval(secs => ?)
+        FROM c
+        WHERE d.id = c.id
+        RETURNING d.id, d.user_id, d.event_type, d.payload::text AS payload, d.attempts
+        """;
+
+    private static final String MARK_DONE = """
+        UPDATE domain_events SET status = 'DONE', processed_at = CURRENT_TIMESTAMP, last_error = NULL
+        WHERE id = ?
+        """;
+
+    private static final String MARK_FAILED = """
+        UPDATE domain_events SET status = ?, next_attempt_at = ?, last_error = ?
+        WHERE id = ?
+        """;
+
+    /** Hands back a claim that was not attempted (an earlier event of the user failed). */
+    private static final String RELEASE = """
+        UPDATE domain_events SET attempts = attempts - 1, next_attempt_at = CURRENT_TIMESTAMP
+        WHERE id = ?
+        """;
+
+    private static final String PURGE_DONE = """
+        DELETE FROM domain_events WHERE status = 'DONE' AND processed_at < CURRENT_TIMESTAMP - make_interval(days => ?)
+        """;
+
+    // ============================================================
+    // == Triggers
+    // ============================================================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommitted(DomainEventPublisher.DomainEventRecorded event) {
+        wake();
+    }
+
+    /** Safety net: retries coming due, rows left by other nodes or expired leases. */
+    @Scheduled(initialDelayString = "${events.poll-interval-ms:2000}",
+               fixedDelayString = "${events.poll-interval-ms:2000}")
+    public void poll() {
+        wake();
+    }
+
+    @Scheduled(cron = "${events.purge.cron:0 50 3 * * *}")
+    public void purge() {
+        int n = jdbc.update(PURGE_DONE, retentionDays);
+        if (n > 0) log.info("Domain events: purged {} handled events", n);
+    }
+
+    /** Starts one drain unless one is already running (coalesces bursts of events). */
+    public void wake() {
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            coordinator.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    // ============================================================
+    // == Drain
+    // ============================================================
+
+    private void drain() {
+        try {
+            while (true) {
+                List<Row> claimed = tx.execute(status -> {
+                    jdbc.execute(CLAIM_LOCK);
+                    return jdbc.query(CLAIM, (rs, i) -> new Row(
+                            rs.getLong("id"), rs.getLong("user_id"), rs.getString("event_type"),
+                            rs.getString("payload"), rs.getInt("attempts")),
+                            batchSize, leaseSeconds);
+                });
+                if (claimed == null || claimed.isEmpty()) return;
+
+                // Users whose event failed in this batch: their later events wait for the retry
+                Set<Long> failedUsers = ConcurrentHashMap.newKeySet();
+                List<CompletableFuture<Void>> done = new ArrayList<>(claimed.size());
+                for (Row row : claimed) {
+                    done.add(bus.submit(row.userId(), () -> process(row, failedUsers)));
+                }
+                CompletableFuture.allOf(done.toArray(new CompletableFuture[0])).join();
+                if (claimed.size() < batchSize) return;
+            }
+        } catch (Exception e) {
+            log.warn("Domain event drain failed: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private void process(Row row, Set<Long> failedUsers) {
+        if (failedUsers.contains(row.userId())) {
+            jdbc.update(RELEASE, row.id());
+            return;
+        }
+        DomainEvent event;
+        try {
+            event = objectMapper.readValue(row.payload(), DomainEvent.class);
+        } catch (Exception e) {
+            // Unreadable payload: retrying cannot help, and it must not block the user's later events
+            deadLetter(row, e);
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> {
+                dispatch(event);
+                jdbc.update(MARK_DONE, row.id());
+            });
+        } catch (Exception e) {
+            if (retryLater(row, e)) failedUsers.add(row.userId());
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void dispatch(DomainEvent event) {
+        for (DomainEventHandler h : handlers.getOrDefault(event.getClass(), List.of())) {
+            h.handle(event);
+        }
+    }
+
+    // ============================================================
+    // == Outcomes
+    // ============================================================
+
+    /** @return true when the event stays pending (and so holds back the user's later events). */
+    private boolean retryLater(Row row, Exception cause) {
+        if (row.attempts() >= maxAttempts) {
+            deadLetter(row, cause);
+            return false;
+        }
+        // base * 2^(attempts-1), capped, +-20% jitter
+        long backoff = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(20, row.attempts() - 1));
+        long jittered = (long) (backoff * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        log.debug("Domain event {} ({}) failed, retry in {}s: {}", row.id(), row.type(), jittered, error(cause));
+        jdbc.update(MARK_FAILED, "PENDING", Timestamp.valueOf(LocalDateTime.now().plusSeconds(jittered)),
+                error(cause), row.id());
+        return true;
+    }
+
+    private void deadLetter(Row row, Exception cause) {
+        log.warn("Domain event {} ({}) of user {} dead-lettered after {} attempts: {}",
+                row.id(), row.type(), row.userId(), row.attempts(), error(cause));
+        jdbc.update(MARK_FAILED, "DEAD", Timestamp.valueOf(LocalDateTime.now()), error(cause), row.id());
+    }
+
+    private static String error(Exception e) {
+        String msg = e == null ? "unknown error" : e.getClass().getSimpleName() + ": " + e.getMessage();
+        return msg.length() > 1000 ? msg.substring(0, 1000) : msg;
+    }
+}
@@ -2,10 +2,17 @@
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
  *  Service: EmailService - email functionality interface
+ *  Notes:
+ *    - "send" means queue: implementations must not block on the mail
+ *      server, callers may be inside a request transaction
  * ================================================================
  */
 package com.alpha.alphavault.service;
 
+import com.alpha.alphavault.dto.budget.BudgetAlertDTO;
+
+import java.util.List;
+
 public interface EmailService {
     
     /**
@@ -22,4 +29,12 @@ public interface EmailService {
      * @param firstName user's first name
      */
     void sendWelcomeEmail(String toEmail, String firstName);
+
+    /**
+     * Send one digest with every budget alert raised for a user since the last one
+     * @param toEmail recipient email address
+     * @param firstName user's first name
+     * @param alerts threshold crossings, oldest first
+     */
+    void sendBudgetAlertDigest(String toEmail, String firstName, List<BudgetAlertDTO> alerts);
 }
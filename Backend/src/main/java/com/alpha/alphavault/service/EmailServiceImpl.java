@@ -1,43 +1,62 @@
 /**
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
- *  Service: EmailServiceImpl - simple email service implementation
+ *  Service: EmailServiceImpl - composes emails and queues them
+ *  Notes:
+ *    - Nothing is sent here: messages go to the mail outbox in the
+ *      caller's transaction and leave asynchronously (MailOutboxService)
  * ================================================================
  */
 package com.alpha.alphavault.service;
 
+import com.alpha.alphavault.dto.budget.BudgetAlertDTO;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Slf4j
+@RequiredArgsConstructor
 @Service
 public class EmailServiceImpl implements EmailService {
-    
+
+    private final MailOutboxService outbox;
+
     @Override
     public void sendPasswordResetEmail(String toEmail, String resetToken, String resetUrl) {
-        // TODO: Implement actual email sending (e.g., using JavaMailSender, SendGrid, etc.)
-        log.info("=== PASSWORD RESET EMAIL ===");
-        log.info("To: {}", toEmail);
-        log.info("Reset URL: {}", resetUrl);
-        log.info("Token: {}", resetToken);
-        log.info("Subject: Password Reset Request");
-        log.info("Body: Click the link above to reset your password. This link expires in 24 hours.");
-        log.info("==========================");
-        
-        // For development, you can print the reset URL to console
-        System.out.println("\n=== PASSWORD RESET LINK ===");
-        System.out.println("Email: " + toEmail);
-        System.out.println("Reset URL: " + resetUrl);
-        System.out.println("==========================\n");
+        String body = """
+                You asked to reset your Alpha Vault password.
+
+                Open this link to choose a new one (it expires in 24 hours):
+                %s
+
+                If you did not ask for this, you can ignore this email.
+                """.formatted(resetUrl);
+        outbox.enqueue("PASSWORD_RESET", toEmail, "Password Reset Request", body);
+        log.debug("Password reset email queued for {}", toEmail);
     }
-    
+
     @Override
     public void sendWelcomeEmail(String toEmail, String firstName) {
-        // TODO: Implement actual email sending
-        log.info("=== WELCOME EMAIL ===");
-        log.info("To: {}", toEmail);
-        log.info("Subject: Welcome to Alpha Vault!");
-        log.info("Body: Welcome {}! Your account has been created successfully.", firstName);
-        log.info("=====================");
+        String body = """
+                Welcome %s!
+
+                Your Alpha Vault account has been created successfully.
+                """.formatted(firstName != null ? firstName : "");
+        outbox.enqueue("WELCOME", toEmail, "Welcome to Alpha Vault!", body);
+    }
+
+    @Override
+    public void sendBudgetAlertDigest(String toEmail, String firstName, List<BudgetAlertDTO> alerts) {
+        StringBuilder body = new StringBuilder()
+                .append("Hi ").append(firstName != null ? firstName : "").append(",\n\n")
+                .append("Some of your budgets crossed their alert threshold:\n\n");
+        for (BudgetAlertDTO a : alerts) {
+            body.append(String.format("  %02d/%d %s: %d%% reached (%s of %s %s)%n", a.month(), a.year(), a.scope(),
+                    a.threshold(), a.spent().stripTrailingZeros().toPlainString(),
+                    a.limit().stripTrailingZeros().toPlainString(), a.currency()));
+        }
+        outbox.enqueue("BUDGET_ALERT", toEmail, alerts.size() + " budget alert(s)", body.toString());
     }
 }
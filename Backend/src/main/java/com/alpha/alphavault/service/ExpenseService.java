@@ -8,11 +8,15 @@ package com.alpha.alphavault.service;
 
 import com.alpha.alphavault.dto.expense.ExpenseRequestDTO;
 import com.alpha.alphavault.dto.expense.ExpenseResponseDTO;
+import com.alpha.alphavault.enums.ArchiveTable;
+import com.alpha.alphavault.event.ExpenseRecorded;
 import com.alpha.alphavault.exception.ExpenseException;
 import com.alpha.alphavault.exception.ExpenseNotFoundException;
 import com.alpha.alphavault.mapper.ExpenseMapper;
 import com.alpha.alphavault.model.Expense;
 import com.alpha.alphavault.repository.ExpenseRepository;
+import com.alpha.alphavault.service.PeriodMetricsService.Flow;
+import com.alpha.alphavault.service.PeriodMetricsService.Period;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +27,7 @@ import java.math.BigDecimal;
 import java.time.*;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @Service
@@ -30,7 +35,11 @@ public class ExpenseService {
 
     private final ExpenseRepository expenseRepository;
     private final ExpenseMapper expenseMapper;
-    private final BudgetService budgetService; // keep your hook
+    private final DomainEventPublisher domainEvents; // budget booking runs off ExpenseRecorded
+    private final LiveUpdateService live;
+    private final ArchivalService archival;
+    private final ParallelReadService reads;
+    private final PeriodMetricsService periodMetrics; // current/previous period sums, kept by the writes below
 
     // ============================================================
     // == CRUD with DTOs (new, recommended)
@@ -41,8 +50,9 @@ public class ExpenseService {
         try {
             Expense exp = expenseMapper.toEntity(dto);
             Expense saved = expenseRepository.save(exp);
-            // sync budget after change
-            if (budgetService != null) budgetService.syncAfterExpenseChange(saved);
+            periodMetrics.changed(Flow.EXPENSE, null, PeriodMetricsService.fact(saved));
+            recorded("created", saved);
+            pushDelta("created", saved);
             return expenseMapper.toResponse(saved);
         } catch (Exception e) {
             throw new ExpenseException("Error creating expense: " + e.getMessage());
@@ -53,9 +63,12 @@ public class ExpenseService {
     public ExpenseResponseDTO update(Long id, ExpenseRequestDTO dto) {
         Expense exp = expenseRepository.findById(id)
                 .orElseThrow(() -> new ExpenseNotFoundException("Expense not found for id: " + id));
+        PeriodMetricsService.Fact before = PeriodMetricsService.fact(exp); // before the mapper overwrites it
         expenseMapper.updateEntity(exp, dto);
         Expense saved = expenseRepository.save(exp);
-        if (budgetService != null) budgetService.syncAfterExpenseChange(saved);
+        periodMetrics.changed(Flow.EXPENSE, before, PeriodMetricsService.fact(saved));
+        recorded("updated", saved);
+        pushDelta("updated", saved);
         return expenseMapper.toResponse(saved);
     }
 
@@ -85,8 +98,13 @@ public class ExpenseService {
     @Transactional
     public Expense saveExpense(Expense expense) {
         try {
+            boolean existing = expense.getId() != null;
             Expense saved = expenseRepository.save(expense);
-            if (budgetService != null) budgetService.syncAfterExpenseChange(saved);
+            // The previous state of a legacy update is unknown here: rebuilt instead
+            if (existing && saved.getUser() != null) periodMetrics.invalidate(Flow.EXPENSE, List.of(saved.getUser().getId()));
+            else periodMetrics.changed(Flow.EXPENSE, null, PeriodMetricsService.fact(saved));
+            recorded("saved", saved);
+            pushDelta("saved", saved);
             return saved;
         } catch (Exception e) {
             throw new ExpenseException("Error saving expense: " + e.getMessage());
@@ -101,8 +119,10 @@ public class ExpenseService {
         // Hard delete - permanently remove from database
         int deleted = expenseRepository.deleteByIdNative(id);
         if (deleted == 0) throw new ExpenseException("Failed to delete expense id: " + id);
+        periodMetrics.changed(Flow.EXPENSE, PeriodMetricsService.fact(expense), null);
 
-        if (budgetService != null) budgetService.syncAfterExpenseChange(expense);
+        recorded("deleted", expense);
+        pushDelta("deleted", expense);
     }
 
     /** Soft delete with attribution (preferred when you know who deleted). */
@@ -113,15 +133,28 @@ public class ExpenseService {
 
         int updated = expenseRepository.softDelete(id, deletedBy);
         if (updated == 0) throw new ExpenseException("Failed to soft delete expense id: " + id);
+        periodMetrics.changed(Flow.EXPENSE, PeriodMetricsService.fact(expense), null);
 
-        if (budgetService != null) budgetService.syncAfterExpenseChange(expense);
+        recorded("deleted", expense);
+        pushDelta("deleted", expense);
     }
 
     /** Restore a soft-deleted expense (admin). */
     @Transactional
     public void restoreExpense(Long id) {
         int updated = expenseRepository.restore(id);
+        if (updated == 0 && archival.rehydrate(ArchiveTable.EXPENSES, id)) updated = expenseRepository.restore(id);
         if (updated == 0) throw new ExpenseException("Failed to restore expense id: " + id);
+        expenseRepository.findById(id).ifPresent(e -> {
+            periodMetrics.changed(Flow.EXPENSE, null, PeriodMetricsService.fact(e));
+            recorded("restored", e);
+        });
+    }
+
+    /** Budget totals follow asynchronously (ExpenseRecorded -> ledger booking). */
+    private void recorded(String action, Expense e) {
+        if (e.getUser() == null) return;
+        domainEvents.publish(new ExpenseRecorded(e.getUser().getId(), e.getId(), action));
     }
 
     @Transactional(readOnly = true)
@@ -153,79 +186,59 @@ public class ExpenseService {
         }
     }
 
-    @Transactional(readOnly = true)
+    // Current / previous periods: served from PeriodMetricsService (no query once cached)
+
     public Double getExpenseForToday(Long userId) {
-        LocalDate today = LocalDate.now();
-        return getExpenseForPeriod(userId, today, today.plusDays(1));
+        try {
+            return periodMetrics.compare(Flow.EXPENSE, userId, Period.DAY).current();
+        } catch (Exception e) {
+            throw new ExpenseException("Error fetching today's expense for user: " + userId);
+        }
     }
 
-    @Transactional(readOnly = true)
     public Double getExpenseForCurrentWeek(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            LocalDate end = today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)).plusDays(1);
-            return getExpenseForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.EXPENSE, userId, Period.WEEK).current();
         } catch (Exception e) {
             throw new ExpenseException("Error fetching current week's expense for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getExpenseForCurrentMonth(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.firstDayOfMonth());
-            LocalDate end = today.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-            return getExpenseForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.EXPENSE, userId, Period.MONTH).current();
         } catch (Exception e) {
             throw new ExpenseException("Error fetching current month's expense for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getExpenseForCurrentYear(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.firstDayOfYear());
-            LocalDate end = today.with(TemporalAdjusters.lastDayOfYear()).plusDays(1);
-            return getExpenseForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.EXPENSE, userId, Period.YEAR).current();
         } catch (Exception e) {
             throw new ExpenseException("Error fetching current year's expense for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getExpenseForPreviousWeek(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.minusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            LocalDate end = today.minusWeeks(1).with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)).plusDays(1);
-            return getExpenseForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.EXPENSE, userId, Period.WEEK).previous();
         } catch (Exception e) {
             throw new ExpenseException("Error fetching previous week's expense for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getExpenseForPreviousMonth(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.minusMonths(1).with(TemporalAdjusters.firstDayOfMonth());
-            LocalDate end = today.minusMonths(1).with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-            return getExpenseForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.EXPENSE, userId, Period.MONTH).previous();
         } catch (Exception e) {
             throw new ExpenseException("Error fetching previous month's expense for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getExpenseForPreviousYear(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.minusYears(1).with(TemporalAdjusters.firstDayOfYear());
-            LocalDate end = today.minusYears(1).with(TemporalAdjusters.lastDayOfYear()).plusDays(1);
-            return getExpenseForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.EXPENSE, userId, Period.YEAR).previous();
         } catch (Exception e) {
             throw new ExpenseException("Error fetching previous year's expense for user: " + userId);
         }
@@ -307,46 +320,36 @@ public class ExpenseService {
         }
     }
 
-    @Transactional(readOnly = true)
+    /** Served from PeriodMetricsService (top list of the month kept by the writes). */
     public Map<String, Double> getTop5HighestExpensesThisMonth(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.firstDayOfMonth());
-            LocalDate end = today.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-
-            List<Expense> top5 = expenseRepository.findTop5ByUserIdAndExpenseDateBetweenOrderByAmountDesc(userId, start, end);
-
-            LinkedHashMap<String, Double> result = new LinkedHashMap<>();
-            for (Expense e : top5) {
-                result.put(e.getCategory().name(), e.getAmount().doubleValue());
-            }
-            return result;
+            return periodMetrics.topByLabel(Flow.EXPENSE, userId);
         } catch (Exception e) {
             throw new ExpenseException("Error fetching top-5 expenses for user " + userId);
         }
     }
 
     /** Back-compat variant returning a list of maps (category, amount). */
-    @Transactional(readOnly = true)
     public List<Map<String, Object>> getTop5HighestExpensesThisMonthList(Long userId) {
-        Map<String, Double> map = getTop5HighestExpensesThisMonth(userId);
-        List<Map<String, Object>> out = new ArrayList<>();
-        map.forEach((k, v) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("category", k);
-            row.put("amount", v);
-            out.add(row);
-        });
-        return out;
+        try {
+            return periodMetrics.topByLabelRows(Flow.EXPENSE, userId);
+        } catch (Exception e) {
+            throw new ExpenseException("Error fetching top-5 expenses for user " + userId);
+        }
+    }
+
+    /** The k largest expenses of the month (k up to metrics.top.max-k). */
+    public List<Map<String, Object>> getTopExpensesThisMonth(Long userId, int k) {
+        return periodMetrics.top(Flow.EXPENSE, userId, k);
     }
 
     // ============================================================
     // == Series: weekly of month & 12 months of year
     // ============================================================
 
-    @Transactional(readOnly = true)
+    /** Not transactional: each period is its own parallel branch (ParallelReadService). */
     public List<Double> getExpenseForWeeksOfCurrentMonth(Long userId) {
-        List<Double> weekly = new ArrayList<>();
+        List<Supplier<Double>> weekly = new ArrayList<>();
         LocalDate today = LocalDate.now();
         LocalDate startOfMonth = today.with(TemporalAdjusters.firstDayOfMonth());
         LocalDate endOfMonth = today.with(TemporalAdjusters.lastDayOfMonth());
@@ -356,24 +359,36 @@ public class ExpenseService {
         while (!weekStart.isAfter(endOfMonth)) {
             LocalDate weekEnd = weekStart.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
             if (weekEnd.isAfter(endOfMonth)) weekEnd = endOfMonth;
-            double sum = getExpenseForPeriod(userId, weekStart, weekEnd.plusDays(1));
-            weekly.add(sum);
+            LocalDate from = weekStart, to = weekEnd.plusDays(1);
+            weekly.add(() -> getExpenseForPeriod(userId, from, to));
             weekStart = weekEnd.plusDays(1);
         }
-        return weekly;
+        return reads.all("expense.weeks", weekly);
     }
 
-    @Transactional(readOnly = true)
     public List<Double> getExpenseForTwelveMonthsOfCurrentYear(Long userId) {
-        List<Double> monthly = new ArrayList<>(12);
+        List<Supplier<Double>> monthly = new ArrayList<>(12);
         LocalDate today = LocalDate.now();
         LocalDate startOfYear = today.with(TemporalAdjusters.firstDayOfYear());
 
         for (int m = 0; m < 12; m++) {
             LocalDate startOfMonth = startOfYear.plusMonths(m);
             LocalDate endOfMonth = startOfMonth.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-            monthly.add(getExpenseForPeriod(userId, startOfMonth, endOfMonth));
+            monthly.add(() -> getExpenseForPeriod(userId, startOfMonth, endOfMonth));
         }
-        return monthly;
+        return reads.all("expense.months", monthly);
+    }
+
+    // ============================================================
+    // == Live updates
+    // ============================================================
+
+    private void pushDelta(String action, Expense e) {
+        if (e.getUser() == null) return;
+        live.publish(e.getUser().getId(), "expense", action, e.getId(), LiveUpdateService.fields(
+                "amount", e.getAmount(),
+                "currency", e.getCurrency(),
+                "date", e.getExpenseDate(),
+                "category", e.getCategory()));
     }
 }
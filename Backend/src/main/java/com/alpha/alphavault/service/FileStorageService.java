@@ -2,26 +2,44 @@
  * ================================================================
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
  *  Service: FileStorageService - handles file upload and storage
+ *  Notes:
+ *    - Profile images are content-addressed (SHA-256 of the upload) and
+ *      kept in the BlobStore; only processed variants are served
+ *      (ProfileImageController); UserService discards them once no user
+ *      shows them any more
+ *    - Legacy per-upload files stay on the local file.upload-dir
  * ================================================================
  */
 package com.alpha.alphavault.service;
 
+import com.alpha.alphavault.storage.BlobCache;
+import com.alpha.alphavault.storage.BlobStore;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @Slf4j
+@RequiredArgsConstructor
 @Service
 public class FileStorageService {
 
+    private final ImagePipelineService pipeline;
+    private final BlobStore blobStore;
+    private final BlobCache blobCache;
+
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
@@ -32,10 +50,13 @@ public class FileStorageService {
     private String serverPort;
 
     /**
-     * Saves a profile image file and returns the URL to access it.
-     * 
+     * Saves a profile image and returns the URL to access it.
+     * The upload is streamed to disk while it is hashed (SHA-256); the hash
+     * names the file, so the same image uploaded twice is stored once.
+     * Decoding and thumbnails run asynchronously (ImagePipelineService).
+     *
      * @param file The image file to save
-     * @param userId The user ID for naming the file
+     * @param userId The user ID (for logging only: files are shared by content)
      * @return The URL path to access the saved file
      * @throws IOException if file cannot be saved
      * @throws IllegalArgumentException if file is invalid
@@ -58,42 +79,41 @@ public class FileStorageService {
             throw new IllegalArgumentException("File size exceeds maximum limit of 10MB");
         }
 
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir, "profile-images");
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-            log.info("Created upload directory: {}", uploadPath.toAbsolutePath());
-        }
-
-        // Generate unique filename: user-{userId}-{timestamp}-{uuid}.{extension}
-        String originalFilename = file.getOriginalFilename();
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        // Stream + hash in one pass (no second read of a 10MB upload)
+        Path tmp = blobCache.tempFile("upload-");
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Header check only: rejects non-images and decompression bombs before anything is kept
+            pipeline.validate(tmp);
+
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String sourceKey = pipeline.sourceKey(hash);
+            if (pipeline.hasVariants(hash) || blobStore.exists(sourceKey)) {
+                log.info("Profile image of user {} deduplicated: {}", userId, hash);
+            } else {
+                blobStore.put(sourceKey, tmp, contentType);
+                blobCache.adopt(sourceKey, tmp); // the pipeline reads it back from here, not from the store
+                log.info("Profile image of user {} stored: {}", userId, hash);
+            }
+            pipeline.submit(hash);
+            return String.format("/api/files/profile-images/%s", hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } finally {
+            Files.deleteIfExists(tmp);
         }
-        
-        String uniqueFilename = String.format("user-%d-%d-%s%s", 
-            userId, 
-            System.currentTimeMillis(), 
-            UUID.randomUUID().toString().substring(0, 8),
-            extension);
-
-        // Save file
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        log.info("File saved successfully: {}", filePath.toAbsolutePath());
-
-        // Generate URL path
-        String urlPath = String.format("/api/files/profile-images/%s", uniqueFilename);
-        return urlPath;
     }
 
     /**
-     * Deletes a profile image file.
-     * 
+     * Deletes a legacy (per-upload named) profile image file.
+     * Content-addressed images may be shared by several users: UserService
+     * discards those once unreferenced.
+     *
      * @param fileUrl The URL path of the file to delete
-     * @return true if file was deleted, false if file doesn't exist
+     * @return true if file was deleted, false if file doesn't exist or is shared
      */
     public boolean deleteProfileImage(String fileUrl) {
         if (fileUrl == null || fileUrl.isEmpty()) {
@@ -103,9 +123,12 @@ public class FileStorageService {
         try {
             // Extract filename from URL
             String filename = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
+            if (ImagePipelineService.isHash(filename) || filename.isEmpty() || filename.startsWith(".")) {
+                return false;
+            }
             Path filePath = Paths.get(uploadDir, "profile-images", filename);
-            
-            if (Files.exists(filePath)) {
+
+            if (Files.isRegularFile(filePath)) {
                 Files.delete(filePath);
                 log.info("File deleted successfully: {}", filePath.toAbsolutePath());
                 return true;
@@ -0,0 +1,151 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: FxRateService — cached FX table (DB + in-memory)
+ *  Guarantees:
+ *    - One upstream call per refresh for the whole table (never per row)
+ *    - SQL aggregates join fx_rates; Java callers use the memory copy
+ *    - Upstream failure keeps the last known rates
+ *    - A refresh writes the whole table in one transaction: either every
+ *      rate of the pull lands (and is published) or none does
+ *  Notes:
+ *    - Rates are units per 1 USD; unknown currencies convert 1:1
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.model.FxRate;
+import com.alpha.alphavault.repository.FxRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class FxRateService {
+
+    private static final String SOURCE = "exchangerate-api";
+
+    private final FxRateRepository repo;
+    private final RestTemplate rest;
+    private final TransactionTemplate tx;
+
+    @Value("${fx.source-url:https://api.exchangerate-api.com/v4/latest/USD}")
+    private String sourceUrl;
+
+    /** Immutable snapshot swapped on reload; readers never lock. */
+    private volatile Map<String, BigDecimal> rates = Map.of();
+    private final AtomicLong version = new AtomicLong();
+    private volatile int fingerprint;
+
+    // ============================================================
+    // == Load / refresh
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        Map<String, BigDecimal> m = new HashMap<>();
+        for (FxRate r : repo.findAll()) m.put(r.getCurrency(), r.getRatePerUsd());
+        publish(m);
+        log.info("FX table loaded: {} currencies", m.size());
+    }
+
+    @Scheduled(initialDelayString = "${fx.refresh.initial-delay-ms:60000}",
+               fixedDelayString = "${fx.refresh.interval-ms:21600000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("FX refresh failed, keeping last known rates: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Pulls the full table once and upserts it in a single transaction; the memory copy
+     * is only swapped after commit. Returns the number of currencies written.
+     */
+    public int refresh() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> resp = rest.getForObject(sourceUrl, Map.class);
+        if (resp == null || !(resp.get("rates") instanceof Map<?, ?> raw)) {
+            throw new IllegalStateException("FX source returned no rates");
+        }
+
+        Map<String, BigDecimal> pulled = new TreeMap<>();
+        for (Map.Entry<?, ?> e : raw.entrySet()) {
+            String code = String.valueOf(e.getKey()).toUpperCase(Locale.ROOT);
+            if (code.length() != 3 || !(e.getValue() instanceof Number n) || n.doubleValue() <= 0) continue;
+            pulled.put(code, new BigDecimal(n.toString()).setScale(10, RoundingMode.HALF_UP));
+        }
+        if (pulled.isEmpty()) {
+            throw new IllegalStateException("FX source returned no usable rates");
+        }
+
+        // all-or-nothing: a failure mid-way rolls back every upsert of this pull
+        tx.executeWithoutResult(status -> pulled.forEach((code, rate) -> repo.upsert(code, rate, SOURCE)));
+
+        Map<String, BigDecimal> next = new HashMap<>(rates);
+        next.putAll(pulled);
+        publish(next);
+        log.info("FX table refreshed: {} currencies", pulled.size());
+        return pulled.size();
+    }
+
+    private void publish(Map<String, BigDecimal> m) {
+        rates = Map.copyOf(m);
+        fingerprint = rates.hashCode();
+        version.incrementAndGet();
+    }
+
+    // ============================================================
+    // == Lookups / conversion (memory only)
+    // ============================================================
+
+    /** Units of {@code currency} per 1 USD, or null when unknown. */
+    public BigDecimal ratePerUsd(String currency) {
+        return currency == null ? null : rates.get(currency.toUpperCase(Locale.ROOT));
+    }
+
+    /** Multiplier from -> to, with the same rule as SQL aggregates: unknown side -> 1. */
+    public BigDecimal factor(String from, String to) {
+        if (from == null || to == null || from.equalsIgnoreCase(to)) return BigDecimal.ONE;
+        BigDecimal rf = ratePerUsd(from);
+        BigDecimal rt = ratePerUsd(to);
+        if (rf == null || rt == null) return BigDecimal.ONE;
+        return rt.divide(rf, MathContext.DECIMAL64);
+    }
+
+    public BigDecimal convert(BigDecimal amount, String from, String to) {
+        if (amount == null) return null;
+        return amount.multiply(factor(from, to), MathContext.DECIMAL64).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    /** Bumped on every reload; lets callers key caches on the rate snapshot. */
+    public long version() {
+        return version.get();
+    }
+
+    /** Content hash of the table; equal on every node holding the same rates (unlike version()). */
+    public int fingerprint() {
+        return fingerprint;
+    }
+
+    public Map<String, BigDecimal> snapshot() {
+        return rates;
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: ImagePipelineService — decodes uploads into avatar variants
+ *  Guarantees:
+ *    - Runs off the request path on a bounded pool; one job per content
+ *      hash at a time (concurrent uploads of the same image share it)
+ *    - Variants are re-encoded from pixels only: EXIF/GPS/ICC and any
+ *      other metadata of the upload never reach a served file
+ *    - Variants are written to the BlobStore whole (encoded to a local temp
+ *      file first): a reader sees either no variant or a complete one
+ *    - The raw upload is removed once its variants exist
+ *    - discard() removes a hash no user shows any more (UserService decides);
+ *      uploads and the pipeline ask the store, not the memo, whether variants
+ *      exist, so a hash discarded on another node is generated again
+ *  Notes:
+ *    - BlobStore keys:
+ *        profile-images/src/<sha256>            raw upload, until processed
+ *        profile-images/<sha256>/<size>.jpg     square center-crop, size in images.avatar.sizes
+ *    - Any node may process any upload: sources are read through BlobCache
+ *    - JPEG only: the JDK ships no WebP encoder
+ *    - Re-uploading the image while its discard runs can lose the variants
+ *      (the serve path then 404s); uploading it again regenerates them
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.storage.BlobCache;
+import com.alpha.alphavault.storage.BlobStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class ImagePipelineService {
+
+    private final ExecutorService workers;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    /** Hashes known to be processed (until discarded): saves a store round trip per request. */
+    private final Set<String> processed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final BlobStore store;
+    private final BlobCache cache;
+    private final NavigableSet<Integer> sizes;
+
+    @Value("${images.avatar.default-size:128}")
+    private int defaultSize;
+
+    @Value("${images.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${images.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    public ImagePipelineService(BlobStore store,
+                                BlobCache cache,
+                                @Value("${images.avatar.sizes:64,128,256}") List<Integer> sizes,
+                                @Value("${images.pipeline.threads:2}") int threads) {
+        this.store = store;
+        this.cache = cache;
+        this.sizes = Collections.unmodifiableNavigableSet(new TreeSet<>(sizes));
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "image-pipeline-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // ============================================================
+    // == Layout
+    // ============================================================
+
+    private static final String SOURCE_PREFIX = "profile-images/src/";
+
+    public String sourceKey(String hash) {
+        return SOURCE_PREFIX + hash;
+    }
+
+    public String variantKey(String hash, int size) {
+        return "profile-images/" + hash + "/" + size + ".jpg";
+    }
+
+    /** The configured size closest to (and not below) the requested one; the largest otherwise. */
+    public int resolveSize(Integer requested) {
+        if (requested == null) return sizes.contains(defaultSize) ? defaultSize : sizes.last();
+        SortedSet<Integer> tail = sizes.tailSet(requested);
+        return tail.isEmpty() ? sizes.last() : tail.first();
+    }
+
+    public static boolean isHash(String name) {
+        return name != null && name.matches("[0-9a-f]{64}");
+    }
+
+    /** Hash of a content-addressed profile image URL; null for legacy or external URLs. */
+    public static String hashOf(String url) {
+        if (url == null) return null;
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        return isHash(name) ? name : null;
+    }
+
+    /** Largest variant present = the whole set is (it is written last). */
+    public boolean isProcessed(String hash) throws IOException {
+        if (processed.contains(hash)) return true;
+        if (!store.exists(variantKey(hash, sizes.last()))) return false;
+        if (processed.size() < 100_000) processed.add(hash);
+        return true;
+    }
+
+    /** Same as isProcessed() without the memo: the store may have lost the hash on another node. */
+    public boolean hasVariants(String hash) throws IOException {
+        if (store.exists(variantKey(hash, sizes.last()))) return true;
+        processed.remove(hash);
+        return false;
+    }
+
+    // ============================================================
+    // == Validation (request path: header only, no decode)
+    // ============================================================
+
+    /**
+     * Checks that the file is an image ImageIO can decode and that it is not
+     * a decompression bomb. Reads the header only.
+     */
+    public void validate(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = in == null ? null : first(ImageIO.getImageReaders(in));
+            if (reader == null) throw new IllegalArgumentException("Unsupported or corrupt image");
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IllegalArgumentException("Image dimensions too large (" + pixels + " pixels)");
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // ============================================================
+    // == Pipeline
+    // ============================================================
+
+    /**
+     * Starts (or joins) processing of an uploaded source. Completes at once
+     * when the variants already exist (deduplicated upload).
+     */
+    public CompletableFuture<Void> submit(String hash) {
+        if (processed.contains(hash)) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> job = inFlight.putIfAbsent(hash, created);
+        if (job != null) return job;
+        try {
+            CompletableFuture.runAsync(() -> process(hash), workers).whenComplete((v, e) -> {
+                inFlight.remove(hash, created);
+                if (e != null) created.completeExceptionally(e);
+                else created.complete(null);
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /** Sources left by a restart mid-pipeline are picked up again. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        try {
+            for (String key : store.list(SOURCE_PREFIX)) {
+                String hash = key.substring(SOURCE_PREFIX.length());
+                if (isHash(hash)) submit(hash);
+            }
+        } catch (IOException e) {
+            log.warn("Image pipeline: could not list pending sources: {}", e.getMessage());
+        }
+    }
+
+    private void process(String hash) {
+        String srcKey = sourceKey(hash);
+        try {
+            if (hasVariants(hash)) {
+                dropSource(srcKey);
+                return;
+            }
+            BufferedImage decoded;
+            try (BlobCache.Handle src = cache.open(srcKey).orElseThrow(() -> new IOException("Source missing: " + srcKey))) {
+                decoded = ImageIO.read(Channels.newInputStream(src.channel()));
+            }
+            if (decoded == null) throw new IOException("No decoder for " + srcKey);
+
+            // Largest last: its presence marks the whole set as done
+            for (int size : sizes) {
+                write(square(decoded, size), variantKey(hash, size));
+            }
+            processed.add(hash);
+            dropSource(srcKey);
+            log.debug("Image {} processed into {} variants", hash, sizes.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image {} could not be processed: {}", hash, e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+
+    // ============================================================
+    // == Discard
+    // ============================================================
+
+    /**
+     * Removes the variants (and a pending source) of an image nobody shows any more,
+     * on the pipeline pool. The caller checks that no user references the hash.
+     */
+    public void discard(String hash) {
+        if (!isHash(hash)) return;
+        try {
+            workers.execute(() -> drop(hash));
+        } catch (RejectedExecutionException e) {
+            log.warn("Image {} not discarded: pipeline shut down", hash);
+        }
+    }
+
+    private void drop(String hash) {
+        processed.remove(hash);
+        try {
+            // Largest first: the set stops counting as processed before any other variant goes
+            for (int size : sizes.descendingSet()) {
+                String key = variantKey(hash, size);
+                store.delete(key);
+                cache.evict(key);
+            }
+            dropSource(sourceKey(hash));
+            log.debug("Image {} discarded", hash);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image {} could not be discarded: {}", hash, e.getMessage());
+        }
+    }
+
+    /** Center crop to a square, then scale; drawn onto RGB so alpha/CMYK/indexed inputs encode as JPEG. */
+    private static BufferedImage square(BufferedImage img, int size) {
+        int side = Math.min(img.getWidth(), img.getHeight());
+        int x = (img.getWidth() - side) / 2;
+        int y = (img.getHeight() - side) / 2;
+        BufferedImage out = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size, size);
+            g.drawImage(img, 0, 0, size, size, x, y, x + side, y + side, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private void dropSource(String srcKey) throws IOException {
+        store.delete(srcKey);
+        cache.evict(srcKey);
+    }
+
+    private void write(BufferedImage img, String key) throws IOException {
+        Path tmp = cache.tempFile("variant-");
+        try {
+            ImageWriter writer = first(ImageIO.getImageWritersByFormatName("jpeg"));
+            if (writer == null) throw new IOException("No JPEG encoder available");
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                if (param.canWriteProgressive()) param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(img, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            store.put(key, tmp, "image/jpeg");
+            cache.adopt(key, tmp); // this node is likely to serve it next
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    private static <T> T first(Iterator<T> it) {
+        return it.hasNext() ? it.next() : null;
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", p, e.getMessage());
+        }
+    }
+}
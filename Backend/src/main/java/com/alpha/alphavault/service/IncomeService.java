@@ -8,12 +8,17 @@ package com.alpha.alphavault.service;
 
 import com.alpha.alphavault.dto.income.IncomeRequestDTO;
 import com.alpha.alphavault.dto.income.IncomeResponseDTO;
+import com.alpha.alphavault.enums.ArchiveTable;
+import com.alpha.alphavault.event.IncomeRecorded;
 import com.alpha.alphavault.exception.IncomeException;
 import com.alpha.alphavault.exception.IncomeNotFoundException;
 import com.alpha.alphavault.mapper.IncomeMapper;
 import com.alpha.alphavault.model.Income;
 import com.alpha.alphavault.repository.IncomeRepository;
+import com.alpha.alphavault.service.PeriodMetricsService.Flow;
+import com.alpha.alphavault.service.PeriodMetricsService.Period;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,13 +28,20 @@ import java.math.BigDecimal;
 import java.time.*;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.function.Supplier;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class IncomeService {
 
     private final IncomeRepository incomeRepository;
     private final IncomeMapper incomeMapper;
+    private final LiveUpdateService live;
+    private final ArchivalService archival;
+    private final DomainEventPublisher domainEvents;
+    private final ParallelReadService reads;
+    private final PeriodMetricsService periodMetrics; // current/previous period sums, kept by the writes below
 
     // ============================================================
     // == CRUD with DTOs (new, recommended)
@@ -39,7 +51,11 @@ public class IncomeService {
     public IncomeResponseDTO create(IncomeRequestDTO dto) {
         try {
             Income income = incomeMapper.toEntity(dto);
-            return incomeMapper.toResponse(incomeRepository.save(income));
+            Income saved = incomeRepository.save(income);
+            periodMetrics.changed(Flow.INCOME, null, PeriodMetricsService.fact(saved));
+            recorded("created", saved);
+            pushDelta("created", saved);
+            return incomeMapper.toResponse(saved);
         } catch (Exception e) {
             throw new IncomeException("Error creating income: " + e.getMessage());
         }
@@ -47,31 +63,31 @@ public class IncomeService {
 
     @Transactional
     public IncomeResponseDTO update(Long id, IncomeRequestDTO dto) {
-        System.out.println("DEBUG: Attempting to update income with id: " + id);
+        log.debug("Updating income {}", id);
         
         try {
             // Use regular findById first - this should work for non-deleted records
             Income income = incomeRepository.findById(id)
                     .orElseThrow(() -> new IncomeNotFoundException("Income not found for id: " + id));
             
-            System.out.println("DEBUG: Found income - ID: " + income.getId() + ", Deleted: " + income.isDeleted() + ", Version: " + income.getVersion());
+            log.debug("Income {} found (deleted={}, version={})", income.getId(), income.isDeleted(), income.getVersion());
             
             if (income.isDeleted()) {
-                System.out.println("DEBUG: Cannot update deleted income");
                 throw new IncomeException("Cannot update deleted income with id: " + id);
             }
             
-            System.out.println("DEBUG: Updating income...");
+            PeriodMetricsService.Fact before = PeriodMetricsService.fact(income); // before the mapper overwrites it
             incomeMapper.updateEntity(income, dto);
             
-            System.out.println("DEBUG: Saving income...");
             Income savedIncome = incomeRepository.save(income);
-            System.out.println("DEBUG: Successfully updated income with id: " + id + ", new version: " + savedIncome.getVersion());
+            periodMetrics.changed(Flow.INCOME, before, PeriodMetricsService.fact(savedIncome));
+            recorded("updated", savedIncome);
+            pushDelta("updated", savedIncome);
+            log.debug("Income {} updated (version={})", id, savedIncome.getVersion());
             
             return incomeMapper.toResponse(savedIncome);
         } catch (Exception e) {
-            System.err.println("DEBUG: Exception in update: " + e.getClass().getSimpleName() + " - " + e.getMessage());
-            e.printStackTrace();
+            log.debug("Update of income {} failed: {}", id, e.toString());
             throw e;
         }
     }
@@ -102,7 +118,14 @@ public class IncomeService {
     @Transactional
     public Income saveIncome(Income income) {
         try {
-            return incomeRepository.save(income);
+            boolean existing = income.getId() != null;
+            Income saved = incomeRepository.save(income);
+            // The previous state of a legacy update is unknown here: rebuilt instead
+            if (existing && saved.getUser() != null) periodMetrics.invalidate(Flow.INCOME, List.of(saved.getUser().getId()));
+            else periodMetrics.changed(Flow.INCOME, null, PeriodMetricsService.fact(saved));
+            recorded("saved", saved);
+            pushDelta("saved", saved);
+            return saved;
         } catch (Exception e) {
             throw new IncomeException("Error saving income: " + e.getMessage());
         }
@@ -110,40 +133,36 @@ public class IncomeService {
 
     @Transactional
     public void deleteIncome(Long id) {
-        System.out.println("DEBUG: Attempting to permanently delete income with id: " + id);
+        log.debug("Permanently deleting income {}", id);
         
         try {
             // First try to find the income using regular findById
             Income income = incomeRepository.findById(id).orElse(null);
-            System.out.println("DEBUG: Regular findById result: " + (income != null ? "found" : "null"));
             
             if (income == null) {
                 // If not found with regular method, try the bypass method
-                System.out.println("DEBUG: Trying bypass method...");
-                income = incomeRepository.findByIdWithDeletedStatus(id);
-                System.out.println("DEBUG: Bypass method result: " + (income != null ? "found" : "null"));
+                income = incomeRepository.findByIdIncludingDeleted(id);
+                log.debug("Income {} not visible, looked up including deleted: {}", id, income != null ? "found" : "missing");
             }
             
             if (income == null) {
-                System.out.println("DEBUG: Income not found for id: " + id);
                 throw new IncomeNotFoundException("Income not found for id: " + id);
             }
             
-            System.out.println("DEBUG: Found income - ID: " + income.getId() + ", Deleted: " + income.isDeleted());
-            
             // Permanently delete the record from database using native SQL
-            System.out.println("DEBUG: Executing permanent delete for id: " + id);
             int deleted = incomeRepository.deleteByIdNative(id);
-            System.out.println("DEBUG: Native delete affected " + deleted + " rows");
+            log.debug("Native delete of income {} affected {} rows", id, deleted);
             
             if (deleted == 0) {
                 throw new IncomeException("Failed to delete income with id: " + id);
             }
+            periodMetrics.changed(Flow.INCOME, PeriodMetricsService.fact(income), null);
+            recorded("deleted", income);
+            pushDelta("deleted", income);
             
-            System.out.println("DEBUG: Successfully permanently deleted income with id: " + id);
+            log.debug("Income {} permanently deleted", id);
         } catch (Exception e) {
-            System.err.println("DEBUG: Exception in deleteIncome: " + e.getClass().getSimpleName() + " - " + e.getMessage());
-            e.printStackTrace();
+            log.debug("Permanent delete of income {} failed: {}", id, e.toString());
             throw e;
         }
     }
@@ -151,35 +170,40 @@ public class IncomeService {
     /** Permanent delete with attribution (preferred when you know who deleted). */
     @Transactional
     public void deleteIncome(Long id, String deletedBy) {
-        System.out.println("DEBUG: Attempting to permanently delete income with id: " + id + " by: " + deletedBy);
+        log.debug("Permanently deleting income {} (by {})", id, deletedBy);
         
         // Check if income exists (including soft-deleted ones)
-        Income income = incomeRepository.findByIdWithDeletedStatus(id);
+        Income income = incomeRepository.findByIdIncludingDeleted(id);
         if (income == null) {
             throw new IncomeNotFoundException("Income not found for id: " + id);
         }
         
-        System.out.println("DEBUG: Found income - ID: " + income.getId() + ", Deleted: " + income.isDeleted());
-        
         // Permanently delete the record from database using native SQL
-        System.out.println("DEBUG: Executing permanent delete for id: " + id);
         int deleted = incomeRepository.deleteByIdNative(id);
-        System.out.println("DEBUG: Native delete affected " + deleted + " rows");
+        log.debug("Native delete of income {} affected {} rows", id, deleted);
         
         if (deleted == 0) {
             throw new IncomeException("Failed to delete income with id: " + id);
         }
+        periodMetrics.changed(Flow.INCOME, PeriodMetricsService.fact(income), null);
+        recorded("deleted", income);
+        pushDelta("deleted", income);
         
-        System.out.println("DEBUG: Successfully permanently deleted income with id: " + id);
+        log.debug("Income {} permanently deleted", id);
     }
 
     /** Restore a soft-deleted income (admin). */
     @Transactional
     public void restoreIncome(Long id) {
         int updated = incomeRepository.restore(id);
+        if (updated == 0 && archival.rehydrate(ArchiveTable.INCOMES, id)) updated = incomeRepository.restore(id);
         if (updated == 0) {
             throw new IncomeException("Failed to restore income id: " + id);
         }
+        incomeRepository.findById(id).ifPresent(i -> {
+            periodMetrics.changed(Flow.INCOME, null, PeriodMetricsService.fact(i));
+            recorded("restored", i);
+        });
     }
 
     @Transactional(readOnly = true)
@@ -211,79 +235,59 @@ public class IncomeService {
         }
     }
 
-    @Transactional(readOnly = true)
+    // Current / previous periods: served from PeriodMetricsService (no query once cached)
+
     public Double getIncomeForToday(Long userId) {
-        LocalDate today = LocalDate.now();
-        return getIncomeForPeriod(userId, today, today.plusDays(1));
+        try {
+            return periodMetrics.compare(Flow.INCOME, userId, Period.DAY).current();
+        } catch (Exception e) {
+            throw new IncomeException("Error fetching today's income for user: " + userId);
+        }
     }
 
-    @Transactional(readOnly = true)
     public Double getIncomeForCurrentWeek(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            LocalDate end = today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)).plusDays(1);
-            return getIncomeForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.INCOME, userId, Period.WEEK).current();
         } catch (Exception e) {
             throw new IncomeException("Error fetching current week's income for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getIncomeForCurrentMonth(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.firstDayOfMonth());
-            LocalDate end = today.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-            return getIncomeForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.INCOME, userId, Period.MONTH).current();
         } catch (Exception e) {
             throw new IncomeException("Error fetching current month's income for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getIncomeForCurrentYear(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.firstDayOfYear());
-            LocalDate end = today.with(TemporalAdjusters.lastDayOfYear()).plusDays(1);
-            return getIncomeForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.INCOME, userId, Period.YEAR).current();
         } catch (Exception e) {
             throw new IncomeException("Error fetching current year's income for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getIncomeForPreviousWeek(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.minusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            LocalDate end = today.minusWeeks(1).with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)).plusDays(1);
-            return getIncomeForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.INCOME, userId, Period.WEEK).previous();
         } catch (Exception e) {
             throw new IncomeException("Error fetching previous week's income for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getIncomeForPreviousMonth(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.minusMonths(1).with(TemporalAdjusters.firstDayOfMonth());
-            LocalDate end = today.minusMonths(1).with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-            return getIncomeForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.INCOME, userId, Period.MONTH).previous();
         } catch (Exception e) {
             throw new IncomeException("Error fetching previous month's income for user: " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
     public Double getIncomeForPreviousYear(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.minusYears(1).with(TemporalAdjusters.firstDayOfYear());
-            LocalDate end = today.minusYears(1).with(TemporalAdjusters.lastDayOfYear()).plusDays(1);
-            return getIncomeForPeriod(userId, start, end);
+            return periodMetrics.compare(Flow.INCOME, userId, Period.YEAR).previous();
         } catch (Exception e) {
             throw new IncomeException("Error fetching previous year's income for user: " + userId);
         }
@@ -309,28 +313,23 @@ public class IncomeService {
         }
     }
 
-    @Transactional(readOnly = true)
+    /** Served from PeriodMetricsService (top list of the month kept by the writes). */
     public Map<String, Double> getTop5HighestIncomesThisMonth(Long userId) {
         try {
-            LocalDate today = LocalDate.now();
-            LocalDate start = today.with(TemporalAdjusters.firstDayOfMonth());
-            LocalDate end = today.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-
-            List<Income> top5 = incomeRepository.findTop5ByUserIdAndIncomeDateBetweenOrderByAmountDesc(userId, start, end);
-
-            LinkedHashMap<String, Double> result = new LinkedHashMap<>();
-            for (Income inc : top5) {
-                result.put(inc.getSource(), inc.getAmount().doubleValue());
-            }
-            return result;
+            return periodMetrics.topByLabel(Flow.INCOME, userId);
         } catch (Exception e) {
             throw new IncomeException("Error fetching top-5 incomes for user " + userId);
         }
     }
 
-    @Transactional(readOnly = true)
+    /** The k largest incomes of the month (k up to metrics.top.max-k). */
+    public List<Map<String, Object>> getTopIncomesThisMonth(Long userId, int k) {
+        return periodMetrics.top(Flow.INCOME, userId, k);
+    }
+
+    /** Not transactional: each period is its own parallel branch (ParallelReadService). */
     public List<Double> getIncomeForWeeksOfCurrentMonth(Long userId) {
-        List<Double> weeklyIncomes = new ArrayList<>();
+        List<Supplier<Double>> weeklyIncomes = new ArrayList<>();
         LocalDate today = LocalDate.now();
         LocalDate startOfMonth = today.with(TemporalAdjusters.firstDayOfMonth());
         LocalDate endOfMonth = today.with(TemporalAdjusters.lastDayOfMonth());
@@ -342,26 +341,24 @@ public class IncomeService {
             if (weekEnd.isAfter(endOfMonth)) {
                 weekEnd = endOfMonth;
             }
-            double sum = getIncomeForPeriod(userId, weekStart, weekEnd.plusDays(1));
-            weeklyIncomes.add(sum);
+            LocalDate from = weekStart, to = weekEnd.plusDays(1);
+            weeklyIncomes.add(() -> getIncomeForPeriod(userId, from, to));
             weekStart = weekEnd.plusDays(1);
         }
-        return weeklyIncomes;
-        }
+        return reads.all("income.weeks", weeklyIncomes);
+    }
 
-    @Transactional(readOnly = true)
     public List<Double> getIncomeForTwelveMonthsOfCurrentYear(Long userId) {
-        List<Double> monthlyIncomes = new ArrayList<>(12);
+        List<Supplier<Double>> monthlyIncomes = new ArrayList<>(12);
         LocalDate today = LocalDate.now();
         LocalDate startOfYear = today.with(TemporalAdjusters.firstDayOfYear());
 
         for (int monthIndex = 0; monthIndex < 12; monthIndex++) {
             LocalDate startOfMonth = startOfYear.plusMonths(monthIndex);
             LocalDate endOfMonth = startOfMonth.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
-            double monthlyTotal = getIncomeForPeriod(userId, startOfMonth, endOfMonth);
-            monthlyIncomes.add(monthlyTotal);
+            monthlyIncomes.add(() -> getIncomeForPeriod(userId, startOfMonth, endOfMonth));
         }
-        return monthlyIncomes;
+        return reads.all("income.months", monthlyIncomes);
     }
 
     @Transactional(readOnly = true)
@@ -396,28 +393,21 @@ public class IncomeService {
             LocalDate start = today.with(TemporalAdjusters.firstDayOfMonth());
             LocalDate end = today.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
             
-            System.out.println("DEBUG: Current month range for user " + userId + ": " + start + " to " + end);
+            log.debug("Current month range for user {}: [{}, {})", userId, start, end);
             
             List<Object[]> rows = incomeRepository.sumByPaymentMethodForPeriod(userId, start, end);
-            System.out.println("DEBUG: Found " + rows.size() + " payment method groups");
+            log.debug("{} payment method groups", rows.size());
             
             Map<String, Double> out = new HashMap<>();
             for (Object[] r : rows) {
                 String method = String.valueOf(r[0]);
                 BigDecimal sum = (BigDecimal) r[1];
                 out.put(method, sum.doubleValue());
-                System.out.println("DEBUG: Payment method " + method + " = " + sum.doubleValue());
-            }
-            
-            // If no data found, return empty map instead of null
-            if (out.isEmpty()) {
-                System.out.println("DEBUG: No payment method data found for current month");
             }
             
             return out;
         } catch (Exception e) {
-            System.err.println("DEBUG: Error in getCurrentMonthPaymentMethodSummary: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Current month payment method summary failed for user {}", userId, e);
             throw new IncomeException("Error fetching current month payment method summary for user: " + userId);
         }
     }
@@ -429,29 +419,41 @@ public class IncomeService {
             LocalDate start = today.with(TemporalAdjusters.firstDayOfMonth());
             LocalDate end = today.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1);
             
-            System.out.println("DEBUG: Current month range for user " + userId + ": " + start + " to " + end);
+            log.debug("Current month range for user {}: [{}, {})", userId, start, end);
             
             List<Object[]> rows = incomeRepository.sumBySourceForPeriod(userId, start, end);
-            System.out.println("DEBUG: Found " + rows.size() + " source groups");
+            log.debug("{} source groups", rows.size());
             
             Map<String, Double> out = new HashMap<>();
             for (Object[] r : rows) {
                 String source = (String) r[0];
                 BigDecimal sum = (BigDecimal) r[1];
                 out.put(source, sum.doubleValue());
-                System.out.println("DEBUG: Source " + source + " = " + sum.doubleValue());
-            }
-            
-            // If no data found, return empty map instead of null
-            if (out.isEmpty()) {
-                System.out.println("DEBUG: No source data found for current month");
             }
             
             return out;
         } catch (Exception e) {
-            System.err.println("DEBUG: Error in getCurrentMonthSourceSummary: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Current month source summary failed for user {}", userId, e);
             throw new IncomeException("Error fetching current month source summary for user: " + userId);
         }
     }
+
+    // ============================================================
+    // == Live updates
+    // ============================================================
+
+    private void recorded(String action, Income i) {
+        if (i.getUser() == null) return;
+        domainEvents.publish(new IncomeRecorded(i.getUser().getId(), i.getId(), action));
+    }
+
+    private void pushDelta(String action, Income i) {
+        if (i.getUser() == null) return;
+        live.publish(i.getUser().getId(), "income", action, i.getId(), LiveUpdateService.fields(
+                "amount", i.getAmount(),
+                "currency", i.getCurrency(),
+                "date", i.getIncomeDate(),
+                "source", i.getSource(),
+                "received", i.isReceived()));
+    }
 }
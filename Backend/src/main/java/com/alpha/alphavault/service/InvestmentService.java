@@ -6,6 +6,7 @@
  *    - Uses status (OPEN/CLOSED) instead of legacy isSold flag
  *    - Derives currentValue = currentPrice * quantity when possible
  *    - Hard delete via repo.deleteById() (permanent deletion)
+ *    - Every price/value change records a daily mark (price history)
  * ================================================================
  */
 package com.alpha.alphavault.service;
@@ -15,6 +16,7 @@ import com.alpha.alphavault.dto.investment.InvestmentPriceUpdateDTO;
 import com.alpha.alphavault.dto.investment.InvestmentRequestDTO;
 import com.alpha.alphavault.enums.InvestmentStatus;
 import com.alpha.alphavault.enums.InvestmentType;
+import com.alpha.alphavault.event.InvestmentRevalued;
 import com.alpha.alphavault.exception.InvestmentException;
 import com.alpha.alphavault.exception.InvestmentNotFoundException;
 import com.alpha.alphavault.mapper.InvestmentMapper;
@@ -28,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -38,6 +41,8 @@ public class InvestmentService {
     private final InvestmentRepository repo;
     private final InvestmentMapper mapper;
     private final MarketDataService market;
+    private final LiveUpdateService live;
+    private final DomainEventPublisher domainEvents;
 
     // -------------------- CRUD --------------------
 
@@ -58,7 +63,7 @@ public class InvestmentService {
                 inv.setCurrentValue(inv.getAmountInvested());
             }
         }
-        return repo.save(inv);
+        return recordMark(repo.save(inv));
     }
 
     @Transactional
@@ -66,7 +71,7 @@ public class InvestmentService {
         Investment existing = repo.findById(id)
                 .orElseThrow(() -> new InvestmentNotFoundException("Investment not found for id: " + id));
         mapper.updateEntity(existing, dto);
-        return repo.save(existing);
+        return recordMark(repo.save(existing));
     }
 
     @Transactional
@@ -144,7 +149,7 @@ public class InvestmentService {
             // for non-quantity assets (e.g., businesses/real estate snapshot), treat price as value
             inv.setCurrentValue(latestPrice.setScale(4, RoundingMode.HALF_UP));
         }
-        return repo.save(inv);
+        return recordMark(repo.save(inv));
     }
 
     /** Refresh all OPEN investments for a user. */
@@ -163,7 +168,9 @@ public class InvestmentService {
                 inv.setCurrentValue(latestPrice.setScale(4, RoundingMode.HALF_UP));
             }
         }
-        return repo.saveAll(list);
+        List<Investment> saved = repo.saveAll(list);
+        saved.forEach(this::recordMark);
+        return saved;
     }
 
     /** Manual mark-to-market (from UI): set price, value auto-derived. */
@@ -175,7 +182,7 @@ public class InvestmentService {
         if (inv.getQuantity() != null && inv.getCurrentPrice() != null) {
             inv.setCurrentValue(inv.getCurrentPrice().multiply(inv.getQuantity()).setScale(4, RoundingMode.HALF_UP));
         }
-        return repo.save(inv);
+        return recordMark(repo.save(inv));
     }
 
     // -------------------- Lifecycle (close/reopen) --------------------
@@ -197,4 +204,25 @@ public class InvestmentService {
         inv.setSoldValue(null);
         return repo.save(inv);
     }
+
+    // -------------------- Price history --------------------
+
+    /** Upserts today's mark for an OPEN position; later marks on the same day win. */
+    private Investment recordMark(Investment inv) {
+        if (inv.getStatus() != InvestmentStatus.OPEN) return inv;
+        // @PreUpdate derives currentValue only at flush, so derive it here as well
+        BigDecimal value = (inv.getCurrentPrice() != null && inv.getQuantity() != null)
+                ? inv.getCurrentPrice().multiply(inv.getQuantity()).setScale(4, RoundingMode.HALF_UP)
+                : inv.getCurrentValue();
+        if (value != null) {
+            // Price history is written off the event (InvestmentMarkHandler), not on the request path
+            domainEvents.publish(new InvestmentRevalued(inv.getUser().getId(), inv.getId(), LocalDate.now(),
+                    inv.getCurrentPrice(), value));
+            live.publish(inv.getUser().getId(), "investment", "revalued", inv.getId(), LiveUpdateService.fields(
+                    "currentPrice", inv.getCurrentPrice(),
+                    "currentValue", value,
+                    "currency", inv.getCurrency()));
+        }
+        return inv;
+    }
 }
@@ -0,0 +1,443 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: LedgerService — append-only money ledger and projections
+ *  Guarantees:
+ *    - Every balance movement is one ledger_entries row, written in the
+ *      same transaction as the projection column it moves
+ *    - Budgets are booked per expense: a change books only the difference
+ *      between what the expense should count and what it already counts
+ *    - Bookings of the same budget are serialized (row lock on the budget
+ *      before the difference is read), so concurrent bookers (relay, sync,
+ *      rollover) cannot both book the same delta
+ *    - Any account can be replayed at any instant: latest snapshot
+ *      before it + entries recorded since (one partition-pruned range)
+ *  Notes:
+ *    - Goal/debt/investment entries come from V6 row triggers, so JPA,
+ *      native and batch writes are all captured without service code
+ *    - Snapshots trail "now" by a lag so late-committing entries are not
+ *      skipped (entries carry clock time, not commit time)
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.ledger.LedgerEntryDTO;
+import com.alpha.alphavault.dto.ledger.LedgerReplayDTO;
+import com.alpha.alphavault.enums.LedgerAccount;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class LedgerService {
+
+    private static final long SNAPSHOT_LOCK = 0x4c45444745524c4bL; // "LEDGERLK"
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ledger.partitions-ahead:3}")
+    private int partitionsAhead;
+
+    @Value("${ledger.snapshot.lag-minutes:10}")
+    private long snapshotLagMinutes;
+
+    @Value("${ledger.history.max-rows:5000}")
+    private int maxHistoryRows;
+
+    // ============================================================
+    // == Budget bookings (ledger-first)
+    // ============================================================
+
+    /**
+     * Books a set of expenses against their month's budget and budget line.
+     * wanted = what each expense should count now (0 when deleted, moved or
+     * unbudgeted), booked = what the ledger already counts for it; only the
+     * difference is written, both as entries and onto the projections.
+     */
+    private static final String BOOK_EXPENSES = """
+        WITH e AS (
+            SELECT DISTINCT x.id FROM unnest(CAST(? AS bigint[])) AS x(id)
+        ),
+        target AS (
+            SELECT ex.id AS expense_id, ex.user_id, ex.expense_date, b.id AS budget_id, bc.id AS line_id,
+                   COALESCE(b.currency, u.preferred_currency) AS currency,
+                   ROUND(ex.amount * COALESCE(tr.rate_per_usd / fr.rate_per_usd, 1), 4) AS amount
+            FROM e
+            JOIN expenses ex ON ex.id = e.id AND ex.deleted_at IS NULL
+            JOIN users u ON u.id = ex.user_id
+            JOIN budgets b ON b.user_id = ex.user_id AND b.deleted_at IS NULL
+                          AND b.year = EXTRACT(YEAR FROM ex.expense_date) AND b.month = EXTRACT(MONTH FROM ex.expense_date)
+            LEFT JOIN budget_categories bc ON bc.budget_id = b.id AND bc.category = ex.category AND bc.deleted_at IS NULL
+            LEFT JOIN fx_rates fr ON fr.currency = UPPER(ex.currency)
+            LEFT JOIN fx_rates tr ON tr.currency = UPPER(COALESCE(b.currency, u.preferred_currency))
+        ),
+        wanted AS (
+            SELECT expense_id, user_id, expense_date, 'BUDGET' AS account_type, budget_id AS account_id, currency, amount FROM target
+            UNION ALL
+            SELECT expense_id, user_id, expense_date, 'BUDGET_CATEGORY', line_id, currency, amount FROM target WHERE line_id IS NOT NULL
+        ),
+        booked AS (
+            SELECT l.source_id AS expense_id, MIN(l.user_id) AS user_id, l.account_type, l.account_id,
+                   MAX(l.currency) AS currency, SUM(l.amount) AS amount
+            FROM ledger_entries l
+            JOIN e ON e.id = l.source_id
+            WHERE l.source_table = 'expenses' AND l.account_type IN ('BUDGET', 'BUDGET_CATEGORY')
+            GROUP BY l.source_id, l.account_type, l.account_id
+            HAVING SUM(l.amount) <> 0
+        ),
+        moves AS (
+            SELECT COALESCE(w.expense_id, k.expense_id) AS expense_id,
+                   COALESCE(w.user_id, k.user_id) AS user_id,
+                   COALESCE(w.account_type, k.account_type) AS account_type,
+                   COALESCE(w.account_id, k.account_id) AS account_id,
+                   COALESCE(w.currency, k.currency) AS currency,
+                   COALESCE(w.expense_date, CURRENT_DATE) AS occurred_on,
+                   COALESCE(w.amount, 0) - COALESCE(k.amount, 0) AS delta
+            FROM wanted w
+            FULL JOIN booked k
+                   ON k.expense_id = w.expense_id AND k.account_type = w.account_type AND k.account_id = w.account_id
+            WHERE COALESCE(w.amount, 0) <> COALESCE(k.amount, 0)
+        ),
+        budget_upd AS (
+            UPDATE budgets b
+            SET total_spent = b.total_spent + s.delta,
+                version = COALESCE(b.version, 0) + 1,
+                updated_at = CURRENT_TIMESTAMP
+            FROM (SELECT account_id, SUM(delta) AS delta FROM moves WHERE account_type = 'BUDGET' GROUP BY account_id) s
+            WHERE b.id = s.account_id
+            RETURNING 'BUDGET'::text AS account_type, b.id AS account_id, b.total_spent AS balance
+        ),
+        line_upd AS (
+            UPDATE budget_categories bc
+            SET spent_amount = bc.spent_amount + s.delta,
+                updated_at = CURRENT_TIMESTAMP
+            FROM (SELECT account_id, SUM(delta) AS delta FROM moves WHERE account_type = 'BUDGET_CATEGORY' GROUP BY account_id) s
+            WHERE bc.id = s.account_id
+            RETURNING 'BUDGET_CATEGORY'::text AS account_type, bc.id AS account_id, bc.spent_amount AS balance
+        ),
+        balances AS (
+            SELECT * FROM budget_upd UNION ALL SELECT * FROM line_upd
+        ),
+        ins AS (
+            INSERT INTO ledger_entries (user_id, account_type, account_id, entry_type, amount, balance_after,
+                                        currency, source_table, source_id, occurred_on)
+            SELECT m.user_id, m.account_type, m.account_id,
+                   CASE WHEN m.delta > 0 THEN 'SPEND' ELSE 'REFUND' END, m.delta,
+                   p.balance - SUM(m.delta) OVER acct
+                             + SUM(m.delta) OVER (acct ORDER BY m.expense_id ROWS UNBOUNDED PRECEDING),
+                   m.currency, 'expenses', m.expense_id, m.occurred_on
+            FROM moves m
+            JOIN balances p ON p.account_type = m.account_type AND p.account_id = m.account_id
+            WINDOW acct AS (PARTITION BY m.account_type, m.account_id)
+        )
+        SELECT account_id FROM budget_upd
+        """;
+
+    /**
+     * Locks every budget the expenses may move (their month's budget and any budget
+     * they are booked on), in id order. Run before BOOK_EXPENSES in the same
+     * transaction: under READ COMMITTED its snapshot is taken after the lock, so it
+     * sees what a concurrent booker committed.
+     */
+    private static final String LOCK_BUDGETS = """
+        SELECT b.id
+        FROM budgets b
+        WHERE b.id IN (
+            SELECT bb.id
+            FROM expenses ex
+            JOIN budgets bb ON bb.user_id = ex.user_id
+                           AND bb.year = EXTRACT(YEAR FROM ex.expense_date) AND bb.month = EXTRACT(MONTH FROM ex.expense_date)
+            WHERE ex.id = ANY(CAST(? AS bigint[]))
+            UNION
+            SELECT l.account_id
+            FROM ledger_entries l
+            WHERE l.source_table = 'expenses' AND l.account_type = 'BUDGET' AND l.source_id = ANY(CAST(? AS bigint[]))
+        )
+        ORDER BY b.id
+        FOR UPDATE
+        """;
+
+    /** Everything the budget counts now or should count: its month's expenses + what is booked on it. */
+    private static final String BUDGET_EXPENSES = """
+        SELECT ex.id
+        FROM budgets b
+        JOIN expenses ex ON ex.user_id = b.user_id AND ex.deleted_at IS NULL
+                        AND ex.expense_date >= make_date(b.year, b.month, 1)
+                        AND ex.expense_date < make_date(b.year, b.month, 1) + INTERVAL '1 month'
+        WHERE b.id = ?
+        UNION
+        SELECT l.source_id
+        FROM ledger_entries l
+        WHERE l.account_type = 'BUDGET' AND l.account_id = ? AND l.source_table = 'expenses'
+        GROUP BY l.source_id
+        HAVING SUM(l.amount) <> 0
+        """;
+
+    private static final String MONTH_ARCHIVED = """
+        SELECT EXISTS (
+            SELECT 1
+            FROM budgets b
+            JOIN archived_partitions a ON a.parent = 'expenses'
+                                      AND make_date(b.year, b.month, 1) >= a.range_from
+                                      AND make_date(b.year, b.month, 1) < a.range_to
+            WHERE b.id = ?
+        )
+        """;
+
+    /**
+     * Books the given expenses (created, edited, deleted or restored).
+     * Returns the ids of the budgets whose totals moved.
+     */
+    @Transactional
+    public Set<Long> bookExpenses(Collection<Long> expenseIds) {
+        if (expenseIds.isEmpty()) return Set.of();
+        // Pending JPA changes must be visible to the SQL below
+        entityManager.flush();
+        Object[] ids = expenseIds.toArray();
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_BUDGETS);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("bigint", ids));
+            return ps;
+        }, (rs, i) -> rs.getLong(1));
+        return new HashSet<>(jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(BOOK_EXPENSES);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, (rs, i) -> rs.getLong(1)));
+    }
+
+    /**
+     * Rebooks a whole budget (new line, currency change, explicit sync), then
+     * aligns its projections with the ledger in case they were edited directly.
+     */
+    @Transactional
+    public void rebookBudget(Long budgetId) {
+        entityManager.flush();
+        // An archived expense month is frozen: its rows are detached, a rebook would reverse them
+        if (!Boolean.TRUE.equals(jdbc.queryForObject(MONTH_ARCHIVED, Boolean.class, budgetId))) {
+            bookExpenses(jdbc.queryForList(BUDGET_EXPENSES, Long.class, budgetId, budgetId));
+        }
+        rebuild(LedgerAccount.BUDGET, budgetId);
+        for (Long lineId : jdbc.queryForList("SELECT id FROM budget_categories WHERE budget_id = ?", Long.class, budgetId)) {
+            rebuild(LedgerAccount.BUDGET_CATEGORY, lineId);
+        }
+    }
+
+    // ============================================================
+    // == Replay / rebuild
+    // ============================================================
+
+    private static final String REPLAY = """
+        WITH s AS (
+            SELECT as_of, balance
+            FROM ledger_snapshots
+            WHERE account_type = ? AND account_id = ? AND as_of <= ?
+            ORDER BY as_of DESC
+            LIMIT 1
+        )
+        SELECT COALESCE((SELECT balance FROM s), 0) + COALESCE(SUM(l.amount), 0),
+               (SELECT as_of FROM s),
+               COUNT(l.id)
+        FROM ledger_entries l
+        WHERE l.account_type = ? AND l.account_id = ?
+          AND l.recorded_at >= COALESCE((SELECT as_of FROM s), '-infinity'::timestamp)
+          AND l.recorded_at <= ?
+        """;
+
+    /** Balance of an account at {@code at} (null = now), recomputed from snapshot + entries. */
+    @Transactional(readOnly = true)
+    public LedgerReplayDTO replay(LedgerAccount account, Long accountId, LocalDateTime at) {
+        boolean current = at == null;
+        LocalDateTime until = current ? LocalDateTime.now() : at;
+        Timestamp ts = Timestamp.valueOf(until);
+
+        return jdbc.queryForObject(REPLAY, (rs, i) -> {
+            BigDecimal balance = rs.getBigDecimal(1);
+            Timestamp snapshot = rs.getTimestamp(2);
+            BigDecimal projection = current ? projection(account, accountId) : null;
+            return new LedgerReplayDTO(account, accountId, until, balance,
+                    snapshot != null ? snapshot.toLocalDateTime() : null,
+                    rs.getLong(3),
+                    projection,
+                    projection != null ? projection.subtract(balance) : null);
+        }, account.name(), accountId, ts, account.name(), accountId, ts);
+    }
+
+    /**
+     * Resets the projection column to the ledger balance. Capture is switched
+     * off for the statement's transaction so the correction is not booked twice.
+     */
+    @Transactional
+    public LedgerReplayDTO rebuild(LedgerAccount account, Long accountId) {
+        entityManager.flush();
+        LedgerReplayDTO replay = replay(account, accountId, null);
+        if (replay.projection() == null) {
+            throw new IllegalArgumentException("No " + account + " with id " + accountId);
+        }
+        if (replay.drift().signum() != 0) {
+            jdbc.queryForObject("SELECT set_config('alphavault.ledger_capture', 'off', true)", String.class);
+            jdbc.update("UPDATE " + account.table() + " SET " + account.balanceColumn() + " = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    replay.balance(), accountId);
+            jdbc.queryForObject("SELECT set_config('alphavault.ledger_capture', 'on', true)", String.class);
+            log.warn("Ledger rebuild: {} {} projection {} -> {}", account, accountId, replay.projection(), replay.balance());
+        }
+        return new LedgerReplayDTO(account, accountId, replay.at(), replay.balance(), replay.snapshotAsOf(),
+                replay.entriesReplayed(), replay.balance(), BigDecimal.ZERO);
+    }
+
+    private BigDecimal projection(LedgerAccount account, Long accountId) {
+        List<BigDecimal> v = jdbc.queryForList(
+                "SELECT COALESCE(" + account.balanceColumn() + ", 0) FROM " + account.table() + " WHERE id = ?",
+                BigDecimal.class, accountId);
+        return v.isEmpty() ? null : v.get(0);
+    }
+
+    // ============================================================
+    // == History
+    // ============================================================
+
+    private static final String ENTRY_COLUMNS = """
+        SELECT id, account_type, account_id, entry_type, amount, balance_after, currency,
+               source_table, source_id, occurred_on, recorded_at
+        FROM ledger_entries
+        """;
+
+    private static final RowMapper<LedgerEntryDTO> ENTRY = (rs, i) -> new LedgerEntryDTO(
+            rs.getLong("id"),
+            LedgerAccount.valueOf(rs.getString("account_type")),
+            rs.getLong("account_id"),
+            rs.getString("entry_type"),
+            rs.getBigDecimal("amount"),
+            rs.getBigDecimal("balance_after"),
+            rs.getString("currency"),
+            rs.getString("source_table"),
+            rs.getObject("source_id", Long.class),
+            rs.getObject("occurred_on", LocalDate.class),
+            rs.getTimestamp("recorded_at").toLocalDateTime());
+
+    /** Entries of one account recorded in [from, to], oldest first. */
+    @Transactional(readOnly = true)
+    public List<LedgerEntryDTO> entries(LedgerAccount account, Long accountId, LocalDate from, LocalDate to) {
+        return jdbc.query(ENTRY_COLUMNS + """
+                WHERE account_type = ? AND account_id = ? AND recorded_at >= ? AND recorded_at < ?
+                ORDER BY recorded_at, id
+                LIMIT ?
+                """, ENTRY, account.name(), accountId, startOf(from), endOf(to), maxHistoryRows);
+    }
+
+    /** Every entry of a user recorded in [from, to], oldest first (audit trail). */
+    @Transactional(readOnly = true)
+    public List<LedgerEntryDTO> entriesByUser(Long userId, LocalDate from, LocalDate to) {
+        return jdbc.query(ENTRY_COLUMNS + """
+                WHERE user_id = ? AND recorded_at >= ? AND recorded_at < ?
+                ORDER BY recorded_at, id
+                LIMIT ?
+                """, ENTRY, userId, startOf(from), endOf(to), maxHistoryRows);
+    }
+
+    private static Timestamp startOf(LocalDate d) {
+        return d == null ? Timestamp.valueOf("1970-01-01 00:00:00") : Timestamp.valueOf(d.atStartOfDay());
+    }
+
+    private static Timestamp endOf(LocalDate d) {
+        return Timestamp.valueOf((d == null ? LocalDate.now() : d).plusDays(1).atStartOfDay());
+    }
+
+    // ============================================================
+    // == Maintenance (partitions + snapshots)
+    // ============================================================
+
+    /**
+     * One snapshot per account that moved since the previous run. Accounts are
+     * folded from their own latest snapshot, so each run reads only the
+     * partitions written since the last cutoff.
+     */
+    private static final String SNAPSHOT = """
+        INSERT INTO ledger_snapshots (account_type, account_id, as_of, user_id, balance, entries)
+        SELECT n.account_type, n.account_id, ?, n.user_id, COALESCE(s.balance, 0) + n.amount, n.entries
+        FROM (
+            SELECT l.account_type, l.account_id, MIN(l.user_id) AS user_id, SUM(l.amount) AS amount, COUNT(*) AS entries
+            FROM ledger_entries l
+            WHERE l.recorded_at >= ? AND l.recorded_at < ?
+            GROUP BY l.account_type, l.account_id
+        ) n
+        LEFT JOIN LATERAL (
+            SELECT balance FROM ledger_snapshots x
+            WHERE x.account_type = n.account_type AND x.account_id = n.account_id
+            ORDER BY x.as_of DESC
+            LIMIT 1
+        ) s ON true
+        """;
+
+    /**
+     * Keeps this month + partitions-ahead months created. Entries that reached the default
+     * partition while upkeep was down are moved into their month when it is created (V16).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitions() {
+        try {
+            Integer created = jdbc.queryForObject("SELECT ensure_ledger_partitions(?, ?)", Integer.class,
+                    Date.valueOf(LocalDate.now()), partitionsAhead + 1);
+            if (created != null && created > 0) log.info("Ledger: created {} monthly partitions", created);
+        } catch (Exception e) {
+            log.warn("Ledger partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${ledger.maintenance.cron:0 15 2 * * *}")
+    public void maintain() {
+        ensurePartitions();
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.warn("Ledger snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Snapshots every account with entries since the last cutoff. Returns the number written.
+     * Runs in its own TransactionTemplate (not @Transactional) so the scheduled maintain()
+     * call also holds the advisory lock until commit.
+     */
+    public int snapshot() {
+        Integer written = tx.execute(status -> {
+            // One node at a time; the lock is released with the transaction
+            Boolean locked = jdbc.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, SNAPSHOT_LOCK);
+            if (!Boolean.TRUE.equals(locked)) return 0;
+
+            Timestamp since = jdbc.queryForObject("SELECT MAX(as_of) FROM ledger_snapshots", Timestamp.class);
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusMinutes(snapshotLagMinutes));
+            if (since != null && !since.before(cutoff)) return 0;
+
+            int n = jdbc.update(SNAPSHOT, cutoff, since != null ? since : startOf(null), cutoff);
+            log.info("Ledger: {} account snapshots at {}", n, cutoff);
+            return n;
+        });
+        return written != null ? written : 0;
+    }
+}
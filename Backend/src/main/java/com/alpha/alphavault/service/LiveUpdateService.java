@@ -0,0 +1,211 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: LiveUpdateService — per-user SSE broker for dashboard deltas
+ *  Guarantees:
+ *    - Deltas leave only after the writing transaction commits
+ *      (rolled back writes are never pushed)
+ *    - Publishers never block on clients: each subscriber owns a bounded
+ *      queue drained by a small shared sender pool
+ *    - A subscriber that falls behind loses its backlog and gets a single
+ *      "resync" event instead (client refetches once)
+ *  Notes:
+ *    - In-process only; every node serves the clients connected to it
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.live.LiveDeltaDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class LiveUpdateService {
+
+    private static final int DRAIN_CHUNK = 64;
+
+    private final ApplicationEventPublisher events;
+    private final ExecutorService senders;
+
+    @Value("${live.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${live.sse.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${live.sse.max-streams-per-user:5}")
+    private int maxStreamsPerUser;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public LiveUpdateService(ApplicationEventPublisher events,
+                             @Value("${live.sse.sender-threads:4}") int senderThreads) {
+        this.events = events;
+        AtomicInteger seq = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "live-sse-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    // ============================================================
+    // == Publishing (called by domain services)
+    // ============================================================
+
+    /** Queues a delta for the user; delivered after commit (or immediately outside a transaction). */
+    public void publish(Long userId, String type, String action, Long id, Map<String, Object> data) {
+        if (userId == null || !subscribers.containsKey(userId)) return;
+        events.publishEvent(new LiveDeltaDTO(userId, type, action, id, data, LocalDateTime.now()));
+    }
+
+    /** Null-tolerant ordered map for delta payloads (Map.of rejects nulls). */
+    public static Map<String, Object> fields(Object... kv) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < kv.length; i += 2) m.put(String.valueOf(kv[i]), kv[i + 1]);
+        return m;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommitted(LiveDeltaDTO delta) {
+        List<Subscriber> subs = subscribers.get(delta.userId());
+        if (subs == null) return;
+        for (Subscriber s : subs) s.offer(delta);
+    }
+
+    // ============================================================
+    // == Subscriptions
+    // ============================================================
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber sub = new Subscriber(userId, emitter, queueCapacity);
+
+        List<Subscriber> subs = subscribers.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>());
+        subs.add(sub);
+        // Too many tabs/devices: drop the oldest stream
+        while (subs.size() > maxStreamsPerUser) {
+            Subscriber oldest = subs.get(0);
+            remove(oldest);
+            oldest.emitter.complete();
+        }
+
+        emitter.onCompletion(() -> remove(sub));
+        emitter.onTimeout(() -> remove(sub));
+        emitter.onError(e -> remove(sub));
+
+        sub.offer(new LiveDeltaDTO(userId, "hello", null, null, null, LocalDateTime.now()));
+        return emitter;
+    }
+
+    public int connectedClients() {
+        return subscribers.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void remove(Subscriber sub) {
+        subscribers.computeIfPresent(sub.userId, (k, list) -> {
+            list.remove(sub);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /** Keeps idle connections alive through proxies and detects dead clients. */
+    @Scheduled(fixedDelayString = "${live.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (List<Subscriber> subs : subscribers.values()) {
+            for (Subscriber s : subs) s.ping();
+        }
+    }
+
+    // ============================================================
+    // == Subscriber (bounded queue + single in-flight drain)
+    // ============================================================
+
+    private final class Subscriber {
+        final Long userId;
+        final SseEmitter emitter;
+        final BlockingQueue<LiveDeltaDTO> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean overflowed = new AtomicBoolean();
+        final AtomicBoolean pingPending = new AtomicBoolean();
+
+        Subscriber(Long userId, SseEmitter emitter, int capacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(LiveDeltaDTO delta) {
+            if (!queue.offer(delta)) {
+                // Slow client: its backlog is worthless, tell it to refetch instead
+                queue.clear();
+                overflowed.set(true);
+            }
+            schedule();
+        }
+
+        void ping() {
+            pingPending.set(true);
+            schedule();
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        void drain() {
+            try {
+                if (overflowed.getAndSet(false)) {
+                    send(new LiveDeltaDTO(userId, "resync", null, null, null, LocalDateTime.now()));
+                }
+                if (pingPending.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+                LiveDeltaDTO d;
+                for (int i = 0; i < DRAIN_CHUNK && (d = queue.poll()) != null; i++) send(d);
+            } catch (IOException | IllegalStateException e) {
+                remove(this);
+                queue.clear();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // More arrived while sending (or chunk limit hit): go again without starving others
+            if (!queue.isEmpty() || overflowed.get() || pingPending.get()) schedule();
+        }
+
+        private void send(LiveDeltaDTO d) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(sequence.incrementAndGet()))
+                    .name(d.type())
+                    .data(d));
+        }
+    }
+}
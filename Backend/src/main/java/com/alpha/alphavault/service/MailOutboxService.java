@@ -0,0 +1,309 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: MailOutboxService — transactional outbox for outbound mail
+ *  Guarantees:
+ *    - enqueue() is one INSERT in the caller's transaction: the request
+ *      never waits on SMTP, and a rolled-back request sends nothing
+ *    - Drained after commit (and by a poll) by a bounded worker pool; each
+ *      worker sends its chunk over a single SMTP session
+ *    - Failures retry with exponential backoff + jitter; after
+ *      mail.outbox.max-attempts (or an undeliverable address) the row is
+ *      dead-lettered (status DEAD, last_error kept)
+ *    - Claims are leases (SKIP LOCKED): safe on several nodes, and rows of
+ *      a crashed worker are picked up again once the lease expires
+ *  Notes:
+ *    - Without spring.mail.host there is no JavaMailSender: messages are
+ *      logged and marked sent (local development)
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class MailOutboxService {
+
+    /** Published by enqueue(); handled after commit to wake the drain. */
+    public record MailEnqueued(long id) {}
+
+    private record Mail(long id, String to, String subject, String body, int attempts) {}
+
+    private final JdbcTemplate jdbc;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final ApplicationEventPublisher events;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @Value("${mail.from:no-reply@alphavault.app}")
+    private String from;
+
+    @Value("${mail.outbox.session-batch-size:50}")
+    private int sessionBatchSize;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${mail.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${mail.outbox.retention-days:7}")
+    private int retentionDays;
+
+    public MailOutboxService(JdbcTemplate jdbc,
+                             ObjectProvider<JavaMailSender> mailSender,
+                             ApplicationEventPublisher events,
+                             @Value("${mail.outbox.workers:2}") int workerCount) {
+        this.jdbc = jdbc;
+        this.mailSender = mailSender;
+        this.events = events;
+        this.workerCount = Math.max(1, workerCount);
+        this.coordinator = Executors.newSingleThreadExecutor(named("mail-outbox"));
+        this.workers = Executors.newFixedThreadPool(this.workerCount, named("mail-send"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // ============================================================
+    // == SQL
+    // ============================================================
+
+    private static final String INSERT = """
+        INSERT INTO mail_outbox (kind, to_address, subject, body) VALUES (?, ?, ?, ?)
+        RETURNING id
+        """;
+
+    /** Due rows, leased: the attempt is counted now, so a crash mid-send still advances it. */
+    private static final String CLAIM = """
+        WITH c AS (
+            SELECT id FROM mail_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= CURRENT_TIMESTAMP
+            ORDER BY next_attempt_at, id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        )
+        UPDATE mail_outbox m
+        SET attempts = m.attempts + 1,
+            next_attempt_at = CURRENT_TIMESTAMP + make_interval(secs => ?)
+        FROM c
+        WHERE m.id = c.id
+        RETURNING m.id, m.to_address, m.subject, m.body, m.attempts
+        """;
+
+    private static final String MARK_SENT = """
+        UPDATE mail_outbox SET status = 'SENT', sent_at = CURRENT_TIMESTAMP, last_error = NULL
+        WHERE id = ANY(CAST(? AS bigint[]))
+        """;
+
+    private static final String MARK_FAILED = """
+        UPDATE mail_outbox SET status = ?, next_attempt_at = ?, last_error = ?
+        WHERE id = ?
+        """;
+
+    private static final String PURGE_SENT = """
+        DELETE FROM mail_outbox WHERE status = 'SENT' AND sent_at < CURRENT_TIMESTAMP - make_interval(days => ?)
+        """;
+
+    // ============================================================
+    // == Enqueue (caller's transaction)
+    // ============================================================
+
+    /** Queues one message; it leaves after the surrounding transaction commits. */
+    public long enqueue(String kind, String to, String subject, String body) {
+        Long id = jdbc.queryForObject(INSERT, Long.class, kind, to, subject, body);
+        long mailId = Objects.requireNonNull(id);
+        events.publishEvent(new MailEnqueued(mailId));
+        return mailId;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommitted(MailEnqueued event) {
+        wake();
+    }
+
+    // ============================================================
+    // == Drain
+    // ============================================================
+
+    /** Safety net: retries coming due, rows left by other nodes or expired leases. */
+    @Scheduled(initialDelayString = "${mail.outbox.poll-interval-ms:5000}",
+               fixedDelayString = "${mail.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wake();
+    }
+
+    @Scheduled(cron = "${mail.outbox.purge.cron:0 45 3 * * *}")
+    public void purge() {
+        int n = jdbc.update(PURGE_SENT, retentionDays);
+        if (n > 0) log.info("Mail outbox: purged {} sent messages", n);
+    }
+
+    /** Starts one drain unless one is already running (coalesces bursts of enqueues). */
+    public void wake() {
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            coordinator.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                List<Mail> claimed = jdbc.query(CLAIM, (rs, i) -> new Mail(
+                        rs.getLong("id"), rs.getString("to_address"), rs.getString("subject"),
+                        rs.getString("body"), rs.getInt("attempts")),
+                        sessionBatchSize * workerCount, leaseSeconds);
+                if (claimed.isEmpty()) return;
+
+                List<Callable<Void>> sessions = new ArrayList<>();
+                for (int i = 0; i < claimed.size(); i += sessionBatchSize) {
+                    List<Mail> chunk = claimed.subList(i, Math.min(claimed.size(), i + sessionBatchSize));
+                    sessions.add(() -> {
+                        sendSession(chunk);
+                        return null;
+                    });
+                }
+                workers.invokeAll(sessions);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Mail outbox drain failed: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /** One SMTP connection for the whole chunk; per-message outcome recorded. */
+    private void sendSession(List<Mail> chunk) {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (sender == null) {
+            for (Mail m : chunk) {
+                log.info("Mail (no SMTP configured) to={} subject={}\n{}", m.to(), m.subject(), m.body());
+            }
+            markSent(chunk.stream().map(Mail::id).toList());
+            return;
+        }
+
+        Map<MimeMessage, Mail> byMessage = new IdentityHashMap<>();
+        for (Mail m : chunk) {
+            try {
+                MimeMessage mime = sender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(mime, "UTF-8");
+                helper.setFrom(from);
+                helper.setTo(m.to());
+                helper.setSubject(m.subject());
+                helper.setText(m.body(), false);
+                byMessage.put(mime, m);
+            } catch (MessagingException e) {
+                // Malformed address or content: retrying cannot help
+                deadLetter(m, e);
+            }
+        }
+        if (byMessage.isEmpty()) return;
+
+        Set<Mail> failed = new HashSet<>();
+        Exception cause = null;
+        try {
+            sender.send(byMessage.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            cause = e;
+            e.getFailedMessages().keySet().forEach(k -> {
+                Mail m = byMessage.get(k);
+                if (m != null) failed.add(m);
+            });
+            if (failed.isEmpty()) failed.addAll(byMessage.values());
+        } catch (MailException e) {
+            cause = e;
+            failed.addAll(byMessage.values());
+        }
+
+        List<Long> sent = new ArrayList<>();
+        for (Mail m : byMessage.values()) {
+            if (failed.contains(m)) retryLater(m, cause);
+            else sent.add(m.id());
+        }
+        markSent(sent);
+    }
+
+    // ============================================================
+    // == Outcomes
+    // ============================================================
+
+    private void markSent(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(MARK_SENT);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        });
+    }
+
+    private void retryLater(Mail m, Exception cause) {
+        if (m.attempts() >= maxAttempts) {
+            deadLetter(m, cause);
+            return;
+        }
+        // base * 2^(attempts-1), capped, +-20% jitter so a recovering SMTP server is not stampeded
+        long backoff = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(20, m.attempts() - 1));
+        long jittered = (long) (backoff * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        jdbc.update(MARK_FAILED, "PENDING", Timestamp.valueOf(LocalDateTime.now().plusSeconds(jittered)),
+                error(cause), m.id());
+    }
+
+    private void deadLetter(Mail m, Exception cause) {
+        log.warn("Mail {} to {} dead-lettered after {} attempts: {}", m.id(), m.to(), m.attempts(), error(cause));
+        jdbc.update(MARK_FAILED, "DEAD", Timestamp.valueOf(LocalDateTime.now()), error(cause), m.id());
+    }
+
+    private static String error(Exception e) {
+        String msg = e == null ? "unknown error" : e.getClass().getSimpleName() + ": " + e.getMessage();
+        return msg.length() > 1000 ? msg.substring(0, 1000) : msg;
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: ParallelReadService — fan-out of independent read queries
+ *  Guarantees:
+ *    - Branches run concurrently, each in its own read-only transaction:
+ *      a composite answer costs about its slowest query, not the sum
+ *    - Bounded by fanout.max-concurrency (DB connections are the real
+ *      limit): a branch that finds no free slot runs inline on the caller,
+ *      so a saturated pool degrades to the serial path, never to waiting
+ *    - A deadline per call (fanout.deadline-ms): it is also the branches'
+ *      transaction timeout, and an overrun answers 503 + Retry-After
+ *    - A call that gives up (deadline, failure, interrupt) cancels the forks
+ *      still out: running ones are interrupted, queued ones never start, and
+ *      each slot is returned exactly once
+ *    - Branch failures surface unchanged (domain exceptions keep their
+ *      status codes)
+ *  Notes:
+ *    - Virtual threads when the JVM has them (fanout.virtual-threads),
+ *      a fixed pool of max-concurrency platform threads otherwise
+ *    - Branches see the caller's SecurityContext and soft-delete view,
+ *      not its request object (which may be recycled after a timeout)
+ *    - Call from outside a transaction: a caller holding a connection
+ *      while its branches wait for theirs can starve the pool
+ *    - Metrics: alphavault.fanout.branch{name} timer,
+ *      alphavault.fanout.inline{name} and alphavault.fanout.deadline{name}
+ *      counters, executor.* (name=fanout) for the platform pool
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.config.SoftDeleteFilters;
+import com.alpha.alphavault.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class ParallelReadService {
+
+    private final ExecutorService executor;
+    private final Semaphore slots;
+    private final PlatformTransactionManager txManager;
+    private final MeterRegistry meters;
+    private final Duration defaultDeadline;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public ParallelReadService(PlatformTransactionManager txManager,
+                               MeterRegistry meters,
+                               @Value("${fanout.max-concurrency:4}") int maxConcurrency,
+                               @Value("${fanout.deadline-ms:5000}") long deadlineMs,
+                               @Value("${fanout.virtual-threads:true}") boolean virtualThreads) {
+        this.txManager = txManager;
+        this.meters = meters;
+        this.defaultDeadline = Duration.ofMillis(deadlineMs);
+        int size = Math.max(1, maxConcurrency);
+        this.slots = new Semaphore(size);
+
+        ExecutorService virtual = virtualThreads ? virtualThreadExecutor() : null;
+        if (virtual != null) {
+            this.executor = virtual;
+        } else {
+            AtomicInteger seq = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(size, r -> {
+                Thread t = new Thread(r, "fanout-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            new ExecutorServiceMetrics(executor, "fanout", List.of()).bindTo(meters);
+        }
+        log.info("Fan-out reads: {} slots on {} threads", size, virtual != null ? "virtual" : "platform");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ============================================================
+    // == Composition API
+    // ============================================================
+
+    /** Two independent reads, combined once both are in. */
+    public <A, B, R> R both(String name, Supplier<A> first, Supplier<B> second,
+                            BiFunction<? super A, ? super B, ? extends R> combine) {
+        List<Object> r = all(name, defaultDeadline, List.of(first::get, second::get));
+        @SuppressWarnings("unchecked") A a = (A) r.get(0);
+        @SuppressWarnings("unchecked") B b = (B) r.get(1);
+        return combine.apply(a, b);
+    }
+
+    /** Independent reads; results in branch order. */
+    public <T> List<T> all(String name, List<? extends Supplier<? extends T>> branches) {
+        return all(name, defaultDeadline, branches);
+    }
+
+    public <T> List<T> all(String name, Duration deadline, List<? extends Supplier<? extends T>> branches) {
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+        TransactionTemplate tx = readOnly(deadline);
+        boolean includeDeleted = SoftDeleteFilters.includeDeletedRequested();
+        SecurityContext security = SecurityContextHolder.getContext();
+
+        int n = branches.size();
+        List<Future<T>> results = new ArrayList<>(n);
+        try {
+            // No free slot: run it here, then try again for the next one (forks finish meanwhile).
+            // The last branch always stays on the caller: it would only be waiting otherwise.
+            for (int i = 0; i < n; i++) {
+                if (i < n - 1 && slots.tryAcquire()) {
+                    results.add(fork(name, branches.get(i), tx, includeDeleted, security));
+                    continue;
+                }
+                if (i < n - 1) counter("alphavault.fanout.inline", name).increment();
+                results.add(runInline(name, branches.get(i), tx, includeDeleted));
+            }
+
+            // A branch that already failed (inline ones, typically) answers now, not after the slow ones
+            for (Future<T> f : results) {
+                if (f.isDone()) await(name, f, deadlineAt);
+            }
+            List<T> out = new ArrayList<>(n);
+            for (Future<T> f : results) {
+                out.add(await(name, f, deadlineAt));
+            }
+            return out;
+        } catch (RuntimeException | Error e) {
+            // Nobody reads the other results: free their threads, slots and connections now
+            for (Future<T> f : results) f.cancel(true);
+            throw e;
+        }
+    }
+
+    // ============================================================
+    // == Internals
+    // ============================================================
+
+    /** Runs on the executor with a slot already taken; the slot goes back through the Fork. */
+    private <T> Future<T> fork(String name, Supplier<? extends T> branch, TransactionTemplate tx,
+                               boolean includeDeleted, SecurityContext security) {
+        Fork<T> f = new Fork<>(() -> {
+            SecurityContextHolder.setContext(security);
+            try {
+                return run(name, branch, tx, includeDeleted);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+        try {
+            executor.execute(f);
+            return f;
+        } catch (RejectedExecutionException e) { // shutting down
+            f.cancel(false);
+            return runInline(name, branch, tx, includeDeleted);
+        }
+    }
+
+    /**
+     * A forked branch holding one slot. Whoever claims it first releases the slot:
+     * the branch once it ran, or cancel() when it never started.
+     */
+    private final class Fork<T> extends FutureTask<T> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Fork(Callable<T> branch) {
+            super(branch);
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) return; // cancelled before it started
+            try {
+                super.run();
+            } finally {
+                slots.release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && claimed.compareAndSet(false, true)) slots.release();
+        }
+    }
+
+    private <T> CompletableFuture<T> runInline(String name, Supplier<? extends T> branch, TransactionTemplate tx,
+                                               boolean includeDeleted) {
+        try {
+            return CompletableFuture.completedFuture(run(name, branch, tx, includeDeleted));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T run(String name, Supplier<? extends T> branch, TransactionTemplate tx, boolean includeDeleted) {
+        Timer.Sample sample = Timer.start(meters);
+        try {
+            return tx.execute(s -> {
+                if (includeDeleted) SoftDeleteFilters.disable(em);
+                return branch.get();
+            });
+        } finally {
+            sample.stop(Timer.builder("alphavault.fanout.branch")
+                    .description("Fan-out read branches")
+                    .tag("name", name)
+                    .register(meters));
+        }
+    }
+
+    private <T> T await(String name, Future<T> f, long deadlineAt) {
+        try {
+            return f.get(Math.max(0, deadlineAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            counter("alphavault.fanout.deadline", name).increment();
+            throw new ServiceBusyException("The request took too long. Try again shortly.", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("The request was interrupted. Try again shortly.", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Joins the caller's transaction when run inline; a new one (with the deadline as timeout) on a fork. */
+    private TransactionTemplate readOnly(Duration deadline) {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        tx.setReadOnly(true);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        tx.setTimeout((int) Math.max(1, (deadline.toMillis() + 999) / 1000));
+        return tx;
+    }
+
+    private Counter counter(String metric, String name) {
+        return Counter.builder(metric).tag("name", name).register(meters);
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() on Java 21+, null before. */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
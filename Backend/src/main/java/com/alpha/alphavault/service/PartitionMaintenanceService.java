@@ -0,0 +1,134 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: PartitionMaintenanceService — time partitions upkeep (V7, V16)
+ *  Guarantees:
+ *    - Future partitions always exist ahead of the calendar; rows dated
+ *      beyond that horizon wait in DEFAULT and are moved into their range
+ *      when it is created (V16), so DEFAULT never blocks a new range
+ *    - Closed periods past the retention window are detached and moved
+ *      to the "archive" schema (off unless partitions.archive-after-months > 0)
+ *    - Weekly VACUUM (ANALYZE) only touches the hot partitions; closed
+ *      periods are frozen once and left alone
+ *  Notes:
+ *    - VACUUM cannot run inside a transaction: this class is deliberately
+ *      not @Transactional (JdbcTemplate runs in autocommit)
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class PartitionMaintenanceService {
+
+    /** Partitioned tables and their period; names follow ensure_time_partitions(). */
+    private record Partitioned(String table, String step) {
+        String partitionFor(LocalDate d) {
+            return table + "_" + d.format(DateTimeFormatter.ofPattern("month".equals(step) ? "yyyy_MM" : "yyyy"));
+        }
+
+        LocalDate previous(LocalDate d) {
+            return "month".equals(step) ? d.minusMonths(1) : d.minusYears(1);
+        }
+    }
+
+    private static final List<Partitioned> TABLES = List.of(
+            new Partitioned("expenses", "month"),
+            new Partitioned("incomes", "month"),
+            new Partitioned("debt_history", "year")
+    );
+
+    private final JdbcTemplate jdbc;
+    private final PeriodMetricsService periodMetrics;
+
+    @Value("${partitions.ahead:3}")
+    private int ahead;
+
+    /** 0 keeps every partition attached. */
+    @Value("${partitions.archive-after-months:0}")
+    private int archiveAfterMonths;
+
+    // ============================================================
+    // == Triggers
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureAhead();
+    }
+
+    @Scheduled(cron = "${partitions.maintenance.cron:0 30 3 * * SUN}")
+    public void weekly() {
+        ensureAhead();
+        archiveOld();
+        vacuumHot();
+    }
+
+    // ============================================================
+    // == Steps (each one isolated: a failure does not stop the next)
+    // ============================================================
+
+    public int ensureAhead() {
+        int created = 0;
+        for (Partitioned p : TABLES) {
+            try {
+                Integer n = jdbc.queryForObject("SELECT ensure_time_partitions(?, ?, ?, ?)", Integer.class,
+                        p.table(), Date.valueOf(LocalDate.now()), ahead + 1, p.step());
+                created += n != null ? n : 0;
+            } catch (Exception e) {
+                log.warn("Partition upkeep failed for {}: {}", p.table(), e.getMessage());
+            }
+        }
+        if (created > 0) log.info("Partitions: created {} future partitions", created);
+        return created;
+    }
+
+    public int archiveOld() {
+        if (archiveAfterMonths <= 0) return 0;
+        LocalDate before = LocalDate.now().withDayOfMonth(1).minusMonths(archiveAfterMonths);
+        int archived = 0;
+        for (Partitioned p : TABLES) {
+            try {
+                Integer n = jdbc.queryForObject("SELECT archive_time_partitions(?, ?)", Integer.class,
+                        p.table(), Date.valueOf(before));
+                archived += n != null ? n : 0;
+            } catch (Exception e) {
+                log.warn("Partition archive failed for {}: {}", p.table(), e.getMessage());
+            }
+        }
+        if (archived > 0) {
+            log.info("Partitions: archived {} partitions ending before {}", archived, before);
+            periodMetrics.invalidateAll(); // detached rows no longer count
+        }
+        return archived;
+    }
+
+    /** Current + previous period of each table: where all the churn (and the bloat) is. */
+    public void vacuumHot() {
+        LocalDate today = LocalDate.now();
+        for (Partitioned p : TABLES) {
+            for (String part : List.of(p.partitionFor(today), p.partitionFor(p.previous(today)), p.table() + "_default")) {
+                try {
+                    jdbc.execute("VACUUM (ANALYZE) " + part);
+                } catch (Exception e) {
+                    log.debug("Vacuum skipped for {}: {}", part, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: PasswordHashingService — password hashing off the request threads
+ *  Guarantees:
+ *    - Every hash/verify runs on a dedicated bounded pool
+ *      (security.password.threads, security.password.queue-capacity):
+ *      a login spike saturates this pool, not Tomcat's
+ *    - A full queue fails fast with ServiceBusyException (503 + Retry-After)
+ *      instead of piling up requests
+ *    - verify() also returns a fresh hash when the stored one uses an
+ *      outdated algorithm or cost, computed in the same task
+ *  Notes:
+ *    - Pool metrics: executor.* tagged name=password-hashing
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.exception.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    /** upgradedHash is non-null only for a match whose stored hash should be replaced. */
+    public record Verification(boolean matches, String upgradedHash) {}
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor workers;
+
+    public PasswordHashingService(PasswordEncoder encoder,
+                                  MeterRegistry meters,
+                                  @Value("${security.password.threads:0}") int threads,
+                                  @Value("${security.password.queue-capacity:64}") int queueCapacity) {
+        this.encoder = encoder;
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "password-hashing-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(workers, "password-hashing", List.of()).bindTo(meters);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // ============================================================
+    // == Async API (request thread released while hashing)
+    // ============================================================
+
+    public CompletableFuture<String> encodeAsync(String raw) {
+        return submit(() -> encoder.encode(raw));
+    }
+
+    public CompletableFuture<Verification> verifyAsync(String raw, String stored) {
+        return submit(() -> {
+            if (stored == null || !encoder.matches(raw, stored)) return new Verification(false, null);
+            return new Verification(true, encoder.upgradeEncoding(stored) ? encoder.encode(raw) : null);
+        });
+    }
+
+    // ============================================================
+    // == Blocking API (rare flows: register, change/reset password)
+    // ============================================================
+
+    public String encode(String raw) {
+        return join(encodeAsync(raw));
+    }
+
+    public boolean matches(String raw, String stored) {
+        return join(submit(() -> stored != null && encoder.matches(raw, stored)));
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, workers);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing pool saturated ({} queued)", workers.getQueue().size());
+            throw new ServiceBusyException("Too many sign-in attempts in progress. Try again shortly.", 1);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,726 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: PeriodMetricsService — dashboard metrics per user, in memory
+ *  Guarantees:
+ *    - Day, week, month and year sums (current and previous) of expenses
+ *      and incomes per user: a lookup is a map read plus one FX factor
+ *      per currency the user books in
+ *    - Top-K of the month (expenses, incomes) and of debts (by remaining
+ *      amount): bounded lists of metrics.top.max-k rows, read views are
+ *      prepared on change so a top-5 read allocates nothing
+ *    - Maintained by the writes themselves: after commit, the old row
+ *      (as it was before the change) is taken out of every window it
+ *      fell in and the new one added, so backdated edits stay exact
+ *    - A top list only claims what it knows: a row leaving it shrinks it,
+ *      and a read asking for more than is left refills it (one LIMIT query)
+ *    - Sums are kept per original currency and converted on read: FX
+ *      refreshes and preferredCurrency changes need no recomputation
+ *    - Anything built while a write to the same user is in flight is
+ *      served but not kept (it may or may not contain that write)
+ *  Notes:
+ *    - Built lazily with one query per user and metric, and again on the
+ *      first read of a new day / month (all periods start on a day
+ *      boundary); the rollover job only drops stale entries, least
+ *      recently used users beyond max-users are dropped
+ *    - Bulk writers (recurring batches, partition archiving) and debts
+ *      (payments are set-based SQL) invalidate instead of sending deltas
+ *    - Top lists rank raw amounts, like the queries they replace
+ *    - Writes made on other nodes are seen through metrics.period.cluster-sync:
+ *      cached users' data versions are polled and moved ones rebuilt (this
+ *      node's own writes included). "auto" (default) turns it on when the
+ *      deployment shares state across nodes (storage.type=s3 or
+ *      ratelimit.shared=jdbc); true/false force it
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.model.Expense;
+import com.alpha.alphavault.model.Income;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+public class PeriodMetricsService {
+
+    public enum Flow {
+        EXPENSE("expenses", "expense_date", "category", "EXPENSES"),
+        INCOME("incomes", "income_date", "source", "INCOMES");
+
+        private final String sumSql;
+        private final String topSql;
+        private final String labelKey;
+        private final String domain;
+
+        Flow(String table, String dateColumn, String labelColumn, String domain) {
+            this.sumSql = """
+                SELECT %2$s AS d, UPPER(currency) AS c, SUM(amount) AS s FROM %1$s
+                WHERE user_id = ? AND deleted_at IS NULL AND %2$s >= ? AND %2$s < ?
+                GROUP BY %2$s, UPPER(currency)
+                """.formatted(table, dateColumn);
+            this.topSql = """
+                SELECT id, %3$s AS label, amount, UPPER(currency) AS c, %2$s AS d FROM %1$s
+                WHERE user_id = ? AND deleted_at IS NULL AND %2$s >= ? AND %2$s < ?
+                ORDER BY amount DESC, id DESC LIMIT ?
+                """.formatted(table, dateColumn, labelColumn);
+            this.labelKey = labelColumn;
+            this.domain = domain;
+        }
+    }
+
+    public enum Period { DAY, WEEK, MONTH, YEAR }
+
+    /** Sums in the user's preferredCurrency. */
+    public record Comparison(double current, double previous) {}
+
+    /** What one row contributes: nothing (null) when it is soft-deleted or has no owner. */
+    public record Fact(Long id, Long userId, LocalDate date, String label, String currency, BigDecimal amount) {}
+
+    /** Rows in the label -> amount views (the historical top-5 shape). */
+    public static final int DEFAULT_TOP = 5;
+
+    /** Label-view key of rows without a category / source (a null map key cannot be serialized). */
+    public static final String NO_LABEL = "unspecified";
+
+    private static final int DEBTS = Flow.values().length; // tops[] index after the flows
+
+    private static final String VERSION = "SELECT version FROM user_data_versions WHERE user_id = ? AND domain = ?";
+    private static final String CURRENCY = "SELECT preferred_currency FROM users WHERE id = ?";
+    private static final String TOP_DEBTS = """
+        SELECT id, creditor_name, remaining_amount, due_date, status FROM debts
+        WHERE user_id = ? AND deleted_at IS NULL
+        ORDER BY remaining_amount DESC, id DESC LIMIT ?
+        """;
+    private static final String SYNC_VERSIONS = """
+        SELECT user_id, domain, version FROM user_data_versions
+        WHERE user_id = ANY(?) AND domain IN ('EXPENSES', 'INCOMES', 'DEBTS')
+        """;
+    private static final String SYNC_CURRENCIES = "SELECT id, preferred_currency FROM users WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readTx;
+    private final FxRateService fx;
+    private final int maxUsers;
+    private final int maxTop;
+    private final boolean clusterSync;
+    private final Counter hits;
+    private final Counter builds;
+
+    /** Access-ordered: iteration starts at the least recently used user. Guarded by itself. */
+    private final LinkedHashMap<Long, Slot> slots = new LinkedHashMap<>(256, 0.75f, true);
+
+    public PeriodMetricsService(JdbcTemplate jdbc,
+                                PlatformTransactionManager txManager,
+                                FxRateService fx,
+                                MeterRegistry meters,
+                                @Value("${metrics.period.max-users:10000}") int maxUsers,
+                                @Value("${metrics.top.max-k:20}") int maxTop,
+                                @Value("${metrics.period.cluster-sync:auto}") String clusterSync,
+                                @Value("${storage.type:local}") String storageType,
+                                @Value("${ratelimit.shared:}") String sharedRateLimit) {
+        this.jdbc = jdbc;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.fx = fx;
+        this.maxUsers = Math.max(1, maxUsers);
+        this.maxTop = Math.max(DEFAULT_TOP, maxTop);
+        this.clusterSync = switch (clusterSync.trim().toLowerCase(Locale.ROOT)) {
+            case "true" -> true;
+            case "false" -> false;
+            case "auto" -> "s3".equalsIgnoreCase(storageType.trim()) || "jdbc".equalsIgnoreCase(sharedRateLimit.trim());
+            default -> throw new IllegalArgumentException(
+                    "metrics.period.cluster-sync must be auto, true or false: " + clusterSync);
+        };
+        log.info("Period metrics: cluster sync {}", this.clusterSync ? "on" : "off");
+        this.hits = Counter.builder("alphavault.period_metrics.lookups").tag("result", "hit").register(meters);
+        this.builds = Counter.builder("alphavault.period_metrics.lookups").tag("result", "build").register(meters);
+    }
+
+    // ============================================================
+    // == Lookups
+    // ============================================================
+
+    public Comparison compare(Flow flow, Long userId, Period period) {
+        LocalDate today = LocalDate.now();
+        Slot slot = slot(userId);
+        Windows w;
+        String currency;
+        long stamp;
+        synchronized (slot) {
+            w = slot.flows[flow.ordinal()];
+            currency = slot.currency;
+            stamp = slot.pending > 0 ? -1 : slot.writes;
+            if (w != null && w.asOf.equals(today)) {
+                hits.increment();
+                return w.compare(period, currency, fx);
+            }
+        }
+        builds.increment();
+        Built b = build(flow, userId, today);
+        synchronized (slot) {
+            // Kept only if no write started or finished meanwhile
+            if (stamp >= 0 && slot.pending == 0 && slot.writes == stamp) {
+                slot.flows[flow.ordinal()] = b.windows();
+                slot.currency = b.currency();
+            }
+        }
+        return b.windows().compare(period, b.currency(), fx);
+    }
+
+    /** The k largest rows of the current month: id, label (category/source), amount, currency, date. */
+    public List<Map<String, Object>> top(Flow flow, Long userId, int k) {
+        checkK(k);
+        return top(userId, flow.ordinal(), k, id -> loadTop(flow, id), t -> t.rows(k));
+    }
+
+    /**
+     * The 5 largest rows of the month as label -> amount (a repeated label keeps the
+     * smaller amount, rows without one are listed under NO_LABEL).
+     */
+    public Map<String, Double> topByLabel(Flow flow, Long userId) {
+        return top(userId, flow.ordinal(), DEFAULT_TOP, id -> loadTop(flow, id), t -> t.byLabel);
+    }
+
+    /** Same as {@link #topByLabel} as rows of {labelKey, amount}. */
+    public List<Map<String, Object>> topByLabelRows(Flow flow, Long userId) {
+        return top(userId, flow.ordinal(), DEFAULT_TOP, id -> loadTop(flow, id), t -> t.byLabelRows);
+    }
+
+    /** The k debts with the largest remaining amount: id, creditor, remainingAmount, dueDate, status. */
+    public List<Map<String, Object>> topDebts(Long userId, int k) {
+        checkK(k);
+        return top(userId, DEBTS, k, this::loadTopDebts, t -> t.rows(k));
+    }
+
+    public int maxTop() {
+        return maxTop;
+    }
+
+    // ============================================================
+    // == Writes (applied after commit)
+    // ============================================================
+
+    public static Fact fact(Expense e) {
+        if (e == null || e.isDeleted() || e.getUser() == null) return null;
+        return fact(e.getId(), e.getUser().getId(), e.getExpenseDate(),
+                e.getCategory() != null ? e.getCategory().name() : null, e.getCurrency(), e.getAmount());
+    }
+
+    public static Fact fact(Income i) {
+        if (i == null || i.isDeleted() || i.getUser() == null) return null;
+        return fact(i.getId(), i.getUser().getId(), i.getIncomeDate(), i.getSource(), i.getCurrency(), i.getAmount());
+    }
+
+    private static Fact fact(Long id, Long userId, LocalDate date, String label, String currency, BigDecimal amount) {
+        if (id == null || userId == null || date == null || amount == null) return null;
+        return new Fact(id, userId, date, label, currency != null ? currency.toUpperCase(Locale.ROOT) : null, amount);
+    }
+
+    /**
+     * A row went from {@code before} to {@code after} (either may be null:
+     * created, deleted, restored). Call inside the writing transaction.
+     */
+    public void changed(Flow flow, Fact before, Fact after) {
+        if (before != null && before.equals(after)) return;
+        Set<Long> users = new LinkedHashSet<>(2);
+        if (before != null) users.add(before.userId());
+        if (after != null) users.add(after.userId());
+        afterCommit(users, s -> {
+            Fact out = before != null && before.userId().equals(s.userId) ? before : null;
+            Fact in = after != null && after.userId().equals(s.userId) ? after : null;
+            Windows w = s.flows[flow.ordinal()];
+            if (w != null) {
+                if (out != null) w.add(out, BigDecimal.ONE.negate());
+                if (in != null) w.add(in, BigDecimal.ONE);
+            }
+            Top t = s.tops[flow.ordinal()];
+            if (t != null) {
+                if (out != null && t.covers(out.date())) t.remove(out.id());
+                if (in != null && t.covers(in.date())) t.offer(ranked(flow, in));
+                t.refreshViews(flow.labelKey);
+            }
+        });
+    }
+
+    /** Rows of these users changed in bulk: their metrics are rebuilt on next read. */
+    public void invalidate(Flow flow, Collection<Long> userIds) {
+        afterCommit(userIds, s -> {
+            s.flows[flow.ordinal()] = null;
+            s.tops[flow.ordinal()] = null;
+        });
+    }
+
+    /** Debts of these users changed: their top list is reloaded on next read. */
+    public void debtsChanged(Collection<Long> userIds) {
+        afterCommit(userIds, s -> s.tops[DEBTS] = null);
+    }
+
+    public void currencyChanged(Long userId, String preferredCurrency) {
+        afterCommit(List.of(userId), s -> s.currency = preferredCurrency);
+    }
+
+    /** Rows left the tables outside any transaction (partition archiving). */
+    public void invalidateAll() {
+        synchronized (slots) {
+            for (Slot s : slots.values()) {
+                synchronized (s) {
+                    Arrays.fill(s.flows, null);
+                    Arrays.fill(s.tops, null);
+                    s.writes++;
+                }
+            }
+        }
+    }
+
+    // ============================================================
+    // == Scheduling
+    // ============================================================
+
+    /**
+     * A new day (and maybe week, month, year) began: windows and top lists of an
+     * older day / month are dropped (a read rebuilds them anyway, this only frees
+     * them), users left with nothing cached are removed. No queries.
+     */
+    @Scheduled(cron = "${metrics.period.rollover-cron:5 0 0 * * *}")
+    public void rollover() {
+        LocalDate today = LocalDate.now();
+        YearMonth month = YearMonth.from(today);
+        int dropped = 0;
+        synchronized (slots) {
+            Iterator<Slot> it = slots.values().iterator();
+            while (it.hasNext()) {
+                Slot s = it.next();
+                synchronized (s) {
+                    for (int i = 0; i < s.flows.length; i++) {
+                        if (s.flows[i] != null && !s.flows[i].asOf.equals(today)) {
+                            s.flows[i] = null;
+                            dropped++;
+                        }
+                    }
+                    for (int i = 0; i < s.tops.length; i++) {
+                        if (s.tops[i] != null && !s.tops[i].current(month)) {
+                            s.tops[i] = null;
+                            dropped++;
+                        }
+                    }
+                    if (s.idle()) it.remove();
+                }
+            }
+        }
+        if (dropped > 0) log.info("Period metrics: {} stale windows / top lists dropped for {}", dropped, today);
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.period.sync-ms:30000}", initialDelayString = "${metrics.period.sync-ms:30000}")
+    public void sync() {
+        if (!clusterSync) return;
+        Map<Long, Slot> cached = new HashMap<>();
+        for (Slot s : snapshot()) cached.put(s.userId, s);
+        if (cached.isEmpty()) return;
+        Long[] ids = cached.keySet().toArray(Long[]::new);
+
+        jdbc.query(con -> {
+            var ps = con.prepareStatement(SYNC_VERSIONS);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> {
+            Slot s = cached.get(rs.getLong("user_id"));
+            String domain = rs.getString("domain");
+            int i = "DEBTS".equals(domain) ? DEBTS : Flow.valueOf(domain.substring(0, domain.length() - 1)).ordinal();
+            long version = rs.getLong("version");
+            synchronized (s) {
+                boolean moved = false;
+                if (i < DEBTS && s.flows[i] != null && s.flows[i].version < version) {
+                    s.flows[i] = null;
+                    moved = true;
+                }
+                if (s.tops[i] != null && s.tops[i].version < version) {
+                    s.tops[i] = null;
+                    moved = true;
+                }
+                if (moved) s.writes++;
+            }
+        });
+        jdbc.query(con -> {
+            var ps = con.prepareStatement(SYNC_CURRENCIES);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> {
+            Slot s = cached.get(rs.getLong("id"));
+            String currency = rs.getString("preferred_currency");
+            synchronized (s) {
+                if (s.pending == 0 && !Objects.equals(s.currency, currency)) {
+                    s.currency = currency;
+                    s.writes++;
+                }
+            }
+        });
+    }
+
+    // ============================================================
+    // == Internals
+    // ============================================================
+
+    /** Per user: metrics plus the write bookkeeping that keeps them exact. Guarded by itself. */
+    private static final class Slot {
+        final Long userId;
+        final Windows[] flows = new Windows[Flow.values().length];
+        final Top[] tops = new Top[Flow.values().length + 1];
+        String currency;
+        int pending;  // writes registered, not yet completed
+        long writes;  // writes completed (or invalidations) so far
+
+        Slot(Long userId) {
+            this.userId = userId;
+        }
+
+        boolean idle() {
+            return pending == 0
+                    && Arrays.stream(flows).allMatch(Objects::isNull)
+                    && Arrays.stream(tops).allMatch(Objects::isNull);
+        }
+    }
+
+    private record Built(Windows windows, String currency) {}
+
+    /** Current and previous window of each period around one day; sums per currency. */
+    private static final class Windows {
+        final LocalDate asOf;
+        final long version;
+        final LocalDate[] start = new LocalDate[8];
+        final LocalDate[] end = new LocalDate[8];  // exclusive
+        @SuppressWarnings("unchecked")
+        final Map<String, BigDecimal>[] sums = new Map[8];
+
+        Windows(LocalDate asOf, long version) {
+            this.asOf = asOf;
+            this.version = version;
+            // Same boundaries as the period queries in ExpenseService / IncomeService
+            set(Period.DAY, asOf, asOf.plusDays(1), asOf.minusDays(1), asOf);
+            LocalDate lastWeek = asOf.minusWeeks(1);
+            set(Period.WEEK,
+                    asOf.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)),
+                    asOf.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)).plusDays(1),
+                    lastWeek.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)),
+                    lastWeek.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)).plusDays(1));
+            LocalDate lastMonth = asOf.minusMonths(1);
+            set(Period.MONTH,
+                    asOf.with(TemporalAdjusters.firstDayOfMonth()),
+                    asOf.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1),
+                    lastMonth.with(TemporalAdjusters.firstDayOfMonth()),
+                    lastMonth.with(TemporalAdjusters.lastDayOfMonth()).plusDays(1));
+            LocalDate lastYear = asOf.minusYears(1);
+            set(Period.YEAR,
+                    asOf.with(TemporalAdjusters.firstDayOfYear()),
+                    asOf.with(TemporalAdjusters.lastDayOfYear()).plusDays(1),
+                    lastYear.with(TemporalAdjusters.firstDayOfYear()),
+                    lastYear.with(TemporalAdjusters.lastDayOfYear()).plusDays(1));
+        }
+
+        private void set(Period p, LocalDate curStart, LocalDate curEnd, LocalDate prevStart, LocalDate prevEnd) {
+            int i = p.ordinal() * 2;
+            start[i] = curStart;
+            end[i] = curEnd;
+            start[i + 1] = prevStart;
+            end[i + 1] = prevEnd;
+            sums[i] = new HashMap<>(4);
+            sums[i + 1] = new HashMap<>(4);
+        }
+
+        LocalDate from() {
+            return Arrays.stream(start).min(Comparator.naturalOrder()).orElseThrow();
+        }
+
+        LocalDate to() {
+            return Arrays.stream(end).max(Comparator.naturalOrder()).orElseThrow();
+        }
+
+        /** Rows outside every window (old backdated edits, far future) change nothing. */
+        void add(Fact f, BigDecimal sign) {
+            add(f.date(), f.currency(), f.amount().multiply(sign));
+        }
+
+        void add(LocalDate date, String currency, BigDecimal amount) {
+            for (int i = 0; i < start.length; i++) {
+                if (!date.isBefore(start[i]) && date.isBefore(end[i])) {
+                    sums[i].merge(currency, amount, BigDecimal::add);
+                }
+            }
+        }
+
+        Comparison compare(Period p, String currency, FxRateService fx) {
+            int i = p.ordinal() * 2;
+            return new Comparison(total(sums[i], currency, fx), total(sums[i + 1], currency, fx));
+        }
+
+        private static double total(Map<String, BigDecimal> byCurrency, String to, FxRateService fx) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (Map.Entry<String, BigDecimal> e : byCurrency.entrySet()) {
+                total = total.add(e.getValue().multiply(fx.factor(e.getKey(), to), MathContext.DECIMAL64));
+            }
+            return total.doubleValue();
+        }
+    }
+
+    /** One row of a top list: rank key (amount, then id) and its prepared JSON row. */
+    private record Ranked(Long id, BigDecimal amount, String label, Map<String, Object> row) {}
+
+    private static final Comparator<Ranked> BEST_FIRST = Comparator
+            .comparing(Ranked::amount, Comparator.nullsFirst(Comparator.<BigDecimal>naturalOrder())).reversed()
+            .thenComparing(Ranked::id, Comparator.reverseOrder());
+
+    /**
+     * The best rows of a month (or of all time when month is null), best
+     * first. Invariant: every row not in the list ranks after its last
+     * element; complete = the list holds every row.
+     */
+    private static final class Top {
+        final YearMonth month;
+        final long version;
+        final int capacity;
+        final ArrayList<Ranked> ranked;
+        boolean complete;
+        // Read views, replaced (never mutated) on change
+        List<Map<String, Object>> rows;
+        Map<String, Double> byLabel;
+        List<Map<String, Object>> byLabelRows;
+
+        Top(YearMonth month, long version, int capacity, ArrayList<Ranked> ranked, String labelKey) {
+            this.month = month;
+            this.version = version;
+            this.capacity = capacity;
+            this.ranked = ranked;
+            this.complete = ranked.size() < capacity;
+            refreshViews(labelKey);
+        }
+
+        boolean current(YearMonth now) {
+            return month == null || month.equals(now);
+        }
+
+        boolean covers(LocalDate date) {
+            return month != null && month.equals(YearMonth.from(date));
+        }
+
+        boolean serves(int k) {
+            return complete || ranked.size() >= k;
+        }
+
+        List<Map<String, Object>> rows(int k) {
+            return k >= rows.size() ? rows : rows.subList(0, k);
+        }
+
+        void remove(Long id) {
+            ranked.removeIf(r -> r.id().equals(id));
+        }
+
+        /** Below the last element of an incomplete list it is unknown where a row ranks: left out. */
+        void offer(Ranked r) {
+            int at = Collections.binarySearch(ranked, r, BEST_FIRST);
+            if (at >= 0) return;
+            at = -at - 1;
+            if (!complete && at == ranked.size()) return;
+            ranked.add(at, r);
+            if (ranked.size() > capacity) {
+                ranked.remove(ranked.size() - 1);
+                complete = false;
+            }
+        }
+
+        void refreshViews(String labelKey) {
+            List<Map<String, Object>> all = new ArrayList<>(ranked.size());
+            for (Ranked r : ranked) all.add(r.row());
+            rows = Collections.unmodifiableList(all);
+            if (labelKey == null) return;
+
+            LinkedHashMap<String, Double> labels = new LinkedHashMap<>();
+            for (int i = 0; i < Math.min(DEFAULT_TOP, ranked.size()); i++) {
+                Ranked r = ranked.get(i);
+                labels.put(r.label() != null ? r.label() : NO_LABEL, r.amount().doubleValue());
+            }
+            List<Map<String, Object>> labelRows = new ArrayList<>(labels.size());
+            labels.forEach((label, amount) -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put(labelKey, label);
+                row.put("amount", amount);
+                labelRows.add(Collections.unmodifiableMap(row));
+            });
+            byLabel = Collections.unmodifiableMap(labels);
+            byLabelRows = Collections.unmodifiableList(labelRows);
+        }
+    }
+
+    private static Ranked ranked(Flow flow, Fact f) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", f.id());
+        row.put(flow.labelKey, f.label());
+        row.put("amount", f.amount().doubleValue());
+        row.put("currency", f.currency());
+        row.put("date", f.date());
+        return new Ranked(f.id(), f.amount(), f.label(), Collections.unmodifiableMap(row));
+    }
+
+    private void checkK(int k) {
+        if (k < 1 || k > maxTop) throw new IllegalArgumentException("k must be between 1 and " + maxTop);
+    }
+
+    /** Cached top list (refilled when it cannot serve k rows), seen through {@code view} under the slot lock. */
+    private <R> R top(Long userId, int index, int k, Function<Long, Top> load, Function<Top, R> view) {
+        YearMonth month = YearMonth.now();
+        Slot slot = slot(userId);
+        long stamp;
+        synchronized (slot) {
+            Top t = slot.tops[index];
+            stamp = slot.pending > 0 ? -1 : slot.writes;
+            if (t != null && t.current(month) && t.serves(k)) {
+                hits.increment();
+                return view.apply(t);
+            }
+        }
+        builds.increment();
+        Top t = load.apply(userId);
+        synchronized (slot) {
+            if (stamp >= 0 && slot.pending == 0 && slot.writes == stamp) slot.tops[index] = t;
+        }
+        return view.apply(t);
+    }
+
+    private Top loadTop(Flow flow, Long userId) {
+        YearMonth month = YearMonth.now();
+        return readTx.execute(status -> {
+            long version = version(userId, flow.domain);
+            ArrayList<Ranked> ranked = new ArrayList<>(maxTop);
+            jdbc.query(flow.topSql, rs -> {
+                ranked.add(ranked(flow, new Fact(rs.getLong("id"), userId, rs.getObject("d", LocalDate.class),
+                        rs.getString("label"), rs.getString("c"), rs.getBigDecimal("amount"))));
+            }, userId, Date.valueOf(month.atDay(1)), Date.valueOf(month.plusMonths(1).atDay(1)), maxTop);
+            return new Top(month, version, maxTop, ranked, flow.labelKey);
+        });
+    }
+
+    private Top loadTopDebts(Long userId) {
+        return readTx.execute(status -> {
+            long version = version(userId, "DEBTS");
+            ArrayList<Ranked> ranked = new ArrayList<>(maxTop);
+            jdbc.query(TOP_DEBTS, rs -> {
+                ranked.add(debtRow(rs));
+            }, userId, maxTop);
+            return new Top(null, version, maxTop, ranked, null);
+        });
+    }
+
+    private static Ranked debtRow(ResultSet rs) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", rs.getLong("id"));
+        row.put("creditor", rs.getString("creditor_name"));
+        row.put("remainingAmount", rs.getBigDecimal("remaining_amount"));
+        row.put("dueDate", rs.getObject("due_date", LocalDate.class));
+        row.put("status", rs.getString("status"));
+        return new Ranked(rs.getLong("id"), rs.getBigDecimal("remaining_amount"), null, Collections.unmodifiableMap(row));
+    }
+
+    private long version(Long userId, String domain) {
+        Long v = jdbc.query(VERSION, rs -> rs.next() ? rs.getLong(1) : 0L, userId, domain);
+        return v != null ? v : 0L;
+    }
+
+    private Built build(Flow flow, Long userId, LocalDate asOf) {
+        return readTx.execute(status -> {
+            // Version first: a write landing in between makes it older than the sums (rebuilt once more)
+            long version = version(userId, flow.domain);
+            String currency = jdbc.query(CURRENCY, rs -> rs.next() ? rs.getString(1) : null, userId);
+            Windows w = new Windows(asOf, version);
+            jdbc.query(flow.sumSql, rs -> {
+                w.add(rs.getObject("d", LocalDate.class), rs.getString("c"), rs.getBigDecimal("s"));
+            }, userId, Date.valueOf(w.from()), Date.valueOf(w.to()));
+            return new Built(w, currency);
+        });
+    }
+
+    /**
+     * Marks the users as written to now, and runs {@code onCommit} on their
+     * slots once the transaction committed (right away without one).
+     */
+    private void afterCommit(Collection<Long> userIds, Consumer<Slot> onCommit) {
+        if (userIds.isEmpty()) return;
+        List<Slot> touched = new ArrayList<>(userIds.size());
+        for (Long id : userIds) {
+            Slot s = slot(id);
+            synchronized (s) {
+                s.pending++;
+            }
+            touched.add(s);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(touched, onCommit);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                complete(touched, status == STATUS_COMMITTED ? onCommit : null);
+            }
+        });
+    }
+
+    private void complete(List<Slot> touched, Consumer<Slot> onCommit) {
+        for (Slot s : touched) {
+            synchronized (s) {
+                if (onCommit != null) onCommit.accept(s);
+                s.pending--;
+                s.writes++;
+            }
+            synchronized (slots) {
+                synchronized (s) {
+                    if (s.idle()) slots.remove(s.userId, s);
+                }
+            }
+        }
+    }
+
+    private Slot slot(Long userId) {
+        synchronized (slots) {
+            Slot s = slots.get(userId);
+            if (s != null) return s;
+            s = new Slot(userId);
+            slots.put(userId, s);
+            Iterator<Slot> it = slots.values().iterator();
+            while (slots.size() > maxUsers && it.hasNext()) {
+                Slot eldest = it.next();
+                synchronized (eldest) {
+                    if (eldest.pending > 0 || eldest == s) continue; // a write still needs it
+                }
+                it.remove();
+            }
+            return s;
+        }
+    }
+
+    private List<Slot> snapshot() {
+        synchronized (slots) {
+            return new ArrayList<>(slots.values());
+        }
+    }
+}
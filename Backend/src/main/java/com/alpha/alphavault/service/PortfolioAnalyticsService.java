@@ -0,0 +1,384 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: PortfolioAnalyticsService — allocation, P&L, risk metrics
+ *  Guarantees:
+ *    - Two queries per user (positions + price marks), one pass each
+ *    - Series math on primitive arrays aligned to a shared date axis
+ *    - Result cached per user until a position or mark changes; the
+ *      cache is LRU-bounded and dropped when the user is deleted
+ *    - Batch runs are capped at MAX_BATCH_USERS ids
+ *  Notes:
+ *    - TWR chains flow-adjusted period returns between marks
+ *    - MWR is the annualized XIRR of cost, proceeds and current value
+ *    - Amounts are converted into preferredCurrency with the cached FX
+ *      table (memory copy, no per-row calls); FX reloads bust the cache
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.investment.AllocationSliceDTO;
+import com.alpha.alphavault.dto.investment.PortfolioAnalyticsDTO;
+import com.alpha.alphavault.enums.InvestmentStatus;
+import com.alpha.alphavault.model.Investment;
+import com.alpha.alphavault.model.User;
+import com.alpha.alphavault.repository.InvestmentPriceHistoryRepository;
+import com.alpha.alphavault.repository.InvestmentRepository;
+import com.alpha.alphavault.repository.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class PortfolioAnalyticsService {
+
+    private static final double DAYS_PER_YEAR = 365d;
+    public static final int MAX_BATCH_USERS = 100;
+
+    private final InvestmentRepository investmentRepository;
+    private final InvestmentPriceHistoryRepository priceHistoryRepository;
+    private final UserRepository userRepository;
+    private final FxRateService fx;
+    private final ObjectProvider<PortfolioAnalyticsService> self; // proxied bean, keeps analyze() transactional
+    private final int maxCachedUsers;
+
+    /** Access-ordered LRU, guarded by itself. */
+    private final LinkedHashMap<Long, CachedResult> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedResult> eldest) {
+            return size() > maxCachedUsers;
+        }
+    };
+
+    private record CachedResult(String fingerprint, PortfolioAnalyticsDTO result) {}
+
+    public PortfolioAnalyticsService(InvestmentRepository investmentRepository,
+                                     InvestmentPriceHistoryRepository priceHistoryRepository,
+                                     UserRepository userRepository,
+                                     FxRateService fx,
+                                     ObjectProvider<PortfolioAnalyticsService> self,
+                                     @Value("${analytics.cache.max-users:1000}") int maxCachedUsers) {
+        this.investmentRepository = investmentRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.userRepository = userRepository;
+        this.fx = fx;
+        this.self = self;
+        this.maxCachedUsers = Math.max(1, maxCachedUsers);
+    }
+
+    // ============================================================
+    // == Public API
+    // ============================================================
+
+    @Transactional(readOnly = true)
+    public PortfolioAnalyticsDTO analyze(Long userId) {
+        String currency = userRepository.findById(userId).map(User::getPreferredCurrency).orElse(null);
+        String fingerprint = investmentRepository.analyticsFingerprint(userId) + "|" + currency + "|fx" + fx.version();
+        CachedResult hit;
+        synchronized (cache) {
+            hit = cache.get(userId);
+        }
+        if (hit != null && Objects.equals(hit.fingerprint(), fingerprint)) {
+            return hit.result();
+        }
+        PortfolioAnalyticsDTO result = compute(userId, currency);
+        synchronized (cache) {
+            cache.put(userId, new CachedResult(fingerprint, result));
+        }
+        return result;
+    }
+
+    /**
+     * Batch run (reports, cache warm-up); users are independent, so run them in parallel.
+     * Each user goes through the proxy so it gets its own read-only transaction.
+     */
+    public Map<Long, PortfolioAnalyticsDTO> analyzeAll(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > MAX_BATCH_USERS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_USERS + " users per batch");
+        }
+        PortfolioAnalyticsService bean = self.getObject();
+        return ids.parallelStream()
+                .collect(Collectors.toConcurrentMap(id -> id, bean::analyze));
+    }
+
+    /** Drops the cached result of a user (called when the user is deleted). */
+    public void evict(Long userId) {
+        synchronized (cache) {
+            cache.remove(userId);
+        }
+    }
+
+    int cachedUsers() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // ============================================================
+    // == Computation
+    // ============================================================
+
+    private PortfolioAnalyticsDTO compute(Long userId, String currency) {
+        LocalDate today = LocalDate.now();
+        List<Investment> positions = investmentRepository.findByUserId(userId);
+        int n = positions.size();
+
+        // ---- Pass 1: totals, allocation, cash flows for XIRR ----
+        BigDecimal invested = BigDecimal.ZERO;
+        BigDecimal current = BigDecimal.ZERO;
+        BigDecimal unrealized = BigDecimal.ZERO;
+        BigDecimal realized = BigDecimal.ZERO;
+        Map<String, BigDecimal> byType = new HashMap<>();
+        Map<String, BigDecimal> byRisk = new HashMap<>();
+        Map<String, BigDecimal> byCurrency = new HashMap<>();
+        double[] factor = new double[n];
+        double[] flowAmount = new double[n * 2];
+        long[] flowDay = new long[n * 2];
+        int flows = 0;
+        int open = 0;
+
+        for (int p = 0; p < n; p++) {
+            Investment inv = positions.get(p);
+            BigDecimal f = fx.factor(inv.getCurrency(), currency);
+            factor[p] = f.doubleValue();
+            BigDecimal cost = nz(inv.getAmountInvested()).add(nz(inv.getFees())).multiply(f);
+            invested = invested.add(nz(inv.getAmountInvested()).multiply(f));
+            flowAmount[flows] = -cost.doubleValue();
+            flowDay[flows++] = inv.getStartDate().toEpochDay();
+
+            if (inv.getStatus() == InvestmentStatus.OPEN) {
+                open++;
+                BigDecimal value = (inv.getCurrentValue() != null ? inv.getCurrentValue() : nz(inv.getAmountInvested())).multiply(f);
+                current = current.add(value);
+                unrealized = unrealized.add(inv.getUnrealizedPnl().multiply(f));
+                byType.merge(inv.getInvestmentType().toJson(), value, BigDecimal::add);
+                byRisk.merge(inv.getRiskLevel() != null ? inv.getRiskLevel().toJson() : "unspecified", value, BigDecimal::add);
+                byCurrency.merge(inv.getCurrency() != null ? inv.getCurrency() : "N/A", value, BigDecimal::add);
+                flowAmount[flows] = value.doubleValue();
+                flowDay[flows++] = today.toEpochDay();
+            } else {
+                realized = realized.add(inv.getRealizedPnl().multiply(f));
+                if (inv.getSoldValue() != null) {
+                    flowAmount[flows] = inv.getSoldValue().doubleValue() * factor[p];
+                    flowDay[flows++] = (inv.getSoldDate() != null ? inv.getSoldDate() : today).toEpochDay();
+                }
+            }
+        }
+
+        BigDecimal roi = invested.signum() == 0 ? BigDecimal.ZERO
+                : unrealized.add(realized).multiply(BigDecimal.valueOf(100)).divide(invested, 4, RoundingMode.HALF_UP);
+
+        // ---- Pass 2: value series on a shared date axis ----
+        Series series = buildSeries(positions, factor, priceHistoryRepository.findSeriesByUser(userId), today);
+        Risk risk = risk(series);
+        Double xirr = xirr(flowAmount, flowDay, flows);
+
+        return new PortfolioAnalyticsDTO(
+                userId,
+                currency,
+                n,
+                open,
+                scale4(invested),
+                scale4(current),
+                scale4(unrealized),
+                scale4(realized),
+                roi,
+                slices(byType, current),
+                slices(byRisk, current),
+                slices(byCurrency, current),
+                percent(risk.twr),
+                percent(xirr),
+                percent(risk.volatility),
+                percent(risk.maxDrawdown),
+                series.axis.length,
+                series.axis.length > 0 ? LocalDate.ofEpochDay(series.axis[0]) : null,
+                series.axis.length > 0 ? LocalDate.ofEpochDay(series.axis[series.axis.length - 1]) : null,
+                LocalDateTime.now()
+        );
+    }
+
+    /** value[t] = portfolio value on axis[t]; flow[t] = external money in (+) / out (-) that day. */
+    private record Series(long[] axis, double[] value, double[] flow) {}
+
+    private static Series buildSeries(List<Investment> positions, double[] factor, List<Object[]> rows, LocalDate today) {
+        // Marks as primitive columns, grouped by investment (rows are ordered by id, date)
+        int m = rows.size();
+        long[] markDay = new long[m];
+        double[] markValue = new double[m];
+        Map<Long, int[]> ranges = new HashMap<>();
+        for (int i = 0; i < m; i++) {
+            Object[] r = rows.get(i);
+            Long invId = (Long) r[0];
+            markDay[i] = ((LocalDate) r[1]).toEpochDay();
+            markValue[i] = ((BigDecimal) r[2]).doubleValue();
+            int idx = i;
+            ranges.compute(invId, (k, v) -> v == null ? new int[]{idx, idx + 1} : new int[]{v[0], idx + 1});
+        }
+
+        // Date axis: every mark, open, close, and today
+        long[] days = new long[m + positions.size() * 2 + 1];
+        int d = 0;
+        for (long day : markDay) days[d++] = day;
+        for (Investment inv : positions) {
+            days[d++] = inv.getStartDate().toEpochDay();
+            if (inv.getStatus() == InvestmentStatus.CLOSED) days[d++] = endDay(inv, today);
+        }
+        days[d++] = today.toEpochDay();
+        long[] axis = Arrays.stream(days, 0, d).sorted().distinct().toArray();
+
+        int t = axis.length;
+        double[] value = new double[t];
+        double[] flow = new double[t];
+        for (int p = 0; p < positions.size(); p++) {
+            Investment inv = positions.get(p);
+            double f = factor[p];
+            int s = Arrays.binarySearch(axis, inv.getStartDate().toEpochDay());
+            boolean closed = inv.getStatus() == InvestmentStatus.CLOSED;
+            int e = closed ? Math.max(s, Arrays.binarySearch(axis, endDay(inv, today))) : t;
+
+            double mark = nz(inv.getAmountInvested()).doubleValue();
+            int[] range = ranges.get(inv.getId());
+            int k = range != null ? range[0] : 0;
+            int kEnd = range != null ? range[1] : 0;
+            for (int i = s; i < e; i++) {
+                while (k < kEnd && markDay[k] <= axis[i]) mark = markValue[k++];
+                value[i] += mark * f;
+            }
+            flow[s] += nz(inv.getAmountInvested()).add(nz(inv.getFees())).doubleValue() * f;
+            if (closed && e < t && inv.getSoldValue() != null) flow[e] -= inv.getSoldValue().doubleValue() * f;
+        }
+        return new Series(axis, value, flow);
+    }
+
+    private static long endDay(Investment inv, LocalDate today) {
+        return (inv.getSoldDate() != null ? inv.getSoldDate() : today).toEpochDay();
+    }
+
+    private record Risk(Double twr, Double volatility, Double maxDrawdown) {}
+
+    private static Risk risk(Series s) {
+        long[] axis = s.axis();
+        double[] value = s.value();
+        double[] flow = s.flow();
+        double[] returns = new double[axis.length];
+        int r = 0;
+        double wealth = 1d;
+        double peak = 1d;
+        double maxDd = 0d;
+        long firstDay = -1;
+
+        for (int i = 1; i < axis.length; i++) {
+            if (value[i - 1] <= 0d) continue;
+            double ret = (value[i] - flow[i]) / value[i - 1] - 1d;
+            if (firstDay < 0) firstDay = axis[i - 1];
+            returns[r++] = ret;
+            wealth *= 1d + ret;
+            peak = Math.max(peak, wealth);
+            maxDd = Math.max(maxDd, 1d - wealth / peak);
+        }
+        if (r == 0) return new Risk(null, null, null);
+
+        Double vol = null;
+        double spanYears = (axis[axis.length - 1] - firstDay) / DAYS_PER_YEAR;
+        if (r >= 2 && spanYears > 0d) {
+            double mean = 0d;
+            for (int i = 0; i < r; i++) mean += returns[i];
+            mean /= r;
+            double var = 0d;
+            for (int i = 0; i < r; i++) var += (returns[i] - mean) * (returns[i] - mean);
+            var /= (r - 1);
+            vol = Math.sqrt(var) * Math.sqrt(r / spanYears);
+        }
+        return new Risk(wealth - 1d, vol, maxDd);
+    }
+
+    /** Annualized IRR of dated flows; Newton first, bisection as fallback. Null if undefined. */
+    private static Double xirr(double[] amount, long[] day, int n) {
+        boolean pos = false, neg = false;
+        for (int i = 0; i < n; i++) {
+            if (amount[i] > 0) pos = true;
+            if (amount[i] < 0) neg = true;
+        }
+        if (!pos || !neg) return null;
+
+        long t0 = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) t0 = Math.min(t0, day[i]);
+        double[] years = new double[n];
+        for (int i = 0; i < n; i++) years[i] = (day[i] - t0) / DAYS_PER_YEAR;
+
+        double rate = 0.1d;
+        for (int iter = 0; iter < 50; iter++) {
+            double f = 0d, df = 0d;
+            for (int i = 0; i < n; i++) {
+                double disc = Math.pow(1d + rate, years[i]);
+                f += amount[i] / disc;
+                df -= years[i] * amount[i] / (disc * (1d + rate));
+            }
+            if (Math.abs(f) < 1e-7) return rate;
+            if (df == 0d || !Double.isFinite(df)) break;
+            double next = rate - f / df;
+            if (!Double.isFinite(next) || next <= -0.9999d) break;
+            if (Math.abs(next - rate) < 1e-10) return next;
+            rate = next;
+        }
+
+        double lo = -0.9999d, hi = 10d;
+        double fLo = npv(amount, years, n, lo), fHi = npv(amount, years, n, hi);
+        if (fLo * fHi > 0d) return null;
+        for (int iter = 0; iter < 200; iter++) {
+            double mid = (lo + hi) / 2d;
+            double fMid = npv(amount, years, n, mid);
+            if (Math.abs(fMid) < 1e-7 || hi - lo < 1e-10) return mid;
+            if (fLo * fMid < 0d) {
+                hi = mid;
+            } else {
+                lo = mid;
+                fLo = fMid;
+            }
+        }
+        return (lo + hi) / 2d;
+    }
+
+    private static double npv(double[] amount, double[] years, int n, double rate) {
+        double f = 0d;
+        for (int i = 0; i < n; i++) f += amount[i] / Math.pow(1d + rate, years[i]);
+        return f;
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    private static Map<String, AllocationSliceDTO> slices(Map<String, BigDecimal> buckets, BigDecimal total) {
+        Map<String, AllocationSliceDTO> out = new LinkedHashMap<>();
+        buckets.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                .forEach(e -> out.put(e.getKey(), new AllocationSliceDTO(
+                        scale4(e.getValue()),
+                        total.signum() == 0 ? BigDecimal.ZERO
+                                : e.getValue().multiply(BigDecimal.valueOf(100)).divide(total, 4, RoundingMode.HALF_UP))));
+        return out;
+    }
+
+    private static BigDecimal percent(Double fraction) {
+        if (fraction == null || !Double.isFinite(fraction)) return null;
+        return BigDecimal.valueOf(fraction * 100d).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal scale4(BigDecimal v) {
+        return v.setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal nz(BigDecimal v) {
+        return v == null ? BigDecimal.ZERO : v;
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: RecurringTransactionScheduler — materializes due templates
+ *  Guarantees:
+ *    - Idempotent: every occurrence carries "rt:<templateId>:<date>" in a
+ *      recurrence_key column, unique with the (partition) date, and is
+ *      inserted ON CONFLICT DO NOTHING
+ *    - Catch-up: all occurrences between next_run_date and today are
+ *      produced (capped per template per run; the rest follows next run)
+ *    - Users are split into MOD(user_id, N) partitions walked in parallel;
+ *      rows are claimed FOR UPDATE SKIP LOCKED so several nodes can share
+ *    - Budgets are booked through the ledger in the batch transaction
+ *      (one statement per batch); one budget delta per touched budget
+ *    - Connected clients get one "recurring" delta per user per run
+ *  Notes:
+ *    - One transaction per batch: one SELECT, one INSERT per kind
+ *      (unnest arrays) and one UPDATE, independent of batch size
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.recurring.RecurringRunResultDTO;
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.alpha.alphavault.service.PeriodMetricsService.Flow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RecurringTransactionScheduler {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final BudgetService budgetService;
+    private final LedgerService ledger;
+    private final LiveUpdateService live;
+    private final PeriodMetricsService periodMetrics;
+
+    @Value("${recurring.partitions:4}")
+    private int partitions;
+
+    @Value("${recurring.batch-size:1000}")
+    private int batchSize;
+
+    /** Max occurrences materialized per template in one run (long outages finish over several runs). */
+    @Value("${recurring.max-catch-up:400}")
+    private int maxCatchUp;
+
+    @Value("${recurring.catch-up-on-startup:true}")
+    private boolean catchUpOnStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // ============================================================
+    // == Triggers
+    // ============================================================
+
+    @Scheduled(cron = "${recurring.cron:0 5 0 * * *}")
+    public void scheduledRun() {
+        runSafely();
+    }
+
+    /** Downtime catch-up: anything that fell due while the app was down. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (catchUpOnStartup) CompletableFuture.runAsync(this::runSafely);
+    }
+
+    private void runSafely() {
+        try {
+            RecurringRunResultDTO r = run(LocalDate.now());
+            log.info("Recurring run: templates={} generated={} inserted={} budgetsSynced={} in {} ms",
+                    r.templates(), r.generated(), r.inserted(), r.budgetsSynced(), r.elapsedMs());
+        } catch (IllegalStateException e) {
+            log.info("Recurring run skipped: {}", e.getMessage());
+        } catch (Exception e) {
+            log.warn("Recurring run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /** Materializes every occurrence due on or before {@code asOf}. */
+    public RecurringRunResultDTO run(LocalDate asOf) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("a recurring run is already in progress");
+        }
+        long t0 = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(partitions, namedThreads());
+        try {
+            Stats stats = new Stats();
+            List<CompletableFuture<Void>> jobs = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int part = p;
+                jobs.add(CompletableFuture.runAsync(() -> runPartition(part, asOf, stats), pool));
+            }
+            CompletableFuture.allOf(jobs.toArray(CompletableFuture[]::new)).join();
+
+            int synced = stats.affectedBudgets.size();
+            budgetService.publishTotals(stats.affectedBudgets);
+            stats.insertedByUser.forEach((userId, count) -> live.publish(userId, "recurring", "materialized", null,
+                    LiveUpdateService.fields("asOf", asOf, "inserted", count.get())));
+            return new RecurringRunResultDTO(asOf, stats.templates.get(), stats.generated.get(),
+                    stats.inserted.get(), synced, (System.nanoTime() - t0) / 1_000_000);
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    // ============================================================
+    // == Partition / batch processing
+    // ============================================================
+
+    private static final class Stats {
+        final AtomicLong templates = new AtomicLong();
+        final AtomicLong generated = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final Set<Long> affectedBudgets = ConcurrentHashMap.newKeySet();
+        final Map<Long, AtomicInteger> insertedByUser = new ConcurrentHashMap<>();
+
+        void countInserted(long userId) {
+            insertedByUser.computeIfAbsent(userId, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    private record Template(long id, long userId, String kind, RecurrenceType recurrence, BigDecimal amount,
+                            String currency, String category, String source, String paymentMethod,
+                            String description, LocalDate startDate, LocalDate endDate, int occurrences) {}
+
+    private static final String SELECT_DUE = """
+        SELECT id, user_id, kind, recurrence, amount, currency, category, source,
+               payment_method, description, start_date, end_date, occurrences
+        FROM recurring_transactions
+        WHERE active AND next_run_date <= ? AND id > ? AND MOD(user_id, ?) = ?
+        ORDER BY id
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+        """;
+
+    private void runPartition(int part, LocalDate asOf, Stats stats) {
+        long lastId = 0;
+        while (true) {
+            long from = lastId;
+            Long next = tx.execute(status -> processBatch(part, asOf, from, stats));
+            if (next == null) return;
+            lastId = next;
+        }
+    }
+
+    /** Returns the last id of the batch, or null when the partition is exhausted. */
+    private Long processBatch(int part, LocalDate asOf, long afterId, Stats stats) {
+        List<Template> due = jdbc.query(SELECT_DUE, (rs, i) -> new Template(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("kind"),
+                RecurrenceType.valueOf(rs.getString("recurrence")),
+                rs.getBigDecimal("amount"),
+                rs.getString("currency"),
+                rs.getString("category"),
+                rs.getString("source"),
+                rs.getString("payment_method"),
+                rs.getString("description"),
+                rs.getObject("start_date", LocalDate.class),
+                rs.getObject("end_date", LocalDate.class),
+                rs.getInt("occurrences")
+        ), Date.valueOf(asOf), afterId, partitions, part, batchSize);
+        if (due.isEmpty()) return null;
+
+        Columns expenses = new Columns(due.size());
+        Columns incomes = new Columns(due.size());
+        Object[][] advance = new Object[5][due.size()];
+
+        for (int i = 0; i < due.size(); i++) {
+            Template t = due.get(i);
+            Columns out = "EXPENSE".equals(t.kind()) ? expenses : incomes;
+            int n = t.occurrences();
+            LocalDate last = null;
+            LocalDate d = t.recurrence().advance(t.startDate(), n);
+            while (n - t.occurrences() < maxCatchUp && !d.isAfter(asOf)
+                    && (t.endDate() == null || !d.isAfter(t.endDate()))) {
+                out.add(t, d);
+                last = d;
+                d = t.recurrence().advance(t.startDate(), ++n);
+            }
+            advance[0][i] = t.id();
+            advance[1][i] = n;
+            advance[2][i] = d.toString();
+            advance[3][i] = last != null ? last.toString() : null;
+            advance[4][i] = t.endDate() == null || !d.isAfter(t.endDate());
+            stats.generated.addAndGet(n - t.occurrences());
+        }
+
+        stats.inserted.addAndGet(insertExpenses(expenses, stats));
+        stats.inserted.addAndGet(insertIncomes(incomes, stats));
+        advanceTemplates(advance);
+        stats.templates.addAndGet(due.size());
+        return due.get(due.size() - 1).id();
+    }
+
+    // ============================================================
+    // == Set-based SQL (one statement per batch and kind)
+    // ============================================================
+
+    /** Column-wise buffer of occurrences for one unnest() insert. */
+    private static final class Columns {
+        final List<Long> userId;
+        final List<String> label;       // category (expense) / source (income)
+        final List<BigDecimal> amount;
+        final List<String> currency;
+        final List<String> date;
+        final List<String> paymentMethod;
+        final List<String> description;
+        final List<String> key;
+
+        Columns(int capacity) {
+            userId = new ArrayList<>(capacity);
+            label = new ArrayList<>(capacity);
+            amount = new ArrayList<>(capacity);
+            currency = new ArrayList<>(capacity);
+            date = new ArrayList<>(capacity);
+            paymentMethod = new ArrayList<>(capacity);
+            description = new ArrayList<>(capacity);
+            key = new ArrayList<>(capacity);
+        }
+
+        void add(Template t, LocalDate d) {
+            userId.add(t.userId());
+            label.add("EXPENSE".equals(t.kind()) ? t.category() : t.source());
+            amount.add(t.amount());
+            currency.add(t.currency());
+            date.add(d.toString());
+            paymentMethod.add(t.paymentMethod());
+            description.add(t.description());
+            key.add("rt:" + t.id() + ":" + d);
+        }
+
+        boolean isEmpty() {
+            return key.isEmpty();
+        }
+    }
+
+    private static final String INSERT_EXPENSES = """
+        INSERT INTO expenses (user_id, category, amount, currency, expense_date, payment_method,
+                              description, recurrence_key, version, created_at, updated_at)
+        SELECT t.user_id, t.category, t.amount, t.currency, t.expense_date, t.payment_method,
+               t.description, t.recurrence_key, 0, ?, ?
+        FROM unnest(CAST(? AS bigint[]), CAST(? AS text[]), CAST(? AS numeric[]), CAST(? AS text[]),
+                    CAST(? AS date[]), CAST(? AS text[]), CAST(? AS text[]), CAST(? AS text[]))
+             AS t(user_id, category, amount, currency, expense_date, payment_method, description, recurrence_key)
+        ON CONFLICT (recurrence_key, expense_date) DO NOTHING
+        RETURNING id, user_id
+        """;
+
+    private static final String INSERT_INCOMES = """
+        INSERT INTO incomes (user_id, source, amount, currency, income_date, payment_method,
+                             description, recurrence_key, received, version, created_at, updated_at)
+        SELECT t.user_id, t.source, t.amount, t.currency, t.income_date, t.payment_method,
+               t.description, t.recurrence_key, true, 0, ?, ?
+        FROM unnest(CAST(? AS bigint[]), CAST(? AS text[]), CAST(? AS numeric[]), CAST(? AS text[]),
+                    CAST(? AS date[]), CAST(? AS text[]), CAST(? AS text[]), CAST(? AS text[]))
+             AS t(user_id, source, amount, currency, income_date, payment_method, description, recurrence_key)
+        ON CONFLICT (recurrence_key, income_date) DO NOTHING
+        RETURNING user_id
+        """;
+
+    private static final String ADVANCE_TEMPLATES = """
+        UPDATE recurring_transactions r
+        SET occurrences = t.occurrences,
+            next_run_date = t.next_run_date,
+            last_run_date = COALESCE(t.last_run_date, r.last_run_date),
+            active = t.active,
+            version = COALESCE(r.version, 0) + 1,
+            updated_at = CURRENT_TIMESTAMP
+        FROM unnest(CAST(? AS bigint[]), CAST(? AS int[]), CAST(? AS date[]), CAST(? AS date[]), CAST(? AS boolean[]))
+             AS t(id, occurrences, next_run_date, last_run_date, active)
+        WHERE r.id = t.id
+        """;
+
+    private int insertExpenses(Columns c, Stats stats) {
+        if (c.isEmpty()) return 0;
+        List<Long> ids = new ArrayList<>();
+        Set<Long> users = new HashSet<>();
+        jdbc.query(con -> bindOccurrences(con, INSERT_EXPENSES, c), rs -> {
+            ids.add(rs.getLong(1));
+            users.add(rs.getLong(2));
+            stats.countInserted(rs.getLong(2));
+        });
+        stats.affectedBudgets.addAll(ledger.bookExpenses(ids));
+        periodMetrics.invalidate(Flow.EXPENSE, users);
+        return ids.size();
+    }
+
+    private int insertIncomes(Columns c, Stats stats) {
+        if (c.isEmpty()) return 0;
+        List<Long> users = jdbc.query(con -> bindOccurrences(con, INSERT_INCOMES, c), (rs, i) -> rs.getLong(1));
+        users.forEach(stats::countInserted);
+        periodMetrics.invalidate(Flow.INCOME, new HashSet<>(users));
+        return users.size();
+    }
+
+    private void advanceTemplates(Object[][] cols) {
+        jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(ADVANCE_TEMPLATES);
+            ps.setArray(1, con.createArrayOf("bigint", cols[0]));
+            ps.setArray(2, con.createArrayOf("int4", cols[1]));
+            ps.setArray(3, con.createArrayOf("text", cols[2]));
+            ps.setArray(4, con.createArrayOf("text", cols[3]));
+            ps.setArray(5, con.createArrayOf("bool", cols[4]));
+            return ps;
+        });
+    }
+
+    private static PreparedStatement bindOccurrences(Connection con, String sql, Columns c) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        PreparedStatement ps = con.prepareStatement(sql);
+        ps.setTimestamp(1, now);
+        ps.setTimestamp(2, now);
+        ps.setArray(3, con.createArrayOf("bigint", c.userId.toArray()));
+        ps.setArray(4, con.createArrayOf("text", c.label.toArray()));
+        ps.setArray(5, con.createArrayOf("numeric", c.amount.toArray()));
+        ps.setArray(6, con.createArrayOf("text", c.currency.toArray()));
+        ps.setArray(7, con.createArrayOf("text", c.date.toArray()));
+        ps.setArray(8, con.createArrayOf("text", c.paymentMethod.toArray()));
+        ps.setArray(9, con.createArrayOf("text", c.description.toArray()));
+        ps.setArray(10, con.createArrayOf("text", c.key.toArray()));
+        return ps;
+    }
+
+    private static ThreadFactory namedThreads() {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "recurring-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: RecurringTransactionService — template CRUD + pause/resume
+ *  Guarantees:
+ *    - kind is immutable; category (expense) / source (income) enforced
+ *    - Re-anchoring (new start/recurrence) never replays dates that were
+ *      already materialized (everything <= lastRunDate is skipped)
+ *    - Resume skips the paused period instead of back-filling it
+ *  Notes:
+ *    - Materialization itself lives in RecurringTransactionScheduler
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.recurring.RecurringTransactionRequestDTO;
+import com.alpha.alphavault.dto.recurring.RecurringTransactionResponseDTO;
+import com.alpha.alphavault.enums.TransactionKind;
+import com.alpha.alphavault.exception.RecurringTransactionNotFoundException;
+import com.alpha.alphavault.mapper.RecurringTransactionMapper;
+import com.alpha.alphavault.model.RecurringTransaction;
+import com.alpha.alphavault.repository.RecurringTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RequiredArgsConstructor
+@Service
+public class RecurringTransactionService {
+
+    private final RecurringTransactionRepository repo;
+    private final RecurringTransactionMapper mapper;
+
+    // ============================================================
+    // == CRUD
+    // ============================================================
+
+    @Transactional
+    public RecurringTransactionResponseDTO create(RecurringTransactionRequestDTO dto) {
+        RecurringTransaction rt = mapper.toEntity(dto);
+        validate(rt);
+        rt.setOccurrences(0);
+        rt.setNextRunDate(rt.getStartDate());
+        return mapper.toResponse(repo.save(rt));
+    }
+
+    @Transactional
+    public RecurringTransactionResponseDTO update(Long id, RecurringTransactionRequestDTO dto) {
+        RecurringTransaction rt = find(id);
+        if (dto.kind() != null && dto.kind() != rt.getKind()) {
+            throw new IllegalArgumentException("kind cannot be changed; create a new template instead");
+        }
+        mapper.updateEntity(rt, dto);
+
+        boolean reanchor = (dto.startDate() != null && !dto.startDate().equals(rt.getStartDate()))
+                || (dto.recurrence() != null && dto.recurrence() != rt.getRecurrence());
+        if (reanchor) {
+            if (dto.startDate() != null) rt.setStartDate(dto.startDate());
+            if (dto.recurrence() != null) rt.setRecurrence(dto.recurrence());
+            LocalDate floor = rt.getLastRunDate();
+            rt.setOccurrences(0);
+            if (floor != null) skipUntilAfter(rt, floor);
+            else rt.setNextRunDate(rt.getStartDate());
+        }
+        validate(rt);
+        return mapper.toResponse(repo.save(rt));
+    }
+
+    @Transactional(readOnly = true)
+    public RecurringTransactionResponseDTO get(Long id) {
+        return mapper.toResponse(find(id));
+    }
+
+    @Transactional(readOnly = true)
+    public List<RecurringTransactionResponseDTO> listByUser(Long userId) {
+        return repo.findByUserIdOrderByNextRunDateAsc(userId).stream().map(mapper::toResponse).toList();
+    }
+
+    /** Hard delete; already materialized incomes/expenses are kept. */
+    @Transactional
+    public void delete(Long id) {
+        repo.delete(find(id));
+    }
+
+    // ============================================================
+    // == Lifecycle
+    // ============================================================
+
+    @Transactional
+    public RecurringTransactionResponseDTO pause(Long id) {
+        RecurringTransaction rt = find(id);
+        rt.setActive(false);
+        return mapper.toResponse(repo.save(rt));
+    }
+
+    @Transactional
+    public RecurringTransactionResponseDTO resume(Long id) {
+        RecurringTransaction rt = find(id);
+        if (rt.isActive()) return mapper.toResponse(rt);
+        // Occurrences missed while paused are skipped (not a downtime catch-up)
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (rt.getNextRunDate().isBefore(LocalDate.now())) skipUntilAfter(rt, yesterday);
+        if (rt.getEndDate() != null && rt.getNextRunDate().isAfter(rt.getEndDate())) {
+            throw new IllegalArgumentException("Template has no occurrences left before its end date");
+        }
+        rt.setActive(true);
+        return mapper.toResponse(repo.save(rt));
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    private RecurringTransaction find(Long id) {
+        return repo.findById(id)
+                .orElseThrow(() -> new RecurringTransactionNotFoundException("Recurring transaction not found: " + id));
+    }
+
+    /** Moves the schedule to the first occurrence strictly after {@code floor}. */
+    private static void skipUntilAfter(RecurringTransaction rt, LocalDate floor) {
+        int n = rt.getOccurrences();
+        LocalDate d = rt.getRecurrence().advance(rt.getStartDate(), n);
+        while (!d.isAfter(floor)) {
+            d = rt.getRecurrence().advance(rt.getStartDate(), ++n);
+        }
+        rt.setOccurrences(n);
+        rt.setNextRunDate(d);
+    }
+
+    private static void validate(RecurringTransaction rt) {
+        if (rt.getKind() == TransactionKind.EXPENSE && rt.getCategory() == null) {
+            throw new IllegalArgumentException("category is required for expense templates");
+        }
+        if (rt.getKind() == TransactionKind.INCOME && (rt.getSource() == null || rt.getSource().isBlank())) {
+            throw new IllegalArgumentException("source is required for income templates");
+        }
+        if (rt.getEndDate() != null && rt.getEndDate().isBefore(rt.getStartDate())) {
+            throw new IllegalArgumentException("endDate must be on or after startDate");
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Service: SavingGoalFeasibilityService — Monte Carlo goal odds
+ *  Guarantees:
+ *    - Paths are bootstrapped from the user's historical monthly net
+ *    - Surplus funds goals in SavingGoalPriority order (then deadline)
+ *    - Parallel on the common ForkJoin pool, SplittableRandom per leaf
+ *    - Result cached per user until incomes/expenses/goals change;
+ *      the cache is LRU-bounded and dropped when the user is deleted
+ *  Notes:
+ *    - Amounts are simulated as doubles (statistics, not bookkeeping)
+ * ================================================================
+ */
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.savinggoal.GoalFeasibilityDTO;
+import com.alpha.alphavault.dto.savinggoal.SavingGoalFeasibilityResponseDTO;
+import com.alpha.alphavault.enums.SavingGoalStatus;
+import com.alpha.alphavault.model.SavingGoal;
+import com.alpha.alphavault.repository.ExpenseRepository;
+import com.alpha.alphavault.repository.IncomeRepository;
+import com.alpha.alphavault.repository.SavingGoalRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+@Service
+public class SavingGoalFeasibilityService {
+
+    public static final int DEFAULT_PATHS = 10_000;
+    private static final int MAX_PATHS = 100_000;
+    private static final int HISTORY_MONTHS = 24;
+    private static final int MAX_HORIZON_MONTHS = 600;
+    private static final int LEAF_PATHS = 1_024;
+
+    private final SavingGoalRepository goalRepository;
+    private final IncomeRepository incomeRepository;
+    private final ExpenseRepository expenseRepository;
+    private final FxRateService fx;
+    private final int maxCachedUsers;
+
+    /** Access-ordered LRU, guarded by itself. */
+    private final LinkedHashMap<Long, CachedResult> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedResult> eldest) {
+            return size() > maxCachedUsers;
+        }
+    };
+
+    private record CachedResult(String fingerprint, int paths, SavingGoalFeasibilityResponseDTO result) {}
+
+    public SavingGoalFeasibilityService(SavingGoalRepository goalRepository,
+                                        IncomeRepository incomeRepository,
+                                        ExpenseRepository expenseRepository,
+                                        FxRateService fx,
+                                        @Value("${feasibility.cache.max-users:1000}") int maxCachedUsers) {
+        this.goalRepository = goalRepository;
+        this.incomeRepository = incomeRepository;
+        this.expenseRepository = expenseRepository;
+        this.fx = fx;
+        this.maxCachedUsers = Math.max(1, maxCachedUsers);
+    }
+
+    // ============================================================
+    // == Public API
+    // ============================================================
+
+    @Transactional(readOnly = true)
+    public SavingGoalFeasibilityResponseDTO simulate(Long userId, Integer requestedPaths) {
+        int paths = requestedPaths == null ? DEFAULT_PATHS : requestedPaths;
+        if (paths < 1 || paths > MAX_PATHS) {
+            throw new IllegalArgumentException("paths must be between 1 and " + MAX_PATHS);
+        }
+
+        // history sums are FX-converted in SQL, so a rate reload also invalidates
+        String fingerprint = goalRepository.feasibilityFingerprint(userId) + "|fx" + fx.version();
+        CachedResult hit;
+        synchronized (cache) {
+            hit = cache.get(userId);
+        }
+        if (hit != null && hit.paths() == paths && Objects.equals(hit.fingerprint(), fingerprint)) {
+            return hit.result();
+        }
+
+        SavingGoalFeasibilityResponseDTO result = run(userId, paths, fingerprint);
+        synchronized (cache) {
+            cache.put(userId, new CachedResult(fingerprint, paths, result));
+        }
+        return result;
+    }
+
+    /** Drops the cached result of a user (called when the user is deleted). */
+    public void evict(Long userId) {
+        synchronized (cache) {
+            cache.remove(userId);
+        }
+    }
+
+    int cachedUsers() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // ============================================================
+    // == Model preparation
+    // ============================================================
+
+    private SavingGoalFeasibilityResponseDTO run(Long userId, int paths, String fingerprint) {
+        YearMonth now = YearMonth.now();
+        double[] history = monthlyNetHistory(userId, now);
+
+        List<SavingGoal> goals = goalRepository.findByUserIdAndStatus(userId, SavingGoalStatus.ACTIVE).stream()
+                .filter(g -> g.getDeletedAt() == null)
+                .sorted(Comparator.comparing(SavingGoal::getPriority)
+                        .thenComparing(SavingGoal::getDeadline)
+                        .thenComparing(SavingGoal::getId))
+                .toList();
+
+        int n = goals.size();
+        double[] base = new double[n];
+        double[] target = new double[n];
+        int[] deadlineMonth = new int[n];
+        int horizon = 0;
+        for (int i = 0; i < n; i++) {
+            SavingGoal g = goals.get(i);
+            base[i] = g.getCurrentAmount() != null ? g.getCurrentAmount().doubleValue() : 0d;
+            target[i] = g.getTargetAmount().doubleValue();
+            // Month index of the deadline, 1 = current month; past deadlines get no contributions
+            long m = ChronoUnit.MONTHS.between(now, YearMonth.from(g.getDeadline())) + 1;
+            deadlineMonth[i] = (int) Math.max(0, Math.min(MAX_HORIZON_MONTHS, m));
+            horizon = Math.max(horizon, deadlineMonth[i]);
+        }
+
+        Tally tally = n == 0
+                ? new Tally(0)
+                : ForkJoinPool.commonPool().invoke(new PathTask(
+                        new Model(history, base, target, deadlineMonth, horizon),
+                        0, paths, new SplittableRandom(Objects.hash(userId, fingerprint))));
+
+        List<GoalFeasibilityDTO> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            SavingGoal g = goals.get(i);
+            out.add(new GoalFeasibilityDTO(
+                    g.getId(),
+                    g.getName(),
+                    g.getPriority(),
+                    g.getDeadline(),
+                    g.getRemainingAmount(),
+                    round4((double) tally.successes[i] / paths),
+                    money(tally.shortfall[i] / paths)
+            ));
+        }
+
+        double mean = 0;
+        for (double v : history) mean += v;
+        mean /= history.length;
+        double var = 0;
+        for (double v : history) var += (v - mean) * (v - mean);
+        double sd = history.length > 1 ? Math.sqrt(var / (history.length - 1)) : 0d;
+
+        return new SavingGoalFeasibilityResponseDTO(
+                userId, paths, history.length, horizon,
+                money(mean), money(sd), LocalDateTime.now(), out);
+    }
+
+    /** Net (incomes - expenses) per month, from the first month with data up to last month. */
+    private double[] monthlyNetHistory(Long userId, YearMonth now) {
+        YearMonth from = now.minusMonths(HISTORY_MONTHS);
+        LocalDate start = from.atDay(1);
+        LocalDate end = now.atDay(1);
+
+        double[] net = new double[HISTORY_MONTHS];
+        int first = HISTORY_MONTHS;
+        for (Object[] r : incomeRepository.sumByMonth(userId, start, end)) {
+            first = Math.min(first, accumulate(net, from, r, 1));
+        }
+        for (Object[] r : expenseRepository.sumByMonth(userId, start, end)) {
+            first = Math.min(first, accumulate(net, from, r, -1));
+        }
+        return first >= HISTORY_MONTHS ? new double[]{0d} : Arrays.copyOfRange(net, first, HISTORY_MONTHS);
+    }
+
+    private static int accumulate(double[] net, YearMonth from, Object[] row, int sign) {
+        YearMonth ym = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        int idx = (int) ChronoUnit.MONTHS.between(from, ym);
+        if (idx < 0 || idx >= net.length) return net.length;
+        net[idx] += sign * ((BigDecimal) row[2]).doubleValue();
+        return idx;
+    }
+
+    // ============================================================
+    // == Simulation kernel
+    // ============================================================
+
+    private record Model(double[] history, double[] base, double[] target, int[] deadlineMonth, int horizon) {}
+
+    private static final class Tally {
+        final long[] successes;
+        final double[] shortfall;
+
+        Tally(int goals) {
+            successes = new long[goals];
+            shortfall = new double[goals];
+        }
+
+        Tally merge(Tally other) {
+            for (int i = 0; i < successes.length; i++) {
+                successes[i] += other.successes[i];
+                shortfall[i] += other.shortfall[i];
+            }
+            return this;
+        }
+    }
+
+    private static final class PathTask extends RecursiveTask<Tally> {
+        private final Model model;
+        private final int from;
+        private final int to;
+        private final SplittableRandom rng;
+
+        PathTask(Model model, int from, int to, SplittableRandom rng) {
+            this.model = model;
+            this.from = from;
+            this.to = to;
+            this.rng = rng;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= LEAF_PATHS) {
+                return runLeaf();
+            }
+            int mid = (from + to) >>> 1;
+            PathTask left = new PathTask(model, from, mid, rng.split());
+            PathTask right = new PathTask(model, mid, to, rng.split());
+            left.fork();
+            Tally r = right.compute();
+            return left.join().merge(r);
+        }
+
+        /**
+         * Each month draws one historical net flow. Positive cash (plus carry) fills goals
+         * in priority order until their deadline; a deficit is carried and must be repaid
+         * before anything is saved again. Balances freeze at the deadline, so the final
+         * state equals the state at each goal's deadline.
+         */
+        private Tally runLeaf() {
+            double[] history = model.history();
+            double[] target = model.target();
+            int[] deadline = model.deadlineMonth();
+            int n = target.length;
+            int h = history.length;
+            double[] bal = new double[n];
+            Tally tally = new Tally(n);
+
+            for (int p = from; p < to; p++) {
+                System.arraycopy(model.base(), 0, bal, 0, n);
+                double carry = 0d;
+                for (int m = 1; m <= model.horizon(); m++) {
+                    double cash = carry + history[rng.nextInt(h)];
+                    for (int i = 0; i < n && cash > 0d; i++) {
+                        if (m > deadline[i] || bal[i] >= target[i]) continue;
+                        double put = Math.min(target[i] - bal[i], cash);
+                        bal[i] += put;
+                        cash -= put;
+                    }
+                    carry = cash;
+                }
+                for (int i = 0; i < n; i++) {
+                    double gap = target[i] - bal[i];
+                    if (gap <= 0d) tally.successes[i]++;
+                    else tally.shortfall[i] += gap;
+                }
+            }
+            return tally;
+        }
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    private static double round4(double v) {
+        return Math.round(v * 10_000d) / 10_000d;
+    }
+
+    private static BigDecimal money(double v) {
+        return BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -3,15 +3,24 @@
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
  *  Service: SavingGoalService — create/update, contributions, status,
  *           filters, overdue/upcoming, soft delete/restore
+ *  Notes:
+ *    - Contribute/withdraw are single guarded UPDATE ... RETURNING
+ *      statements; only edits through update() go through @Version
  * ================================================================
  */
 package com.alpha.alphavault.service;
 
+import com.alpha.alphavault.dto.common.BatchItemResultDTO;
+import com.alpha.alphavault.dto.common.BatchResultDTO;
+import com.alpha.alphavault.dto.savinggoal.SavingGoalBatchRequestDTO;
 import com.alpha.alphavault.dto.savinggoal.SavingGoalRequestDTO;
 import com.alpha.alphavault.dto.savinggoal.SavingGoalResponseDTO;
+import com.alpha.alphavault.enums.ArchiveTable;
+import com.alpha.alphavault.enums.GoalMovementType;
 import com.alpha.alphavault.enums.SavingGoalPriority;
 import com.alpha.alphavault.enums.SavingGoalCategory;
 import com.alpha.alphavault.enums.SavingGoalStatus;
+import com.alpha.alphavault.event.GoalContributed;
 import com.alpha.alphavault.exception.SavingGoalException;
 import com.alpha.alphavault.exception.SavingGoalNotFoundException;
 import com.alpha.alphavault.mapper.SavingGoalMapper;
@@ -25,10 +34,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Types;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -40,6 +53,10 @@ public class SavingGoalService {
     private final SavingGoalRepository repo;
     private final SavingGoalMapper mapper;
     private final UserRepository userRepo;
+    private final LiveUpdateService live;
+    private final JdbcTemplate jdbc;
+    private final ArchivalService archival;
+    private final DomainEventPublisher domainEvents;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -146,6 +163,7 @@ public class SavingGoalService {
                 saved.getUser().getId(); // Trigger lazy loading
             }
             
+            pushDelta("updated", saved);
             log.debug("Mapping to response...");
             SavingGoalResponseDTO response = mapper.toResponse(saved);
             log.debug("Update completed successfully");
@@ -176,33 +194,161 @@ public class SavingGoalService {
 
     // ===================== Money operations =====================
 
+    /** Atomic: one guarded UPDATE ... RETURNING, no read-modify-write and no @Version conflict. */
     @Transactional
     public SavingGoalResponseDTO contribute(Long id, BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Contribution must be > 0");
         }
-        SavingGoal g = repo.findById(id).orElseThrow(() -> new SavingGoalNotFoundException("SavingGoal not found: " + id));
-        if (g.getStatus() == SavingGoalStatus.CANCELLED) {
-            throw new IllegalArgumentException("Cannot contribute to a CANCELLED goal");
-        }
-        g.setCurrentAmount(g.getCurrentAmount().add(amount));
-        return mapper.toResponse(repo.save(g));
+        return applySingle(id, amount, "contributed");
     }
 
+    /** Atomic: the insufficient-funds guard is part of the same statement. */
     @Transactional
     public SavingGoalResponseDTO withdraw(Long id, BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Withdrawal must be > 0");
         }
-        SavingGoal g = repo.findById(id).orElseThrow(() -> new SavingGoalNotFoundException("SavingGoal not found: " + id));
-        if (g.getStatus() == SavingGoalStatus.CANCELLED) {
-            throw new IllegalArgumentException("Cannot withdraw from a CANCELLED goal");
+        return applySingle(id, amount.negate(), "withdrawn");
+    }
+
+    private SavingGoalResponseDTO applySingle(Long id, BigDecimal delta, String action) {
+        Map<Long, GoalMove> moved = applyMovements(null, List.of(id), List.of(delta));
+        if (moved.isEmpty()) {
+            String reason = explainGoalFailures(null, Set.of(id), Set.of()).get(id);
+            switch (reason) {
+                case "GOAL_CANCELLED" -> throw new IllegalArgumentException(delta.signum() > 0
+                        ? "Cannot contribute to a CANCELLED goal" : "Cannot withdraw from a CANCELLED goal");
+                case "INSUFFICIENT_FUNDS" -> throw new IllegalArgumentException("Insufficient saved amount");
+                default -> throw new SavingGoalNotFoundException("SavingGoal not found: " + id);
+            }
         }
-        if (g.getCurrentAmount().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient saved amount");
+        // Fresh read of the row the statement just wrote (nothing of it is in the persistence context)
+        SavingGoal saved = repo.findById(id).orElseThrow(() -> new SavingGoalNotFoundException("SavingGoal not found: " + id));
+        GoalMove g = moved.get(id);
+        domainEvents.publish(new GoalContributed(saved.getUser().getId(), id, g.after().subtract(g.before()), g.after()));
+        pushDelta(action, saved);
+        return mapper.toResponse(saved);
+    }
+
+    // ===================== Batch money operations =====================
+
+    /**
+     * Net movement per goal, applied by one set-based UPDATE ... RETURNING
+     * (rows locked in id order). Guards run in the same statement: owner
+     * (when given), not deleted/cancelled, and the balance never below 0
+     * at any point of the request order (lowest running prefix, not only
+     * the net). Concurrent writers serialize on the row lock instead of
+     * failing on @Version.
+     */
+    private static final String APPLY_GOAL_MOVEMENTS = """
+        WITH t AS (
+            SELECT i.goal_id, i.delta,
+                   SUM(i.delta) OVER (PARTITION BY i.goal_id ORDER BY i.ord) AS running
+            FROM unnest(CAST(? AS bigint[]), CAST(? AS numeric[])) WITH ORDINALITY AS i(goal_id, delta, ord)
+        ),
+        m AS (
+            SELECT t.goal_id, SUM(t.delta) AS delta, LEAST(MIN(t.running), 0) AS low
+            FROM t
+            GROUP BY t.goal_id
+        ),
+        cur AS (
+            SELECT g.id, g.current_amount AS before
+            FROM saving_goals g
+            JOIN m ON m.goal_id = g.id
+            WHERE g.user_id = COALESCE(?, g.user_id) AND g.deleted_at IS NULL AND g.status <> 'CANCELLED'
+              AND g.current_amount + m.low >= 0
+            ORDER BY g.id
+            FOR UPDATE OF g
+        )
+        UPDATE saving_goals g
+        SET current_amount = cur.before + m.delta,
+            status = CASE WHEN cur.before + m.delta >= g.target_amount THEN 'COMPLETED'
+                          WHEN g.status = 'COMPLETED' THEN 'ACTIVE'
+                          ELSE g.status END,
+            achieved_at = CASE WHEN cur.before + m.delta >= g.target_amount
+                               THEN COALESCE(g.achieved_at, CURRENT_TIMESTAMP) END,
+            version = COALESCE(g.version, 0) + 1,
+            updated_at = CURRENT_TIMESTAMP
+        FROM cur
+        JOIN m ON m.goal_id = cur.id
+        WHERE g.id = cur.id
+        RETURNING g.id, cur.before, g.current_amount, g.target_amount, g.status
+        """;
+
+    private record GoalMove(BigDecimal before, BigDecimal after, BigDecimal target, String status) {}
+
+    @Transactional
+    public BatchResultDTO applyBatch(SavingGoalBatchRequestDTO dto) {
+        List<SavingGoalBatchRequestDTO.Movement> items = dto.movements();
+        Set<Long> goals = new LinkedHashSet<>();
+        for (SavingGoalBatchRequestDTO.Movement m : items) goals.add(m.goalId());
+
+        Map<Long, GoalMove> moved = applyMovements(dto.userId(),
+                items.stream().map(SavingGoalBatchRequestDTO.Movement::goalId).toList(),
+                items.stream().map(SavingGoalService::signed).toList());
+
+        Map<Long, String> errors = moved.size() == goals.size() ? Map.of() : explainGoalFailures(dto.userId(), goals, moved.keySet());
+        boolean committed = errors.isEmpty();
+        if (!committed) TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+
+        Map<Long, BigDecimal> running = new HashMap<>();
+        List<BatchItemResultDTO> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            SavingGoalBatchRequestDTO.Movement m = items.get(i);
+            GoalMove g = moved.get(m.goalId());
+            if (g == null) {
+                results.add(BatchItemResultDTO.failed(i, m.goalId(), errors.get(m.goalId())));
+                continue;
+            }
+            BigDecimal bal = running.merge(m.goalId(), g.before().add(signed(m)), (prev, ignored) -> prev.add(signed(m)));
+            results.add(new BatchItemResultDTO(i, m.goalId(), true, null, bal, g.status(), null));
         }
-        g.setCurrentAmount(g.getCurrentAmount().subtract(amount));
-        return mapper.toResponse(repo.save(g));
+
+        if (committed) {
+            moved.forEach((id, g) -> domainEvents.publish(
+                    new GoalContributed(dto.userId(), id, g.after().subtract(g.before()), g.after())));
+            moved.forEach((id, g) -> live.publish(dto.userId(), "goal", "batch", id, LiveUpdateService.fields(
+                    "currentAmount", g.after(),
+                    "targetAmount", g.target(),
+                    "status", g.status())));
+        }
+        return new BatchResultDTO(committed, items.size(), (int) results.stream().filter(r -> !r.ok()).count(), results);
+    }
+
+    /** Runs APPLY_GOAL_MOVEMENTS on movements in request order; goals missing from the result failed a guard. */
+    private Map<Long, GoalMove> applyMovements(Long userId, List<Long> goalIds, List<BigDecimal> deltas) {
+        Map<Long, GoalMove> moved = new HashMap<>();
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(APPLY_GOAL_MOVEMENTS);
+            ps.setArray(1, con.createArrayOf("bigint", goalIds.toArray()));
+            ps.setArray(2, con.createArrayOf("numeric", deltas.toArray()));
+            ps.setObject(3, userId, Types.BIGINT);
+            return ps;
+        }, rs -> {
+            moved.put(rs.getLong(1), new GoalMove(rs.getBigDecimal(2), rs.getBigDecimal(3),
+                    rs.getBigDecimal(4), rs.getString(5)));
+        });
+        return moved;
+    }
+
+    private static BigDecimal signed(SavingGoalBatchRequestDTO.Movement m) {
+        return m.type() == GoalMovementType.WITHDRAWAL ? m.amount().negate() : m.amount();
+    }
+
+    private Map<Long, String> explainGoalFailures(Long userId, Set<Long> requested, Set<Long> applied) {
+        Map<Long, String> out = new HashMap<>();
+        for (Long id : requested) if (!applied.contains(id)) out.put(id, "NOT_FOUND");
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id, user_id, status, deleted_at FROM saving_goals WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", out.keySet().toArray()));
+            return ps;
+        }, rs -> {
+            long id = rs.getLong(1);
+            if ((userId != null && rs.getLong(2) != userId) || rs.getTimestamp(4) != null) return;
+            out.put(id, "CANCELLED".equals(rs.getString(3)) ? "GOAL_CANCELLED" : "INSUFFICIENT_FUNDS");
+        });
+        return out;
     }
 
     // ===================== Status / attributes =====================
@@ -211,7 +357,9 @@ public class SavingGoalService {
     public SavingGoalResponseDTO setStatus(Long id, SavingGoalStatus status) {
         SavingGoal g = repo.findById(id).orElseThrow(() -> new SavingGoalNotFoundException("SavingGoal not found: " + id));
         g.setStatus(status);
-        return mapper.toResponse(repo.save(g));
+        SavingGoal saved = repo.save(g);
+        pushDelta("status", saved);
+        return mapper.toResponse(saved);
     }
 
     @Transactional
@@ -266,11 +414,10 @@ public class SavingGoalService {
 
     @Transactional(readOnly = true)
     public Map<String, Object> totals(Long userId) {
-        var goals = repo.findByUserId(userId);
-        BigDecimal totalTarget = goals.stream().map(SavingGoal::getTargetAmount)
-                .filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal totalCurrent = goals.stream().map(SavingGoal::getCurrentAmount)
-                .filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add);
+        // DB-side, converted into the user's preferredCurrency
+        Object[] row = repo.totalsByUser(userId).get(0);
+        BigDecimal totalTarget = (BigDecimal) row[0];
+        BigDecimal totalCurrent = (BigDecimal) row[1];
         BigDecimal totalRemaining = totalTarget.subtract(totalCurrent);
         if (totalRemaining.compareTo(BigDecimal.ZERO) < 0) totalRemaining = BigDecimal.ZERO;
 
@@ -278,7 +425,7 @@ public class SavingGoalService {
         out.put("totalTarget", totalTarget);
         out.put("totalCurrent", totalCurrent);
         out.put("totalRemaining", totalRemaining);
-        out.put("goalsCount", goals.size());
+        out.put("goalsCount", ((Number) row[2]).intValue());
         return out;
     }
 
@@ -303,6 +450,7 @@ public class SavingGoalService {
     @Transactional
     public void restore(Long id) {
         int updated = repo.restore(id);
+        if (updated == 0 && archival.rehydrate(ArchiveTable.SAVING_GOALS, id)) updated = repo.restore(id);
         if (updated == 0) throw new SavingGoalException("Failed to restore saving goal: " + id);
     }
 
@@ -314,4 +462,15 @@ public class SavingGoalService {
         // quick in-memory check; for guaranteed uniqueness ensure DB unique (user_id, name)
         return repo.findByUserId(userId).stream().anyMatch(g -> g.getName() != null && g.getName().equalsIgnoreCase(nm));
     }
+
+    // ===================== Live updates =====================
+
+    private void pushDelta(String action, SavingGoal g) {
+        if (g.getUser() == null) return;
+        live.publish(g.getUser().getId(), "goal", action, g.getId(), LiveUpdateService.fields(
+                "currentAmount", g.getCurrentAmount(),
+                "targetAmount", g.getTargetAmount(),
+                "progressPercent", g.getProgressPercent(),
+                "status", g.getStatus()));
+    }
 }
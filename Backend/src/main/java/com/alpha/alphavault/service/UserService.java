@@ -3,6 +3,9 @@
  *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
  *  Service: UserService - secure, scalable user operations
  *  Guarantees: Clear messages on success/failure via GlobalExceptionHandler
+ *  Notes:
+ *    - A replaced or deleted user's avatar is discarded after commit when
+ *      no other user shows the same (content-addressed) image
  * ================================================================
  */
 package com.alpha.alphavault.service;
@@ -15,15 +18,26 @@ import com.alpha.alphavault.exception.UserNotFoundException;
 import com.alpha.alphavault.mapper.UserMapper;
 import com.alpha.alphavault.model.User;
 import com.alpha.alphavault.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class UserService {
@@ -34,8 +48,14 @@ public class UserService {
 
     private final UserRepository repo;
     private final UserMapper mapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwords;
     private final EmailService emailService;
+    private final TransactionTemplate tx;
+    private final AuthTokenService authTokens;
+    private final PeriodMetricsService periodMetrics; // converts into preferredCurrency
+    private final SavingGoalFeasibilityService feasibility;
+    private final PortfolioAnalyticsService analytics;
+    private final ImagePipelineService images;
 
     // ============================================================
     // == Security/Lockout Policy (tune per environment)
@@ -43,6 +63,24 @@ public class UserService {
 
     private static final int MAX_FAILED_LOGIN_ATTEMPTS = 5;
     private static final int ACCOUNT_LOCK_MINUTES = 15;
+    private static final int LOGIN_IO_THREADS = 4;
+
+    /** Login bookkeeping (DB writes) after the hash check: keeps the hashing pool on hashes only. */
+    private final ExecutorService loginIo = Executors.newFixedThreadPool(LOGIN_IO_THREADS, new ThreadFactory() {
+        private final AtomicInteger seq = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "login-io-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    @PreDestroy
+    void shutdown() {
+        loginIo.shutdownNow();
+    }
 
     // ============================================================
     // == Create / Read
@@ -61,14 +99,30 @@ public class UserService {
         user.setLastName(trimOrNull(user.getLastName()));
         if (user.getPreferredLanguage() != null) user.setPreferredLanguage(user.getPreferredLanguage().trim());
         if (user.getPreferredCurrency() != null) user.setPreferredCurrency(user.getPreferredCurrency().trim());
-        user.setPassword(passwordEncoder.encode(dto.password()));
+        user.setPassword(passwords.encode(dto.password()));
         User saved = repo.save(user);
+        // Queued in this transaction, sent after commit (never on the request path)
+        emailService.sendWelcomeEmail(saved.getEmail(), saved.getFirstName());
         return mapper.toResponse(saved);
     }
 
     /** Authenticate user by email/password. Handles wrong password + lockouts. */
-    @Transactional
     public UserResponseDTO authenticate(String emailRaw, String rawPassword) {
+        try {
+            return authenticateAsync(emailRaw, rawPassword).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /**
+     * Same as authenticate(), without a request thread waiting on the hash:
+     * lookup and lock check here, password check on the hashing pool, then
+     * the login bookkeeping (and re-hash, if due) in its own transaction on
+     * the login-io pool, so no hashing thread ever waits on a connection.
+     */
+    public CompletableFuture<UserResponseDTO> authenticateAsync(String emailRaw, String rawPassword) {
         String email = normalizeEmail(emailRaw);
         User u = repo.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
@@ -78,15 +132,29 @@ public class UserService {
             throw new IllegalArgumentException("Account locked due to repeated failures. Try again later.");
         }
 
-        // Verify password
-        if (!passwordEncoder.matches(rawPassword, u.getPassword())) {
-            recordFailedLogin(email);
-            throw new IllegalArgumentException("Invalid credentials");
-        }
+        Long id = u.getId();
+        String storedHash = u.getPassword();
+        return passwords.verifyAsync(rawPassword, storedHash).thenApplyAsync(v -> {
+            if (!v.matches()) {
+                // Committed before the error is raised, so the attempt always counts
+                tx.executeWithoutResult(s -> recordFailedLogin(email));
+                throw new IllegalArgumentException("Invalid credentials");
+            }
+            return tx.execute(s -> completeLogin(id, storedHash, v.upgradedHash()));
+        }, loginIo);
+    }
 
-        // Success path
-        recordSuccessfulLogin(u.getId());
-        return mapper.toResponse(u);
+    private UserResponseDTO completeLogin(Long id, String verifiedHash, String upgradedHash) {
+        User u = repo.findById(id)
+                .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
+        // Skip the re-hash if the password was changed while this login was verifying
+        if (upgradedHash != null && verifiedHash.equals(u.getPassword())) {
+            u.setPassword(upgradedHash);
+        }
+        u.setLastLoginAt(LocalDateTime.now());
+        u.setFailedLoginAttempts(0);
+        u.setAccountLockedUntil(null);
+        return mapper.toResponse(repo.save(u));
     }
 
     @Transactional(readOnly = true)
@@ -118,6 +186,7 @@ public class UserService {
     public UserResponseDTO updateProfile(Long id, UserRequestDTO dto) {
         User u = repo.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
+        String oldImage = u.getProfileImageUrl();
 
         mapper.updateEntity(u, dto);
         // sanitize updated fields
@@ -127,6 +196,8 @@ public class UserService {
         if (u.getPreferredCurrency() != null) u.setPreferredCurrency(u.getPreferredCurrency().trim());
 
         User saved = repo.save(u);
+        periodMetrics.currencyChanged(saved.getId(), saved.getPreferredCurrency());
+        releaseProfileImage(oldImage, saved.getProfileImageUrl());
         return mapper.toResponse(saved);
     }
 
@@ -134,8 +205,10 @@ public class UserService {
     public void updateProfileImage(Long id, String profileImageUrl) {
         User u = repo.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
+        String oldImage = u.getProfileImageUrl();
         u.setProfileImageUrl(profileImageUrl);
         repo.save(u);
+        releaseProfileImage(oldImage, profileImageUrl);
     }
 
     @Transactional
@@ -160,6 +233,7 @@ public class UserService {
                 .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
         u.setAccountType(type);
         repo.save(u);
+        authTokens.revokeAll(id); // roles are in the access token: re-issue with the new ones
     }
 
     @Transactional
@@ -168,13 +242,14 @@ public class UserService {
                 .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
         u.setActive(active); // NOTE: field should be 'isActive' with setter 'setActive' via Lombok
         repo.save(u);
+        if (!active) authTokens.revokeAll(id);
     }
 
     // ============================================================
     // == Password & Verification
     // ============================================================
 
-    /** Forgot password: Generate reset token and send email (placeholder for email service). */
+    /** Forgot password: generate reset token and queue the email (sent asynchronously after commit). */
     @Transactional
     public void initiatePasswordReset(String emailRaw) {
         String email = normalizeEmail(emailRaw);
@@ -208,11 +283,12 @@ public class UserService {
         }
         
         // Clear reset token and set new password
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwords.encode(newPassword));
         user.setPasswordResetToken(null);
         user.setPasswordResetTokenExpiry(null);
         
         repo.save(user);
+        authTokens.revokeAll(user.getId()); // sessions opened with the old password end
     }
 
     /** Generate a random reset token. */
@@ -229,11 +305,12 @@ public class UserService {
         User u = repo.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
 
-        if (!passwordEncoder.matches(currentPassword, u.getPassword())) {
+        if (!passwords.matches(currentPassword, u.getPassword())) {
             throw new IllegalArgumentException("Current password is incorrect");
         }
-        u.setPassword(passwordEncoder.encode(newPassword));
+        u.setPassword(passwords.encode(newPassword));
         repo.save(u);
+        authTokens.revokeAll(id);
     }
 
     /** Admin/Token-based reset (no current password required). */
@@ -244,8 +321,9 @@ public class UserService {
         }
         User u = repo.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
-        u.setPassword(passwordEncoder.encode(newPassword));
+        u.setPassword(passwords.encode(newPassword));
         repo.save(u);
+        authTokens.revokeAll(id);
     }
 
     @Transactional
@@ -303,20 +381,46 @@ public class UserService {
 
     @Transactional
     public void deleteUser(Long id) {
-        if (!repo.existsById(id)) {
-            throw new UserNotFoundException("User not found for id: " + id);
-        }
+        User u = repo.findById(id)
+                .orElseThrow(() -> new UserNotFoundException("User not found for id: " + id));
+        authTokens.revokeAll(id);
         try {
             repo.deleteById(id);
         } catch (Exception e) {
             throw new UserException("Error deleting user: " + e.getMessage());
         }
+        feasibility.evict(id);
+        analytics.evict(id);
+        releaseProfileImage(u.getProfileImageUrl(), null);
     }
 
     // ============================================================
     // == Helpers
     // ============================================================
 
+    /** Once this transaction committed, discards the old avatar if no user shows it any more. */
+    private void releaseProfileImage(String oldUrl, String newUrl) {
+        String hash = ImagePipelineService.hashOf(oldUrl);
+        if (hash == null || hash.equals(ImagePipelineService.hashOf(newUrl))) return;
+        Runnable release = () -> {
+            try {
+                if (!repo.existsByProfileImageUrlContaining(hash)) images.discard(hash);
+            } catch (RuntimeException e) {
+                log.warn("Profile image {} not released: {}", hash, e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release.run();
+            }
+        });
+    }
+
     private String normalizeEmail(String email) {
         if (email == null) return null;
         return email.trim().toLowerCase();
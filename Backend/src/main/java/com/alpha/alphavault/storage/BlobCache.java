@@ -0,0 +1,242 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Storage: BlobCache — LRU read-through cache of remote blobs on local disk
+ *  Guarantees:
+ *    - open() returns an opened channel: on the store's own file for the
+ *      local backend, on a cached copy otherwise (downloaded once per key,
+ *      also when several requests miss at the same time)
+ *    - A handle stays readable when its cache file is evicted or replaced
+ *      meanwhile: channels are opened under the index lock (or before the
+ *      entry is admitted), so eviction only unlinks the name
+ *    - Bounded by storage.cache.max-bytes; least recently used files go first
+ *  Notes:
+ *    - Only for immutable (content-addressed) keys: entries are never
+ *      revalidated against the store
+ *    - Files already in the directory are re-indexed on startup (oldest
+ *      modification first), so a restart keeps the warm set
+ * ================================================================
+ */
+package com.alpha.alphavault.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class BlobCache {
+
+    private record Entry(Path file, long size) {}
+
+    /**
+     * Open read handle on a blob's bytes; the caller closes it.
+     * {@code storeFile} is set only for the local backend's own file, which
+     * the cache never deletes (safe to hand to sendfile by name).
+     */
+    public record Handle(FileChannel channel, long size, Path storeFile) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private final BlobStore store;
+    private final Path dir;
+    private final Path tmp;
+    private final long maxBytes;
+    /** Access-ordered: iteration starts at the least recently used entry. Guarded by itself. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CompletableFuture<Boolean>> loading = new ConcurrentHashMap<>();
+    private long bytes;
+
+    public BlobCache(BlobStore store,
+                     @Value("${storage.cache.dir:${java.io.tmpdir}/alphavault-blob-cache}") String dir,
+                     @Value("${storage.cache.max-bytes:268435456}") long maxBytes) throws IOException {
+        this.store = store;
+        this.dir = Paths.get(dir).toAbsolutePath();
+        this.tmp = this.dir.resolve("tmp");
+        this.maxBytes = maxBytes;
+        Files.createDirectories(tmp);
+        reindex();
+    }
+
+    /** Scratch file for uploads/encodes, on the same disk as the cache (cheap adopt()). */
+    public Path tempFile(String prefix) throws IOException {
+        return Files.createTempFile(tmp, prefix, ".tmp");
+    }
+
+    /** Opened local bytes of a blob, empty when the store does not have it. */
+    public Optional<Handle> open(String key) throws IOException {
+        Optional<Path> local = store.localPath(key);
+        if (local.isPresent()) {
+            if (!Files.isRegularFile(local.get())) return Optional.empty();
+            FileChannel ch = FileChannel.open(local.get(), StandardOpenOption.READ);
+            return Optional.of(new Handle(ch, ch.size(), local.get()));
+        }
+
+        while (true) {
+            Handle cached = openCached(key);
+            if (cached != null) return Optional.of(cached);
+
+            CompletableFuture<Boolean> created = new CompletableFuture<>();
+            CompletableFuture<Boolean> inFlight = loading.putIfAbsent(key, created);
+            if (inFlight != null) {
+                // Another request downloads it; open the admitted copy (again, if evicted in between)
+                if (!join(inFlight)) return Optional.empty();
+                continue;
+            }
+            try {
+                Handle downloaded = download(key);
+                created.complete(downloaded != null);
+                return Optional.ofNullable(downloaded);
+            } catch (IOException | RuntimeException e) {
+                created.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(key, created);
+            }
+        }
+    }
+
+    /**
+     * Moves a file that was just written to the store into the cache (the
+     * uploading node then serves it without a download). No-op for the
+     * local backend, where the caller deletes the file as usual.
+     */
+    public void adopt(String key, Path file) throws IOException {
+        if (store.localPath(key).isPresent()) return;
+        Path target = cachePath(key);
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        admit(key, target);
+    }
+
+    public void evict(String key) {
+        Entry e;
+        synchronized (entries) {
+            e = entries.remove(key);
+            if (e != null) bytes -= e.size();
+        }
+        if (e != null) deleteQuietly(e.file());
+    }
+
+    // ============================================================
+    // == Internals
+    // ============================================================
+
+    /** Indexed copy, opened while no admit can evict it; null on a miss. */
+    private Handle openCached(String key) throws IOException {
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e == null) return null;
+            try {
+                FileChannel ch = FileChannel.open(e.file(), StandardOpenOption.READ);
+                return new Handle(ch, ch.size(), null);
+            } catch (NoSuchFileException gone) {
+                // Deleted behind our back (e.g. tmp cleaner): forget it and download again
+                entries.remove(key);
+                bytes -= e.size();
+                return null;
+            }
+        }
+    }
+
+    /** Downloads into the cache; the handle is opened before the entry becomes evictable. */
+    private Handle download(String key) throws IOException {
+        Optional<InputStream> in = store.open(key);
+        if (in.isEmpty()) return null;
+        Path part = tempFile("dl-");
+        try (InputStream stream = in.get()) {
+            Files.copy(stream, part, StandardCopyOption.REPLACE_EXISTING);
+            Path target = cachePath(key);
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            FileChannel ch = FileChannel.open(target, StandardOpenOption.READ);
+            try {
+                admit(key, target);
+            } catch (IOException | RuntimeException e) {
+                ch.close();
+                throw e;
+            }
+            return new Handle(ch, ch.size(), null);
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    private void admit(String key, Path file) throws IOException {
+        long size = Files.size(file);
+        List<Path> victims = new ArrayList<>();
+        synchronized (entries) {
+            Entry old = entries.put(key, new Entry(file, size));
+            if (old != null) bytes -= old.size();
+            bytes += size;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                if (eldest.getKey().equals(key)) continue; // never evict what is being returned
+                it.remove();
+                bytes -= eldest.getValue().size();
+                victims.add(eldest.getValue().file());
+            }
+        }
+        victims.forEach(BlobCache::deleteQuietly);
+    }
+
+    /** Flat, collision-free file name per key. */
+    private Path cachePath(String key) {
+        return dir.resolve(HexFormat.of().formatHex(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static boolean join(CompletableFuture<Boolean> f) throws IOException {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private void reindex() throws IOException {
+        try (Stream<Path> files = Files.list(tmp)) {
+            files.forEach(BlobCache::deleteQuietly);
+        }
+        List<Path> cached;
+        try (Stream<Path> files = Files.list(dir)) {
+            cached = files.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().matches("([0-9a-f]{2})+"))
+                    .sorted(Comparator.comparing(p -> p.toFile().lastModified()))
+                    .toList();
+        }
+        for (Path p : cached) {
+            String key = new String(HexFormat.of().parseHex(p.getFileName().toString()), StandardCharsets.UTF_8);
+            admit(key, p);
+        }
+        if (!cached.isEmpty()) log.info("Blob cache: {} files ({} bytes) re-indexed", entries.size(), bytes);
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", p, e.getMessage());
+        }
+    }
+}
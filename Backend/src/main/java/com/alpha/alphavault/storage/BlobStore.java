@@ -0,0 +1,54 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Storage: BlobStore — where uploaded files and their variants live
+ *  Notes:
+ *    - Keys are "/"-separated relative paths (e.g. profile-images/<sha256>/128.jpg)
+ *    - put() streams: implementations never hold a whole blob in memory
+ *    - Selected by storage.type (local | s3 | memory), see StorageConfig
+ * ================================================================
+ */
+package com.alpha.alphavault.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+public interface BlobStore {
+
+    /** A URL clients can fetch the blob from directly; {@code validFor} null = does not expire. */
+    record BlobLink(URI uri, Duration validFor) {}
+
+    void put(String key, InputStream in, long length, String contentType) throws IOException;
+
+    default void put(String key, Path file, String contentType) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            put(key, in, Files.size(file), contentType);
+        }
+    }
+
+    /** Empty when the key does not exist. The caller closes the stream. */
+    Optional<InputStream> open(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /** Keys under a prefix (no ordering guarantee). */
+    List<String> list(String prefix) throws IOException;
+
+    /** The blob as a local file, when the store is the local disk (no copy, no cache). */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /** Presigned or public URL, when the backend can serve the blob itself. */
+    default Optional<BlobLink> link(String key) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Storage: InMemoryBlobStore — heap-backed store for tests and demos
+ *  Notes:
+ *    - storage.type=memory; contents are lost on restart
+ *    - Stands in for S3 semantics (no local path, no links) without a server
+ * ================================================================
+ */
+package com.alpha.alphavault.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryBlobStore implements BlobStore {
+
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String key, InputStream in, long length, String contentType) throws IOException {
+        byte[] data = in.readNBytes((int) Math.min(Integer.MAX_VALUE, length));
+        if (data.length != length) throw new IOException("Short read for " + key + ": " + data.length + "/" + length);
+        blobs.put(key, data);
+    }
+
+    @Override
+    public Optional<InputStream> open(String key) {
+        byte[] data = blobs.get(key);
+        return data == null ? Optional.empty() : Optional.of(new ByteArrayInputStream(data));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return blobs.containsKey(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        blobs.remove(key);
+    }
+
+    @Override
+    public List<String> list(String prefix) {
+        return blobs.keySet().stream().filter(k -> k.startsWith(prefix)).toList();
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * ================================================================
+ *  Coded by Mohamed Dhaoui for Alpha Vault - Financial System
+ *  Storage: S3BlobStore — blobs in an S3-compatible bucket
+ *  Guarantees:
+ *    - Streaming uploads: one PUT up to storage.s3.part-size, multipart
+ *      above it; each part is read straight from the caller's stream
+ *    - A failed multipart upload is aborted (no orphaned parts billed)
+ *  Notes:
+ *    - Works with AWS, MinIO, R2, ... (storage.s3.endpoint + path-style)
+ *    - link(): public base URL when configured (bucket behind a CDN),
+ *      else a presigned GET when storage.s3.presign-ttl-seconds > 0
+ * ================================================================
+ */
+package com.alpha.alphavault.storage;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class S3BlobStore implements BlobStore, AutoCloseable {
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final long partSize;
+    private final String publicBaseUrl;
+    private final Duration presignTtl;
+
+    public S3BlobStore(S3Client s3, S3Presigner presigner, String bucket, long partSize,
+                       String publicBaseUrl, Duration presignTtl) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.partSize = Math.max(5L * 1024 * 1024, partSize); // S3 minimum part size
+        this.publicBaseUrl = publicBaseUrl == null || publicBaseUrl.isBlank() ? null
+                : publicBaseUrl.endsWith("/") ? publicBaseUrl : publicBaseUrl + "/";
+        this.presignTtl = presignTtl;
+    }
+
+    // ============================================================
+    // == Writes
+    // ============================================================
+
+    @Override
+    public void put(String key, InputStream in, long length, String contentType) throws IOException {
+        try {
+            if (length <= partSize) {
+                s3.putObject(PutObjectRequest.builder().bucket(bucket).key(key)
+                                .contentType(contentType).contentLength(length).build(),
+                        RequestBody.fromInputStream(in, length));
+                return;
+            }
+            putMultipart(key, in, length, contentType);
+        } catch (SdkException e) {
+            throw new IOException("S3 put failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void putMultipart(String key, InputStream in, long length, String contentType) {
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket).key(key).contentType(contentType).build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long remaining = length;
+            for (int part = 1; remaining > 0; part++) {
+                long size = Math.min(partSize, remaining);
+                UploadPartResponse r = s3.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucket).key(key).uploadId(uploadId).partNumber(part).contentLength(size).build(),
+                        RequestBody.fromInputStream(new Slice(in, size), size));
+                parts.add(CompletedPart.builder().partNumber(part).eTag(r.eTag()).build());
+                remaining -= size;
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (RuntimeException e) {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId).build());
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("S3 delete failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    // ============================================================
+    // == Reads
+    // ============================================================
+
+    @Override
+    public Optional<InputStream> open(String key) throws IOException {
+        try {
+            return Optional.of(s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (SdkException e) {
+            throw new IOException("S3 get failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return false;
+            throw new IOException("S3 head failed for " + key + ": " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("S3 head failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        try {
+            return s3.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+                    .contents().stream().map(S3Object::key).toList();
+        } catch (SdkException e) {
+            throw new IOException("S3 list failed for " + prefix + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<BlobLink> link(String key) {
+        if (publicBaseUrl != null) return Optional.of(new BlobLink(URI.create(publicBaseUrl + key), null));
+        if (presignTtl == null || presignTtl.isZero()) return Optional.empty();
+        URI uri = URI.create(presigner.presignGetObject(GetObjectPresignRequest.builder()
+                        .signatureDuration(presignTtl)
+                        .getObjectRequest(GetObjectRequest.builder().bucket(bucket).key(key).build())
+                        .build())
+                .url().toString());
+        return Optional.of(new BlobLink(uri, presignTtl));
+    }
+
+    /** Called by Spring on shutdown (inferred destroy method). */
+    @Override
+    public void close() {
+        presigner.close();
+        s3.close();
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    /** The next {@code limit} bytes of a shared stream; close() leaves the underlying stream open. */
+    private static final class Slice extends FilterInputStream {
+        private long left;
+
+        Slice(InputStream in, long limit) {
+            super(in);
+            this.left = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (left <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) left--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (left <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, left));
+            if (n > 0) left -= n;
+            return n;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
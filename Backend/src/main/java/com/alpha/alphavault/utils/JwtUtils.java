@@ -9,15 +9,22 @@ import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 @Component
 public class JwtUtils {
 
+    /** Access-token claims: the filter authenticates from these alone (no DB). */
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    /** Access-token lifetime: short, sessions continue through refresh tokens. */
     @Value("${jwt.expirationMs}")
     private long jwtExpirationMs;
 
@@ -25,41 +32,48 @@ public class JwtUtils {
         return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
     }
 
+    public long getExpirationMs() {
+        return jwtExpirationMs;
+    }
+
+    public String generateAccessToken(Long userId, String email, Collection<String> roles) {
+        return generateToken(email, Map.of(CLAIM_USER_ID, userId, CLAIM_ROLES, List.copyOf(roles)));
+    }
+
     public String generateToken(String username) {
         return generateToken(username, null);
     }
 
     public String generateToken(String username, Map<String, Object> claims) {
-        JwtBuilder builder = Jwts.builder()
+        JwtBuilder builder = Jwts.builder();
+        if (claims != null && !claims.isEmpty()) {
+            builder.addClaims(claims); // before the registered claims: setClaims() would drop them
+        }
+        return builder
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey());
+                .signWith(getSigningKey())
+                .compact();
+    }
 
-        if (claims != null && !claims.isEmpty()) {
-            builder.setClaims(claims);
+    /** Verified claims of a token; one signature check instead of validate + get. */
+    public Claims parseClaims(String token) {
+        try {
+            return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
+            throw new TokenExpiredException("JWT token has expired");
+        } catch (JwtException | IllegalArgumentException e) { // bad signature, malformed, unsupported
+            throw new InvalidJwtException("Invalid JWT token");
         }
-
-        return builder.compact();
     }
 
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (ExpiredJwtException e) {
-            throw new TokenExpiredException("JWT token has expired");
-        } catch (UnsupportedJwtException | MalformedJwtException | SecurityException | IllegalArgumentException e) {
-            throw new InvalidJwtException("Invalid JWT token");
-        }
+        parseClaims(token);
+        return true;
     }
 }
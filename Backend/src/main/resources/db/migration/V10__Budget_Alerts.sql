@@ -0,0 +1,43 @@
+-- Budget alerts and month-end rollover.
+--
+-- budget_alerts: one row per (budget, scope, threshold) currently crossed.
+-- scope is 'TOTAL' for the whole budget or the category name for a line.
+-- The unique key is the dedup: a crossing inserts once (ON CONFLICT DO
+-- NOTHING); falling back below the threshold deletes the row, so the next
+-- crossing alerts again. notified_at is set by the batched email dispatch.
+
+CREATE TABLE IF NOT EXISTS budget_alerts (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    budget_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    scope VARCHAR(50) NOT NULL,
+    threshold INTEGER NOT NULL,
+    spent NUMERIC(19,4) NOT NULL,
+    limit_amount NUMERIC(19,4) NOT NULL,
+    crossed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    notified_at TIMESTAMP,
+    CONSTRAINT uk_budget_alert UNIQUE (budget_id, scope, threshold),
+    CONSTRAINT fk_budget_alert_budget FOREIGN KEY (budget_id) REFERENCES budgets(id) ON DELETE CASCADE,
+    CONSTRAINT fk_budget_alert_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- Dispatch queue: only the pending rows are indexed
+CREATE INDEX IF NOT EXISTS idx_budget_alert_pending ON budget_alerts(id) WHERE notified_at IS NULL;
+
+-- Month-end rollover scans one closed month of rollover budgets in id order
+CREATE INDEX IF NOT EXISTS idx_budget_rollover ON budgets(year, month, id)
+    WHERE rollover_enabled AND deleted_at IS NULL;
+
+-- One row per closed month rolled into the next: a lease (started_at) so only
+-- one node runs it, and a keyset cursor (last_id) so a crash resumes mid-way
+CREATE TABLE IF NOT EXISTS budget_rollovers (
+    year INTEGER NOT NULL,
+    month INTEGER NOT NULL,
+    last_id BIGINT NOT NULL DEFAULT 0,
+    scanned INTEGER NOT NULL DEFAULT 0,
+    created INTEGER NOT NULL DEFAULT 0,
+    carried INTEGER NOT NULL DEFAULT 0,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+    PRIMARY KEY (year, month)
+);
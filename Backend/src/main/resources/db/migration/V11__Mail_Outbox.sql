@@ -0,0 +1,24 @@
+-- Outbound mail outbox: messages are inserted in the business transaction and
+-- sent afterwards by MailOutboxService, so SMTP latency and outages never
+-- reach the request path and a rolled-back request sends nothing.
+-- A claim pushes next_attempt_at forward by a lease (and counts the attempt):
+-- a worker that dies mid-send releases its rows when the lease runs out.
+-- DEAD rows are the dead letters (max attempts reached or undeliverable).
+
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    kind VARCHAR(40) NOT NULL,
+    to_address VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENT', 'DEAD')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- Work queue: only pending rows, in due order
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_due ON mail_outbox(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_dead ON mail_outbox(created_at) WHERE status = 'DEAD';
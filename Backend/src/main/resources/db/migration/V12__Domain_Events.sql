@@ -0,0 +1,26 @@
+-- Domain event outbox: events are inserted in the transaction that records
+-- the fact (expense saved, payment applied, ...) and handled afterwards by
+-- DomainEventRelay, so side effects (budget booking, price history, ...)
+-- leave the request path and are never lost on a crash.
+-- Ordering key is user_id: a user's events are handled in id order, and a
+-- pending event that is leased or backing off holds back the later ones.
+-- DEAD rows are the dead letters (max attempts reached or unreadable payload).
+
+CREATE TABLE IF NOT EXISTS domain_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    event_type VARCHAR(60) NOT NULL,
+    payload JSONB NOT NULL,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'DONE', 'DEAD')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+-- Work queue: only pending rows, in due order
+CREATE INDEX IF NOT EXISTS idx_domain_events_due ON domain_events(next_attempt_at, id) WHERE status = 'PENDING';
+-- Per-user ordering check ("is an earlier event of this user still held back?")
+CREATE INDEX IF NOT EXISTS idx_domain_events_user ON domain_events(user_id, id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_domain_events_dead ON domain_events(created_at) WHERE status = 'DEAD';
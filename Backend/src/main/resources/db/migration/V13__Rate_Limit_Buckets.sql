@@ -0,0 +1,38 @@
+-- Shared token buckets for RateLimitFilter (ratelimit.shared=jdbc).
+-- UNLOGGED: no WAL for this hot, disposable state; a crash just empties it,
+-- which only resets limits to full.
+-- rate_limit_take() refills from elapsed time, then takes p_cost tokens when
+-- at least GREATEST(p_cost, 1) are there (p_cost = 0 is a check only), all
+-- under the row lock, in one round trip.
+
+CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_buckets (
+    bucket_key VARCHAR(200) PRIMARY KEY,
+    tokens DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION rate_limit_take(p_key VARCHAR, p_capacity DOUBLE PRECISION,
+                                           p_refill_per_sec DOUBLE PRECISION, p_cost DOUBLE PRECISION,
+                                           OUT allowed BOOLEAN, OUT tokens DOUBLE PRECISION)
+AS $$
+DECLARE
+    v_now TIMESTAMP := clock_timestamp();
+BEGIN
+    INSERT INTO rate_limit_buckets (bucket_key, tokens, updated_at) VALUES (p_key, p_capacity, v_now)
+    ON CONFLICT (bucket_key) DO NOTHING;
+
+    SELECT LEAST(p_capacity, b.tokens + GREATEST(EXTRACT(EPOCH FROM v_now - b.updated_at), 0) * p_refill_per_sec)
+    INTO tokens
+    FROM rate_limit_buckets b
+    WHERE b.bucket_key = p_key
+    FOR UPDATE;
+
+    allowed := tokens >= GREATEST(p_cost, 1);
+    IF allowed THEN
+        tokens := tokens - p_cost;
+    END IF;
+
+    UPDATE rate_limit_buckets SET tokens = rate_limit_take.tokens, updated_at = v_now
+    WHERE bucket_key = p_key;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,28 @@
+-- Rotating refresh tokens (AuthTokenService) and access-token revocations
+-- (TokenRevocationCache).
+-- refresh_tokens: SHA-256 of the token only. A refresh spends the row
+-- (revoked_at + rotated) and inserts its successor in the same family_id;
+-- rows stay until expires_at so a replayed rotated token is recognised.
+-- token_revocations: one "not before" per user; access tokens issued earlier
+-- are rejected. Rows older than one access-token lifetime are purged.
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    family_id UUID NOT NULL,
+    token_hash CHAR(64) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    revoked_at TIMESTAMP,
+    rotated BOOLEAN NOT NULL DEFAULT false
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_refresh_tokens_hash ON refresh_tokens (token_hash);
+CREATE INDEX IF NOT EXISTS ix_refresh_tokens_family ON refresh_tokens (family_id) WHERE revoked_at IS NULL;
+CREATE INDEX IF NOT EXISTS ix_refresh_tokens_user ON refresh_tokens (user_id) WHERE revoked_at IS NULL;
+CREATE INDEX IF NOT EXISTS ix_refresh_tokens_expires ON refresh_tokens (expires_at);
+
+CREATE TABLE IF NOT EXISTS token_revocations (
+    user_id BIGINT PRIMARY KEY,
+    not_before TIMESTAMP NOT NULL
+);
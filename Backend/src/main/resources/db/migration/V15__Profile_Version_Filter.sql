@@ -0,0 +1,29 @@
+-- PROFILE is part of every ETag, but most updates of a users row are login
+-- bookkeeping (last_login_at, failed_login_attempts, lockout, password rehash,
+-- reset tokens, updated_at). Bumping on those invalidated every cached tag of
+-- the user on each sign-in. The update trigger now only counts rows whose
+-- other columns actually changed; insert/delete triggers are unchanged.
+
+CREATE OR REPLACE FUNCTION bump_user_profile_version() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    ignored TEXT[] := ARRAY['password', 'failed_login_attempts', 'account_locked_until', 'last_login_at',
+                            'password_reset_token', 'password_reset_token_expiry', 'updated_at'];
+BEGIN
+    -- Same sorted, distinct upsert as bump_user_data_version
+    INSERT INTO user_data_versions AS v (user_id, domain, version, updated_at)
+    SELECT DISTINCT n.id, 'PROFILE', 1, CURRENT_TIMESTAMP
+    FROM new_rows n
+    JOIN old_rows o ON o.id = n.id
+    WHERE to_jsonb(n) - ignored IS DISTINCT FROM to_jsonb(o) - ignored
+    ORDER BY 1
+    ON CONFLICT (user_id, domain)
+    DO UPDATE SET version = v.version + 1, updated_at = EXCLUDED.updated_at;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_users_dv_upd ON users;
+CREATE TRIGGER trg_users_dv_upd AFTER UPDATE ON users
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_profile_version();
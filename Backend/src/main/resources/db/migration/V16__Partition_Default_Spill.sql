@@ -0,0 +1,91 @@
+-- Dates are only required to be present, so a row dated beyond the
+-- pre-created horizon (or before the first partition) lands in the DEFAULT
+-- partition. PostgreSQL then refuses to create or attach the range that
+-- covers it ("updated partition constraint for default partition would be
+-- violated"), and ensure_time_partitions failed on every run from then on.
+-- New ranges are now built off-line: matching default rows are moved into
+-- the new table, which is then attached. Applies to expenses, incomes,
+-- debt_history and ledger_entries (all go through ensure_time_partitions).
+
+-- Moves rows of parent's DEFAULT partition with key in [lo, hi) into part
+-- (a detached table with the parent's columns). Returns the rows moved.
+CREATE OR REPLACE FUNCTION spill_default_rows(parent TEXT, part TEXT, lo DATE, hi DATE) RETURNS BIGINT
+LANGUAGE plpgsql AS $$
+DECLARE
+    dflt TEXT;
+    col TEXT;
+    moved BIGINT := 0;
+BEGIN
+    SELECT c.relname INTO dflt
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = parent::regclass
+      AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT';
+    IF dflt IS NULL THEN
+        RETURN 0;
+    END IF;
+
+    SELECT a.attname INTO col
+    FROM pg_partitioned_table p
+    JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+    WHERE p.partrelid = parent::regclass;
+
+    -- Blocks inserts routed to the default until the caller's transaction ends,
+    -- so the ATTACH scan cannot find a row that arrived after the move
+    EXECUTE format('LOCK TABLE %I IN EXCLUSIVE MODE', dflt);
+    EXECUTE format('WITH m AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) '
+                || 'INSERT INTO %I SELECT * FROM m', dflt, col, lo, col, hi, part);
+    GET DIAGNOSTICS moved = ROW_COUNT;
+    IF moved > 0 THEN
+        RAISE NOTICE 'moved % rows of % from % into %', moved, parent, dflt, part;
+    END IF;
+    RETURN moved;
+END
+$$;
+
+-- Same contract as V7; a range with rows waiting in DEFAULT is created
+-- detached, filled from DEFAULT and attached in the same transaction
+CREATE OR REPLACE FUNCTION ensure_time_partitions(parent TEXT, from_date DATE, periods INT, step TEXT) RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    lo DATE := date_trunc(step, from_date)::date;
+    hi DATE;
+    part TEXT;
+    created INT := 0;
+BEGIN
+    IF step NOT IN ('month', 'year') THEN
+        RAISE EXCEPTION 'unsupported partition step: %', step;
+    END IF;
+    FOR i IN 1..periods LOOP
+        hi := (lo + ('1 ' || step)::interval)::date;
+        part := parent || '_' || to_char(lo, CASE step WHEN 'year' THEN 'YYYY' ELSE 'YYYY_MM' END);
+        IF to_regclass(part) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part, parent);
+            PERFORM spill_default_rows(parent, part, lo, hi);
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', parent, part, lo, hi);
+            created := created + 1;
+        END IF;
+        lo := hi;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Same contract as V7; rows written to DEFAULT for the archived range while
+-- it was detached are folded back in before the attach
+CREATE OR REPLACE FUNCTION restore_time_partition(parent TEXT, part TEXT) RETURNS VOID
+LANGUAGE plpgsql AS $$
+DECLARE
+    a archived_partitions%ROWTYPE;
+BEGIN
+    SELECT * INTO a FROM archived_partitions x WHERE x.parent = $1 AND x.partition_name = $2;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'no archived partition % of %', part, parent;
+    END IF;
+    EXECUTE format('ALTER TABLE archive.%I SET SCHEMA public', part);
+    PERFORM spill_default_rows(parent, part, a.range_from, a.range_to);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent, part, a.range_from, a.range_to);
+    DELETE FROM archived_partitions x WHERE x.parent = $1 AND x.partition_name = $2;
+END
+$$;
@@ -0,0 +1,17 @@
+-- Daily mark-to-market points per investment (feeds portfolio analytics)
+-- One row per investment per day; later marks on the same day overwrite it.
+
+CREATE TABLE IF NOT EXISTS investment_price_history (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    investment_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    price_date DATE NOT NULL,
+    price NUMERIC(19,8),
+    market_value NUMERIC(19,4) NOT NULL,
+    recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_invprice_investment_date UNIQUE (investment_id, price_date),
+    CONSTRAINT fk_invprice_investment FOREIGN KEY (investment_id) REFERENCES investments(id) ON DELETE CASCADE,
+    CONSTRAINT fk_invprice_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_invprice_user_date ON investment_price_history(user_id, price_date);
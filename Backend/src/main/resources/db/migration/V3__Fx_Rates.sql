@@ -0,0 +1,32 @@
+-- FX rate table used to normalize aggregates into users.preferred_currency.
+-- Rates are units of currency per 1 USD (same convention as exchangerate-api).
+-- Seed values are a fixture so SQL conversion works before the first refresh;
+-- FxRateService overwrites them from the live source on schedule.
+
+CREATE TABLE IF NOT EXISTS fx_rates (
+    currency VARCHAR(3) PRIMARY KEY,
+    rate_per_usd NUMERIC(24,10) NOT NULL CHECK (rate_per_usd > 0),
+    source VARCHAR(32) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO fx_rates (currency, rate_per_usd, source) VALUES
+    ('USD', 1.0000000000, 'fixture'),
+    ('EUR', 0.9200000000, 'fixture'),
+    ('GBP', 0.7900000000, 'fixture'),
+    ('CHF', 0.8800000000, 'fixture'),
+    ('JPY', 150.0000000000, 'fixture'),
+    ('CNY', 7.2000000000, 'fixture'),
+    ('CAD', 1.3600000000, 'fixture'),
+    ('AUD', 1.5200000000, 'fixture'),
+    ('INR', 83.0000000000, 'fixture'),
+    ('BRL', 5.0000000000, 'fixture'),
+    ('MXN', 17.0000000000, 'fixture'),
+    ('SEK', 10.5000000000, 'fixture'),
+    ('NOK', 10.6000000000, 'fixture'),
+    ('DKK', 6.8500000000, 'fixture'),
+    ('AED', 3.6725000000, 'fixture'),
+    ('SAR', 3.7500000000, 'fixture'),
+    ('MAD', 10.0000000000, 'fixture'),
+    ('TND', 3.1000000000, 'fixture')
+ON CONFLICT (currency) DO NOTHING;
@@ -0,0 +1,37 @@
+-- Recurring income/expense templates + idempotent materialization
+
+CREATE TABLE IF NOT EXISTS recurring_transactions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    kind VARCHAR(8) NOT NULL CHECK (kind IN ('INCOME', 'EXPENSE')),
+    recurrence VARCHAR(10) NOT NULL CHECK (recurrence IN ('DAILY', 'WEEKLY', 'MONTHLY', 'YEARLY')),
+    amount NUMERIC(19,4) NOT NULL CHECK (amount > 0),
+    currency VARCHAR(3),
+    category VARCHAR(50),
+    source VARCHAR(255),
+    payment_method VARCHAR(50) NOT NULL CHECK (payment_method IN ('CASH', 'CARD', 'CHECK', 'TRANSFER', 'CRYPTO', 'PAYPAL')),
+    description VARCHAR(500),
+    start_date DATE NOT NULL,
+    end_date DATE,
+    next_run_date DATE NOT NULL,
+    last_run_date DATE,
+    occurrences INTEGER NOT NULL DEFAULT 0,
+    active BOOLEAN NOT NULL DEFAULT true,
+    version BIGINT DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT ck_recurring_kind_fields CHECK (
+        (kind = 'EXPENSE' AND category IS NOT NULL) OR (kind = 'INCOME' AND source IS NOT NULL)
+    ),
+    CONSTRAINT fk_recurring_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_recurring_user ON recurring_transactions(user_id);
+-- Scheduler scan: active templates due on or before a date, walked by id
+CREATE INDEX IF NOT EXISTS idx_recurring_due ON recurring_transactions(next_run_date, id) WHERE active;
+
+-- Idempotency key of a materialized occurrence: "rt:<templateId>:<yyyy-MM-dd>"
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS recurrence_key VARCHAR(64);
+ALTER TABLE incomes ADD COLUMN IF NOT EXISTS recurrence_key VARCHAR(64);
+ALTER TABLE expenses ADD CONSTRAINT uk_expense_recurrence_key UNIQUE (recurrence_key);
+ALTER TABLE incomes ADD CONSTRAINT uk_income_recurrence_key UNIQUE (recurrence_key);
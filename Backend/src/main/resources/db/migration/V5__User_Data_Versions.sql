@@ -0,0 +1,74 @@
+-- Per-user, per-domain data version (drives HTTP ETags)
+-- Bumped by statement-level triggers in the writing transaction, so JPA,
+-- native and JDBC-batch writes are all covered (one upsert per statement).
+
+CREATE TABLE IF NOT EXISTS user_data_versions (
+    user_id BIGINT NOT NULL,
+    domain VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, domain)
+);
+
+-- TG_ARGV: domain                      -> rows carry user_id
+--          domain, id column           -> rows are users themselves
+--          domain, parent table, fk    -> child tables without user_id
+CREATE OR REPLACE FUNCTION bump_user_data_version() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    src TEXT := CASE TG_OP WHEN 'DELETE' THEN 'old_rows' ELSE 'new_rows' END;
+    users_sql TEXT;
+BEGIN
+    IF TG_NARGS > 2 THEN
+        users_sql := format('SELECT p.user_id FROM %I t JOIN %I p ON p.id = t.%I', src, TG_ARGV[1], TG_ARGV[2]);
+    ELSIF TG_NARGS = 2 THEN
+        users_sql := format('SELECT t.%I AS user_id FROM %I t', TG_ARGV[1], src);
+    ELSE
+        users_sql := format('SELECT t.user_id FROM %I t', src);
+    END IF;
+
+    -- Sorted, distinct users: one row lock each, always taken in the same order
+    EXECUTE format($q$
+        INSERT INTO user_data_versions AS v (user_id, domain, version, updated_at)
+        SELECT DISTINCT s.user_id, %L, 1, CURRENT_TIMESTAMP
+        FROM (%s) s
+        WHERE s.user_id IS NOT NULL
+        ORDER BY 1
+        ON CONFLICT (user_id, domain)
+        DO UPDATE SET version = v.version + 1, updated_at = EXCLUDED.updated_at
+    $q$, TG_ARGV[0], users_sql);
+    RETURN NULL;
+END
+$$;
+
+DO $$
+DECLARE
+    t RECORD;
+    args TEXT;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES
+        ('users',                    'PROFILE',      NULL,      'id'),
+        ('expenses',                 'EXPENSES',     NULL,      NULL),
+        ('incomes',                  'INCOMES',      NULL,      NULL),
+        ('budgets',                  'BUDGETS',      NULL,      NULL),
+        ('budget_categories',        'BUDGETS',      'budgets', 'budget_id'),
+        ('saving_goals',             'SAVING_GOALS', NULL,      NULL),
+        ('debts',                    'DEBTS',        NULL,      NULL),
+        ('debt_history',             'DEBTS',        'debts',   'debt_id'),
+        ('investments',              'INVESTMENTS',  NULL,      NULL),
+        ('investment_price_history', 'INVESTMENTS',  NULL,      NULL),
+        ('recurring_transactions',   'RECURRING',    NULL,      NULL)
+    ) AS x(tbl, domain, parent, fk)
+    LOOP
+        args := CASE WHEN t.parent IS NOT NULL THEN format('%L, %L, %L', t.domain, t.parent, t.fk)
+                     WHEN t.fk IS NOT NULL THEN format('%L, %L', t.domain, t.fk)
+                     ELSE quote_literal(t.domain) END;
+        EXECUTE format('CREATE TRIGGER %I AFTER INSERT ON %I REFERENCING NEW TABLE AS new_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_version(%s)', 'trg_' || t.tbl || '_dv_ins', t.tbl, args);
+        EXECUTE format('CREATE TRIGGER %I AFTER UPDATE ON %I REFERENCING NEW TABLE AS new_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_version(%s)', 'trg_' || t.tbl || '_dv_upd', t.tbl, args);
+        EXECUTE format('CREATE TRIGGER %I AFTER DELETE ON %I REFERENCING OLD TABLE AS old_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_version(%s)', 'trg_' || t.tbl || '_dv_del', t.tbl, args);
+    END LOOP;
+END
+$$;
@@ -0,0 +1,168 @@
+-- Append-only money ledger: one row per balance movement, partitioned by month.
+-- The balance columns (saving_goals.current_amount, debts.remaining_amount,
+-- investments.current_value, budgets.total_spent, budget_categories.spent_amount)
+-- are projections over it and always move in the same transaction as their entry.
+--   * goals / debts / investments: captured by row triggers below (every write path)
+--   * budgets / budget lines: booked ledger-first per expense by LedgerService
+
+CREATE SEQUENCE IF NOT EXISTS ledger_entries_id_seq;
+
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id BIGINT NOT NULL DEFAULT nextval('ledger_entries_id_seq'),
+    user_id BIGINT NOT NULL,
+    account_type VARCHAR(20) NOT NULL,
+    account_id BIGINT NOT NULL,
+    entry_type VARCHAR(20) NOT NULL,
+    amount NUMERIC(19,4) NOT NULL,              -- signed delta applied to the balance
+    balance_after NUMERIC(19,4) NOT NULL,
+    currency VARCHAR(3),
+    source_table VARCHAR(40),
+    source_id BIGINT,
+    occurred_on DATE NOT NULL,
+    tx_id BIGINT NOT NULL DEFAULT txid_current(),
+    recorded_at TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
+    PRIMARY KEY (id, recorded_at)
+) PARTITION BY RANGE (recorded_at);
+
+ALTER SEQUENCE ledger_entries_id_seq OWNED BY ledger_entries.id;
+
+CREATE INDEX IF NOT EXISTS idx_ledger_account ON ledger_entries (account_type, account_id, recorded_at);
+CREATE INDEX IF NOT EXISTS idx_ledger_user ON ledger_entries (user_id, recorded_at);
+CREATE INDEX IF NOT EXISTS idx_ledger_source ON ledger_entries (source_table, source_id) WHERE source_id IS NOT NULL;
+
+-- Safety net only; monthly partitions are kept ahead by LedgerService
+CREATE TABLE IF NOT EXISTS ledger_entries_default PARTITION OF ledger_entries DEFAULT;
+
+CREATE OR REPLACE FUNCTION ensure_ledger_partitions(from_month DATE, months INT) RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    m DATE := date_trunc('month', from_month)::date;
+    part TEXT;
+    created INT := 0;
+BEGIN
+    FOR i IN 1..months LOOP
+        part := 'ledger_entries_' || to_char(m, 'YYYY_MM');
+        IF to_regclass(part) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF ledger_entries FOR VALUES FROM (%L) TO (%L)',
+                           part, m, (m + INTERVAL '1 month')::date);
+            created := created + 1;
+        END IF;
+        m := (m + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+SELECT ensure_ledger_partitions((CURRENT_DATE - INTERVAL '1 month')::date, 5);
+
+-- Balance of an account at as_of = balance + entries recorded in [as_of, t]
+CREATE TABLE IF NOT EXISTS ledger_snapshots (
+    account_type VARCHAR(20) NOT NULL,
+    account_id BIGINT NOT NULL,
+    as_of TIMESTAMP NOT NULL,                   -- covers entries recorded before as_of
+    user_id BIGINT NOT NULL,
+    balance NUMERIC(19,4) NOT NULL,
+    entries BIGINT NOT NULL,                    -- entries folded in since the previous snapshot
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_type, account_id, as_of)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ledger_snapshots_as_of ON ledger_snapshots (as_of);
+
+-- TG_ARGV: account type, balance column, entry type when it grows, when it shrinks.
+-- SET LOCAL alphavault.ledger_capture = 'off' skips capture (projection rebuilds).
+CREATE OR REPLACE FUNCTION ledger_capture() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    r JSONB := to_jsonb(CASE WHEN TG_OP = 'DELETE' THEN OLD ELSE NEW END);
+    before NUMERIC := 0;
+    after NUMERIC := 0;
+BEGIN
+    IF current_setting('alphavault.ledger_capture', true) = 'off' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP <> 'INSERT' THEN before := COALESCE((to_jsonb(OLD) ->> TG_ARGV[1])::numeric, 0); END IF;
+    IF TG_OP <> 'DELETE' THEN after := COALESCE((to_jsonb(NEW) ->> TG_ARGV[1])::numeric, 0); END IF;
+    IF after = before THEN
+        RETURN NULL;
+    END IF;
+
+    INSERT INTO ledger_entries (user_id, account_type, account_id, entry_type, amount, balance_after,
+                                currency, source_table, source_id, occurred_on)
+    VALUES ((r ->> 'user_id')::bigint, TG_ARGV[0], (r ->> 'id')::bigint,
+            CASE WHEN TG_OP = 'INSERT' THEN 'OPENING'
+                 WHEN TG_OP = 'DELETE' THEN 'CLOSING'
+                 WHEN after > before THEN TG_ARGV[2]
+                 ELSE TG_ARGV[3] END,
+            after - before, after, r ->> 'currency', TG_TABLE_NAME, (r ->> 'id')::bigint, CURRENT_DATE);
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_saving_goals_ledger
+    AFTER INSERT OR DELETE OR UPDATE OF current_amount ON saving_goals
+    FOR EACH ROW EXECUTE FUNCTION ledger_capture('SAVING_GOAL', 'current_amount', 'CONTRIBUTION', 'WITHDRAWAL');
+
+CREATE TRIGGER trg_debts_ledger
+    AFTER INSERT OR DELETE OR UPDATE OF remaining_amount ON debts
+    FOR EACH ROW EXECUTE FUNCTION ledger_capture('DEBT', 'remaining_amount', 'ACCRUAL', 'PAYMENT');
+
+CREATE TRIGGER trg_investments_ledger
+    AFTER INSERT OR DELETE OR UPDATE OF current_value ON investments
+    FOR EACH ROW EXECUTE FUNCTION ledger_capture('INVESTMENT', 'current_value', 'MARK_UP', 'MARK_DOWN');
+
+-- ============================================================
+-- Backfill: opening balances, then per-expense budget bookings
+-- ============================================================
+
+INSERT INTO ledger_entries (user_id, account_type, account_id, entry_type, amount, balance_after,
+                            currency, source_table, source_id, occurred_on)
+SELECT user_id, 'SAVING_GOAL', id, 'OPENING', current_amount, current_amount, currency, 'saving_goals', id, CURRENT_DATE
+FROM saving_goals WHERE current_amount <> 0
+UNION ALL
+SELECT user_id, 'DEBT', id, 'OPENING', remaining_amount, remaining_amount, currency, 'debts', id, CURRENT_DATE
+FROM debts WHERE remaining_amount <> 0
+UNION ALL
+SELECT user_id, 'INVESTMENT', id, 'OPENING', current_value, current_value, currency, 'investments', id, CURRENT_DATE
+FROM investments WHERE COALESCE(current_value, 0) <> 0;
+
+WITH booked AS (
+    SELECT ex.id AS expense_id, ex.user_id, ex.expense_date, b.id AS budget_id, bc.id AS line_id,
+           COALESCE(b.currency, u.preferred_currency) AS currency,
+           ROUND(ex.amount * COALESCE(tr.rate_per_usd / fr.rate_per_usd, 1), 4) AS amount
+    FROM expenses ex
+    JOIN users u ON u.id = ex.user_id
+    JOIN budgets b ON b.user_id = ex.user_id AND b.deleted_at IS NULL
+                  AND b.year = EXTRACT(YEAR FROM ex.expense_date) AND b.month = EXTRACT(MONTH FROM ex.expense_date)
+    LEFT JOIN budget_categories bc ON bc.budget_id = b.id AND bc.category = ex.category AND bc.deleted_at IS NULL
+    LEFT JOIN fx_rates fr ON fr.currency = UPPER(ex.currency)
+    LEFT JOIN fx_rates tr ON tr.currency = UPPER(COALESCE(b.currency, u.preferred_currency))
+    WHERE ex.deleted_at IS NULL
+),
+lines AS (
+    SELECT expense_id, user_id, expense_date, 'BUDGET' AS account_type, budget_id AS account_id, currency, amount FROM booked
+    UNION ALL
+    SELECT expense_id, user_id, expense_date, 'BUDGET_CATEGORY', line_id, currency, amount FROM booked WHERE line_id IS NOT NULL
+)
+INSERT INTO ledger_entries (user_id, account_type, account_id, entry_type, amount, balance_after,
+                            currency, source_table, source_id, occurred_on)
+SELECT user_id, account_type, account_id, 'SPEND', amount,
+       SUM(amount) OVER (PARTITION BY account_type, account_id ORDER BY expense_id ROWS UNBOUNDED PRECEDING),
+       currency, 'expenses', expense_id, expense_date
+FROM lines
+WHERE amount <> 0;
+
+-- Budget projections now equal their ledger balance
+UPDATE budgets b
+SET total_spent = COALESCE(l.balance, 0)
+FROM budgets x
+LEFT JOIN (SELECT account_id, SUM(amount) AS balance FROM ledger_entries
+           WHERE account_type = 'BUDGET' GROUP BY account_id) l ON l.account_id = x.id
+WHERE b.id = x.id AND b.total_spent IS DISTINCT FROM COALESCE(l.balance, 0);
+
+UPDATE budget_categories c
+SET spent_amount = COALESCE(l.balance, 0)
+FROM budget_categories x
+LEFT JOIN (SELECT account_id, SUM(amount) AS balance FROM ledger_entries
+           WHERE account_type = 'BUDGET_CATEGORY' GROUP BY account_id) l ON l.account_id = x.id
+WHERE c.id = x.id AND c.spent_amount IS DISTINCT FROM COALESCE(l.balance, 0);
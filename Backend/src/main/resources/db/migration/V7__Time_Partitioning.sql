@@ -0,0 +1,190 @@
+-- Range-partition the append-mostly tables by their business date:
+--   expenses (expense_date, monthly), incomes (income_date, monthly),
+--   debt_history (payment_date, yearly).
+-- Hot queries (current month/year) prune to one partition; vacuum and index
+-- maintenance work per partition, and closed periods can be detached.
+-- Primary keys become (id, date) as PostgreSQL requires the partition key in
+-- every unique constraint; ids stay globally unique through one sequence.
+-- NOTE: the conversion rewrites the three tables under an exclusive lock.
+
+-- ============================================================
+-- Helpers
+-- ============================================================
+
+-- Creates missing partitions "<parent>_YYYY_MM" (month) / "<parent>_YYYY" (year)
+CREATE OR REPLACE FUNCTION ensure_time_partitions(parent TEXT, from_date DATE, periods INT, step TEXT) RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    lo DATE := date_trunc(step, from_date)::date;
+    hi DATE;
+    part TEXT;
+    created INT := 0;
+BEGIN
+    IF step NOT IN ('month', 'year') THEN
+        RAISE EXCEPTION 'unsupported partition step: %', step;
+    END IF;
+    FOR i IN 1..periods LOOP
+        hi := (lo + ('1 ' || step)::interval)::date;
+        part := parent || '_' || to_char(lo, CASE step WHEN 'year' THEN 'YYYY' ELSE 'YYYY_MM' END);
+        IF to_regclass(part) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)', part, parent, lo, hi);
+            created := created + 1;
+        END IF;
+        lo := hi;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- The ledger keeps its own entry point, now on the shared helper
+CREATE OR REPLACE FUNCTION ensure_ledger_partitions(from_month DATE, months INT) RETURNS INT
+LANGUAGE sql AS $$
+    SELECT ensure_time_partitions('ledger_entries', from_month, months, 'month');
+$$;
+
+CREATE SCHEMA IF NOT EXISTS archive;
+
+CREATE TABLE IF NOT EXISTS archived_partitions (
+    parent VARCHAR(63) NOT NULL,
+    partition_name VARCHAR(63) NOT NULL,
+    range_from DATE NOT NULL,
+    range_to DATE NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (parent, partition_name)
+);
+
+-- Detaches every partition of parent that ends on or before before_date and
+-- moves it to the "archive" schema (data kept, no longer visible to the app)
+CREATE OR REPLACE FUNCTION archive_time_partitions(parent TEXT, before_date DATE) RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    r RECORD;
+    archived INT := 0;
+BEGIN
+    FOR r IN
+        SELECT c.relname AS part,
+               substring(pg_get_expr(c.relpartbound, c.oid) FROM 'FROM \(''([0-9-]+)') ::date AS range_from,
+               substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''([0-9-]+)') ::date AS range_to
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass
+          AND pg_get_expr(c.relpartbound, c.oid) <> 'DEFAULT'
+        ORDER BY 2
+    LOOP
+        CONTINUE WHEN r.range_to > before_date;
+        EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, r.part);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA archive', r.part);
+        INSERT INTO archived_partitions (parent, partition_name, range_from, range_to)
+        VALUES (parent, r.part, r.range_from, r.range_to);
+        archived := archived + 1;
+    END LOOP;
+    RETURN archived;
+END
+$$;
+
+-- Brings an archived partition back (e.g. for an audit of a closed year)
+CREATE OR REPLACE FUNCTION restore_time_partition(parent TEXT, part TEXT) RETURNS VOID
+LANGUAGE plpgsql AS $$
+DECLARE
+    a archived_partitions%ROWTYPE;
+BEGIN
+    SELECT * INTO a FROM archived_partitions x WHERE x.parent = $1 AND x.partition_name = $2;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'no archived partition % of %', part, parent;
+    END IF;
+    EXECUTE format('ALTER TABLE archive.%I SET SCHEMA public', part);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent, part, a.range_from, a.range_to);
+    DELETE FROM archived_partitions x WHERE x.parent = $1 AND x.partition_name = $2;
+END
+$$;
+
+-- Rebuilds tbl as a partitioned table with the same columns, defaults and
+-- checks; partitions cover every existing row plus ahead periods.
+CREATE OR REPLACE FUNCTION convert_to_time_partitioned(tbl TEXT, col TEXT, step TEXT, ahead INT) RETURNS VOID
+LANGUAGE plpgsql AS $$
+DECLARE
+    old TEXT := tbl || '_unpartitioned';
+    lo DATE;
+    hi DATE;
+    max_id BIGINT;
+    periods INT;
+BEGIN
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', tbl, old);
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (%I)',
+                   tbl, old, col);
+
+    EXECUTE format('SELECT MIN(%I), MAX(%I), MAX(id) FROM %I', col, col, old) INTO lo, hi, max_id;
+    lo := date_trunc(step, COALESCE(lo, CURRENT_DATE))::date;
+    hi := date_trunc(step, GREATEST(COALESCE(hi, CURRENT_DATE), CURRENT_DATE))::date;
+    periods := CASE step
+                   WHEN 'year' THEN EXTRACT(YEAR FROM hi)::int - EXTRACT(YEAR FROM lo)::int
+                   ELSE (EXTRACT(YEAR FROM hi)::int - EXTRACT(YEAR FROM lo)::int) * 12
+                        + EXTRACT(MONTH FROM hi)::int - EXTRACT(MONTH FROM lo)::int
+               END + 1 + ahead;
+    PERFORM ensure_time_partitions(tbl, lo, periods, step);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', tbl || '_default', tbl);
+
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I', tbl, old);
+    EXECUTE format('DROP TABLE %I', old);
+
+    -- Identity columns are not allowed on partitioned parents: plain owned sequence
+    EXECUTE format('CREATE SEQUENCE %I OWNED BY %I.id', tbl || '_id_seq', tbl);
+    PERFORM setval(tbl || '_id_seq', COALESCE(max_id, 0) + 1, false);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', tbl, tbl || '_id_seq');
+    EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id, %I)', tbl, col);
+END
+$$;
+
+-- ============================================================
+-- Conversion
+-- ============================================================
+
+SELECT convert_to_time_partitioned('expenses', 'expense_date', 'month', 3);
+SELECT convert_to_time_partitioned('incomes', 'income_date', 'month', 3);
+SELECT convert_to_time_partitioned('debt_history', 'payment_date', 'year', 1);
+
+ALTER TABLE expenses ADD CONSTRAINT fk_expense_user FOREIGN KEY (user_id) REFERENCES users(id);
+ALTER TABLE incomes ADD CONSTRAINT fk_income_user FOREIGN KEY (user_id) REFERENCES users(id);
+ALTER TABLE debt_history ADD CONSTRAINT fk_debthistory_debt FOREIGN KEY (debt_id) REFERENCES debts(id);
+
+-- recurrence_key embeds the occurrence date, so (key, date) is as strict as key alone
+ALTER TABLE expenses ADD CONSTRAINT uk_expense_recurrence_key UNIQUE (recurrence_key, expense_date);
+ALTER TABLE incomes ADD CONSTRAINT uk_income_recurrence_key UNIQUE (recurrence_key, income_date);
+
+-- Same index names as V1; user lookups now carry the date for in-partition range scans
+CREATE INDEX IF NOT EXISTS idx_expense_user ON expenses(user_id, expense_date);
+CREATE INDEX IF NOT EXISTS idx_expense_date ON expenses(expense_date);
+CREATE INDEX IF NOT EXISTS idx_expense_category ON expenses(category);
+CREATE INDEX IF NOT EXISTS idx_expense_payment_method ON expenses(payment_method);
+CREATE INDEX IF NOT EXISTS idx_expense_deleted ON expenses(deleted_at);
+
+CREATE INDEX IF NOT EXISTS idx_income_user ON incomes(user_id, income_date);
+CREATE INDEX IF NOT EXISTS idx_income_date ON incomes(income_date);
+CREATE INDEX IF NOT EXISTS idx_income_payment_method ON incomes(payment_method);
+CREATE INDEX IF NOT EXISTS idx_income_deleted ON incomes(deleted_at);
+
+CREATE INDEX IF NOT EXISTS idx_debt_history_debt ON debt_history(debt_id);
+CREATE INDEX IF NOT EXISTS idx_debt_history_date ON debt_history(payment_date);
+
+-- Data-version triggers (V5) went away with the old tables; statement
+-- triggers on the partitioned parent see rows of every partition
+DO $$
+DECLARE
+    t RECORD;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES
+        ('expenses',     quote_literal('EXPENSES')),
+        ('incomes',      quote_literal('INCOMES')),
+        ('debt_history', format('%L, %L, %L', 'DEBTS', 'debts', 'debt_id'))
+    ) AS x(tbl, args)
+    LOOP
+        EXECUTE format('CREATE TRIGGER %I AFTER INSERT ON %I REFERENCING NEW TABLE AS new_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_version(%s)', 'trg_' || t.tbl || '_dv_ins', t.tbl, t.args);
+        EXECUTE format('CREATE TRIGGER %I AFTER UPDATE ON %I REFERENCING NEW TABLE AS new_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_version(%s)', 'trg_' || t.tbl || '_dv_upd', t.tbl, t.args);
+        EXECUTE format('CREATE TRIGGER %I AFTER DELETE ON %I REFERENCING OLD TABLE AS old_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_version(%s)', 'trg_' || t.tbl || '_dv_del', t.tbl, t.args);
+    END LOOP;
+END
+$$;
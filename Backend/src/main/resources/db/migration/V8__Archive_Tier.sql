@@ -0,0 +1,28 @@
+-- Cold tier for soft-deleted rows: the archival job moves rows deleted more
+-- than archival.grace-days ago out of the hot tables (and their indexes) into
+-- one JSONB row each; restore() rehydrates them transparently.
+-- Children (budget_categories, debt_history) travel inside the parent payload
+-- under "_children". toast_tuple_target makes even small payloads compress.
+
+CREATE SCHEMA IF NOT EXISTS archive;
+
+CREATE TABLE IF NOT EXISTS archive.archived_rows (
+    table_name VARCHAR(63) NOT NULL,
+    row_id BIGINT NOT NULL,
+    user_id BIGINT,
+    deleted_at TIMESTAMP,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    payload JSONB NOT NULL,
+    PRIMARY KEY (table_name, row_id)
+) WITH (toast_tuple_target = 128);
+
+CREATE INDEX IF NOT EXISTS idx_archived_rows_user ON archive.archived_rows (user_id, table_name);
+
+-- lz4 needs PostgreSQL 14+ built with lz4; pglz (the default) otherwise
+DO $$
+BEGIN
+    ALTER TABLE archive.archived_rows ALTER COLUMN payload SET COMPRESSION lz4;
+EXCEPTION WHEN OTHERS THEN
+    RAISE NOTICE 'lz4 unavailable, archive payloads use pglz';
+END
+$$;
@@ -0,0 +1,44 @@
+-- Soft-deleted rows are now hidden by auto-enabled Hibernate filters, so every
+-- application query carries "deleted_at IS NULL". The user indexes become
+-- partial on that predicate (deleted rows no longer bloat the hot path), and
+-- the deleted_at indexes only keep the deleted rows (restore, admin view,
+-- archival job), where a full index was almost entirely NULLs.
+-- Index names are unchanged.
+
+-- ============================================================
+-- Live rows: user lookups
+-- ============================================================
+
+DROP INDEX IF EXISTS idx_expense_user;
+CREATE INDEX idx_expense_user ON expenses(user_id, expense_date) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_income_user;
+CREATE INDEX idx_income_user ON incomes(user_id, income_date) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_budget_user;
+CREATE INDEX idx_budget_user ON budgets(user_id) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_debt_user;
+CREATE INDEX idx_debt_user ON debts(user_id) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_goal_user;
+CREATE INDEX idx_goal_user ON saving_goals(user_id) WHERE deleted_at IS NULL;
+
+-- ============================================================
+-- Deleted rows only
+-- ============================================================
+
+DROP INDEX IF EXISTS idx_expense_deleted;
+CREATE INDEX idx_expense_deleted ON expenses(deleted_at) WHERE deleted_at IS NOT NULL;
+
+DROP INDEX IF EXISTS idx_income_deleted;
+CREATE INDEX idx_income_deleted ON incomes(deleted_at) WHERE deleted_at IS NOT NULL;
+
+DROP INDEX IF EXISTS idx_budget_deleted;
+CREATE INDEX idx_budget_deleted ON budgets(deleted_at) WHERE deleted_at IS NOT NULL;
+
+DROP INDEX IF EXISTS idx_debt_deleted;
+CREATE INDEX idx_debt_deleted ON debts(deleted_at) WHERE deleted_at IS NOT NULL;
+
+DROP INDEX IF EXISTS idx_goal_deleted;
+CREATE INDEX idx_goal_deleted ON saving_goals(deleted_at) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,122 @@
+package com.alpha.alphavault.config;
+
+import com.alpha.alphavault.dto.common.ApiResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeanResponseAdviceTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final LeanResponseAdvice advice = new LeanResponseAdvice();
+
+    private Object write(Object body, MediaType type, MockHttpServletRequest request, MockHttpServletResponse response) {
+        ServletServerHttpResponse out = new ServletServerHttpResponse(response);
+        Object result = advice.beforeBodyWrite(body, null, type, MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(request), out);
+        out.getHeaders().forEach((k, v) -> v.forEach(x -> response.addHeader(k, x)));
+        return result;
+    }
+
+    private static MockHttpServletRequest lean() {
+        MockHttpServletRequest r = new MockHttpServletRequest();
+        r.addHeader(LeanResponseAdvice.PROFILE_HEADER, "LEAN");
+        return r;
+    }
+
+    // ============================================================
+    // == Profile selection
+    // ============================================================
+
+    @Test
+    void defaultJsonIsUntouched() {
+        ApiResponse<String> body = ApiResponse.ok("Fetched", "x", "/api/x");
+
+        Object out = write(body, MediaType.APPLICATION_JSON, new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        assertThat(out).isSameAs(body);
+    }
+
+    @Test
+    void leanHeaderDropsEnvelopeMetadata() {
+        ApiResponse<String> body = ApiResponse.ok("Fetched", "x", "/api/x");
+
+        ApiResponse<?> out = (ApiResponse<?>) write(body, MediaType.APPLICATION_JSON, lean(), new MockHttpServletResponse());
+
+        assertThat(out.success()).isTrue();
+        assertThat(out.status()).isEqualTo(200);
+        assertThat(out.data()).isEqualTo("x");
+        assertThat(out.message()).isNull();
+        assertThat(out.path()).isNull();
+        assertThat(out.timestamp()).isNull();
+    }
+
+    @Test
+    void binaryFormatsAreAlwaysLean() {
+        ApiResponse<String> body = ApiResponse.ok("Fetched", "x", "/api/x");
+
+        for (MediaType type : List.of(SMILE, MediaType.APPLICATION_CBOR)) {
+            ApiResponse<?> out = (ApiResponse<?>) write(body, type, new MockHttpServletRequest(), new MockHttpServletResponse());
+            assertThat(out.message()).isNull();
+        }
+    }
+
+    @Test
+    void leanPageBecomesEnvelopeIncludingInsideApiResponse() {
+        PageImpl<String> page = new PageImpl<>(List.of("a", "b"), PageRequest.of(1, 2), 5);
+
+        ApiResponse<?> out = (ApiResponse<?>) write(ApiResponse.ok("Fetched", page), MediaType.APPLICATION_JSON,
+                lean(), new MockHttpServletResponse());
+
+        ApiResponse.PageEnvelope<?> env = (ApiResponse.PageEnvelope<?>) out.data();
+        assertThat(env.items()).isEqualTo(List.of("a", "b"));
+        assertThat(env.meta().page()).isEqualTo(1);
+        assertThat(env.meta().totalElements()).isEqualTo(5);
+        assertThat(env.meta().totalPages()).isEqualTo(3);
+    }
+
+    @Test
+    void nullAndPlainBodiesPassThrough() {
+        assertThat(write(null, MediaType.APPLICATION_JSON, lean(), new MockHttpServletResponse())).isNull();
+        assertThat(write("raw", MediaType.TEXT_PLAIN, lean(), new MockHttpServletResponse())).isEqualTo("raw");
+    }
+
+    // ============================================================
+    // == Caching headers
+    // ============================================================
+
+    @Test
+    void varyCoversAcceptAndProfile() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        write("x", MediaType.APPLICATION_JSON, new MockHttpServletRequest(), response);
+
+        assertThat(response.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT, LeanResponseAdvice.PROFILE_HEADER);
+    }
+
+    @Test
+    void variantSeparatesEveryRepresentation() {
+        MockHttpServletRequest json = new MockHttpServletRequest();
+        MockHttpServletRequest smile = new MockHttpServletRequest();
+        smile.addHeader("Accept", "application/x-jackson-smile");
+        MockHttpServletRequest cbor = new MockHttpServletRequest();
+        cbor.addHeader("Accept", "application/cbor");
+
+        assertThat(LeanResponseAdvice.variant(json)).isEqualTo("json");
+        assertThat(LeanResponseAdvice.variant(lean())).isEqualTo("lean");
+        assertThat(LeanResponseAdvice.variant(smile)).isEqualTo("smile");
+        assertThat(LeanResponseAdvice.variant(cbor)).isEqualTo("cbor");
+    }
+}
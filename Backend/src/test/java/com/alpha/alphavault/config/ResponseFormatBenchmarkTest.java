@@ -0,0 +1,135 @@
+package com.alpha.alphavault.config;
+
+import com.alpha.alphavault.dto.common.ApiResponse;
+import com.alpha.alphavault.dto.expense.ExpenseResponseDTO;
+import com.alpha.alphavault.enums.ExpenseCategory;
+import com.alpha.alphavault.enums.PaymentMethod;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payload size and serialization cost of one page of expenses (the real response DTO)
+ * per representation: default JSON, lean JSON (through LeanResponseAdvice), Smile and
+ * CBOR (the JacksonConfig mappers), raw and gzipped. Sizes are asserted; timings are
+ * only logged, since they depend on the machine running the build.
+ */
+class ResponseFormatBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseFormatBenchmarkTest.class);
+    private static final int ROWS = 200;
+    private static final int WARMUP = 200;
+    private static final int RUNS = 500;
+
+    private static ObjectMapper json;
+    private static ObjectMapper smile;
+    private static ObjectMapper cbor;
+    private static ApiResponse<?> full;
+    private static ApiResponse<?> lean;
+
+    @BeforeAll
+    static void setUp() {
+        JacksonConfig config = new JacksonConfig();
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json().modulesToInstall(config.blackbirdModule());
+        json = builder.build();
+        smile = config.smileHttpMessageConverter(builder).getObjectMapper();
+        cbor = config.cborHttpMessageConverter(builder).getObjectMapper();
+
+        ExpenseCategory[] categories = ExpenseCategory.values();
+        PaymentMethod[] methods = PaymentMethod.values();
+        List<ExpenseResponseDTO> rows = new ArrayList<>(ROWS);
+        LocalDate day = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            LocalDateTime created = day.atStartOfDay().plusMinutes(i);
+            rows.add(new ExpenseResponseDTO((long) i, 1L, categories[i % categories.length],
+                    BigDecimal.valueOf(1_000 + i * 37L, 2), "EUR", day.plusDays(i % 28),
+                    methods[i % methods.length], i % 4 == 0 ? null : "Expense " + i,
+                    created, i % 3 == 0 ? created.plusHours(2) : created));
+        }
+        PageImpl<ExpenseResponseDTO> page = new PageImpl<>(rows, PageRequest.of(0, ROWS), 10_000);
+        full = ApiResponse.ok("Expenses fetched successfully", page, "/api/expenses/user/1");
+        lean = leanProfile(full);
+    }
+
+    /** What the controller's body becomes for a client sending the LEAN profile header. */
+    private static ApiResponse<?> leanProfile(ApiResponse<?> body) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(LeanResponseAdvice.PROFILE_HEADER, "LEAN");
+        return (ApiResponse<?>) new LeanResponseAdvice().beforeBodyWrite(body, null, MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class, new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(new MockHttpServletResponse()));
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        }
+        return out.toByteArray();
+    }
+
+    private static double microsPerWrite(ObjectMapper mapper, Object body) throws IOException {
+        for (int i = 0; i < WARMUP; i++) mapper.writeValueAsBytes(body);
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) mapper.writeValueAsBytes(body);
+        return (System.nanoTime() - start) / 1_000d / RUNS;
+    }
+
+    @Test
+    void leanAndBinaryProfilesShrinkThePayload() throws IOException {
+        byte[] fullJson = json.writeValueAsBytes(full);
+        byte[] leanJson = json.writeValueAsBytes(lean);
+        byte[] leanSmile = smile.writeValueAsBytes(lean);
+        byte[] leanCbor = cbor.writeValueAsBytes(lean);
+
+        log.info("{} rows  json={}B/{}B gz ({} us)  lean={}B/{}B gz ({} us)  smile={}B/{}B gz ({} us)  cbor={}B/{}B gz ({} us)",
+                ROWS,
+                fullJson.length, gzip(fullJson).length, microsPerWrite(json, full),
+                leanJson.length, gzip(leanJson).length, microsPerWrite(json, lean),
+                leanSmile.length, gzip(leanSmile).length, microsPerWrite(smile, lean),
+                leanCbor.length, gzip(leanCbor).length, microsPerWrite(cbor, lean));
+
+        assertThat(leanJson.length).isLessThan(fullJson.length);
+        assertThat(leanSmile.length).isLessThan(leanJson.length);
+        assertThat(leanCbor.length).isLessThan(leanJson.length);
+        // gzip is what min-response-size=1KB buys on every JSON list
+        assertThat(gzip(fullJson).length).isLessThan(fullJson.length / 4);
+    }
+
+    @Test
+    void binaryRepresentationsRoundTrip() throws IOException {
+        JsonNode expected = json.readTree(json.writeValueAsBytes(lean));
+
+        assertThat(expected.equals(NUMERIC, smile.readTree(smile.writeValueAsBytes(lean)))).isTrue();
+        assertThat(expected.equals(NUMERIC, cbor.readTree(cbor.writeValueAsBytes(lean)))).isTrue();
+    }
+
+    /** Binary formats keep decimals as BigDecimal (10.00 reads back as 1E+1); compare numbers by value. */
+    private static final Comparator<JsonNode> NUMERIC = (a, b) -> a.isNumber() && b.isNumber()
+            ? a.decimalValue().compareTo(b.decimalValue())
+            : (a.equals(b) ? 0 : 1);
+}
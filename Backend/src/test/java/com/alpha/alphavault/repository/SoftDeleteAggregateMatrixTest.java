@@ -0,0 +1,212 @@
+package com.alpha.alphavault.repository;
+
+import com.alpha.alphavault.config.SoftDeleteFilters;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every repository aggregate over a soft-deletable entity, run against the real schema
+ * (Flyway, partitioned tables, fx_rates joins). Each entity gets one live row worth 10
+ * and one soft-deleted row worth 1000: with the filters on (the default) every aggregate
+ * must report 10; with them off, the ones that rely on the filter must see 1010.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SoftDeleteFilters.class)
+@Testcontainers(disabledWithoutDocker = true)
+class SoftDeleteAggregateMatrixTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    private static final BigDecimal LIVE = new BigDecimal("10");
+    private static final BigDecimal DELETED = new BigDecimal("1000");
+
+    @Autowired ExpenseRepository expenses;
+    @Autowired IncomeRepository incomes;
+    @Autowired BudgetRepository budgets;
+    @Autowired DebtRepository debts;
+    @Autowired SavingGoalRepository goals;
+    @Autowired JdbcTemplate jdbc;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Long userId;
+    LocalDate start;
+    LocalDate end;
+    int year;
+
+    /**
+     * One aggregate call reduced to the amount it reports.
+     * selfFiltering: the query itself says "deletedAt IS NULL" (unaffected by the filters).
+     */
+    record Aggregate(String name, boolean selfFiltering, Function<SoftDeleteAggregateMatrixTest, BigDecimal> call) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static Stream<Aggregate> aggregates() {
+        return Stream.of(
+                // ---- expenses ----
+                new Aggregate("Expense.sumAmountForPeriod", false,
+                        t -> t.expenses.sumAmountForPeriod(t.userId, t.start, t.end)),
+                new Aggregate("Expense.sumByPaymentMethod", false,
+                        t -> sumLast(t.expenses.sumByPaymentMethod(t.userId))),
+                new Aggregate("Expense.sumByCategory", false,
+                        t -> sumLast(t.expenses.sumByCategory(t.userId))),
+                new Aggregate("Expense.sumByPaymentMethodForPeriod", false,
+                        t -> sumLast(t.expenses.sumByPaymentMethodForPeriod(t.userId, t.start, t.end))),
+                new Aggregate("Expense.sumByCategoryForPeriod", false,
+                        t -> sumLast(t.expenses.sumByCategoryForPeriod(t.userId, t.start, t.end))),
+                new Aggregate("Expense.sumAmountForPeriodIn", true,
+                        t -> t.expenses.sumAmountForPeriodIn(t.userId, t.start, t.end, "USD")),
+                new Aggregate("Expense.sumByCategoryForPeriodIn", true,
+                        t -> sumLast(t.expenses.sumByCategoryForPeriodIn(t.userId, t.start, t.end, "USD"))),
+                new Aggregate("Expense.sumByMonth", true,
+                        t -> sumLast(t.expenses.sumByMonth(t.userId, t.start, t.end))),
+                // ---- incomes ----
+                new Aggregate("Income.sumAmountForPeriod", false,
+                        t -> t.incomes.sumAmountForPeriod(t.userId, t.start, t.end)),
+                new Aggregate("Income.sumByPaymentMethod", false,
+                        t -> sumLast(t.incomes.sumByPaymentMethod(t.userId))),
+                new Aggregate("Income.sumBySource", false,
+                        t -> sumLast(t.incomes.sumBySource(t.userId))),
+                new Aggregate("Income.sumByPaymentMethodForPeriod", false,
+                        t -> sumLast(t.incomes.sumByPaymentMethodForPeriod(t.userId, t.start, t.end))),
+                new Aggregate("Income.sumBySourceForPeriod", false,
+                        t -> sumLast(t.incomes.sumBySourceForPeriod(t.userId, t.start, t.end))),
+                new Aggregate("Income.sumByMonth", true,
+                        t -> sumLast(t.incomes.sumByMonth(t.userId, t.start, t.end))),
+                // ---- budgets ----
+                new Aggregate("Budget.sumTotalBudgetByUserAndYear", false,
+                        t -> t.budgets.sumTotalBudgetByUserAndYear(t.userId, t.year)),
+                new Aggregate("Budget.monthlyBudgetAggregate", false,
+                        t -> sumLast(t.budgets.monthlyBudgetAggregate(t.userId, t.year))),
+                // ---- debts ----
+                new Aggregate("Debt.sumRemainingByUser", false,
+                        t -> t.debts.sumRemainingByUser(t.userId)),
+                new Aggregate("Debt.totalsByUser", false,
+                        t -> first(t.debts.totalsByUser(t.userId))),
+                new Aggregate("Debt.sumRemainingByCreditor", false,
+                        t -> sumLast(t.debts.sumRemainingByCreditor(t.userId))),
+                // ---- saving goals ----
+                new Aggregate("SavingGoal.totalsByUser", false,
+                        t -> first(t.goals.totalsByUser(t.userId)))
+        );
+    }
+
+    // ============================================================
+    // == Fixture: one live + one soft-deleted row per entity
+    // ============================================================
+
+    @BeforeEach
+    void seed() {
+        LocalDate today = LocalDate.now();
+        start = today.withDayOfMonth(1);
+        end = start.plusMonths(1);
+        year = today.getYear();
+        Date day = Date.valueOf(today);
+
+        userId = jdbc.queryForObject("""
+                INSERT INTO users (email, password, first_name, last_name, account_type, preferred_currency)
+                VALUES ('matrix@alphavault.test', 'x', 'Soft', 'Delete', 'BASIC', 'USD') RETURNING id
+                """, Long.class);
+
+        for (boolean deleted : new boolean[]{false, true}) {
+            BigDecimal amount = deleted ? DELETED : LIVE;
+            String deletedAt = deleted ? "CURRENT_TIMESTAMP" : "NULL";
+            jdbc.update("INSERT INTO expenses (user_id, amount, currency, expense_date, category, payment_method, deleted_at) "
+                    + "VALUES (?, ?, 'USD', ?, 'GROCERIES', 'CARD', " + deletedAt + ")", userId, amount, day);
+            jdbc.update("INSERT INTO incomes (user_id, amount, currency, income_date, source, payment_method, deleted_at) "
+                    + "VALUES (?, ?, 'USD', ?, 'Salary', 'TRANSFER', " + deletedAt + ")", userId, amount, day);
+            jdbc.update("INSERT INTO budgets (user_id, month, year, total_budget, currency, deleted_at) "
+                    + "VALUES (?, ?, ?, ?, 'USD', " + deletedAt + ")", userId, deleted ? 2 : 1, year, amount);
+            jdbc.update("INSERT INTO debts (user_id, creditor_name, principal_amount, remaining_amount, interest_rate_apr, "
+                    + "min_payment, due_date, billing_cycle, status, currency, deleted_at) "
+                    + "VALUES (?, 'Bank', ?, ?, 0, 1, ?, 'MONTHLY', 'ACTIVE', 'USD', " + deletedAt + ")",
+                    userId, amount, amount, day);
+            jdbc.update("INSERT INTO saving_goals (user_id, name, target_amount, deadline, category, priority, status, "
+                    + "currency, deleted_at) VALUES (?, ?, ?, ?, 'OTHER', 'HIGH', 'ACTIVE', 'USD', " + deletedAt + ")",
+                    userId, deleted ? "Deleted goal" : "Live goal", amount, Date.valueOf(today.plusYears(1)));
+        }
+    }
+
+    // ============================================================
+    // == Matrix
+    // ============================================================
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("aggregates")
+    void aggregateHidesSoftDeletedRows(Aggregate a) {
+        assertThat(a.call().apply(this)).as(a.name()).isEqualByComparingTo(LIVE);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("aggregates")
+    void includeDeletedModeSeesSoftDeletedRows(Aggregate a) {
+        SoftDeleteFilters.disable(em);
+        try {
+            BigDecimal expected = a.selfFiltering() ? LIVE : LIVE.add(DELETED);
+            assertThat(a.call().apply(this)).as(a.name()).isEqualByComparingTo(expected);
+        } finally {
+            SoftDeleteFilters.enable(em);
+        }
+    }
+
+    @Test
+    void findersHideSoftDeletedRows() {
+        assertThat(expenses.findByUserId(userId)).hasSize(1);
+        assertThat(debts.findByUserId(userId)).hasSize(1);
+        assertThat(budgets.findByUserId(userId)).hasSize(1);
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    /** Grouped rows: the amount is the last column. */
+    private static BigDecimal sumLast(List<Object[]> rows) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Object[] r : rows) total = total.add((BigDecimal) r[r.length - 1]);
+        return total;
+    }
+
+    /** Single-row totals: the amount is the first column. */
+    private static BigDecimal first(List<Object[]> rows) {
+        assertThat(rows).hasSize(1);
+        return (BigDecimal) rows.get(0)[0];
+    }
+}
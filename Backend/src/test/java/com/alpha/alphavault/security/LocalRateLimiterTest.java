@@ -0,0 +1,71 @@
+package com.alpha.alphavault.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    private static final RateLimiter.Limit FIVE = new RateLimiter.Limit(5, 0);
+
+    private LocalRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new LocalRateLimiter();
+        ReflectionTestUtils.setField(limiter, "maxKeys", 3);
+    }
+
+    private void drain(String key) {
+        for (int i = 0; i < 5; i++) assertThat(limiter.take(key, FIVE, 1).allowed()).isTrue();
+    }
+
+    @Test
+    void bucketRejectsOnceEmpty() {
+        drain("email:a");
+
+        RateLimiter.Decision d = limiter.take("email:a", FIVE, 1);
+        assertThat(d.allowed()).isFalse();
+        assertThat(d.retryAfterSeconds()).isPositive();
+    }
+
+    @Test
+    void checkOnlyCallsDoNotConsume() {
+        for (int i = 0; i < 10; i++) assertThat(limiter.take("email:a", FIVE, 0).allowed()).isTrue();
+        drain("email:a");
+    }
+
+    @Test
+    void sprayedKeysNeitherGrowTheMapNorShareABucket() {
+        for (int i = 0; i < 100; i++) drain("email:spray" + i + "@x");
+
+        assertThat(limiter.size()).isEqualTo(3);
+        // A new key past the limit still has its own full bucket
+        drain("email:victim@x");
+    }
+
+    @Test
+    void leastRecentlyUsedKeyIsDropped() {
+        drain("auth:1");
+        limiter.take("auth:2", FIVE, 0);
+        limiter.take("auth:3", FIVE, 0);
+        limiter.take("auth:1", FIVE, 0); // auth:2 is now the eldest
+
+        limiter.take("auth:4", FIVE, 0);
+
+        assertThat(limiter.size()).isEqualTo(3);
+        assertThat(limiter.take("auth:1", FIVE, 1).allowed()).isFalse(); // kept, still empty
+    }
+
+    @Test
+    void sweepDropsOnlyFullBuckets() {
+        limiter.take("api:1", FIVE, 1);
+        limiter.take("api:2", FIVE, 0);
+
+        limiter.sweep();
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
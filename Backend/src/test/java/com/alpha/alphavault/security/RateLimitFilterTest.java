@@ -0,0 +1,158 @@
+package com.alpha.alphavault.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RateLimitFilterTest {
+
+    private static final String LOGIN = "{\"email\":\" Jane@Example.com \",\"password\":\"x\"}";
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        LocalRateLimiter local = new LocalRateLimiter();
+        ReflectionTestUtils.setField(local, "maxKeys", 1000);
+        filter = new RateLimitFilter(local, mock(ObjectProvider.class), new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(),
+                300, 300, 20, 10, 2, 0);
+    }
+
+    private static MockHttpServletRequest login(String body) {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/auth/login");
+        req.setContentType("application/json");
+        req.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+
+    /** Runs the filter with a chain that answers {@code status}; returns what the chain saw. */
+    private HttpServletRequest run(MockHttpServletRequest req, MockHttpServletResponse res, int status) throws Exception {
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                super.doFilter(request, response);
+                ((MockHttpServletResponse) response).setStatus(status);
+            }
+        };
+        filter.doFilter(req, res, chain);
+        return (HttpServletRequest) chain.getRequest();
+    }
+
+    // ============================================================
+    // == Body replay
+    // ============================================================
+
+    @Test
+    void controllerReadsTheSameBody() throws Exception {
+        HttpServletRequest seen = run(login(LOGIN), new MockHttpServletResponse(), 200);
+
+        assertThat(new String(seen.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(LOGIN);
+        assertThat(seen.getContentLengthLong()).isEqualTo(LOGIN.length());
+    }
+
+    @Test
+    void readListenerIsCalledBackImmediately() throws Exception {
+        HttpServletRequest seen = run(login(LOGIN), new MockHttpServletResponse(), 200);
+        ServletInputStream in = seen.getInputStream();
+        ReadListener listener = mock(ReadListener.class);
+
+        in.setReadListener(listener);
+
+        var order = inOrder(listener);
+        order.verify(listener).onDataAvailable();
+        // Not consumed yet: onAllDataRead only comes once the bytes were read
+        verify(listener, never()).onAllDataRead();
+        verify(listener, never()).onError(any());
+    }
+
+    @Test
+    void readListenerOnConsumedBodyCompletes() throws Exception {
+        HttpServletRequest seen = run(login(LOGIN), new MockHttpServletResponse(), 200);
+        ServletInputStream in = seen.getInputStream();
+        ReadListener listener = mock(ReadListener.class);
+        in.readAllBytes();
+
+        in.setReadListener(listener);
+
+        var order = inOrder(listener);
+        order.verify(listener).onDataAvailable();
+        order.verify(listener).onAllDataRead();
+    }
+
+    @Test
+    void oversizedChunkedBodyIsRefused() throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1; // chunked: no declared length, read up to the limit
+            }
+        };
+        req.setContent(("{\"email\":\"" + "a".repeat(9000) + "\"}").getBytes(StandardCharsets.UTF_8));
+
+        run(req, res, 200);
+
+        assertThat(res.getStatus()).isEqualTo(413);
+    }
+
+    @Test
+    void paddedBodyWithDeclaredLengthIsRefusedUnread() throws Exception {
+        // Padding a login past the limit must not skip the email bucket
+        String padded = "{\"email\":\"jane@example.com\",\"password\":\"x\",\"pad\":\"" + "a".repeat(9000) + "\"}";
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse res = new MockHttpServletResponse();
+            HttpServletRequest seen = run(login(padded), res, 401);
+
+            assertThat(res.getStatus()).isEqualTo(413);
+            assertThat(seen).isNull();
+        }
+    }
+
+    // ============================================================
+    // == Email bucket
+    // ============================================================
+
+    @Test
+    void failedLoginsAreChargedPerNormalizedEmail() throws Exception {
+        run(login(LOGIN), new MockHttpServletResponse(), 401);
+        run(login("{\"email\":\"jane@example.com\",\"password\":\"y\"}"), new MockHttpServletResponse(), 401);
+
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        run(login(LOGIN), res, 200);
+
+        assertThat(res.getStatus()).isEqualTo(429);
+        assertThat(res.getHeader("Retry-After")).isNotNull();
+    }
+
+    @Test
+    void successfulLoginsAreFree() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse res = new MockHttpServletResponse();
+            run(login(LOGIN), res, 200);
+            assertThat(res.getStatus()).isEqualTo(200);
+        }
+    }
+}
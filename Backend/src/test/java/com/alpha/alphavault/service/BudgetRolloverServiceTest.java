@@ -0,0 +1,90 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.budget.BudgetRolloverDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Rollover gating: a done month or a lagging relay returns at once, nothing waits on the scheduler thread. */
+class BudgetRolloverServiceTest {
+
+    private static final YearMonth CLOSED = YearMonth.of(2026, 9);
+
+    private JdbcTemplate jdbc;
+    private DomainEventRelay relay;
+    private BudgetRolloverService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        relay = mock(DomainEventRelay.class);
+        service = new BudgetRolloverService(jdbc, mock(TransactionTemplate.class), mock(LedgerService.class),
+                mock(BudgetAlertService.class), relay);
+        ReflectionTestUtils.setField(service, "chunkSize", 5000);
+        ReflectionTestUtils.setField(service, "leaseMinutes", 10);
+    }
+
+    private void completed(long n) {
+        when(jdbc.queryForObject(contains("completed_at IS NOT NULL"), eq(Long.class), eq(2026), eq(9))).thenReturn(n);
+    }
+
+    private void pendingEvents(long n) {
+        when(jdbc.queryForObject(contains("domain_events"), eq(Long.class))).thenReturn(n);
+    }
+
+    @Test
+    void completedMonthIsANoOpWithoutTouchingTheRelay() {
+        completed(1);
+
+        BudgetRolloverDTO r = service.rollover(CLOSED, false);
+
+        assertThat(r.ran()).isFalse();
+        assertThat(r.completed()).isTrue();
+        verify(jdbc, never()).queryForObject(contains("domain_events"), eq(Long.class));
+        verify(jdbc, never()).queryForList(anyString(), eq(Long.class), any(), any(), any());
+        verify(relay, never()).wake();
+    }
+
+    @Test
+    void laggingRelayDefersWithoutClaimingOrWaiting() {
+        completed(0);
+        pendingEvents(3);
+
+        long start = System.nanoTime();
+        BudgetRolloverDTO r = service.rollover(CLOSED, false);
+
+        assertThat(System.nanoTime() - start).isLessThan(500_000_000L);
+        assertThat(r.ran()).isFalse();
+        assertThat(r.completed()).isFalse();
+        verify(relay).wake();
+        verify(jdbc, never()).queryForList(anyString(), eq(Long.class), any(), any(), any());
+        verify(jdbc, never()).update(contains("last_id = 0"), any(), any(), any(), any());
+    }
+
+    @Test
+    void restartOfACompletedMonthRewindsAndClaims() {
+        completed(1);
+        pendingEvents(0);
+        when(jdbc.queryForList(contains("ON CONFLICT"), eq(Long.class), eq(2026), eq(9), eq(10))).thenReturn(List.of());
+
+        service.rollover(CLOSED, true);
+
+        verify(jdbc).update(contains("last_id = 0"), eq(11), eq(2026), eq(9), eq(10));
+        verify(jdbc).queryForList(contains("ON CONFLICT"), eq(Long.class), eq(2026), eq(9), eq(10));
+    }
+}
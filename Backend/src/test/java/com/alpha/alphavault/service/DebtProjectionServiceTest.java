@@ -0,0 +1,257 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.debt.DebtAmortizationDTO;
+import com.alpha.alphavault.dto.debt.DebtPayoffPlanDTO;
+import com.alpha.alphavault.dto.debt.DebtProjectionResponseDTO;
+import com.alpha.alphavault.enums.DebtStatus;
+import com.alpha.alphavault.enums.PayoffStrategy;
+import com.alpha.alphavault.enums.RecurrenceType;
+import com.alpha.alphavault.model.Debt;
+import com.alpha.alphavault.repository.DebtRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DebtProjectionServiceTest {
+
+    private DebtRepository repository;
+    private DebtProjectionService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(DebtRepository.class);
+        service = new DebtProjectionService(repository);
+    }
+
+    private static Debt debt(long id, String remaining, String apr, String min) {
+        return Debt.builder()
+                .id(id)
+                .creditorName("Creditor " + id)
+                .remainingAmount(new BigDecimal(remaining))
+                .interestRateApr(new BigDecimal(apr))
+                .minPayment(new BigDecimal(min))
+                .billingCycle(RecurrenceType.MONTHLY)
+                .status(DebtStatus.ACTIVE)
+                .build();
+    }
+
+    private static DebtPayoffPlanDTO plan(DebtProjectionResponseDTO r, PayoffStrategy s) {
+        return r.plans().stream().filter(p -> p.strategy() == s).findFirst().orElseThrow();
+    }
+
+    // ============================================================
+    // == Multi-debt projection
+    // ============================================================
+
+    @Test
+    void projectWithNoOpenDebtsIsAlreadyPaidOff() {
+        when(repository.findByUserId(1L)).thenReturn(List.of());
+
+        DebtProjectionResponseDTO r = service.project(1L, null, true);
+
+        assertThat(r.debtCount()).isZero();
+        assertThat(r.totalBalance()).isEqualByComparingTo("0");
+        assertThat(r.plans()).hasSize(PayoffStrategy.values().length);
+        for (DebtPayoffPlanDTO p : r.plans()) {
+            assertThat(p.months()).isZero();
+            assertThat(p.paysOff()).isTrue();
+            assertThat(p.debtFreeDate()).isNull();
+            assertThat(p.totalInterest()).isEqualByComparingTo("0");
+            assertThat(p.schedule().paymentCents()).isEmpty();
+        }
+        assertThat(r.interestSavedVsMinimum()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void projectSkipsClosedAndZeroBalanceDebts() {
+        Debt paid = debt(2, "0.00", "10", "50");
+        Debt closed = debt(3, "500.00", "10", "50");
+        closed.setStatus(DebtStatus.PAID_OFF);
+        when(repository.findByUserId(1L)).thenReturn(List.of(debt(1, "100.00", "0", "50"), paid, closed));
+
+        DebtProjectionResponseDTO r = service.project(1L, BigDecimal.ZERO, false);
+
+        assertThat(r.debtCount()).isEqualTo(1);
+        assertThat(r.totalBalance()).isEqualByComparingTo("100.00");
+        assertThat(plan(r, PayoffStrategy.MINIMUM).months()).isEqualTo(2);
+    }
+
+    @Test
+    void projectRejectsNegativeExtra() {
+        assertThatThrownBy(() -> service.project(1L, new BigDecimal("-0.01"), false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void avalancheNeverPaysMoreInterestThanMinimum() {
+        when(repository.findByUserId(1L)).thenReturn(List.of(
+                debt(1, "2000.00", "24", "60"),
+                debt(2, "500.00", "6", "25")));
+
+        DebtProjectionResponseDTO r = service.project(1L, new BigDecimal("100"), false);
+
+        DebtPayoffPlanDTO avalanche = plan(r, PayoffStrategy.AVALANCHE);
+        DebtPayoffPlanDTO minimum = plan(r, PayoffStrategy.MINIMUM);
+        assertThat(avalanche.paysOff()).isTrue();
+        assertThat(avalanche.totalInterest()).isLessThanOrEqualTo(minimum.totalInterest());
+        assertThat(avalanche.months()).isLessThanOrEqualTo(minimum.months());
+        assertThat(avalanche.payoffOrder().get(0).debtId()).isEqualTo(1L);
+        assertThat(plan(r, PayoffStrategy.SNOWBALL).payoffOrder().get(0).debtId()).isEqualTo(2L);
+        assertThat(r.recommended()).isEqualTo(PayoffStrategy.AVALANCHE);
+    }
+
+    @Test
+    void nonConvergingPlanStopsOnceNoDebtGoesDown() {
+        when(repository.findByUserId(1L)).thenReturn(List.of(debt(1, "1000.00", "0", "0")));
+
+        DebtProjectionResponseDTO r = service.project(1L, null, false);
+
+        DebtPayoffPlanDTO minimum = plan(r, PayoffStrategy.MINIMUM);
+        assertThat(minimum.paysOff()).isFalse();
+        assertThat(minimum.months()).isEqualTo(1);
+        assertThat(minimum.debtFreeDate()).isNull();
+        assertThat(minimum.payoffOrder().get(0).payoffMonth()).isNull();
+        assertThat(r.interestSavedVsMinimum()).isNull();
+    }
+
+    @Test
+    void minimumBelowInterestIsReportedAsNonConverging() {
+        // 40% APR on 10,000.00 -> 333.33 interest in month 1, minimum 100
+        when(repository.findByUserId(1L)).thenReturn(List.of(debt(1, "10000.00", "40", "100")));
+
+        DebtProjectionResponseDTO r = service.project(1L, BigDecimal.ZERO, true);
+
+        for (DebtPayoffPlanDTO p : r.plans()) {
+            assertThat(p.paysOff()).isFalse();
+            assertThat(p.debtFreeDate()).isNull();
+            assertThat(p.payoffOrder().get(0).payoffMonth()).isNull();
+            assertThat(p.months()).isEqualTo(1);
+            assertThat(p.schedule().balanceCents()).containsExactly(1_023_333);
+        }
+        assertThat(r.interestSavedVsMinimum()).isNull();
+    }
+
+    @Test
+    void extraThatCoversTheInterestStillConverges() {
+        // Minimum alone is below the interest, minimum + extra is not
+        when(repository.findByUserId(1L)).thenReturn(List.of(debt(1, "10000.00", "40", "100")));
+
+        DebtProjectionResponseDTO r = service.project(1L, new BigDecimal("400"), false);
+
+        assertThat(plan(r, PayoffStrategy.MINIMUM).paysOff()).isFalse();
+        DebtPayoffPlanDTO avalanche = plan(r, PayoffStrategy.AVALANCHE);
+        assertThat(avalanche.paysOff()).isTrue();
+        assertThat(avalanche.months()).isLessThan(1200);
+        assertThat(avalanche.totalInterest().signum()).isPositive();
+    }
+
+    @Test
+    void hugeAprNeverWrapsIntoAPayoff() {
+        when(repository.findByUserId(1L)).thenReturn(List.of(
+                debt(1, "1000000.00", "1000000000", "1"),
+                debt(2, "100.00", "0", "1")));
+
+        DebtProjectionResponseDTO r = service.project(1L, null, false);
+
+        for (DebtPayoffPlanDTO p : r.plans()) {
+            assertThat(p.paysOff()).isFalse();
+            assertThat(p.payoffOrder()).filteredOn(d -> d.debtId() == 1L)
+                    .singleElement().satisfies(d -> assertThat(d.payoffMonth()).isNull());
+        }
+    }
+
+    // ============================================================
+    // == Single-debt amortization
+    // ============================================================
+
+    @Test
+    void amortizationRoundsBalanceHalfUpAndPaysFinalCent() {
+        when(repository.findById(7L)).thenReturn(Optional.of(debt(7, "100.005", "0", "25")));
+
+        DebtAmortizationDTO a = service.amortization(7L, null);
+
+        assertThat(a.periods()).isEqualTo(5);
+        assertThat(a.schedule().paymentCents()).containsExactly(2500, 2500, 2500, 2500, 1);
+        assertThat(a.totalPaid()).isEqualByComparingTo("100.01");
+        assertThat(a.totalInterest()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void amortizationRoundsPeriodicInterestToNearestCent() {
+        // 333.33 * 10% / 12 = 2.777... -> 2.78
+        when(repository.findById(7L)).thenReturn(Optional.of(debt(7, "333.33", "10", "400")));
+
+        DebtAmortizationDTO a = service.amortization(7L, BigDecimal.ZERO);
+
+        assertThat(a.periods()).isEqualTo(1);
+        assertThat(a.schedule().interestCents()).containsExactly(278);
+        assertThat(a.totalPaid()).isEqualByComparingTo("336.11");
+        assertThat(a.schedule().balanceCents()).containsExactly(0);
+    }
+
+    @Test
+    void amortizationFollowsNativeBillingCycle() {
+        Debt weekly = debt(7, "100.00", "52", "50");
+        weekly.setBillingCycle(RecurrenceType.WEEKLY);
+        when(repository.findById(7L)).thenReturn(Optional.of(weekly));
+
+        DebtAmortizationDTO a = service.amortization(7L, null);
+
+        // 52% APR over 52 weeks -> 1% per week
+        assertThat(a.billingCycle()).isEqualTo(RecurrenceType.WEEKLY);
+        assertThat(a.schedule().interestCents()[0]).isEqualTo(100);
+        assertThat(a.payoffDate()).isEqualTo(a.schedule().start().plusWeeks(a.periods() - 1L));
+    }
+
+    @Test
+    void amortizationWithMinimumBelowInterestDoesNotPayOff() {
+        when(repository.findById(7L)).thenReturn(Optional.of(debt(7, "10000.00", "40", "100")));
+
+        DebtAmortizationDTO a = service.amortization(7L, null);
+
+        assertThat(a.paysOff()).isFalse();
+        assertThat(a.payoffDate()).isNull();
+        assertThat(a.periods()).isEqualTo(1);
+        assertThat(a.schedule().interestCents()).containsExactly(33_333);
+        assertThat(a.schedule().balanceCents()[0]).isPositive();
+    }
+
+    @Test
+    void amortizationOfOverflowingBalanceDoesNotPayOff() {
+        // First period's interest is already past the long range
+        when(repository.findById(7L)).thenReturn(Optional.of(debt(7, "1000000.00", "1000000000000000", "1")));
+
+        DebtAmortizationDTO a = service.amortization(7L, null);
+
+        assertThat(a.paysOff()).isFalse();
+        assertThat(a.payoffDate()).isNull();
+        assertThat(a.periods()).isZero();
+    }
+
+    // ============================================================
+    // == NDJSON streaming
+    // ============================================================
+
+    @Test
+    void ndjsonEmitsOneLinePerMonth() throws Exception {
+        when(repository.findByUserId(1L)).thenReturn(List.of(debt(1, "100.00", "0", "30")));
+        DebtProjectionService.Snapshot snap = service.snapshot(1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.writeNdjson(snap, PayoffStrategy.MINIMUM, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[3]).contains("\"paymentCents\":1000").contains("\"balanceCents\":0");
+    }
+}
@@ -0,0 +1,71 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.event.DomainEventHandler;
+import com.alpha.alphavault.event.ExpenseRecorded;
+import com.alpha.alphavault.event.GoalContributed;
+import com.alpha.alphavault.event.IncomeRecorded;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/** Only event types with a handler reach the outbox. */
+class DomainEventPublisherTest {
+
+    private JdbcTemplate jdbc;
+    private ApplicationEventPublisher events;
+    private DomainEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        events = mock(ApplicationEventPublisher.class);
+        DomainEventHandler<ExpenseRecorded> budgets = new DomainEventHandler<>() {
+            @Override
+            public Class<ExpenseRecorded> eventType() {
+                return ExpenseRecorded.class;
+            }
+
+            @Override
+            public void handle(ExpenseRecorded event) {
+            }
+        };
+        publisher = new DomainEventPublisher(jdbc, new ObjectMapper(), events, List.of(budgets));
+    }
+
+    @Test
+    void handledTypeIsRecordedAndWakesTheRelay() {
+        when(jdbc.queryForObject(contains("INSERT INTO domain_events"), eq(Long.class), eq(7L), eq("ExpenseRecorded"), anyString()))
+                .thenReturn(42L);
+
+        OptionalLong id = publisher.publish(new ExpenseRecorded(7L, 3L, "created"));
+
+        assertThat(id).hasValue(42L);
+        verify(events).publishEvent(new DomainEventPublisher.DomainEventRecorded(42L));
+    }
+
+    @Test
+    void typeWithoutAHandlerIsNotRecorded() {
+        assertThat(publisher.publish(new IncomeRecorded(7L, 3L, "created"))).isEmpty();
+        assertThat(publisher.publish(new GoalContributed(7L, 5L, BigDecimal.TEN, BigDecimal.TEN))).isEmpty();
+
+        verifyNoInteractions(jdbc);
+        verify(events, never()).publishEvent(any(Object.class));
+    }
+}
@@ -0,0 +1,109 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.storage.BlobCache;
+import com.alpha.alphavault.storage.InMemoryBlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Discard: every blob of the hash goes, and a later upload of the same image is generated again. */
+class ImagePipelineServiceTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @TempDir
+    Path dir;
+
+    private InMemoryBlobStore store;
+    private ImagePipelineService pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new InMemoryBlobStore();
+        pipeline = newPipeline();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    private ImagePipelineService newPipeline() throws IOException {
+        ImagePipelineService p = new ImagePipelineService(store, new BlobCache(store, dir.toString(), 1 << 20), List.of(16, 32), 1);
+        ReflectionTestUtils.setField(p, "defaultSize", 16);
+        ReflectionTestUtils.setField(p, "maxPixels", 1_000_000L);
+        ReflectionTestUtils.setField(p, "jpegQuality", 0.8f);
+        return p;
+    }
+
+    private void upload() throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), "png", png);
+        byte[] bytes = png.toByteArray();
+        store.put(pipeline.sourceKey(HASH), new ByteArrayInputStream(bytes), bytes.length, "image/png");
+    }
+
+    private void awaitGone(String key) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.exists(key) && System.nanoTime() < deadline) Thread.sleep(10);
+    }
+
+    @Test
+    void discardRemovesEveryVariantAndThePendingSource() throws Exception {
+        upload();
+        pipeline.submit(HASH).get(5, TimeUnit.SECONDS);
+        assertThat(pipeline.isProcessed(HASH)).isTrue();
+        upload(); // a second upload still waiting for the pipeline
+
+        pipeline.discard(HASH);
+        awaitGone(pipeline.sourceKey(HASH));
+
+        assertThat(store.list("profile-images/")).isEmpty();
+        assertThat(pipeline.isProcessed(HASH)).isFalse();
+    }
+
+    @Test
+    void imageDiscardedByAnotherNodeIsGeneratedAgain() throws Exception {
+        upload();
+        pipeline.submit(HASH).get(5, TimeUnit.SECONDS);
+        assertThat(pipeline.isProcessed(HASH)).isTrue(); // memoized here
+
+        ImagePipelineService other = newPipeline();
+        try {
+            other.discard(HASH);
+            awaitGone(pipeline.variantKey(HASH, 16));
+        } finally {
+            other.shutdown();
+        }
+
+        // The upload path asks the store, so the stale memo does not skip the new source
+        assertThat(pipeline.hasVariants(HASH)).isFalse();
+        upload();
+        pipeline.submit(HASH).get(5, TimeUnit.SECONDS);
+
+        assertThat(store.exists(pipeline.variantKey(HASH, 16))).isTrue();
+        assertThat(store.exists(pipeline.variantKey(HASH, 32))).isTrue();
+        assertThat(store.exists(pipeline.sourceKey(HASH))).isFalse();
+    }
+
+    @Test
+    void onlyContentAddressedUrlsHaveAHash() {
+        assertThat(ImagePipelineService.hashOf("/api/files/profile-images/" + HASH)).isEqualTo(HASH);
+        assertThat(ImagePipelineService.hashOf("/api/files/profile-images/avatar-7.png")).isNull();
+        assertThat(ImagePipelineService.hashOf("https://example.com/me.jpg")).isNull();
+        assertThat(ImagePipelineService.hashOf(null)).isNull();
+    }
+}
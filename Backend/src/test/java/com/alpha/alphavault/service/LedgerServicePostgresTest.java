@@ -0,0 +1,252 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.ledger.LedgerReplayDTO;
+import com.alpha.alphavault.enums.LedgerAccount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Budget bookings, replay, rebuild and snapshots against the real schema (V6 ledger,
+ * partitioned expenses / ledger_entries). Not wrapped in a test transaction: bookings
+ * commit like they do in the relay, and every test works on its own user.
+ */
+@DataJpaTest(properties = "ledger.snapshot.lag-minutes=0")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LedgerService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class LedgerServicePostgresTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired LedgerService ledger;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+
+    Long userId;
+    Long budgetId;
+    Long lineId;
+    LocalDate today;
+
+    // ============================================================
+    // == Fixture: one user, this month's budget with a GROCERIES line
+    // ============================================================
+
+    @BeforeEach
+    void seed() {
+        today = LocalDate.now();
+        userId = jdbc.queryForObject("""
+                INSERT INTO users (email, password, first_name, last_name, account_type, preferred_currency)
+                VALUES (?, 'x', 'Ledger', 'Test', 'BASIC', 'USD') RETURNING id
+                """, Long.class, UUID.randomUUID() + "@alphavault.test");
+        budgetId = budget(today);
+        lineId = jdbc.queryForObject("INSERT INTO budget_categories (budget_id, category, allocated) "
+                + "VALUES (?, 'GROCERIES', 300) RETURNING id", Long.class, budgetId);
+    }
+
+    private Long budget(LocalDate month) {
+        return jdbc.queryForObject("INSERT INTO budgets (user_id, month, year, total_budget, currency) "
+                        + "VALUES (?, ?, ?, 1000, 'USD') RETURNING id",
+                Long.class, userId, month.getMonthValue(), month.getYear());
+    }
+
+    private Long expense(String amount) {
+        return jdbc.queryForObject("INSERT INTO expenses (user_id, amount, currency, expense_date, category, payment_method) "
+                + "VALUES (?, ?, 'USD', ?, 'GROCERIES', 'CARD') RETURNING id", Long.class, userId, new BigDecimal(amount), Date.valueOf(today));
+    }
+
+    private BigDecimal spent(Long budget) {
+        return jdbc.queryForObject("SELECT total_spent FROM budgets WHERE id = ?", BigDecimal.class, budget);
+    }
+
+    private BigDecimal lineSpent() {
+        return jdbc.queryForObject("SELECT spent_amount FROM budget_categories WHERE id = ?", BigDecimal.class, lineId);
+    }
+
+    private long entries(Long expenseId) {
+        Long n = jdbc.queryForObject("SELECT COUNT(*) FROM ledger_entries WHERE source_table = 'expenses' AND source_id = ?",
+                Long.class, expenseId);
+        return n == null ? 0 : n;
+    }
+
+    // ============================================================
+    // == Bookings (projection)
+    // ============================================================
+
+    @Test
+    void bookingMovesBudgetAndLineOnceAndIsIdempotent() {
+        Long e = expense("40.00");
+
+        assertThat(ledger.bookExpenses(List.of(e))).containsExactly(budgetId);
+        assertThat(ledger.bookExpenses(List.of(e))).isEmpty();
+
+        assertThat(spent(budgetId)).isEqualByComparingTo("40");
+        assertThat(lineSpent()).isEqualByComparingTo("40");
+        assertThat(entries(e)).isEqualTo(2);
+        BigDecimal after = jdbc.queryForObject("SELECT balance_after FROM ledger_entries "
+                + "WHERE account_type = 'BUDGET' AND source_id = ?", BigDecimal.class, e);
+        assertThat(after).isEqualByComparingTo("40");
+    }
+
+    @Test
+    void editBooksOnlyTheDifferenceAndDeleteRefunds() {
+        Long e = expense("40.00");
+        ledger.bookExpenses(List.of(e));
+
+        jdbc.update("UPDATE expenses SET amount = 55 WHERE id = ?", e);
+        ledger.bookExpenses(List.of(e));
+        assertThat(spent(budgetId)).isEqualByComparingTo("55");
+        assertThat(jdbc.queryForObject("SELECT amount FROM ledger_entries WHERE account_type = 'BUDGET' AND source_id = ? "
+                + "ORDER BY recorded_at DESC, id DESC LIMIT 1", BigDecimal.class, e)).isEqualByComparingTo("15");
+
+        jdbc.update("UPDATE expenses SET deleted_at = CURRENT_TIMESTAMP WHERE id = ?", e);
+        ledger.bookExpenses(List.of(e));
+        assertThat(spent(budgetId)).isEqualByComparingTo("0");
+        assertThat(lineSpent()).isEqualByComparingTo("0");
+        assertThat(jdbc.queryForObject("SELECT entry_type FROM ledger_entries WHERE account_type = 'BUDGET' AND source_id = ? "
+                + "ORDER BY recorded_at DESC, id DESC LIMIT 1", String.class, e)).isEqualTo("REFUND");
+    }
+
+    @Test
+    void expenseMovedToAnotherMonthLeavesItsOldBudget() {
+        Long next = budget(today.plusMonths(1));
+        Long e = expense("20.00");
+        ledger.bookExpenses(List.of(e));
+
+        jdbc.update("UPDATE expenses SET expense_date = ? WHERE id = ?", Date.valueOf(today.plusMonths(1).withDayOfMonth(1)), e);
+
+        assertThat(ledger.bookExpenses(List.of(e))).containsExactlyInAnyOrder(budgetId, next);
+        assertThat(spent(budgetId)).isEqualByComparingTo("0");
+        assertThat(spent(next)).isEqualByComparingTo("20");
+    }
+
+    @Test
+    void concurrentBookingsOfTheSameBudgetDoNotDoubleCount() throws Exception {
+        Long e = expense("30.00");
+        CountDownLatch booked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // A books and holds its transaction open; B must wait for A's commit, then see nothing to do
+            Future<?> a = pool.submit(() -> tx.executeWithoutResult(s -> {
+                ledger.bookExpenses(List.of(e));
+                booked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(booked.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<Set<Long>> b = pool.submit(() -> tx.execute(s -> ledger.bookExpenses(List.of(e))));
+
+            Thread.sleep(500);
+            assertThat(b.isDone()).as("second booking waits on the budget lock").isFalse();
+
+            release.countDown();
+            a.get(10, TimeUnit.SECONDS);
+            assertThat(b.get(10, TimeUnit.SECONDS)).isEmpty();
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        assertThat(spent(budgetId)).isEqualByComparingTo("30");
+        assertThat(lineSpent()).isEqualByComparingTo("30");
+        assertThat(entries(e)).isEqualTo(2);
+    }
+
+    // ============================================================
+    // == Replay / rebuild / snapshots
+    // ============================================================
+
+    @Test
+    void replayFoldsSnapshotAndLaterEntries() throws Exception {
+        LocalDateTime before = LocalDateTime.now();
+        Thread.sleep(20);
+        Long e = expense("10.00");
+        ledger.bookExpenses(List.of(e));
+        Thread.sleep(20);
+
+        assertThat(ledger.snapshot()).isPositive();
+        LocalDateTime afterSnapshot = LocalDateTime.now();
+        Thread.sleep(20);
+
+        jdbc.update("UPDATE expenses SET amount = 25 WHERE id = ?", e);
+        ledger.bookExpenses(List.of(e));
+
+        LedgerReplayDTO now = ledger.replay(LedgerAccount.BUDGET, budgetId, null);
+        assertThat(now.balance()).isEqualByComparingTo("25");
+        assertThat(now.snapshotAsOf()).isNotNull();
+        assertThat(now.entriesReplayed()).isEqualTo(1);
+        assertThat(now.projection()).isEqualByComparingTo("25");
+        assertThat(now.drift()).isEqualByComparingTo("0");
+
+        assertThat(ledger.replay(LedgerAccount.BUDGET, budgetId, afterSnapshot).balance()).isEqualByComparingTo("10");
+        assertThat(ledger.replay(LedgerAccount.BUDGET, budgetId, before).balance()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void snapshotWithoutNewEntriesWritesNothingForTheAccount() throws Exception {
+        Long e = expense("10.00");
+        ledger.bookExpenses(List.of(e));
+        Thread.sleep(20);
+        ledger.snapshot();
+        Thread.sleep(20);
+        ledger.snapshot();
+
+        Long rows = jdbc.queryForObject("SELECT COUNT(*) FROM ledger_snapshots WHERE account_type = 'BUDGET' AND account_id = ?",
+                Long.class, budgetId);
+        assertThat(rows).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildRealignsAnEditedProjection() {
+        Long e = expense("40.00");
+        ledger.bookExpenses(List.of(e));
+        jdbc.update("UPDATE budgets SET total_spent = 999 WHERE id = ?", budgetId);
+
+        assertThat(ledger.replay(LedgerAccount.BUDGET, budgetId, null).drift()).isEqualByComparingTo("959");
+        LedgerReplayDTO r = ledger.rebuild(LedgerAccount.BUDGET, budgetId);
+
+        assertThat(r.drift()).isEqualByComparingTo("0");
+        assertThat(spent(budgetId)).isEqualByComparingTo("40");
+        assertThat(entries(e)).isEqualTo(2);
+    }
+}
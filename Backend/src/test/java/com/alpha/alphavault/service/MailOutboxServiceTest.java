@@ -0,0 +1,266 @@
+package com.alpha.alphavault.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailOutboxServiceTest {
+
+    private static final long WAIT_MS = 5000;
+
+    @RegisterExtension
+    static final GreenMailExtension SMTP = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    /** One claimed row as the CLAIM statement returns it. */
+    private record Row(long id, String to, int attempts) {}
+
+    private JdbcTemplate jdbc;
+    private JavaMailSender sender;
+    private ObjectProvider<JavaMailSender> senderProvider;
+    private MailOutboxService service;
+    private final Deque<List<Row>> claims = new ArrayDeque<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        jdbc = mock(JdbcTemplate.class);
+        sender = mock(JavaMailSender.class);
+        senderProvider = mock(ObjectProvider.class);
+        when(senderProvider.getIfAvailable()).thenReturn(sender);
+        when(sender.createMimeMessage()).thenAnswer(inv -> new MimeMessage(Session.getInstance(new Properties())));
+
+        // Each CLAIM hands out the next queued batch, then nothing
+        doAnswer(inv -> {
+            RowMapper<?> mapper = inv.getArgument(1);
+            List<Object> out = new ArrayList<>();
+            List<Row> batch = claims.poll();
+            if (batch == null) return out;
+            for (int i = 0; i < batch.size(); i++) out.add(mapper.mapRow(resultSet(batch.get(i)), i));
+            return out;
+        }).when(jdbc).query(anyString(), any(RowMapper.class), any(), any());
+
+        service = new MailOutboxService(jdbc, senderProvider, mock(ApplicationEventPublisher.class), 2);
+        ReflectionTestUtils.setField(service, "from", "no-reply@alphavault.test");
+        ReflectionTestUtils.setField(service, "sessionBatchSize", 50);
+        ReflectionTestUtils.setField(service, "maxAttempts", 8);
+        ReflectionTestUtils.setField(service, "backoffBaseSeconds", 30L);
+        ReflectionTestUtils.setField(service, "backoffMaxSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 300L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static ResultSet resultSet(Row row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(row.id());
+        when(rs.getString("to_address")).thenReturn(row.to());
+        when(rs.getString("subject")).thenReturn("Subject " + row.id());
+        when(rs.getString("body")).thenReturn("Body " + row.id());
+        when(rs.getInt("attempts")).thenReturn(row.attempts());
+        return rs;
+    }
+
+    // ============================================================
+    // == Claim
+    // ============================================================
+
+    @Test
+    void claimIsLeasedAndSizedForAllWorkers() {
+        service.wake();
+
+        verify(jdbc, timeout(WAIT_MS)).query(anyString(), any(RowMapper.class), eq(100), eq(300L));
+    }
+
+    // ============================================================
+    // == Sent
+    // ============================================================
+
+    @Test
+    void deliveredChunkIsMarkedSentInOneUpdate() throws Exception {
+        claims.add(List.of(new Row(1, "a@alphavault.test", 1), new Row(2, "b@alphavault.test", 1)));
+
+        service.wake();
+
+        assertThat(sentIds()).containsExactlyInAnyOrder(1L, 2L);
+        verify(sender).send(any(MimeMessage[].class));
+        verify(jdbc, never()).update(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    void withoutSmtpMessagesAreLoggedAndMarkedSent() throws Exception {
+        when(senderProvider.getIfAvailable()).thenReturn(null);
+        claims.add(List.of(new Row(3, "c@alphavault.test", 1)));
+
+        service.wake();
+
+        assertThat(sentIds()).containsExactly(3L);
+    }
+
+    @Test
+    void chunkGoesOverOneRealSmtpSession() throws Exception {
+        JavaMailSenderImpl smtp = new JavaMailSenderImpl();
+        smtp.setHost("localhost");
+        smtp.setPort(SMTP.getSmtp().getPort());
+        when(senderProvider.getIfAvailable()).thenReturn(smtp);
+        claims.add(List.of(new Row(4, "d@alphavault.test", 1), new Row(5, "e@alphavault.test", 1)));
+
+        service.wake();
+
+        assertThat(SMTP.waitForIncomingEmail(WAIT_MS, 2)).isTrue();
+        MimeMessage[] received = SMTP.getReceivedMessages();
+        assertThat(Arrays.stream(received).map(this::subject)).containsExactlyInAnyOrder("Subject 4", "Subject 5");
+        assertThat(received[0].getFrom()[0].toString()).isEqualTo("no-reply@alphavault.test");
+        assertThat(sentIds()).containsExactlyInAnyOrder(4L, 5L);
+    }
+
+    // ============================================================
+    // == Backoff
+    // ============================================================
+
+    @Test
+    void failedSendRetriesWithExponentialBackoff() {
+        doAnswer(inv -> { throw new MailSendException("connection refused"); })
+                .when(sender).send(any(MimeMessage[].class));
+        claims.add(List.of(new Row(6, "f@alphavault.test", 3)));
+        LocalDateTime before = LocalDateTime.now();
+
+        service.wake();
+
+        // 30s * 2^(3-1) = 120s, +-20% jitter
+        LocalDateTime next = failed("PENDING", 6L).toLocalDateTime();
+        assertThat(Duration.between(before, next).toSeconds()).isBetween(95L, 145L);
+    }
+
+    @Test
+    void backoffIsCapped() {
+        doAnswer(inv -> { throw new MailSendException("connection refused"); })
+                .when(sender).send(any(MimeMessage[].class));
+        ReflectionTestUtils.setField(service, "maxAttempts", 50);
+        claims.add(List.of(new Row(7, "g@alphavault.test", 30)));
+        LocalDateTime before = LocalDateTime.now();
+
+        service.wake();
+
+        LocalDateTime next = failed("PENDING", 7L).toLocalDateTime();
+        assertThat(Duration.between(before, next).toSeconds()).isBetween(2879L, 4321L);
+    }
+
+    @Test
+    void onlyTheRejectedMessageOfAChunkIsRetried() throws Exception {
+        doAnswer(inv -> {
+            MimeMessage first = inv.getArgument(0);
+            throw new MailSendException(Map.of(first, new IllegalStateException("mailbox full")));
+        }).when(sender).send(any(MimeMessage[].class));
+        claims.add(List.of(new Row(8, "h@alphavault.test", 1), new Row(9, "i@alphavault.test", 1)));
+
+        service.wake();
+
+        List<Long> sent = sentIds();
+        assertThat(sent).hasSize(1);
+        long retried = sent.get(0) == 8L ? 9L : 8L;
+        failed("PENDING", retried);
+    }
+
+    // ============================================================
+    // == Dead letters
+    // ============================================================
+
+    @Test
+    void lastAttemptIsDeadLettered() {
+        doAnswer(inv -> { throw new MailSendException("connection refused"); })
+                .when(sender).send(any(MimeMessage[].class));
+        claims.add(List.of(new Row(10, "j@alphavault.test", 8)));
+
+        service.wake();
+
+        failed("DEAD", 10L);
+        verify(jdbc, never()).update(anyString(), eq("PENDING"), any(), any(), eq(10L));
+    }
+
+    @Test
+    void malformedAddressIsDeadLetteredWithoutSending() {
+        claims.add(List.of(new Row(11, "not an address@@", 1)));
+
+        service.wake();
+
+        failed("DEAD", 11L);
+        verify(sender, never()).send(any(MimeMessage[].class));
+    }
+
+    // ============================================================
+    // == Helpers
+    // ============================================================
+
+    /** Ids passed to the MARK_SENT array parameter. */
+    private List<Long> sentIds() throws Exception {
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbc, timeout(WAIT_MS)).update(creator.capture());
+
+        Connection con = mock(Connection.class);
+        when(con.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        creator.getValue().createPreparedStatement(con);
+        ArgumentCaptor<Object[]> ids = ArgumentCaptor.forClass(Object[].class);
+        verify(con).createArrayOf(eq("bigint"), ids.capture());
+        return Arrays.stream(ids.getValue()).map(Long.class::cast).toList();
+    }
+
+    /** The MARK_FAILED update of one row with the given status; returns its next_attempt_at. */
+    private Timestamp failed(String status, long id) {
+        ArgumentCaptor<Timestamp> next = ArgumentCaptor.forClass(Timestamp.class);
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        verify(jdbc, timeout(WAIT_MS)).update(anyString(), eq(status), next.capture(), error.capture(), eq(id));
+        assertThat(error.getValue()).isNotBlank();
+        return next.getValue();
+    }
+
+    private String subject(MimeMessage m) {
+        try {
+            return m.getSubject();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
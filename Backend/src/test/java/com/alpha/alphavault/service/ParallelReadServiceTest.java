@@ -0,0 +1,131 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/** Slots, the inline fallback, and what a call that gives up leaves behind. */
+class ParallelReadServiceTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private ParallelReadService reads;
+
+    @AfterEach
+    void tearDown() {
+        if (reads != null) reads.shutdown();
+    }
+
+    private ParallelReadService service(int maxConcurrency, long deadlineMs) {
+        reads = new ParallelReadService(mock(PlatformTransactionManager.class), meters, maxConcurrency, deadlineMs, false);
+        return reads;
+    }
+
+    private int freeSlots() {
+        return ((Semaphore) ReflectionTestUtils.getField(reads, "slots")).availablePermits();
+    }
+
+    private void awaitFreeSlots(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (freeSlots() != expected && System.nanoTime() < deadline) Thread.sleep(10);
+        assertThat(freeSlots()).isEqualTo(expected);
+    }
+
+    private double count(String metric) {
+        return meters.counter(metric, "name", "test").count();
+    }
+
+    @Test
+    void branchWithoutAFreeSlotRunsOnTheCaller() throws Exception {
+        service(1, 5000);
+        String caller = Thread.currentThread().getName();
+        CountDownLatch secondRan = new CountDownLatch(1);
+
+        List<String> threads = reads.all("test", List.<Supplier<String>>of(
+                () -> {
+                    // Holds the only slot until the second branch has run
+                    try {
+                        secondRan.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Thread.currentThread().getName();
+                },
+                () -> {
+                    secondRan.countDown();
+                    return Thread.currentThread().getName();
+                },
+                () -> Thread.currentThread().getName()));
+
+        assertThat(threads.get(0)).startsWith("fanout-");
+        assertThat(threads.get(1)).isEqualTo(caller);
+        assertThat(threads.get(2)).isEqualTo(caller);
+        assertThat(count("alphavault.fanout.inline")).isEqualTo(1);
+        awaitFreeSlots(1);
+    }
+
+    @Test
+    void deadlineCancelsTheBranchesStillRunningAndAnswers503() throws Exception {
+        service(2, 5000);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        Supplier<String> slow = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        };
+
+        assertThatThrownBy(() -> reads.all("test", Duration.ofMillis(200), List.of(slow, slow, () -> "inline")))
+                .isInstanceOf(ServiceBusyException.class)
+                .satisfies(e -> assertThat(((ServiceBusyException) e).getRetryAfterSeconds()).isEqualTo(1));
+
+        assertThat(interrupted.await(2, TimeUnit.SECONDS)).as("forks interrupted on the deadline").isTrue();
+        assertThat(count("alphavault.fanout.deadline")).isEqualTo(1);
+        awaitFreeSlots(2);
+
+        // Slots are back: the next call forks again instead of running everything inline
+        assertThat(reads.all("test", List.<Supplier<String>>of(() -> "a", () -> "b", () -> "c")))
+                .containsExactly("a", "b", "c");
+        assertThat(count("alphavault.fanout.inline")).isZero();
+    }
+
+    @Test
+    void failingBranchSurfacesUnchangedAndCancelsTheOthers() throws Exception {
+        service(2, 5000);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> reads.all("test", List.<Supplier<String>>of(
+                () -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return "late";
+                },
+                () -> {
+                    throw new IllegalArgumentException("bad period");
+                })))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad period");
+
+        assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        awaitFreeSlots(2);
+    }
+}
@@ -0,0 +1,44 @@
+package com.alpha.alphavault.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class PeriodMetricsClusterSyncTest {
+
+    private static PeriodMetricsService service(String clusterSync, String storageType, String sharedRateLimit) {
+        return new PeriodMetricsService(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+                mock(FxRateService.class), new SimpleMeterRegistry(), 100, 20,
+                clusterSync, storageType, sharedRateLimit);
+    }
+
+    @ParameterizedTest(name = "cluster-sync={0}, storage={1}, ratelimit.shared={2} -> {3}")
+    @CsvSource({
+            "auto,  local,  '',   false",
+            "auto,  memory, '',   false",
+            "auto,  s3,     '',   true",
+            "AUTO,  S3,     '',   true",
+            "auto,  local,  jdbc, true",
+            "false, s3,     jdbc, false",
+            "true,  local,  '',   true",
+    })
+    void resolvesFromTheDeployment(String clusterSync, String storageType, String shared, boolean expected) {
+        assertThat(ReflectionTestUtils.getField(service(clusterSync, storageType, shared), "clusterSync"))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void unknownValueIsRejected() {
+        assertThatThrownBy(() -> service("yes", "local", ""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cluster-sync");
+    }
+}
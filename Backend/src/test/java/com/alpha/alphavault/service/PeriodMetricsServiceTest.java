@@ -0,0 +1,435 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.service.PeriodMetricsService.Comparison;
+import com.alpha.alphavault.service.PeriodMetricsService.Fact;
+import com.alpha.alphavault.service.PeriodMetricsService.Flow;
+import com.alpha.alphavault.service.PeriodMetricsService.Period;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Incremental maintenance against an in-memory expenses table: every write is applied to
+ * the table and reported through changed(), and the cached result must match what a
+ * fresh build over the table returns.
+ */
+class PeriodMetricsServiceTest {
+
+    private static final long USER = 1L;
+    private static final long OTHER = 2L;
+    private static final int MAX_TOP = 5;
+
+    /** The expenses table: id -> row (deleted rows are removed). */
+    private final Map<Long, Fact> table = new TreeMap<>();
+    private final AtomicInteger sumQueries = new AtomicInteger();
+    private final AtomicInteger topQueries = new AtomicInteger();
+    private Runnable duringBuild;
+
+    private JdbcTemplate jdbc;
+    private FxRateService fx;
+    private PeriodMetricsService service;
+    private LocalDate today;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        today = LocalDate.now();
+        jdbc = mock(JdbcTemplate.class);
+        fx = mock(FxRateService.class);
+        when(fx.factor(anyString(), anyString())).thenReturn(BigDecimal.ONE);
+
+        when(jdbc.query(contains("user_data_versions"), any(ResultSetExtractor.class), any(Object[].class))).thenReturn(0L);
+        when(jdbc.query(contains("preferred_currency FROM users"), any(ResultSetExtractor.class), any(Object[].class))).thenReturn("USD");
+        doAnswer(inv -> {
+            sumQueries.incrementAndGet();
+            if (duringBuild != null) {
+                Runnable r = duringBuild;
+                duringBuild = null;
+                r.run();
+            }
+            RowCallbackHandler h = inv.getArgument(1);
+            long user = inv.getArgument(2);
+            LocalDate from = ((Date) inv.getArgument(3)).toLocalDate();
+            LocalDate to = ((Date) inv.getArgument(4)).toLocalDate();
+            Map<List<Object>, BigDecimal> groups = new LinkedHashMap<>();
+            for (Fact f : rows(user, from, to)) groups.merge(List.of(f.date(), f.currency()), f.amount(), BigDecimal::add);
+            for (Map.Entry<List<Object>, BigDecimal> g : groups.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getObject("d", LocalDate.class)).thenReturn((LocalDate) g.getKey().get(0));
+                when(rs.getString("c")).thenReturn((String) g.getKey().get(1));
+                when(rs.getBigDecimal("s")).thenReturn(g.getValue());
+                h.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(contains("SUM(amount)"), any(RowCallbackHandler.class), any(Object[].class));
+        doAnswer(inv -> {
+            topQueries.incrementAndGet();
+            RowCallbackHandler h = inv.getArgument(1);
+            long user = inv.getArgument(2);
+            LocalDate from = ((Date) inv.getArgument(3)).toLocalDate();
+            LocalDate to = ((Date) inv.getArgument(4)).toLocalDate();
+            int limit = inv.getArgument(5);
+            for (Fact f : best(rows(user, from, to), limit)) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("id")).thenReturn(f.id());
+                when(rs.getObject("d", LocalDate.class)).thenReturn(f.date());
+                when(rs.getString("label")).thenReturn(f.label());
+                when(rs.getString("c")).thenReturn(f.currency());
+                when(rs.getBigDecimal("amount")).thenReturn(f.amount());
+                h.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(contains("ORDER BY amount DESC"), any(RowCallbackHandler.class), any(Object[].class));
+
+        service = newService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private PeriodMetricsService newService() {
+        return new PeriodMetricsService(jdbc, mock(PlatformTransactionManager.class), fx, new SimpleMeterRegistry(),
+                100, MAX_TOP, "false", "local", "");
+    }
+
+    private List<Fact> rows(long user, LocalDate from, LocalDate to) {
+        List<Fact> out = new ArrayList<>();
+        for (Fact f : table.values()) {
+            if (f.userId() == user && !f.date().isBefore(from) && f.date().isBefore(to)) out.add(f);
+        }
+        return out;
+    }
+
+    private static List<Fact> best(List<Fact> rows, int limit) {
+        return rows.stream()
+                .sorted(Comparator.comparing(Fact::amount).reversed().thenComparing(Fact::id, Comparator.reverseOrder()))
+                .limit(limit)
+                .toList();
+    }
+
+    private static Fact row(long id, long user, LocalDate date, String amount) {
+        return row(id, user, date, "GROCERIES", amount);
+    }
+
+    private static Fact row(long id, long user, LocalDate date, String label, String amount) {
+        return new Fact(id, user, date, label, "USD", new BigDecimal(amount));
+    }
+
+    /** Writes {@code after} (null = delete) over the row with that id, as a service would. */
+    private void write(long id, Fact after) {
+        Fact before = table.get(id);
+        if (after == null) table.remove(id);
+        else table.put(id, after);
+        service.changed(Flow.EXPENSE, before, after);
+    }
+
+    private void insert(Fact f) {
+        write(f.id(), f);
+    }
+
+    /** What a build over the current table reports. */
+    private Comparison fresh(long user, Period p) {
+        return newService().compare(Flow.EXPENSE, user, p);
+    }
+
+    private void assertMatchesFreshBuild(long user) {
+        for (Period p : Period.values()) {
+            assertThat(service.compare(Flow.EXPENSE, user, p)).as(p.name()).isEqualTo(fresh(user, p));
+        }
+    }
+
+    private static void commit(int status) {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization s : syncs) s.afterCompletion(status);
+    }
+
+    // ============================================================
+    // == changed(): before/after deltas across window boundaries
+    // ============================================================
+
+    @Test
+    void backdatedEditMovesTheAmountBetweenMonths() {
+        table.put(1L, row(1, USER, today, "10"));
+        table.put(2L, row(2, USER, today.minusMonths(1), "5"));
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.MONTH)).isEqualTo(new Comparison(10, 5));
+
+        write(2, row(2, USER, today, "5"));
+
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.MONTH)).isEqualTo(new Comparison(15, 0));
+        assertThat(sumQueries).hasValue(1);
+        assertMatchesFreshBuild(USER);
+    }
+
+    @Test
+    void rowsOutsideEveryWindowChangeNothingUntilTheyMoveIn() {
+        table.put(1L, row(1, USER, today, "10"));
+        service.compare(Flow.EXPENSE, USER, Period.YEAR);
+
+        insert(row(3, USER, today.minusYears(3), "100"));
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.YEAR).current()).isEqualTo(10);
+
+        write(3, row(3, USER, today, "100"));
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.DAY).current()).isEqualTo(110);
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.YEAR).current()).isEqualTo(110);
+
+        write(3, null);
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.YEAR).current()).isEqualTo(10);
+        assertThat(sumQueries).hasValue(1);
+        assertMatchesFreshBuild(USER);
+    }
+
+    @Test
+    void editAcrossTheWeekAndYearBoundariesStaysExact() {
+        table.put(1L, row(1, USER, today.minusWeeks(1), "7"));
+        table.put(2L, row(2, USER, today.minusYears(1), "11"));
+        table.put(3L, row(3, USER, today.minusDays(1), "13"));
+        assertMatchesFreshBuild(USER);
+        int builds = sumQueries.get();
+
+        write(1, row(1, USER, today, "8"));
+        write(2, row(2, USER, today.minusYears(1).minusDays(1), "11"));
+        write(3, row(3, USER, today.minusDays(1), "1"));
+
+        assertMatchesFreshBuild(USER);
+        assertThat(sumQueries.get() - builds).as("only the fresh builds queried").isEqualTo(Period.values().length);
+    }
+
+    @Test
+    void rowMovedToAnotherUserLeavesOneAndReachesTheOther() {
+        table.put(1L, row(1, USER, today, "10"));
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+        service.compare(Flow.EXPENSE, OTHER, Period.DAY);
+
+        write(1, row(1, OTHER, today, "10"));
+
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.DAY).current()).isZero();
+        assertThat(service.compare(Flow.EXPENSE, OTHER, Period.DAY).current()).isEqualTo(10);
+        assertThat(sumQueries).hasValue(2);
+    }
+
+    @Test
+    void unchangedRowIsANoOp() {
+        Fact f = row(1, USER, today, "10");
+        table.put(1L, f);
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+
+        service.changed(Flow.EXPENSE, f, f);
+
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.DAY).current()).isEqualTo(10);
+        assertThat(sumQueries).hasValue(1);
+    }
+
+    // ============================================================
+    // == pending / writes stamp: in-flight writes are never cached
+    // ============================================================
+
+    @Test
+    void buildDuringAnInFlightWriteIsServedButNotKept() {
+        TransactionSynchronizationManager.initSynchronization();
+        insert(row(1, USER, today, "10"));
+
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.DAY).current()).isEqualTo(10);
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+        assertThat(sumQueries).as("not cached while the write is pending").hasValue(2);
+
+        commit(TransactionSynchronization.STATUS_COMMITTED);
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+        assertThat(sumQueries).hasValue(3);
+    }
+
+    @Test
+    void rolledBackWriteLeavesTheCacheUntouched() {
+        table.put(1L, row(1, USER, today, "10"));
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+
+        TransactionSynchronizationManager.initSynchronization();
+        Fact before = table.get(1L);
+        service.changed(Flow.EXPENSE, before, row(1, USER, today, "99"));
+        commit(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.DAY).current()).isEqualTo(10);
+        assertThat(sumQueries).hasValue(1);
+    }
+
+    @Test
+    void writeFinishingDuringABuildDiscardsTheBuild() {
+        table.put(1L, row(1, USER, today, "10"));
+        // Lands after the build read its stamp, before it stores: the result may miss it
+        duringBuild = () -> insert(row(2, USER, today, "5"));
+
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+        assertThat(service.compare(Flow.EXPENSE, USER, Period.DAY).current()).isEqualTo(15);
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+
+        assertThat(sumQueries).hasValue(2);
+    }
+
+    // ============================================================
+    // == Rollover
+    // ============================================================
+
+    @Test
+    void rolloverKeepsTodaysEntriesAndRunsNoQueries() {
+        table.put(1L, row(1, USER, today, "10"));
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+        service.top(Flow.EXPENSE, USER, 3);
+
+        service.rollover();
+
+        service.compare(Flow.EXPENSE, USER, Period.DAY);
+        service.top(Flow.EXPENSE, USER, 3);
+        assertThat(sumQueries).hasValue(1);
+        assertThat(topQueries).hasValue(1);
+    }
+
+    // ============================================================
+    // == Top lists: offer / remove / refill
+    // ============================================================
+
+    /** Rows id 1..n of this month, amount 10 * id. */
+    private void month(int n) {
+        for (long id = 1; id <= n; id++) table.put(id, row(id, USER, today, Long.toString(10 * id)));
+    }
+
+    private List<Object> topIds(int k) {
+        return service.top(Flow.EXPENSE, USER, k).stream().map(r -> r.get("id")).toList();
+    }
+
+    /** What the top query returns over the current table. */
+    private List<Object> expectedIds(int k) {
+        LocalDate first = today.withDayOfMonth(1);
+        return best(rows(USER, first, first.plusMonths(1)), k).stream().<Object>map(Fact::id).toList();
+    }
+
+    @Test
+    void insertIntoAFullListKeepsTheBest() {
+        month(7);
+        assertThat(topIds(5)).containsExactly(7L, 6L, 5L, 4L, 3L);
+
+        insert(row(8, USER, today, "45"));
+        assertThat(topIds(5)).containsExactly(7L, 6L, 5L, 8L, 4L).isEqualTo(expectedIds(5));
+
+        // Below the last row of an incomplete list: where it ranks is unknown, left out
+        insert(row(9, USER, today, "5"));
+        assertThat(topIds(5)).isEqualTo(expectedIds(5));
+        assertThat(topQueries).hasValue(1);
+    }
+
+    @Test
+    void removeShrinksTheListAndAReadAskingForMoreRefillsIt() {
+        month(7);
+        topIds(5);
+
+        write(6, null);
+        assertThat(topIds(4)).containsExactly(7L, 5L, 4L, 3L);
+        assertThat(topQueries).as("4 rows left still serve k=4").hasValue(1);
+
+        assertThat(topIds(5)).containsExactly(7L, 5L, 4L, 3L, 2L).isEqualTo(expectedIds(5));
+        assertThat(topQueries).hasValue(2);
+    }
+
+    @Test
+    void amountEditReordersTheList() {
+        month(7);
+        topIds(5);
+
+        write(3, row(3, USER, today, "65"));
+        assertThat(topIds(5)).containsExactly(7L, 3L, 6L, 5L, 4L).isEqualTo(expectedIds(5));
+
+        write(7, row(7, USER, today, "1"));
+        assertThat(topIds(4)).containsExactly(3L, 6L, 5L, 4L);
+        assertThat(topQueries).hasValue(1);
+        assertThat(topIds(5)).isEqualTo(expectedIds(5));
+    }
+
+    @Test
+    void rowMovingOutOfTheMonthLeavesTheListAndMovingInJoinsIt() {
+        month(7);
+        table.put(20L, row(20, USER, today.minusMonths(1), "500"));
+        topIds(5);
+
+        write(7, row(7, USER, today.minusMonths(1), "70"));
+        assertThat(topIds(4)).containsExactly(6L, 5L, 4L, 3L);
+
+        write(20, row(20, USER, today, "500"));
+        assertThat(topIds(5)).containsExactly(20L, 6L, 5L, 4L, 3L).isEqualTo(expectedIds(5));
+        assertThat(topQueries).hasValue(1);
+    }
+
+    @Test
+    void kAboveTheRowCountIsServedFromACompleteList() {
+        month(3);
+        assertThat(topIds(5)).containsExactly(3L, 2L, 1L);
+        assertThat(topIds(5)).hasSize(3);
+
+        // Complete: a new row is placed wherever it ranks, even last
+        insert(row(4, USER, today, "1"));
+        assertThat(topIds(5)).containsExactly(3L, 2L, 1L, 4L).isEqualTo(expectedIds(5));
+        assertThat(topQueries).hasValue(1);
+
+        assertThatThrownBy(() -> service.top(Flow.EXPENSE, USER, MAX_TOP + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void completeListOverflowingCapacityBecomesIncomplete() {
+        month(5);
+        topIds(5);
+
+        insert(row(6, USER, today, "60"));
+        write(6, null);
+        // The dropped row (id 1) is no longer known: k=5 must refill
+        assertThat(topIds(5)).isEqualTo(expectedIds(5));
+        assertThat(topQueries).hasValue(2);
+    }
+
+    @Test
+    void rowsWithoutALabelAreListedUnderThePlaceholder() throws Exception {
+        table.put(1L, row(1, USER, today, null, "30"));
+        table.put(2L, row(2, USER, today, "RENT", "20"));
+
+        Map<String, Double> byLabel = service.topByLabel(Flow.EXPENSE, USER);
+
+        assertThat(byLabel).containsOnlyKeys(PeriodMetricsService.NO_LABEL, "RENT");
+        assertThat(new ObjectMapper().writeValueAsString(byLabel)).contains("\"unspecified\":30.0");
+
+        insert(row(3, USER, today, null, "40"));
+        assertThat(service.topByLabel(Flow.EXPENSE, USER)).containsEntry(PeriodMetricsService.NO_LABEL, 30.0);
+        assertThat(new ObjectMapper().writeValueAsString(service.topByLabelRows(Flow.EXPENSE, USER))).isNotBlank();
+    }
+}
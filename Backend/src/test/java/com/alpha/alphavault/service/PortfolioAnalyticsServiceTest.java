@@ -0,0 +1,194 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.investment.PortfolioAnalyticsDTO;
+import com.alpha.alphavault.enums.InvestmentStatus;
+import com.alpha.alphavault.enums.InvestmentType;
+import com.alpha.alphavault.model.Investment;
+import com.alpha.alphavault.repository.InvestmentPriceHistoryRepository;
+import com.alpha.alphavault.repository.InvestmentRepository;
+import com.alpha.alphavault.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PortfolioAnalyticsServiceTest {
+
+    private InvestmentRepository investments;
+    private InvestmentPriceHistoryRepository marks;
+    private ObjectProvider<PortfolioAnalyticsService> self;
+    private PortfolioAnalyticsService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        investments = mock(InvestmentRepository.class);
+        marks = mock(InvestmentPriceHistoryRepository.class);
+        FxRateService fx = mock(FxRateService.class);
+        when(fx.factor(any(), any())).thenReturn(BigDecimal.ONE);
+        self = mock(ObjectProvider.class);
+        service = new PortfolioAnalyticsService(investments, marks, mock(UserRepository.class), fx, self, 2);
+        when(self.getObject()).thenReturn(service);
+    }
+
+    private static Investment position(long id, String invested, LocalDate start) {
+        return Investment.builder()
+                .id(id)
+                .investmentType(InvestmentType.STOCKS)
+                .currency("USD")
+                .amountInvested(new BigDecimal(invested))
+                .startDate(start)
+                .build();
+    }
+
+    // ============================================================
+    // == Empty / degenerate inputs
+    // ============================================================
+
+    @Test
+    void emptyPortfolioHasZeroTotalsAndNoReturns() {
+        PortfolioAnalyticsDTO r = service.analyze(1L);
+
+        assertThat(r.positions()).isZero();
+        assertThat(r.totalInvested()).isEqualByComparingTo("0");
+        assertThat(r.roiPercent()).isEqualByComparingTo("0");
+        assertThat(r.byType()).isEmpty();
+        assertThat(r.timeWeightedReturnPercent()).isNull();
+        assertThat(r.moneyWeightedReturnPercent()).isNull();
+        assertThat(r.annualizedVolatilityPercent()).isNull();
+        assertThat(r.seriesPoints()).isEqualTo(1);
+    }
+
+    @Test
+    void zeroCostPositionKeepsRoiAtZero() {
+        Investment gift = position(1, "0", LocalDate.now());
+        gift.setCurrentValue(new BigDecimal("50"));
+        when(investments.findByUserId(1L)).thenReturn(List.of(gift));
+
+        PortfolioAnalyticsDTO r = service.analyze(1L);
+
+        assertThat(r.roiPercent()).isEqualByComparingTo("0");
+        assertThat(r.currentValue()).isEqualByComparingTo("50");
+        assertThat(r.byType().get("stocks").percent()).isEqualByComparingTo("100");
+    }
+
+    // ============================================================
+    // == Rounding and returns
+    // ============================================================
+
+    @Test
+    void roiAndAllocationRoundHalfUpToFourDecimals() {
+        Investment a = position(1, "300", LocalDate.now().minusDays(10));
+        a.setCurrentValue(new BigDecimal("400"));
+        Investment b = position(2, "100", LocalDate.now().minusDays(10));
+        b.setCurrentValue(new BigDecimal("200"));
+        b.setInvestmentType(InvestmentType.BONDS);
+        when(investments.findByUserId(1L)).thenReturn(List.of(a, b));
+
+        PortfolioAnalyticsDTO r = service.analyze(1L);
+
+        // (100 + 100) / 400 = 50%; 400 / 600 = 66.6667%
+        assertThat(r.roiPercent()).isEqualByComparingTo("50.0000");
+        assertThat(r.byType().get("stocks").percent()).isEqualByComparingTo("66.6667");
+        assertThat(r.byType().get("bonds").percent()).isEqualByComparingTo("33.3333");
+        assertThat(r.byType().keySet()).containsExactly("stocks", "bonds");
+    }
+
+    @Test
+    void closedPositionHeldOneYearReturnsTenPercent() {
+        LocalDate today = LocalDate.now();
+        Investment sold = position(1, "100", today.minusDays(365));
+        sold.setStatus(InvestmentStatus.CLOSED);
+        sold.setSoldValue(new BigDecimal("110"));
+        sold.setSoldDate(today);
+        when(investments.findByUserId(1L)).thenReturn(List.of(sold));
+
+        PortfolioAnalyticsDTO r = service.analyze(1L);
+
+        assertThat(r.openPositions()).isZero();
+        assertThat(r.realizedPnl()).isEqualByComparingTo("10");
+        assertThat(r.timeWeightedReturnPercent()).isEqualByComparingTo("10.0000");
+        assertThat(r.moneyWeightedReturnPercent()).isEqualByComparingTo("10.0000");
+        assertThat(r.maxDrawdownPercent()).isEqualByComparingTo("0");
+    }
+
+    // ============================================================
+    // == Cache and batch
+    // ============================================================
+
+    @Test
+    void resultCachedWhileFingerprintUnchanged() {
+        when(investments.analyticsFingerprint(1L)).thenReturn("a");
+        PortfolioAnalyticsDTO first = service.analyze(1L);
+        assertThat(service.analyze(1L)).isSameAs(first);
+        verify(investments, times(1)).findByUserId(1L);
+
+        when(investments.analyticsFingerprint(1L)).thenReturn("b");
+        assertThat(service.analyze(1L)).isNotSameAs(first);
+    }
+
+    @Test
+    void analyzeAllGoesThroughTheBeanOncePerUser() {
+        PortfolioAnalyticsDTO empty = service.analyze(9L);
+        PortfolioAnalyticsService proxy = mock(PortfolioAnalyticsService.class);
+        when(proxy.analyze(any())).thenReturn(empty);
+        when(self.getObject()).thenReturn(proxy);
+
+        Map<Long, PortfolioAnalyticsDTO> out = service.analyzeAll(List.of(1L, 2L, 1L));
+
+        assertThat(out).containsOnlyKeys(1L, 2L);
+        verify(proxy).analyze(1L);
+        verify(proxy).analyze(2L);
+        verify(investments, never()).findByUserId(1L);
+    }
+
+    @Test
+    void batchIsCapped() {
+        List<Long> ids = LongStream.rangeClosed(1, PortfolioAnalyticsService.MAX_BATCH_USERS + 1).boxed().toList();
+
+        assertThatThrownBy(() -> service.analyzeAll(ids)).isInstanceOf(IllegalArgumentException.class);
+        verify(self, never()).getObject();
+    }
+
+    // ============================================================
+    // == Cache bound / eviction
+    // ============================================================
+
+    @Test
+    void cacheKeepsTheMostRecentlyUsedUsers() {
+        service.analyze(1L);
+        service.analyze(2L);
+        service.analyze(1L);
+        service.analyze(3L);
+
+        assertThat(service.cachedUsers()).isEqualTo(2);
+        service.analyze(1L);
+        verify(investments, times(1)).findByUserId(1L);
+        service.analyze(2L);
+        verify(investments, times(2)).findByUserId(2L);
+    }
+
+    @Test
+    void evictDropsTheUser() {
+        service.analyze(1L);
+        service.evict(1L);
+
+        assertThat(service.cachedUsers()).isZero();
+        service.analyze(1L);
+        verify(investments, times(2)).findByUserId(1L);
+    }
+}
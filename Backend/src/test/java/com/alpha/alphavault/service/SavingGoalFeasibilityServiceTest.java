@@ -0,0 +1,165 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.savinggoal.GoalFeasibilityDTO;
+import com.alpha.alphavault.dto.savinggoal.SavingGoalFeasibilityResponseDTO;
+import com.alpha.alphavault.enums.SavingGoalPriority;
+import com.alpha.alphavault.enums.SavingGoalStatus;
+import com.alpha.alphavault.model.SavingGoal;
+import com.alpha.alphavault.repository.ExpenseRepository;
+import com.alpha.alphavault.repository.IncomeRepository;
+import com.alpha.alphavault.repository.SavingGoalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SavingGoalFeasibilityServiceTest {
+
+    private SavingGoalRepository goals;
+    private IncomeRepository incomes;
+    private ExpenseRepository expenses;
+    private SavingGoalFeasibilityService service;
+
+    @BeforeEach
+    void setUp() {
+        goals = mock(SavingGoalRepository.class);
+        incomes = mock(IncomeRepository.class);
+        expenses = mock(ExpenseRepository.class);
+        service = new SavingGoalFeasibilityService(goals, incomes, expenses, mock(FxRateService.class), 2);
+        when(goals.feasibilityFingerprint(anyLong())).thenReturn("v1");
+    }
+
+    private static SavingGoal goal(long id, String target, String current, YearMonth deadline) {
+        return SavingGoal.builder()
+                .id(id)
+                .name("Goal " + id)
+                .priority(SavingGoalPriority.HIGH)
+                .targetAmount(new BigDecimal(target))
+                .currentAmount(new BigDecimal(current))
+                .deadline(deadline.atEndOfMonth())
+                .build();
+    }
+
+    /** Last month's net flow only, so every path draws the same amount. */
+    private void lastMonthNet(String amount) {
+        YearMonth last = YearMonth.now().minusMonths(1);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{last.getYear(), last.getMonthValue(), new BigDecimal(amount)});
+        when(incomes.sumByMonth(eq(1L), any(), any())).thenReturn(rows);
+    }
+
+    private void activeGoals(SavingGoal... g) {
+        when(goals.findByUserIdAndStatus(1L, SavingGoalStatus.ACTIVE)).thenReturn(List.of(g));
+    }
+
+    // ============================================================
+    // == Input validation / empty inputs
+    // ============================================================
+
+    @Test
+    void rejectsOutOfRangePathCounts() {
+        assertThatThrownBy(() -> service.simulate(1L, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.simulate(1L, 100_001)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void noGoalsAndNoHistoryYieldsEmptyResult() {
+        SavingGoalFeasibilityResponseDTO r = service.simulate(1L, null);
+
+        assertThat(r.paths()).isEqualTo(SavingGoalFeasibilityService.DEFAULT_PATHS);
+        assertThat(r.goals()).isEmpty();
+        assertThat(r.historyMonths()).isEqualTo(1);
+        assertThat(r.horizonMonths()).isZero();
+        assertThat(r.meanMonthlyNet()).isEqualByComparingTo("0.00");
+        assertThat(r.stdDevMonthlyNet()).isEqualByComparingTo("0.00");
+    }
+
+    // ============================================================
+    // == Deterministic outcomes
+    // ============================================================
+
+    @Test
+    void alreadyFundedGoalAlwaysSucceeds() {
+        activeGoals(goal(1, "500.00", "500.00", YearMonth.now().plusMonths(3)));
+
+        GoalFeasibilityDTO g = service.simulate(1L, 100).goals().get(0);
+
+        assertThat(g.successProbability()).isEqualTo(1.0);
+        assertThat(g.expectedShortfall()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void pastDeadlineKeepsWholeGapAsShortfall() {
+        lastMonthNet("1000.00");
+        activeGoals(goal(1, "300.00", "100.00", YearMonth.now().minusMonths(2)));
+
+        GoalFeasibilityDTO g = service.simulate(1L, 50).goals().get(0);
+
+        assertThat(g.successProbability()).isZero();
+        assertThat(g.expectedShortfall()).isEqualByComparingTo("200.00");
+    }
+
+    @Test
+    void exactFundingByDeadlineCountsAsSuccess() {
+        lastMonthNet("100.00");
+        // current month + 9 more = 10 contributions of 100.00
+        activeGoals(goal(1, "1000.00", "0.00", YearMonth.now().plusMonths(9)));
+
+        SavingGoalFeasibilityResponseDTO r = service.simulate(1L, 64);
+
+        assertThat(r.horizonMonths()).isEqualTo(10);
+        assertThat(r.goals().get(0).successProbability()).isEqualTo(1.0);
+        assertThat(r.goals().get(0).expectedShortfall()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void oneMonthShortLeavesRoundedShortfall() {
+        lastMonthNet("33.333");
+        activeGoals(goal(1, "100.00", "0.00", YearMonth.now().plusMonths(1)));
+
+        GoalFeasibilityDTO g = service.simulate(1L, 3).goals().get(0);
+
+        // 100 - 2 * 33.333 = 33.334 -> 33.33
+        assertThat(g.successProbability()).isZero();
+        assertThat(g.expectedShortfall()).isEqualByComparingTo("33.33");
+    }
+
+    // ============================================================
+    // == Result cache
+    // ============================================================
+
+    @Test
+    void cachedUntilFingerprintChanges() {
+        SavingGoalFeasibilityResponseDTO first = service.simulate(1L, 10);
+        assertThat(service.simulate(1L, 10)).isSameAs(first);
+        assertThat(service.simulate(1L, 20)).isNotSameAs(first);
+
+        when(goals.feasibilityFingerprint(1L)).thenReturn("v2");
+        assertThat(service.simulate(1L, 20).paths()).isEqualTo(20);
+        verify(goals, times(3)).findByUserIdAndStatus(1L, SavingGoalStatus.ACTIVE);
+    }
+
+    @Test
+    void cacheIsBoundedAndEvictable() {
+        service.simulate(1L, 10);
+        service.simulate(2L, 10);
+        service.simulate(3L, 10);
+        assertThat(service.cachedUsers()).isEqualTo(2);
+
+        service.evict(3L);
+        assertThat(service.cachedUsers()).isEqualTo(1);
+    }
+}
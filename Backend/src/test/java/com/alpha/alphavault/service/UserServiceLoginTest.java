@@ -0,0 +1,101 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.dto.user.UserResponseDTO;
+import com.alpha.alphavault.mapper.UserMapper;
+import com.alpha.alphavault.model.User;
+import com.alpha.alphavault.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** authenticateAsync: the hash check and the DB bookkeeping run on different pools. */
+class UserServiceLoginTest {
+
+    private final ExecutorService hashing = Executors.newSingleThreadExecutor(r -> new Thread(r, "password-hashing-1"));
+    private final List<String> txThreads = new CopyOnWriteArrayList<>();
+
+    private UserRepository repo;
+    private PasswordHashingService passwords;
+    private UserService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repo = mock(UserRepository.class);
+        passwords = mock(PasswordHashingService.class);
+        UserMapper mapper = mock(UserMapper.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> {
+            txThreads.add(Thread.currentThread().getName());
+            return inv.<TransactionCallback<Object>>getArgument(0).doInTransaction(null);
+        });
+        doAnswer(inv -> {
+            txThreads.add(Thread.currentThread().getName());
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+
+        User u = new User();
+        u.setId(7L);
+        u.setEmail("jane@example.com");
+        u.setPassword("stored");
+        when(repo.findByEmail("jane@example.com")).thenReturn(Optional.of(u));
+        when(repo.findById(7L)).thenReturn(Optional.of(u));
+        when(repo.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(mapper.toResponse(any(User.class))).thenReturn(mock(UserResponseDTO.class));
+
+        service = new UserService(repo, mapper, passwords, mock(EmailService.class), tx,
+                mock(AuthTokenService.class), mock(PeriodMetricsService.class), mock(SavingGoalFeasibilityService.class),
+                mock(PortfolioAnalyticsService.class), mock(ImagePipelineService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashing.shutdownNow();
+        service.shutdown();
+    }
+
+    private void verifyOnHashingPool(boolean matches) {
+        when(passwords.verifyAsync(anyString(), anyString())).thenAnswer(inv -> CompletableFuture.supplyAsync(
+                () -> new PasswordHashingService.Verification(matches, null), hashing));
+    }
+
+    @Test
+    void successfulLoginIsRecordedOffTheHashingPool() {
+        verifyOnHashingPool(true);
+
+        assertThat(service.authenticateAsync(" Jane@Example.com ", "pw").join()).isNotNull();
+
+        assertThat(txThreads).singleElement().asString().startsWith("login-io-");
+    }
+
+    @Test
+    void failedLoginIsRecordedOffTheHashingPool() {
+        verifyOnHashingPool(false);
+
+        assertThatThrownBy(() -> service.authenticateAsync("jane@example.com", "bad").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+
+        assertThat(txThreads).singleElement().asString().startsWith("login-io-");
+    }
+}
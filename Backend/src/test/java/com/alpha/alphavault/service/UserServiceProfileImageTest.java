@@ -0,0 +1,119 @@
+package com.alpha.alphavault.service;
+
+import com.alpha.alphavault.mapper.UserMapper;
+import com.alpha.alphavault.model.User;
+import com.alpha.alphavault.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** A replaced or deleted avatar is discarded after commit, unless another user still shows it. */
+class UserServiceProfileImageTest {
+
+    private static final String OLD = "11".repeat(32);
+    private static final String NEW = "22".repeat(32);
+
+    private UserRepository repo;
+    private ImagePipelineService images;
+    private UserService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(UserRepository.class);
+        images = mock(ImagePipelineService.class);
+        service = new UserService(repo, mock(UserMapper.class), mock(PasswordHashingService.class),
+                mock(EmailService.class), mock(TransactionTemplate.class), mock(AuthTokenService.class),
+                mock(PeriodMetricsService.class), mock(SavingGoalFeasibilityService.class),
+                mock(PortfolioAnalyticsService.class), images);
+
+        user = new User();
+        user.setId(7L);
+        user.setProfileImageUrl(url(OLD));
+        when(repo.findById(7L)).thenReturn(Optional.of(user));
+        when(repo.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static String url(String hash) {
+        return "/api/files/profile-images/" + hash;
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        syncs.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    @Test
+    void replacedImageIsDiscardedOnlyAfterCommit() {
+        when(repo.existsByProfileImageUrlContaining(OLD)).thenReturn(false);
+
+        service.updateProfileImage(7L, url(NEW));
+        verify(images, never()).discard(anyString());
+
+        commit();
+        verify(images).discard(OLD);
+    }
+
+    @Test
+    void imageAnotherUserStillShowsIsKept() {
+        when(repo.existsByProfileImageUrlContaining(OLD)).thenReturn(true);
+
+        service.updateProfileImage(7L, url(NEW));
+        commit();
+
+        verify(images, never()).discard(anyString());
+    }
+
+    @Test
+    void rollbackKeepsTheImage() {
+        service.updateProfileImage(7L, url(NEW));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        verify(repo, never()).existsByProfileImageUrlContaining(anyString());
+        verify(images, never()).discard(anyString());
+    }
+
+    @Test
+    void sameOrExternalImageIsNotReleased() {
+        service.updateProfileImage(7L, url(OLD));
+        user.setProfileImageUrl("https://example.com/me.jpg");
+        service.updateProfileImage(7L, url(NEW));
+        commit();
+
+        verify(repo, never()).existsByProfileImageUrlContaining(anyString());
+        verify(images, never()).discard(anyString());
+    }
+
+    @Test
+    void deletedUsersImageIsDiscarded() {
+        when(repo.existsByProfileImageUrlContaining(OLD)).thenReturn(false);
+
+        service.deleteUser(7L);
+        commit();
+
+        verify(images).discard(OLD);
+    }
+}
@@ -0,0 +1,196 @@
+package com.alpha.alphavault.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlobCacheTest {
+
+    @TempDir
+    Path dir;
+
+    /** Remote-like store (no localPath) that counts and can hold up downloads. */
+    private static final class CountingStore extends InMemoryBlobStore {
+        final AtomicInteger opens = new AtomicInteger();
+        volatile CountDownLatch gate;
+
+        @Override
+        public Optional<InputStream> open(String key) {
+            opens.incrementAndGet();
+            CountDownLatch g = gate;
+            if (g != null) {
+                try {
+                    g.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.open(key);
+        }
+    }
+
+    private CountingStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new CountingStore();
+        put("a", "aaaaaaaaaa");
+        put("b", "bbbbbbbbbb");
+        put("c", "cccccccccc");
+    }
+
+    private void put(String key, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        store.put(key, new ByteArrayInputStream(bytes), bytes.length, "text/plain");
+    }
+
+    private static String read(BlobCache.Handle h) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) h.size());
+        while (buf.hasRemaining() && h.channel().read(buf, buf.position()) > 0) { }
+        return new String(buf.array(), StandardCharsets.UTF_8);
+    }
+
+    private long cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    // ============================================================
+    // == Read-through
+    // ============================================================
+
+    @Test
+    void missDownloadsOnceThenServesTheCopy() throws IOException {
+        BlobCache cache = new BlobCache(store, dir.toString(), 1024);
+
+        try (BlobCache.Handle h = cache.open("a").orElseThrow()) {
+            assertThat(read(h)).isEqualTo("aaaaaaaaaa");
+            assertThat(h.storeFile()).isNull();
+        }
+        try (BlobCache.Handle h = cache.open("a").orElseThrow()) {
+            assertThat(read(h)).isEqualTo("aaaaaaaaaa");
+        }
+        assertThat(store.opens).hasValue(1);
+    }
+
+    @Test
+    void unknownKeyIsEmpty() throws IOException {
+        BlobCache cache = new BlobCache(store, dir.toString(), 1024);
+
+        assertThat(cache.open("missing")).isEmpty();
+    }
+
+    @Test
+    void concurrentMissesShareOneDownload() throws Exception {
+        BlobCache cache = new BlobCache(store, dir.toString(), 1024);
+        store.gate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> reads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                reads.add(pool.submit(() -> {
+                    try (BlobCache.Handle h = cache.open("b").orElseThrow()) {
+                        return read(h);
+                    }
+                }));
+            }
+            Thread.sleep(200);
+            store.gate.countDown();
+            for (Future<String> r : reads) assertThat(r.get(5, TimeUnit.SECONDS)).isEqualTo("bbbbbbbbbb");
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(store.opens).hasValue(1);
+    }
+
+    @Test
+    void localBackendHandsOutItsOwnFile(@TempDir Path root) throws IOException {
+        LocalBlobStore local = new LocalBlobStore(root);
+        local.put("x/y.txt", new ByteArrayInputStream("local".getBytes(StandardCharsets.UTF_8)), 5, "text/plain");
+        BlobCache cache = new BlobCache(local, dir.toString(), 1024);
+
+        try (BlobCache.Handle h = cache.open("x/y.txt").orElseThrow()) {
+            assertThat(read(h)).isEqualTo("local");
+            assertThat(h.storeFile()).isEqualTo(local.localPath("x/y.txt").orElseThrow());
+        }
+        assertThat(cache.open("x/missing.txt")).isEmpty();
+        assertThat(cachedFiles()).isZero();
+    }
+
+    // ============================================================
+    // == Eviction vs open handles
+    // ============================================================
+
+    @Test
+    void leastRecentlyUsedFileIsEvictedOverBudget() throws IOException {
+        BlobCache cache = new BlobCache(store, dir.toString(), 25); // room for two 10-byte blobs
+
+        cache.open("a").orElseThrow().close();
+        cache.open("b").orElseThrow().close();
+        cache.open("a").orElseThrow().close(); // b is now the eldest
+        cache.open("c").orElseThrow().close();
+
+        assertThat(cachedFiles()).isEqualTo(2);
+        cache.open("b").orElseThrow().close();
+        assertThat(store.opens).hasValue(4); // a, b, c, b again
+    }
+
+    @Test
+    void openHandleSurvivesEvictionOfItsFile() throws IOException {
+        BlobCache cache = new BlobCache(store, dir.toString(), 15); // room for one blob
+
+        try (BlobCache.Handle a = cache.open("a").orElseThrow()) {
+            cache.open("b").orElseThrow().close(); // admits b, evicts and deletes a's file
+            cache.evict("b");
+            assertThat(cachedFiles()).isZero();
+            assertThat(read(a)).isEqualTo("aaaaaaaaaa");
+        }
+    }
+
+    @Test
+    void adoptedFileIsServedWithoutDownload() throws IOException {
+        BlobCache cache = new BlobCache(store, dir.toString(), 1024);
+        Path tmp = cache.tempFile("upload-");
+        Files.writeString(tmp, "adopted");
+
+        cache.adopt("d", tmp);
+
+        try (BlobCache.Handle h = cache.open("d").orElseThrow()) {
+            assertThat(read(h)).isEqualTo("adopted");
+        }
+        assertThat(store.opens).hasValue(0);
+        assertThat(tmp).doesNotExist();
+    }
+
+    @Test
+    void restartReindexesTheWarmSet() throws IOException {
+        new BlobCache(store, dir.toString(), 1024).open("c").orElseThrow().close();
+
+        BlobCache restarted = new BlobCache(store, dir.toString(), 1024);
+        try (BlobCache.Handle h = restarted.open("c").orElseThrow()) {
+            assertThat(read(h)).isEqualTo("cccccccccc");
+        }
+        assertThat(store.opens).hasValue(1);
+    }
+}
@@ -0,0 +1,128 @@
+package com.alpha.alphavault.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** S3BlobStore against a real S3 implementation; skipped when no Docker daemon is available. */
+@Testcontainers(disabledWithoutDocker = true)
+class S3BlobStoreMinioTest {
+
+    private static final String BUCKET = "alphavault-test";
+    private static final int PART = 5 * 1024 * 1024;
+
+    @Container
+    static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2024-01-16T16-07-38Z");
+
+    static S3Client s3;
+    static S3BlobStore store;
+
+    @BeforeAll
+    static void setUp() {
+        var credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword()));
+        var config = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        URI endpoint = URI.create(MINIO.getS3URL());
+        s3 = S3Client.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                .serviceConfiguration(config).endpointOverride(endpoint).build();
+        S3Presigner presigner = S3Presigner.builder().region(Region.US_EAST_1).credentialsProvider(credentials)
+                .serviceConfiguration(config).endpointOverride(endpoint).build();
+        s3.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+        store = new S3BlobStore(s3, presigner, BUCKET, PART, null, Duration.ofMinutes(5));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (store != null) store.close();
+    }
+
+    private static byte[] random(int size) {
+        byte[] b = new byte[size];
+        new Random(size).nextBytes(b);
+        return b;
+    }
+
+    @Test
+    void singlePutRoundTrip() throws IOException {
+        byte[] data = random(1024);
+
+        store.put("small/a.bin", new ByteArrayInputStream(data), data.length, "application/octet-stream");
+
+        assertThat(store.exists("small/a.bin")).isTrue();
+        try (InputStream in = store.open("small/a.bin").orElseThrow()) {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void multipartRoundTripFromOneStream() throws IOException {
+        byte[] data = random(2 * PART + 12345);
+
+        store.put("big/b.bin", new ByteArrayInputStream(data), data.length, "application/octet-stream");
+
+        try (InputStream in = store.open("big/b.bin").orElseThrow()) {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void shortStreamAbortsTheMultipartUpload() {
+        byte[] data = random(PART + 10);
+
+        // Declares more bytes than the stream has: the second part cannot be read
+        assertThatThrownBy(() -> store.put("big/short.bin", new ByteArrayInputStream(data), 3L * PART, "application/octet-stream"))
+                .isInstanceOf(Exception.class);
+
+        assertThat(s3.listMultipartUploads(ListMultipartUploadsRequest.builder().bucket(BUCKET).build()).uploads())
+                .noneMatch(u -> u.key().equals("big/short.bin"));
+    }
+
+    @Test
+    void listDeleteAndMissingKeys() throws IOException {
+        store.put("list/1", new ByteArrayInputStream(new byte[]{1}), 1, "application/octet-stream");
+        store.put("list/2", new ByteArrayInputStream(new byte[]{2}), 1, "application/octet-stream");
+
+        assertThat(store.list("list/")).containsExactlyInAnyOrder("list/1", "list/2");
+        store.delete("list/1");
+        assertThat(store.exists("list/1")).isFalse();
+        assertThat(store.open("list/1")).isEmpty();
+        assertThat(store.list("list/")).containsExactly("list/2");
+    }
+
+    @Test
+    void presignedLinkServesTheBlob() throws Exception {
+        byte[] data = random(2048);
+        store.put("link/c.bin", new ByteArrayInputStream(data), data.length, "application/octet-stream");
+
+        URI uri = store.link("link/c.bin").orElseThrow().uri();
+        HttpResponse<byte[]> res = HttpClient.newHttpClient()
+                .send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(res.statusCode()).isEqualTo(200);
+        assertThat(res.body()).isEqualTo(data);
+    }
+}
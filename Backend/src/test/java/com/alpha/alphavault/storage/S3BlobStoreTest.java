@@ -0,0 +1,171 @@
+package com.alpha.alphavault.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** S3BlobStore against a stubbed client; S3BlobStoreMinioTest covers the real protocol. */
+class S3BlobStoreTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private S3Client s3;
+    private S3Presigner presigner;
+    private S3BlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        s3 = mock(S3Client.class);
+        presigner = mock(S3Presigner.class);
+        store = new S3BlobStore(s3, presigner, "bucket", 5 * MB, null, Duration.ZERO);
+    }
+
+    // ============================================================
+    // == Writes
+    // ============================================================
+
+    @Test
+    void smallBlobIsOnePut() throws IOException {
+        store.put("k", InputStream.nullInputStream(), 5 * MB, "image/jpeg");
+
+        ArgumentCaptor<PutObjectRequest> req = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3).putObject(req.capture(), any(RequestBody.class));
+        assertThat(req.getValue().bucket()).isEqualTo("bucket");
+        assertThat(req.getValue().key()).isEqualTo("k");
+        assertThat(req.getValue().contentLength()).isEqualTo(5 * MB);
+        verify(s3, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void largeBlobIsUploadedInParts() throws IOException {
+        when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("u1").build());
+        when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("e").build());
+
+        store.put("big", InputStream.nullInputStream(), 12 * MB, "application/octet-stream");
+
+        ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3, times(3)).uploadPart(parts.capture(), any(RequestBody.class));
+        assertThat(parts.getAllValues()).extracting(UploadPartRequest::contentLength)
+                .containsExactly(5 * MB, 5 * MB, 2 * MB);
+        assertThat(parts.getAllValues()).extracting(UploadPartRequest::partNumber).containsExactly(1, 2, 3);
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> done = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3).completeMultipartUpload(done.capture());
+        assertThat(done.getValue().uploadId()).isEqualTo("u1");
+        assertThat(done.getValue().multipartUpload().parts()).hasSize(3);
+    }
+
+    @Test
+    void failedPartAbortsTheUpload() {
+        when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("u2").build());
+        when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(SdkClientException.create("connection reset"));
+
+        assertThatThrownBy(() -> store.put("big", InputStream.nullInputStream(), 12 * MB, "application/octet-stream"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("big");
+
+        ArgumentCaptor<AbortMultipartUploadRequest> abort = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3).abortMultipartUpload(abort.capture());
+        assertThat(abort.getValue().uploadId()).isEqualTo("u2");
+        verify(s3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    // ============================================================
+    // == Reads
+    // ============================================================
+
+    @Test
+    void missingKeyIsEmptyOrFalse() throws IOException {
+        when(s3.getObject(any(GetObjectRequest.class))).thenThrow(NoSuchKeyException.builder().build());
+        when(s3.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(404).build());
+
+        assertThat(store.open("nope")).isEmpty();
+        assertThat(store.exists("nope")).isFalse();
+    }
+
+    @Test
+    void otherFailuresSurfaceAsIOException() {
+        when(s3.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(403).message("denied").build());
+
+        assertThatThrownBy(() -> store.exists("k")).isInstanceOf(IOException.class).hasMessageContaining("denied");
+    }
+
+    // ============================================================
+    // == Links
+    // ============================================================
+
+    @Test
+    void noLinkWithoutPublicUrlOrPresignTtl() {
+        assertThat(store.link("k")).isEmpty();
+    }
+
+    @Test
+    void publicBaseUrlNeverExpires() {
+        S3BlobStore cdn = new S3BlobStore(s3, presigner, "bucket", 5 * MB, "https://cdn.example.com", Duration.ZERO);
+
+        BlobStore.BlobLink link = cdn.link("profile-images/h/128.jpg").orElseThrow();
+
+        assertThat(link.uri()).isEqualTo(URI.create("https://cdn.example.com/profile-images/h/128.jpg"));
+        assertThat(link.validFor()).isNull();
+    }
+
+    @Test
+    void presignedLinkCarriesItsTtl() throws Exception {
+        PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+        when(presigned.url()).thenReturn(new URL("https://bucket.s3.example.com/k?X-Amz-Signature=abc"));
+        when(presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+        S3BlobStore signed = new S3BlobStore(s3, presigner, "bucket", 5 * MB, null, Duration.ofMinutes(10));
+
+        BlobStore.BlobLink link = signed.link("k").orElseThrow();
+
+        assertThat(link.uri().toString()).contains("X-Amz-Signature");
+        assertThat(link.validFor()).isEqualTo(Duration.ofMinutes(10));
+        ArgumentCaptor<GetObjectPresignRequest> req = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+        verify(presigner).presignGetObject(req.capture());
+        assertThat(req.getValue().signatureDuration()).isEqualTo(Duration.ofMinutes(10));
+        assertThat(req.getValue().getObjectRequest().key()).isEqualTo("k");
+    }
+
+    @Test
+    void listReturnsKeysUnderPrefix() throws IOException {
+        when(s3.listObjectsV2Paginator(any(ListObjectsV2Request.class))).thenAnswer(inv -> {
+            S3Client client = mock(S3Client.class);
+            when(client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key("p/1").build(), S3Object.builder().key("p/2").build())
+                    .isTruncated(false).build());
+            return new ListObjectsV2Iterable(client, inv.getArgument(0));
+        });
+
+        assertThat(store.list("p/")).isEqualTo(List.of("p/1", "p/2"));
+    }
+}
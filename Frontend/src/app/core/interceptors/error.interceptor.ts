@@ -1,33 +1,48 @@
 import { HttpErrorResponse, HttpInterceptorFn } from '@angular/common/http';
 import { inject } from '@angular/core';
 import { Router } from '@angular/router';
-import { catchError, throwError } from 'rxjs';
+import { catchError, switchMap, throwError } from 'rxjs';
 
 import { AuthService } from '../services/auth.service';
 
 /**
  * HTTP Error Interceptor
  * Handles 401 (Unauthorized) and 403 (Forbidden) errors by logging out the user
- * and redirecting to the login page.
+ * and redirecting to the login page. A 401 is first retried once with a fresh
+ * access token when a refresh token is available (access tokens are short-lived).
  */
 export const errorInterceptor: HttpInterceptorFn = (req, next) => {
   const authService = inject(AuthService);
   const router = inject(Router);
 
+  const endSession = (error: HttpErrorResponse) => {
+    // Clear authentication data
+    authService.logout();
+
+    // Redirect to login page
+    router.navigate(['/auth/login'], {
+      queryParams: {
+        returnUrl: router.url,
+        expired: 'true'
+      }
+    });
+    return throwError(() => error);
+  };
+
   return next(req).pipe(
     catchError((error: HttpErrorResponse) => {
+      const isAuthCall = req.url.includes('/auth/');
+
+      if (error.status === 401 && !isAuthCall && authService.getRefreshToken()) {
+        return authService.refresh().pipe(
+          catchError(() => endSession(error)),
+          switchMap(token => next(req.clone({ setHeaders: { Authorization: `Bearer ${token}` } })))
+        );
+      }
+
       // Handle authentication errors
-      if (error.status === 401 || error.status === 403) {
-        // Clear authentication data
-        authService.logout();
-        
-        // Redirect to login page
-        router.navigate(['/auth/login'], {
-          queryParams: { 
-            returnUrl: router.url,
-            expired: 'true'
-          }
-        });
+      if ((error.status === 401 || error.status === 403) && !isAuthCall) {
+        return endSession(error);
       }
 
       // Re-throw the error so components can still handle it
@@ -35,4 +50,3 @@ export const errorInterceptor: HttpInterceptorFn = (req, next) => {
     })
   );
 };
-
@@ -1,6 +1,6 @@
 import { HttpClient } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { BehaviorSubject, Observable } from 'rxjs';
+import { BehaviorSubject, Observable, finalize, map, shareReplay } from 'rxjs';
 
 import { environment } from '../../../environments/environment';
 import {
@@ -12,7 +12,8 @@ import {
     LoginResponseDTO,
     PasswordResetResponseDTO,
     RegisterResponseDTO,
-    ResetPasswordRequestDTO
+    ResetPasswordRequestDTO,
+    TokenResponseDTO
 } from '../../models/auth.model';
 import { UserRequestDTO } from '../../models/user.model';
 
@@ -22,6 +23,8 @@ export class AuthService {
   private base = `${environment.apiUrl}/auth`;
   private userIdSubject = new BehaviorSubject<number | null>(this.getUserId());
   userId$ = this.userIdSubject.asObservable();
+  /** In-flight refresh, shared so concurrent 401s spend the refresh token once */
+  private refreshing$: Observable<string> | null = null;
 
   constructor(private http: HttpClient) {}
 
@@ -35,9 +38,18 @@ export class AuthService {
     return id ? parseInt(id, 10) : null;
   }
 
-  /** Clears all auth information */
+  getRefreshToken(): string | null {
+    return localStorage.getItem('refreshToken');
+  }
+
+  /** Clears all auth information (and ends the server-side session) */
   logout(): void {
+    const refreshToken = this.getRefreshToken();
+    if (refreshToken) {
+      this.http.post(`${this.base}/logout`, { refreshToken }).subscribe({ error: () => {} });
+    }
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('userId');
     localStorage.removeItem('authType');
     this.userIdSubject.next(0);
@@ -48,6 +60,24 @@ export class AuthService {
     return this.http.post<ApiResponse<LoginResponseDTO>>(`${this.base}/login`, dto);
   }
 
+  /** Exchanges the refresh token for a new token pair; emits the new access token */
+  refresh(): Observable<string> {
+    if (!this.refreshing$) {
+      this.refreshing$ = this.http
+        .post<ApiResponse<TokenResponseDTO>>(`${this.base}/refresh`, { refreshToken: this.getRefreshToken() })
+        .pipe(
+          map(res => {
+            localStorage.setItem('token', res.data.token);
+            localStorage.setItem('refreshToken', res.data.refreshToken);
+            return res.data.token;
+          }),
+          finalize(() => (this.refreshing$ = null)),
+          shareReplay(1)
+        );
+    }
+    return this.refreshing$;
+  }
+
   /** Register using AuthController endpoint */
   register(dto: UserRequestDTO): Observable<ApiResponse<RegisterResponseDTO>> {
     return this.http.post<ApiResponse<RegisterResponseDTO>>(`${this.base}/register`, dto);
@@ -75,9 +105,9 @@ export class AuthService {
     const hasToken = token !== null;
     const hasUserId = this.getUserId() !== null;
     
-    // If we have a token, validate it's not expired
+    // If we have a token, validate it's not expired (an expired one is renewed on the next 401)
     if (hasToken && token) {
-      if (!this.isTokenValid(token)) {
+      if (!this.isTokenValid(token) && !this.getRefreshToken()) {
         // Token is expired, clear auth data
         this.logout();
         return false;
@@ -132,8 +162,11 @@ export class AuthService {
   }
 
   /** Store authentication data */
-  setAuthData(token: string, userId: number): void {
+  setAuthData(token: string, userId: number, refreshToken?: string): void {
     localStorage.setItem('token', token);
+    if (refreshToken) {
+      localStorage.setItem('refreshToken', refreshToken);
+    }
     localStorage.setItem('userId', userId.toString());
     this.userIdSubject.next(userId);
   }
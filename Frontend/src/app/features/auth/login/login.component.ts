@@ -318,7 +318,7 @@ export class LoginComponent implements OnInit, OnDestroy {
     
     // Store token if found
     if (foundToken) {
-      this.authService.setAuthData(foundToken, userData.id);
+      this.authService.setAuthData(foundToken, userData.id, responseData.data?.refreshToken);
     } else {
       // For session-based authentication, just store user data
       localStorage.setItem('authType', 'session');
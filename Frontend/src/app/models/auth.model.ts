@@ -58,11 +58,19 @@ export interface LoginResponseDTO {
   updatedAt: string;
   // Authentication fields
   token?: string;
+  refreshToken?: string;
   tokenType?: string;
   expiresIn?: number;
   session?: boolean; // For cookie-based session authentication
 }
 
+/** Refresh response: new access token + the next refresh token */
+export interface TokenResponseDTO {
+  token: string;
+  refreshToken: string;
+  expiresIn: number;
+}
+
 /** Registration response */
 export interface RegisterResponseDTO {
   user: any; // UserResponseDTO from backend